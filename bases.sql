@@ -1,4 +1,18 @@
 -- Bloque anónimo para eliminar objetos si existen
+BEGIN
+  EXECUTE IMMEDIATE 'DROP TABLE CargasProductos CASCADE CONSTRAINTS';
+EXCEPTION
+  WHEN OTHERS THEN NULL;
+END;
+/
+
+BEGIN
+  EXECUTE IMMEDIATE 'DROP TABLE DiarioVentas CASCADE CONSTRAINTS';
+EXCEPTION
+  WHEN OTHERS THEN NULL;
+END;
+/
+
 BEGIN
   EXECUTE IMMEDIATE 'DROP TABLE DetallesVenta CASCADE CONSTRAINTS';
 EXCEPTION
@@ -160,7 +174,11 @@ CREATE TYPE DetallesVentaType AS OBJECT (
     cantidad INTEGER,
     subtotal NUMBER(10,2),
     venta REF VentaType,
-    producto REF ProductoType
+    producto REF ProductoType,
+    -- Producto y categoría al momento de la venta: no cambian aunque el
+    -- producto se modifique o se elimine después
+    idProducto INTEGER,
+    categoria VARCHAR(50)
 );
 /
 
@@ -205,8 +223,37 @@ CREATE TABLE Ventas OF VentaType (
   PRIMARY KEY(idVenta)
 );
 
--- Tabla DetallesVenta
-CREATE TABLE DetallesVenta OF DetallesVentaType;
+-- Tabla DetallesVenta. Las referencias van acotadas a su tabla: Oracle no
+-- permite indexar una columna REF sin SCOPE (ORA-02327)
+CREATE TABLE DetallesVenta OF DetallesVentaType (
+  SCOPE FOR (venta) IS Ventas,
+  SCOPE FOR (producto) IS Productos
+);
+
+-- ÍNDICES (los revisa IndexRegistry al arrancar la aplicación)
+
+-- Detalles de una venta (findVenta, eliminar venta)
+CREATE INDEX detallesventa_venta_idx ON DetallesVenta(venta);
+
+-- Ventas de un cliente
+CREATE INDEX ventas_usuario_idx ON Ventas(usuario);
+
+-- Avance de las cargas masivas de productos: posición en bytes del archivo
+-- hasta donde se confirmaron filas, para reanudar tras una falla
+CREATE TABLE CargasProductos (
+  archivo VARCHAR2(500) PRIMARY KEY,
+  desplazamiento NUMBER(19) NOT NULL,
+  filas NUMBER(19) NOT NULL,
+  actualizado DATE NOT NULL
+);
+
+-- Avance del diario de ventas de cada caja: número de la última venta del
+-- diario ya registrada en Ventas, confirmado en la misma transacción
+CREATE TABLE DiarioVentas (
+  diario VARCHAR2(36) PRIMARY KEY,
+  secuencia NUMBER(19) NOT NULL,
+  actualizado DATE NOT NULL
+);
 
 -- INSERTS
 
@@ -255,18 +302,18 @@ INSERT INTO Ventas VALUES (VentaType(1004, DATE '2023-01-19', 399.99, 2));
 
 -- Insertar DetallesVenta
 INSERT INTO DetallesVenta
-    SELECT 10005, 1, 399.99,REF(v), REF(p) FROM Ventas v, Productos p WHERE v.idVenta = 1000 AND p.idProducto = 100;
+    SELECT 10005, 1, 399.99,REF(v), REF(p), p.idProducto, p.categorias FROM Ventas v, Productos p WHERE v.idVenta = 1000 AND p.idProducto = 100;
 /
 
 INSERT INTO DetallesVenta
-    SELECT 10006, 1, 499.99,REF(v), REF(p) FROM Ventas v, Productos p WHERE v.idVenta = 1001 AND p.idProducto = 101;
+    SELECT 10006, 1, 499.99,REF(v), REF(p), p.idProducto, p.categorias FROM Ventas v, Productos p WHERE v.idVenta = 1001 AND p.idProducto = 101;
 /
 INSERT INTO DetallesVenta
-    SELECT 10007, 1, 599.99,REF(v), REF(p) FROM Ventas v, Productos p WHERE v.idVenta = 1002 AND p.idProducto = 102;
+    SELECT 10007, 1, 599.99,REF(v), REF(p), p.idProducto, p.categorias FROM Ventas v, Productos p WHERE v.idVenta = 1002 AND p.idProducto = 102;
 /
 INSERT INTO DetallesVenta
-    SELECT 10008, 1, 699.99,REF(v), REF(p) FROM Ventas v, Productos p WHERE v.idVenta = 1003 AND p.idProducto = 103;
+    SELECT 10008, 1, 699.99,REF(v), REF(p), p.idProducto, p.categorias FROM Ventas v, Productos p WHERE v.idVenta = 1003 AND p.idProducto = 103;
 /
 INSERT INTO DetallesVenta
-    SELECT 10009, 1, 799.99,REF(v), REF(p) FROM Ventas v, Productos p WHERE v.idVenta = 1004 AND p.idProducto = 104;
+    SELECT 10009, 1, 799.99,REF(v), REF(p), p.idProducto, p.categorias FROM Ventas v, Productos p WHERE v.idVenta = 1004 AND p.idProducto = 104;
 /
@@ -0,0 +1,58 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.bench;
+
+/**
+ *
+ * @author dard
+ */
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punto de entrada de {@code benchmarks.jar}.
+ *
+ * <p>
+ * Acepta las mismas opciones que el lanzador de JMH, pero si no se indica
+ * otra cosa guarda los resultados en {@code jmh-result.json}, para poder
+ * comparar versiones con cualquier visor de JMH o con un script.</p>
+ *
+ * <p>
+ * Ejemplos:</p>
+ * <pre>
+ * java -jar target/benchmarks.jar
+ * java -jar target/benchmarks.jar SaleCreation -rff venta-1.1.json
+ * java -jar target/benchmarks.jar -f 1 -wi 2 -i 3 -r 1s -w 1s
+ * </pre>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class BenchmarkMain {
+
+    /** Archivo de resultados por defecto */
+    static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp()) {
+            cmd.showHelp();
+            return;
+        }
+        if (cmd.shouldList()) {
+            new Runner(cmd).list();
+            return;
+        }
+
+        new Runner(new OptionsBuilder()
+                .parent(cmd)
+                .resultFormat(cmd.getResultFormat().orElse(ResultFormatType.JSON))
+                .result(cmd.getResult().orElse(DEFAULT_RESULT_FILE))
+                .build())
+                .run();
+    }
+}
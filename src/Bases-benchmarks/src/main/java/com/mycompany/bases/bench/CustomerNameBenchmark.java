@@ -0,0 +1,106 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.bench;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.config.DatabaseConfig;
+import com.mycompany.bases.services.UserService;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resolución de nombres de cliente con {@link UserService}, como en el
+ * listado de ventas (una página de {@link DatabaseConfig#VENTAS_PAGE_SIZE}
+ * ventas resuelta en lote) y en la consulta de una venta (un solo cliente).
+ *
+ * <p>
+ * Con pocos clientes todo se responde desde la caché de nombres; con
+ * muchos más clientes que entradas en la caché casi cada página va a
+ * MongoDB con un {@code $in}.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerNameBenchmark {
+
+    private static final int PAGES = 1 << 8;
+
+    /**
+     * Consultas individuales distintas; más que entradas en la caché para
+     * que el caso de muchos clientes no se responda siempre desde memoria.
+     */
+    private static final int SINGLES = 1 << 16;
+
+    /** Clientes registrados */
+    @Param({"1000", "200000"})
+    int clientes;
+
+    private UserService users;
+    private final List<List<Integer>> paginas = new ArrayList<>(PAGES);
+    private int[] sueltos;
+    private int next;
+
+    @Setup
+    public void setup() {
+        FakeMongo mongo = new FakeMongo();
+        List<Document> docs = new ArrayList<>(clientes);
+        for (long id = 1; id <= clientes; id++) {
+            docs.add(new Document("idCliente", id)
+                    .append("nombre", "Cliente " + id)
+                    .append("email", "cliente" + id + "@example.com")
+                    .append("edad", 18 + (int) (id % 60))
+                    .append("fechaRegistro", new Date()));
+        }
+        mongo.insert("usuarios", docs);
+        users = new UserService(mongo.database());
+
+        // Las páginas repiten clientes, como en un registro de ventas real
+        SplittableRandom random = new SplittableRandom(7);
+        int pageSize = DatabaseConfig.VENTAS_PAGE_SIZE;
+        for (int i = 0; i < PAGES; i++) {
+            List<Integer> pagina = new ArrayList<>(pageSize);
+            for (int j = 0; j < pageSize; j++) {
+                pagina.add(1 + random.nextInt(clientes));
+            }
+            paginas.add(pagina);
+        }
+        sueltos = random.ints(SINGLES, 1, clientes + 1).toArray();
+    }
+
+    @Benchmark
+    public Map<Integer, String> paginaDeVentas() {
+        return users.findUserNamesByIds(paginas.get(next++ & (PAGES - 1)));
+    }
+
+    @Benchmark
+    public String ventaIndividual() {
+        return users.findUserNameById(sueltos[next++ & (SINGLES - 1)]);
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.bench;
+
+/**
+ *
+ * @author dard
+ */
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+/**
+ * Doble en memoria de MongoDB para las pruebas de rendimiento.
+ *
+ * <p>
+ * {@link #database()} devuelve un {@link MongoDatabase} hecho con
+ * {@link Proxy} que atiende lo que usa {@code UserService} para resolver
+ * nombres: {@code find} con filtros de igualdad o {@code $in}, y el recorrido
+ * del resultado. Los filtros de igualdad y {@code $in} usan un índice hash por
+ * campo, como haría el servidor con el índice de {@code idCliente}. La
+ * proyección se ignora: se devuelven los documentos completos.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+final class FakeMongo {
+
+    private final Map<String, Coleccion> colecciones = new ConcurrentHashMap<>();
+
+    /**
+     * Agrega documentos a una colección.
+     *
+     * @param collection nombre de la colección
+     * @param docs documentos
+     */
+    void insert(String collection, Collection<Document> docs) {
+        coleccion(collection).insert(docs);
+    }
+
+    MongoDatabase database() {
+        return proxy(MongoDatabase.class, (method, args) -> method.equals("getCollection")
+                ? coleccion((String) args[0]).proxy
+                : null);
+    }
+
+    private Coleccion coleccion(String name) {
+        return colecciones.computeIfAbsent(name, Coleccion::new);
+    }
+
+    /**
+     * Documentos de una colección con sus índices hash, que se construyen
+     * al primer filtro sobre cada campo.
+     */
+    private static final class Coleccion {
+
+        private final List<Document> docs = new CopyOnWriteArrayList<>();
+        private final Map<String, Map<Object, List<Document>>> indices = new ConcurrentHashMap<>();
+        private final MongoCollection<Document> proxy;
+
+        @SuppressWarnings("unchecked")
+        Coleccion(String name) {
+            this.proxy = proxy(MongoCollection.class, (method, args) -> switch (method) {
+                case "find" ->
+                    find(args != null && args.length > 0 && args[0] instanceof Bson filter ? filter : null);
+                case "countDocuments", "estimatedDocumentCount" ->
+                    (long) docs.size();
+                case "getNamespace" ->
+                    null;
+                default ->
+                    throw new UnsupportedOperationException("FakeMongo no implementa " + method + " (" + name + ")");
+            });
+        }
+
+        void insert(Collection<Document> nuevos) {
+            docs.addAll(nuevos);
+            indices.clear();
+        }
+
+        private FindIterable<Document> find(Bson filter) {
+            BsonDocument query = filter == null ? new BsonDocument()
+                    : filter.toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+            int[] limit = {0};
+            FindIterable<?>[] self = new FindIterable<?>[1];
+            FindIterable<Document> iterable = proxy(FindIterable.class, (method, args) -> switch (method) {
+                case "limit" -> {
+                    limit[0] = (Integer) args[0];
+                    yield self[0];
+                }
+                case "iterator", "cursor" ->
+                    cursor(matches(query, limit[0]).iterator());
+                case "first" -> {
+                    List<Document> found = matches(query, 1);
+                    yield found.isEmpty() ? null : found.get(0);
+                }
+                case "forEach" -> {
+                    @SuppressWarnings("unchecked")
+                    Consumer<Document> action = (Consumer<Document>) args[0];
+                    matches(query, limit[0]).forEach(action);
+                    yield null;
+                }
+                case "into" -> {
+                    @SuppressWarnings("unchecked")
+                    Collection<Document> target = (Collection<Document>) args[0];
+                    target.addAll(matches(query, limit[0]));
+                    yield target;
+                }
+                // projection, sort, batchSize y demás solo configuran la consulta
+                default ->
+                    self[0];
+            });
+            self[0] = iterable;
+            return iterable;
+        }
+
+        private List<Document> matches(BsonDocument query, int limit) {
+            int max = limit > 0 ? limit : Integer.MAX_VALUE;
+            List<Document> result = new ArrayList<>();
+
+            if (query.size() == 1) {
+                String field = query.getFirstKey();
+                BsonValue condition = query.get(field);
+                List<BsonValue> keys = null;
+                if (!condition.isDocument()) {
+                    keys = List.of(condition);
+                } else if (condition.asDocument().size() == 1 && condition.asDocument().containsKey("$in")) {
+                    keys = condition.asDocument().getArray("$in").getValues();
+                }
+                if (keys != null) {
+                    Map<Object, List<Document>> index = indices.computeIfAbsent(field, this::buildIndex);
+                    for (BsonValue key : keys) {
+                        for (Document doc : index.getOrDefault(normalize(key), List.of())) {
+                            if (result.size() == max) {
+                                return result;
+                            }
+                            result.add(doc);
+                        }
+                    }
+                    return result;
+                }
+            }
+
+            for (Document doc : docs) {
+                if (result.size() == max) {
+                    break;
+                }
+                if (matches(doc, query)) {
+                    result.add(doc);
+                }
+            }
+            return result;
+        }
+
+        private Map<Object, List<Document>> buildIndex(String field) {
+            Map<Object, List<Document>> index = new ConcurrentHashMap<>();
+            for (Document doc : docs) {
+                Object value = doc.get(field);
+                if (value != null) {
+                    index.computeIfAbsent(normalize(value), k -> new ArrayList<>()).add(doc);
+                }
+            }
+            return index;
+        }
+
+        private static boolean matches(Document doc, BsonDocument query) {
+            for (String field : query.keySet()) {
+                BsonValue condition = query.get(field);
+                Object value = doc.get(field);
+                if (!condition.isDocument() || !condition.asDocument().getFirstKey().startsWith("$")) {
+                    if (!normalize(condition).equals(normalize(value))) {
+                        return false;
+                    }
+                    continue;
+                }
+                for (Map.Entry<String, BsonValue> op : condition.asDocument().entrySet()) {
+                    boolean ok = switch (op.getKey()) {
+                        case "$in" ->
+                            op.getValue().asArray().getValues().stream()
+                            .anyMatch(v -> normalize(v).equals(normalize(value)));
+                        case "$exists" ->
+                            op.getValue().asBoolean().getValue() == doc.containsKey(field);
+                        case "$gt", "$gte", "$lt", "$lte" -> {
+                            int cmp = compare(normalize(value), normalize(op.getValue()));
+                            yield switch (op.getKey()) {
+                                case "$gt" ->
+                                    cmp > 0;
+                                case "$gte" ->
+                                    cmp >= 0;
+                                case "$lt" ->
+                                    cmp < 0;
+                                default ->
+                                    cmp <= 0;
+                            };
+                        }
+                        default ->
+                            throw new UnsupportedOperationException("FakeMongo no implementa " + op.getKey());
+                    };
+                    if (!ok) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Valor comparable entre documentos y filtros: los números enteros se
+     * llevan a {@code Long}, como hace el servidor al comparar int32 con
+     * int64.
+     */
+    private static Object normalize(Object value) {
+        if (value instanceof BsonValue bson) {
+            if (bson.isNumber()) {
+                value = bson.isDouble() ? (Object) bson.asDouble().getValue() : bson.asNumber().longValue();
+            } else if (bson.isString()) {
+                value = bson.asString().getValue();
+            } else if (bson.isObjectId()) {
+                value = bson.asObjectId().getValue();
+            } else if (bson.isBoolean()) {
+                value = bson.asBoolean().getValue();
+            } else if (bson.isNull()) {
+                value = null;
+            }
+        }
+        if (value instanceof Number n && !(value instanceof Double d && d != Math.rint(d))) {
+            return n.longValue();
+        }
+        return value;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == b ? 0 : (a == null ? -1 : 1);
+        }
+        if (a instanceof Number x && b instanceof Number y) {
+            return Double.compare(x.doubleValue(), y.doubleValue());
+        }
+        return ((Comparable) a).compareTo(b);
+    }
+
+    private static <T> MongoCursor<T> cursor(Iterator<T> it) {
+        @SuppressWarnings("unchecked")
+        MongoCursor<T> cursor = proxy(MongoCursor.class, (method, args) -> switch (method) {
+            case "hasNext" ->
+                it.hasNext();
+            case "next" ->
+                it.next();
+            case "tryNext" ->
+                it.hasNext() ? it.next() : null;
+            case "available" ->
+                it.hasNext() ? 1 : 0;
+            default ->
+                null;
+        });
+        return cursor;
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+
+        Object invoke(String method, Object[] args);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static <T> T proxy(Class type, Handler handler) {
+        @SuppressWarnings("unchecked")
+        T instance = (T) Proxy.newProxyInstance(FakeMongo.class.getClassLoader(), new Class<?>[]{type},
+                (self, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return switch (method.getName()) {
+                            case "equals" ->
+                                self == args[0];
+                            case "hashCode" ->
+                                System.identityHashCode(self);
+                            default ->
+                                type.getSimpleName();
+                        };
+                    }
+                    Object result = handler.invoke(method.getName(), args);
+                    if (result == null && method.getReturnType() == boolean.class) {
+                        return false;
+                    }
+                    if (result == null && method.getReturnType() == int.class) {
+                        return 0;
+                    }
+                    return result;
+                });
+        return instance;
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.bench;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.config.DatabaseConfig;
+import com.mycompany.bases.db.ConnectionPool;
+import com.mycompany.bases.models.Producto;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Doble en memoria de Oracle para las pruebas de rendimiento.
+ *
+ * <p>
+ * Entrega conexiones JDBC hechas con {@link Proxy} que reconocen las
+ * sentencias que emiten {@code ProductService} y {@code SaleService} y las
+ * responden desde un catálogo fijo de productos, sin red ni servidor. El
+ * código medido (pool, caché de sentencias, caché de productos, armado de
+ * la venta) es el de la aplicación; solo el servidor se sustituye.</p>
+ *
+ * <p>
+ * Sentencias reconocidas: la consulta de precios con {@code IN}, la lectura
+ * de un producto por ID, las páginas de productos por ID, el alta de la
+ * venta con {@code RETURNING}, la lectura de su REF y el lote de detalles.
+ * Cualquier otra consulta devuelve un resultado vacío.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+final class FakeOracle {
+
+    static final String[] CATEGORIAS = {"general", "deportivo", "playa", "casual"};
+    static final String[] COLORES = {"Negro", "Blanco", "Azul", "Rojo", "Verde", "Gris"};
+    static final String[] TALLAS = {"XS", "S", "M", "L", "XL"};
+
+    private static final String[] PRODUCT_COLUMNS = {
+        "IDPRODUCTO", "NOMBRE", "PRECIO", "COLOR", "TALLA", "CATEGORIAS"};
+
+    /** Productos por ID; el índice 0 no se usa */
+    private final Producto[] productos;
+    private final Ref[] refs;
+    private final AtomicInteger ventaSeq = new AtomicInteger();
+
+    /**
+     * Respuesta de un método del proxy; null equivale al valor por defecto
+     * del tipo de retorno.
+     */
+    @FunctionalInterface
+    private interface Handler {
+
+        Object invoke(String method, Object[] args) throws SQLException;
+    }
+
+    /**
+     * Crea el catálogo con IDs consecutivos desde 1.
+     *
+     * @param productCount número de productos
+     */
+    FakeOracle(int productCount) {
+        this.productos = new Producto[productCount + 1];
+        this.refs = new Ref[productCount + 1];
+        for (int id = 1; id <= productCount; id++) {
+            productos[id] = new Producto(id, "Prenda " + id, 100 + (id % 900),
+                    COLORES[id % COLORES.length], TALLAS[id % TALLAS.length],
+                    CATEGORIAS[id % CATEGORIAS.length]);
+            refs[id] = ref("Productos", id);
+        }
+    }
+
+    int productCount() {
+        return productos.length - 1;
+    }
+
+    /**
+     * Pool de la aplicación sobre conexiones de este doble, con los mismos
+     * parámetros de caché de sentencias que en producción.
+     *
+     * @param size conexiones del pool (mínimo y máximo)
+     * @return el pool abierto
+     * @throws SQLException no ocurre con el doble
+     */
+    ConnectionPool pool(int size) throws SQLException {
+        return new ConnectionPool(this::connection, size, size,
+                DatabaseConfig.ORACLE_POOL_BORROW_TIMEOUT_MS,
+                DatabaseConfig.ORACLE_POOL_IDLE_TIMEOUT_MS,
+                DatabaseConfig.ORACLE_POOL_MAX_LIFETIME_MS,
+                DatabaseConfig.ORACLE_POOL_VALIDATION_TIMEOUT_S,
+                DatabaseConfig.ORACLE_POOL_HOUSEKEEPING_MS,
+                DatabaseConfig.ORACLE_STATEMENT_CACHE_SIZE);
+    }
+
+    Connection connection() {
+        boolean[] autoCommit = {true};
+        boolean[] closed = {false};
+        return proxy(Connection.class, (method, args) -> switch (method) {
+            case "prepareStatement", "prepareCall" ->
+                statement((String) args[0]);
+            case "getAutoCommit" ->
+                autoCommit[0];
+            case "setAutoCommit" -> {
+                autoCommit[0] = (Boolean) args[0];
+                yield null;
+            }
+            case "isValid" ->
+                !closed[0];
+            case "isClosed" ->
+                closed[0];
+            case "close" -> {
+                closed[0] = true;
+                yield null;
+            }
+            default ->
+                null;
+        });
+    }
+
+    /**
+     * Sentencia preparada o llamada PL/SQL; ambas se atienden con el mismo
+     * proxy, que implementa {@link CallableStatement}.
+     */
+    private CallableStatement statement(String sql) {
+        int paramCount = (int) sql.chars().filter(c -> c == '?').count();
+        Object[] params = new Object[paramCount];
+        int[] out = new int[1];
+        int[] batch = new int[1];
+        return proxy(CallableStatement.class, (method, args) -> {
+            if (method.startsWith("set") && args != null && args.length == 2 && args[0] instanceof Integer index) {
+                params[index - 1] = args[1];
+                return null;
+            }
+            return switch (method) {
+                case "execute" -> {
+                    if (sql.contains("INSERT INTO Ventas")) {
+                        out[0] = ventaSeq.incrementAndGet();
+                    }
+                    yield false;
+                }
+                case "getInt" ->
+                    out[0];
+                case "executeQuery" ->
+                    query(sql, params);
+                case "executeUpdate" ->
+                    1;
+                case "addBatch" -> {
+                    batch[0]++;
+                    yield null;
+                }
+                case "executeBatch" -> {
+                    int[] counts = new int[batch[0]];
+                    Arrays.fill(counts, 1);
+                    batch[0] = 0;
+                    yield counts;
+                }
+                case "clearBatch" -> {
+                    batch[0] = 0;
+                    yield null;
+                }
+                case "clearParameters" -> {
+                    Arrays.fill(params, null);
+                    yield null;
+                }
+                default ->
+                    null;
+            };
+        });
+    }
+
+    private ResultSet query(String sql, Object[] params) {
+        List<Object[]> rows = new ArrayList<>();
+        if (sql.contains("FROM Productos p WHERE p.idProducto IN")) {
+            Set<Integer> ids = new LinkedHashSet<>();
+            for (Object param : params) {
+                ids.add((Integer) param);
+            }
+            for (int id : ids) {
+                if (exists(id)) {
+                    Producto p = productos[id];
+                    rows.add(new Object[]{id, refs[id], p.precio(), p.nombre(), p.categoria()});
+                }
+            }
+            return resultSet(new String[]{"IDPRODUCTO", "REF(P)", "PRECIO", "NOMBRE", "CATEGORIAS"}, rows);
+        }
+        if (sql.contains("WHERE idProducto = ?")) {
+            int id = (Integer) params[0];
+            if (exists(id)) {
+                rows.add(row(productos[id]));
+            }
+        } else if (sql.contains("WHERE idProducto > ?")) {
+            int after = Math.max(0, (Integer) params[0]);
+            int limit = (Integer) params[1];
+            for (int id = after + 1; id < productos.length && rows.size() < limit; id++) {
+                rows.add(row(productos[id]));
+            }
+        } else if (sql.contains("SELECT REF(v) FROM Ventas")) {
+            rows.add(new Object[]{ref("Ventas", (Integer) params[0])});
+            return resultSet(new String[]{"REF(V)"}, rows);
+        }
+        return resultSet(PRODUCT_COLUMNS, rows);
+    }
+
+    private boolean exists(int id) {
+        return id > 0 && id < productos.length;
+    }
+
+    private static Object[] row(Producto p) {
+        return new Object[]{p.idProducto(), p.nombre(), p.precio(), p.color(), p.talla(), p.categoria()};
+    }
+
+    /**
+     * ResultSet de solo avance sobre filas en memoria.
+     *
+     * @param labels nombres de las columnas
+     * @param rows filas, una celda por columna
+     * @return el ResultSet, posicionado antes de la primera fila
+     */
+    static ResultSet resultSet(String[] labels, List<Object[]> rows) {
+        int[] cursor = {-1};
+        Object[] lastValue = new Object[1];
+        ResultSetMetaData meta = proxy(ResultSetMetaData.class, (method, args) -> switch (method) {
+            case "getColumnCount" ->
+                labels.length;
+            case "getColumnLabel", "getColumnName" ->
+                labels[(Integer) args[0] - 1];
+            default ->
+                null;
+        });
+        return proxy(ResultSet.class, (method, args) -> {
+            if (method.equals("next")) {
+                return ++cursor[0] < rows.size();
+            }
+            if (method.equals("getMetaData")) {
+                return meta;
+            }
+            if (method.equals("wasNull")) {
+                return lastValue[0] == null;
+            }
+            if (!method.startsWith("get") || args == null || !(args[0] instanceof Integer column)) {
+                return null;
+            }
+            Object value = rows.get(cursor[0])[column - 1];
+            lastValue[0] = value;
+            return switch (method) {
+                case "getInt" ->
+                    value == null ? 0 : ((Number) value).intValue();
+                case "getLong" ->
+                    value == null ? 0L : ((Number) value).longValue();
+                case "getDouble" ->
+                    value == null ? 0d : ((Number) value).doubleValue();
+                case "getString" ->
+                    value == null ? null : value.toString();
+                default ->
+                    value;
+            };
+        });
+    }
+
+    private static Ref ref(String table, int id) {
+        String name = table + "#" + id;
+        return proxy(Ref.class, (method, args) -> method.equals("getBaseTypeName") ? name : null);
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        Object instance = Proxy.newProxyInstance(FakeOracle.class.getClassLoader(), new Class<?>[]{type},
+                (self, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return switch (method.getName()) {
+                            case "equals" ->
+                                self == args[0];
+                            case "hashCode" ->
+                                System.identityHashCode(self);
+                            default ->
+                                type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(self));
+                        };
+                    }
+                    Object result = handler.invoke(method.getName(), args);
+                    return result != null ? result : defaultValue(method.getReturnType());
+                });
+        return type.cast(instance);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+}
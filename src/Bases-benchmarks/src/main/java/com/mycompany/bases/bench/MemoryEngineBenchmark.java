@@ -0,0 +1,131 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.bench;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.memory.MemoryProductRepository;
+import com.mycompany.bases.memory.MemorySaleRepository;
+import com.mycompany.bases.memory.MemoryUserRepository;
+import com.mycompany.bases.models.LineaVenta;
+import com.mycompany.bases.models.Producto;
+import com.mycompany.bases.models.ResultadoVenta;
+import com.mycompany.bases.models.Venta;
+import com.mycompany.bases.search.ProductQuery;
+import com.mycompany.bases.search.ProductSearchResult;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Las operaciones de la consola sobre los almacenes en memoria del modo sin
+ * conexión: alta de una venta, búsqueda de un producto por ID y por
+ * filtros, y consulta de una venta y de las ventas de un cliente por el
+ * índice secundario.
+ *
+ * <p>
+ * Comparado con {@link SaleCreationBenchmark} y
+ * {@link ProductLookupBenchmark}, que usan el doble de Oracle, muestra el
+ * costo que queda sin JDBC ni caché de precios. No necesita ningún servicio
+ * externo.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemoryEngineBenchmark {
+
+    private static final int PRODUCTS = 10_000;
+    private static final int CUSTOMERS = 1_000;
+    private static final int SALES = 100_000;
+    private static final int SAMPLES = 1 << 10;
+    private static final int CART_SIZE = 5;
+
+    private MemoryProductRepository products;
+    private MemorySaleRepository sales;
+    private final List<List<LineaVenta>> carritos = new ArrayList<>(SAMPLES);
+    private final int[] ids = new int[SAMPLES];
+    private final ProductQuery[] consultas = new ProductQuery[SAMPLES];
+    private int next;
+
+    @Setup
+    public void setup() {
+        products = new MemoryProductRepository();
+        for (int id = 1; id <= PRODUCTS; id++) {
+            products.addProduct("Prenda " + id, FakeOracle.CATEGORIAS[id % FakeOracle.CATEGORIAS.length],
+                    FakeOracle.COLORES[id % FakeOracle.COLORES.length],
+                    FakeOracle.TALLAS[id % FakeOracle.TALLAS.length], 100 + (id % 900));
+        }
+        MemoryUserRepository users = new MemoryUserRepository();
+        for (int i = 0; i < CUSTOMERS; i++) {
+            users.addUser("Cliente " + i, "cliente" + i + "@tienda.mx", 20 + i % 50);
+        }
+        sales = new MemorySaleRepository(products, users);
+
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < SAMPLES; i++) {
+            List<LineaVenta> carrito = new ArrayList<>(CART_SIZE);
+            for (int j = 0; j < CART_SIZE; j++) {
+                carrito.add(new LineaVenta(1 + random.nextInt(PRODUCTS), 1 + random.nextInt(3)));
+            }
+            carritos.add(carrito);
+            ids[i] = 1 + random.nextInt(PRODUCTS);
+            consultas[i] = new ProductQuery(
+                    FakeOracle.CATEGORIAS[random.nextInt(FakeOracle.CATEGORIAS.length)],
+                    random.nextBoolean() ? FakeOracle.COLORES[random.nextInt(FakeOracle.COLORES.length)] : null,
+                    random.nextBoolean() ? FakeOracle.TALLAS[random.nextInt(FakeOracle.TALLAS.length)] : null,
+                    null);
+        }
+        // Historial previo, repartido entre todos los clientes
+        for (int i = 0; i < SALES; i++) {
+            sales.createVenta(1 + i % CUSTOMERS, carritos.get(i & (SAMPLES - 1)));
+        }
+    }
+
+    @Benchmark
+    public ResultadoVenta createVenta() {
+        List<LineaVenta> carrito = carritos.get(next++ & (SAMPLES - 1));
+        return sales.createVenta(1 + (next % CUSTOMERS), carrito);
+    }
+
+    @Benchmark
+    public Optional<Producto> findProduct() {
+        return products.findProduct(ids[next++ & (SAMPLES - 1)]);
+    }
+
+    @Benchmark
+    public ProductSearchResult buscarPorFiltros() {
+        return products.searchProducts(consultas[next++ & (SAMPLES - 1)]);
+    }
+
+    @Benchmark
+    public Optional<Venta> findVenta() {
+        return sales.findVenta(1 + (ids[next++ & (SAMPLES - 1)] * 7) % SALES);
+    }
+
+    @Benchmark
+    public List<Venta> ventasDeUnCliente() {
+        return sales.listVentasByCliente(1 + (next++ % CUSTOMERS));
+    }
+}
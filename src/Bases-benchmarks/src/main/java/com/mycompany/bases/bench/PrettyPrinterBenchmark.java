@@ -0,0 +1,106 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.bench;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.utils.PrettyPrinter;
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Costo de dibujar tablas y documentos con {@link PrettyPrinter}.
+ *
+ * <p>
+ * La salida va a un writer con el mismo búfer que la consola pero sobre un
+ * flujo que descarta los bytes: se mide el formateo y la codificación, no
+ * la terminal.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrettyPrinterBenchmark {
+
+    private static final String[] LABELS = {"IDPRODUCTO", "NOMBRE", "PRECIO", "COLOR", "TALLA", "CATEGORIAS"};
+
+    static Writer nullConsole() {
+        return new BufferedWriter(new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8),
+                1 << 16);
+    }
+
+    /**
+     * Resultado del inventario con el número de filas indicado.
+     */
+    @State(Scope.Thread)
+    public static class Tabla {
+
+        @Param({"10", "1000", "50000"})
+        int rows;
+
+        final List<Object[]> data = new ArrayList<>();
+        final Writer out = nullConsole();
+
+        @Setup
+        public void setup() {
+            for (int id = 1; id <= rows; id++) {
+                data.add(new Object[]{id, "Prenda " + id, 100.0 + (id % 900),
+                    FakeOracle.COLORES[id % FakeOracle.COLORES.length],
+                    FakeOracle.TALLAS[id % FakeOracle.TALLAS.length],
+                    id % 7 == 0 ? null : FakeOracle.CATEGORIAS[id % FakeOracle.CATEGORIAS.length]});
+            }
+        }
+    }
+
+    /**
+     * Usuario como lo muestra la búsqueda por nombre.
+     */
+    @State(Scope.Thread)
+    public static class Usuario {
+
+        final Writer out = nullConsole();
+        final Document doc = new Document("idCliente", 12345L)
+                .append("nombre", "María Fernanda López")
+                .append("email", "maria.lopez@example.com")
+                .append("edad", 34)
+                .append("fechaRegistro", new Date(1_700_000_000_000L));
+    }
+
+    @Benchmark
+    public void printResultSet(Tabla tabla) throws SQLException {
+        PrettyPrinter.printResultSet(FakeOracle.resultSet(LABELS, tabla.data), tabla.out);
+    }
+
+    @Benchmark
+    public void printDocument(Usuario usuario) {
+        PrettyPrinter.printDocument(usuario.doc, usuario.out);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.bench;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.cache.ProductCache;
+import com.mycompany.bases.cache.ProductCache.CachedProduct;
+import com.mycompany.bases.config.DatabaseConfig;
+import com.mycompany.bases.db.ConnectionPool;
+import com.mycompany.bases.models.Producto;
+import com.mycompany.bases.search.ProductQuery;
+import com.mycompany.bases.search.ProductSearchResult;
+import com.mycompany.bases.services.ProductService;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Búsquedas de productos: por ID contra Oracle (pool y caché de
+ * sentencias), por lote en la caché de precios, y por filtros en el índice
+ * en memoria.
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductLookupBenchmark {
+
+    private static final int PRODUCTS = 10_000;
+    private static final int SAMPLES = 1 << 10;
+    private static final int CART_SIZE = 5;
+
+    private ConnectionPool pool;
+    private ProductService products;
+    private ProductCache cache;
+    private ProductCache.Loader loader;
+    private final int[] ids = new int[SAMPLES];
+    private final List<List<Integer>> carritos = new ArrayList<>(SAMPLES);
+    private final ProductQuery[] consultas = new ProductQuery[SAMPLES];
+    private int next;
+
+    @Setup
+    public void setup() throws SQLException {
+        FakeOracle oracle = new FakeOracle(PRODUCTS);
+        pool = oracle.pool(4);
+        products = new ProductService(pool);
+
+        // Caché con todo el catálogo caliente: mide el camino de acierto
+        cache = new ProductCache(PRODUCTS, DatabaseConfig.PRODUCT_CACHE_TTL_MS);
+        loader = missing -> {
+            Map<Integer, CachedProduct> loaded = new HashMap<>();
+            for (int id : missing) {
+                loaded.put(id, new CachedProduct(id, "Prenda " + id, 100 + (id % 900), null, null));
+            }
+            return loaded;
+        };
+
+        SplittableRandom random = new SplittableRandom(11);
+        for (int i = 0; i < SAMPLES; i++) {
+            ids[i] = 1 + random.nextInt(PRODUCTS);
+            List<Integer> carrito = new ArrayList<>(CART_SIZE);
+            for (int j = 0; j < CART_SIZE; j++) {
+                carrito.add(1 + random.nextInt(PRODUCTS));
+            }
+            carritos.add(carrito);
+            cache.getAll(carrito, loader);
+            consultas[i] = new ProductQuery(
+                    FakeOracle.CATEGORIAS[random.nextInt(FakeOracle.CATEGORIAS.length)],
+                    random.nextBoolean() ? FakeOracle.COLORES[random.nextInt(FakeOracle.COLORES.length)] : null,
+                    random.nextBoolean() ? FakeOracle.TALLAS[random.nextInt(FakeOracle.TALLAS.length)] : null,
+                    null);
+        }
+        // La primera búsqueda carga el índice completo
+        products.searchProducts(consultas[0]);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    public Optional<Producto> findProduct() throws SQLException {
+        return products.findProduct(ids[next++ & (SAMPLES - 1)]);
+    }
+
+    @Benchmark
+    public Map<Integer, CachedProduct> preciosEnCache() throws SQLException {
+        return cache.getAll(carritos.get(next++ & (SAMPLES - 1)), loader);
+    }
+
+    @Benchmark
+    public ProductSearchResult buscarPorFiltros() throws SQLException {
+        return products.searchProducts(consultas[next++ & (SAMPLES - 1)]);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.bench;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.db.ConnectionPool;
+import com.mycompany.bases.models.LineaVenta;
+import com.mycompany.bases.models.ResultadoVenta;
+import com.mycompany.bases.services.ProductService;
+import com.mycompany.bases.services.SaleService;
+import com.mycompany.bases.services.UserService;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Registro de una venta completa con {@link SaleService#createVenta}, el
+ * mismo camino que la opción "Agregar venta" de la consola: precios desde
+ * la caché de productos, alta de la venta, REF y lote de detalles, todo en
+ * una transacción sobre una conexión del pool.
+ *
+ * <p>
+ * Con el doble de Oracle el resultado mide el costo del lado de la
+ * aplicación; en producción se suma un viaje de red por sentencia.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaleCreationBenchmark {
+
+    private static final int PRODUCTS = 10_000;
+    private static final int CARTS = 1 << 10;
+
+    /** Líneas por carrito */
+    @Param({"1", "5", "20"})
+    int lineas;
+
+    /**
+     * Productos distintos que aparecen en los carritos; los valores mayores
+     * que la caché de productos fuerzan lecturas a Oracle.
+     */
+    @Param({"1000", "10000"})
+    int catalogo;
+
+    private ConnectionPool pool;
+    private SaleService sales;
+    private final List<List<LineaVenta>> carritos = new ArrayList<>(CARTS);
+    private int next;
+
+    @Setup
+    public void setup() throws SQLException {
+        FakeOracle oracle = new FakeOracle(PRODUCTS);
+        pool = oracle.pool(4);
+        ProductService products = new ProductService(pool);
+        sales = new SaleService(pool, products, new UserService(new FakeMongo().database()));
+
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < CARTS; i++) {
+            List<LineaVenta> carrito = new ArrayList<>(lineas);
+            for (int j = 0; j < lineas; j++) {
+                carrito.add(new LineaVenta(1 + random.nextInt(catalogo), 1 + random.nextInt(3)));
+            }
+            carritos.add(carrito);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    public ResultadoVenta createVenta() throws SQLException {
+        List<LineaVenta> carrito = carritos.get(next++ & (CARTS - 1));
+        return sales.createVenta(1 + (next & 1023), carrito);
+    }
+}
@@ -3,7 +3,15 @@
  */
 package com.mycompany.bases;
 
+import com.mycompany.bases.config.DatabaseConfig;
+import com.mycompany.bases.db.SlowQueryLog;
+import com.mycompany.bases.server.ApiServer;
+import com.mycompany.bases.services.TiendaService;
 import com.mycompany.bases.views.MenuView;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  *
@@ -22,6 +30,14 @@ import com.mycompany.bases.views.MenuView;
  * La aplicación utiliza un patrón MVC donde esta clase actúa como el
  * punto de entrada que transfiere el control al sistema de menús.
  * 
+ * Con el argumento {@code --http [puerto]} arranca en cambio el servidor
+ * HTTP/JSON ({@link ApiServer}), que atiende hasta que el proceso recibe
+ * una señal de terminación.
+ * 
+ * Con {@code --memory}, en cualquiera de los dos modos, no se conecta a
+ * Oracle ni a MongoDB: los datos viven en memoria
+ * ({@link TiendaService#inMemory()}) y se pierden al salir.
+ * 
  * @author DarThunder
  * @version 1.0
  */
@@ -46,16 +62,39 @@ public class Bases {
      * - Se muestra un mensaje de error descriptivo
      * - Se imprime el stack trace completo para debugging
      * 
-     * @param args Argumentos de línea de comandos (no utilizados actualmente)
+     * @param args Argumentos de línea de comandos: {@code --http [puerto]}
+     *             para el modo servidor; sin argumentos, el menú de consola.
+     *             {@code --memory} usa almacenes en memoria en lugar de
+     *             las bases de datos
      */
     public static void main(String[] args) {
+        List<String> options = new ArrayList<>(List.of(args));
+        boolean memory = options.remove("--memory");
+        if (!options.isEmpty() && options.get(0).equals("--http")) {
+            int port = DatabaseConfig.HTTP_PORT;
+            if (options.size() > 1) {
+                try {
+                    port = Integer.parseInt(options.get(1));
+                } catch (NumberFormatException e) {
+                    port = -1;
+                }
+                if (port < 0 || port > 65535) {
+                    System.err.println("Puerto inválido: " + options.get(1));
+                    System.err.println("Uso: Bases [--memory] [--http [puerto]]");
+                    return;
+                }
+            }
+            runServer(port, memory);
+            return;
+        }
+        
         try {
             // Mensaje informativo para el usuario sobre el inicio de la aplicación
             System.out.println("Iniciando aplicación de gestión...");
             
             // Instancia la vista principal del menú
             // MenuView se encarga de manejar toda la interfaz de usuario
-            MenuView menu = new MenuView();
+            MenuView menu = memory ? new MenuView(TiendaService.inMemory()) : new MenuView();
             
             // Transfiere el control al sistema de menús
             // A partir de aquí, MenuView maneja toda la interacción con el usuario
@@ -75,4 +114,58 @@ public class Bases {
             // Considera agregar System.exit(1) si quieres un código de salida específico
         }
     }
+    
+    /**
+     * Ejecuta el modo servidor HTTP.
+     * 
+     * El servidor atiende hasta que la JVM recibe una señal de terminación
+     * (Ctrl+C o SIGTERM). Entonces el gancho de apagado deja de aceptar
+     * conexiones, espera a que terminen las peticiones en curso y solo
+     * después cierra las conexiones a Oracle y MongoDB.
+     * 
+     * @param port puerto TCP en el que escuchar
+     * @param memory true para usar almacenes en memoria
+     */
+    private static void runServer(int port, boolean memory) {
+        try {
+            System.out.println("Iniciando servidor HTTP...");
+            TiendaService service = memory ? TiendaService.inMemory() : TiendaService.fromConfig();
+            if (!service.getIndexReport().checks().isEmpty()) {
+                System.out.print(service.getIndexReport().format());
+            }
+            ApiServer server;
+            try {
+                server = new ApiServer(service, port);
+            } catch (Exception e) {
+                service.close();
+                throw e;
+            }
+            
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                System.out.println("Deteniendo servidor HTTP...");
+                // Primero se drenan las peticiones; después se cierran las bases
+                server.stop();
+                try {
+                    service.writeMetricsSnapshot(Path.of(DatabaseConfig.METRICS_SNAPSHOT_FILE));
+                } catch (IOException e) {
+                    System.err.println("No se pudieron guardar las métricas: " + e.getMessage());
+                }
+                SlowQueryLog slowQueries = service.getSlowQueryLog();
+                if (slowQueries != null) {
+                    System.out.print(slowQueries.report());
+                }
+                service.close();
+                System.out.println("Servidor detenido.");
+            }, "apagado-http"));
+            
+            server.start();
+            System.out.println("Servidor HTTP escuchando en el puerto " + server.getPort());
+            server.awaitStop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("Error inicializando el servidor:");
+            e.printStackTrace();
+        }
+    }
 }
\ No newline at end of file
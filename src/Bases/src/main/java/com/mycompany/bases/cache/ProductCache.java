@@ -0,0 +1,188 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.cache;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.utils.LruCache;
+import java.sql.Ref;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché de lectura del catálogo de productos usada para valorizar ventas.
+ *
+ * <p>
+ * Guarda por {@code idProducto} el nombre, el precio y la REF del objeto en
+ * Productos. Las búsquedas que fallan se resuelven en lote con el
+ * {@link Loader} recibido y se guardan para las siguientes ventas. Cada
+ * entrada vence tras {@code ttlMillis}, y {@link #invalidate(int)} permite
+ * descartarla en cuanto el producto cambia o se elimina.</p>
+ *
+ * <p>
+ * Una carga que estaba en curso cuando llegó una invalidación pudo leer los
+ * datos anteriores al cambio: sus productos se devuelven a quien los pidió,
+ * pero no se guardan en la caché.</p>
+ *
+ * <p>
+ * La REF identifica al objeto por su OID, por lo que puede reutilizarse en
+ * cualquier conexión del pool, no solo en la que se leyó.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class ProductCache {
+
+    /**
+     * Datos de un producto necesarios para una línea de venta.
+     *
+     * @param idProducto ID del producto
+     * @param nombre nombre del producto
+     * @param precio precio unitario
+     * @param ref referencia al objeto en la tabla Productos
+     * @param categoria categoría del producto, o null si no tiene
+     */
+    public record CachedProduct(int idProducto, String nombre, double precio, Ref ref, String categoria) {
+
+    }
+
+    /**
+     * Carga desde la base de datos los productos que no están en caché.
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        /**
+         * @param ids IDs a cargar, sin repetidos
+         * @return los productos encontrados por ID; los inexistentes no
+         * aparecen
+         * @throws SQLException si falla la consulta
+         */
+        Map<Integer, CachedProduct> load(List<Integer> ids) throws SQLException;
+    }
+
+    /**
+     * Métricas de la caché.
+     *
+     * @param size entradas actuales
+     * @param hits búsquedas resueltas sin ir a la base de datos
+     * @param misses búsquedas que requirieron carga
+     * @param expirations entradas descartadas por vencimiento
+     * @param invalidations entradas descartadas explícitamente
+     */
+    public record Stats(int size, long hits, long misses, long expirations, long invalidations) {
+
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("entradas=%d aciertos=%d fallos=%d vencidas=%d invalidadas=%d tasa=%.1f%%",
+                    size, hits, misses, expirations, invalidations, hitRate() * 100);
+        }
+    }
+
+    private record Entry(CachedProduct product, long expiresAt) {
+
+    }
+
+    private final LruCache<Integer, Entry> entries;
+    private final long ttlMillis;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    /** Aumenta con cada invalidación; se protege con el monitor de la caché */
+    private long generation;
+
+    /**
+     * @param capacity máximo de productos en memoria
+     * @param ttlMillis vigencia de cada entrada desde que se carga
+     */
+    public ProductCache(int capacity, long ttlMillis) {
+        this.entries = new LruCache<>(capacity);
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Obtiene varios productos, cargando en una sola llamada al
+     * {@link Loader} todos los que falten o hayan vencido.
+     *
+     * @param ids IDs solicitados (puede tener repetidos)
+     * @param loader carga en lote de los IDs ausentes
+     * @return mapa ID → producto; los inexistentes no aparecen
+     * @throws SQLException si falla la carga
+     */
+    public Map<Integer, CachedProduct> getAll(Collection<Integer> ids, Loader loader) throws SQLException {
+        Map<Integer, CachedProduct> found = new HashMap<>();
+        Set<Integer> missing = new LinkedHashSet<>();
+        long now = System.currentTimeMillis();
+
+        for (Integer id : ids) {
+            if (found.containsKey(id) || missing.contains(id)) {
+                continue;
+            }
+            Entry entry = entries.get(id);
+            if (entry != null && entry.expiresAt() <= now) {
+                entries.remove(id);
+                expirations.increment();
+                entry = null;
+            }
+            if (entry != null) {
+                hits.increment();
+                found.put(id, entry.product());
+            } else {
+                misses.increment();
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long loadedGeneration;
+            synchronized (this) {
+                loadedGeneration = generation;
+            }
+            Map<Integer, CachedProduct> loaded = loader.load(new ArrayList<>(missing));
+            found.putAll(loaded);
+
+            long expiresAt = System.currentTimeMillis() + ttlMillis;
+            synchronized (this) {
+                // Si hubo una invalidación durante la carga, lo leído puede ser anterior al cambio
+                if (generation == loadedGeneration) {
+                    for (CachedProduct product : loaded.values()) {
+                        entries.put(product.idProducto(), new Entry(product, expiresAt));
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Descarta un producto; la siguiente búsqueda lo leerá de nuevo.
+     *
+     * @param idProducto ID del producto modificado o eliminado
+     */
+    public synchronized void invalidate(int idProducto) {
+        generation++;
+        entries.remove(idProducto);
+        invalidations.increment();
+    }
+
+    public Stats stats() {
+        return new Stats(entries.size(), hits.sum(), misses.sum(), expirations.sum(), invalidations.sum());
+    }
+}
@@ -12,7 +12,105 @@ public class DatabaseConfig {
     public static final String ORACLE_URL = "jdbc:oracle:thin:@//localhost:1521/XE";
     public static final String ORACLE_USER = "system";
     public static final String ORACLE_PASSWORD = "tu_contraseña";
-    
+
+    /** Conexiones que el pool mantiene abiertas aunque no haya actividad */
+    public static final int ORACLE_POOL_MIN_SIZE = 2;
+    /** Máximo de conexiones simultáneas hacia Oracle */
+    public static final int ORACLE_POOL_MAX_SIZE = 10;
+    /** Tiempo máximo de espera para obtener una conexión del pool */
+    public static final long ORACLE_POOL_BORROW_TIMEOUT_MS = 5_000;
+    /** Tiempo que una conexión puede quedar ociosa antes de cerrarse */
+    public static final long ORACLE_POOL_IDLE_TIMEOUT_MS = 10 * 60_000;
+    /** Vida máxima de una conexión física, se recicla al superarla */
+    public static final long ORACLE_POOL_MAX_LIFETIME_MS = 30 * 60_000;
+    /** Tiempo límite para validar una conexión al prestarla */
+    public static final int ORACLE_POOL_VALIDATION_TIMEOUT_S = 2;
+    /** Intervalo de la tarea de mantenimiento (expulsión de ociosas y relleno) */
+    public static final long ORACLE_POOL_HOUSEKEEPING_MS = 30_000;
+    /** Sentencias preparadas en caché por conexión (acota los cursores abiertos) */
+    public static final int ORACLE_STATEMENT_CACHE_SIZE = 50;
+
+    /** Sentencias que tardan al menos esto van al registro de consultas lentas; negativo lo desactiva */
+    public static final long SLOW_QUERY_THRESHOLD_MS = 200;
+    /** Archivo del registro de consultas lentas */
+    public static final String SLOW_QUERY_LOG_FILE = "consultas-lentas.log";
+    /** Tamaño a partir del cual el registro rota a .1, .2... */
+    public static final long SLOW_QUERY_LOG_MAX_BYTES = 5L * 1024 * 1024;
+    /** Archivos rotados que se conservan además del actual */
+    public static final int SLOW_QUERY_LOG_BACKUPS = 3;
+
+    /** Productos (precio, nombre y REF) que se conservan en memoria para vender */
+    public static final int PRODUCT_CACHE_SIZE = 5_000;
+    /** Vigencia de un producto en caché antes de volver a leerlo de Oracle */
+    public static final long PRODUCT_CACHE_TTL_MS = 5 * 60_000;
+    /** Productos por página en el listado de inventario */
+    public static final int PRODUCT_PAGE_SIZE = 20;
+    /** Filas máximas por viaje (fetch size) al leer páginas de productos */
+    public static final int PRODUCT_FETCH_SIZE = 500;
+    /** Antigüedad máxima del índice de búsqueda antes de cargar productos nuevos */
+    public static final long SEARCH_INDEX_REFRESH_MS = 30_000;
+    /** Intervalo de la recarga completa del índice de búsqueda (cambios y bajas de otros procesos) */
+    public static final long SEARCH_INDEX_RECONCILE_MS = 10 * 60_000;
+    /** Productos por página al cargar el índice de búsqueda desde Oracle */
+    public static final int SEARCH_INDEX_LOAD_BATCH = 1_000;
+    /** Filas pendientes que disparan el envío de los lotes en la carga masiva de productos */
+    public static final int PRODUCT_LOAD_BATCH_SIZE = 5_000;
+    /** Filas entre confirmaciones (y puntos de reanudación) en la carga masiva */
+    public static final int PRODUCT_LOAD_COMMIT_ROWS = 50_000;
+
     public static final String MONGO_URI = "mongodb://localhost:27017";
     public static final String MONGO_DB = "tiendaDB";
-}
\ No newline at end of file
+
+    /** Nombres de cliente recientes que se conservan en memoria */
+    public static final int CUSTOMER_NAME_CACHE_SIZE = 10_000;
+    /** Filas de Ventas que se leen antes de resolver sus clientes en lote */
+    public static final int VENTAS_PAGE_SIZE = 500;
+    /** Bytes que puede ocupar la tabla de clientes al unir ventas con usuarios */
+    public static final long JOIN_MEMORY_BUDGET_BYTES = 64L * 1024 * 1024;
+    /** Filas de Ventas por viaje al unirlas con sus clientes */
+    public static final int JOIN_FETCH_SIZE = 5_000;
+    /** Ventas por consulta $in cuando la tabla de clientes no cabe en memoria */
+    public static final int JOIN_LOOKUP_BATCH_SIZE = 1_000;
+    /** Filas que Oracle entrega por viaje al leer el reporte de ventas */
+    public static final int SALES_REPORT_FETCH_SIZE = 500;
+    /** Días que cubre el reporte de ventas si no se indica el inicio */
+    public static final int SALES_REPORT_DEFAULT_DAYS = 30;
+    /** Filas por viaje al reconstruir los acumulados de ventas al arrancar */
+    public static final int ROLLUP_REBUILD_FETCH_SIZE = 5_000;
+    /** Contadores por resumen de los más vendidos; el error es a lo sumo el total entre este valor */
+    public static final int TOP_SELLERS_CAPACITY = 256;
+    /** Diario local donde la caja guarda cada venta antes de enviarla a Oracle; null lo desactiva */
+    public static final String SALE_JOURNAL_FILE = "ventas.diario";
+    /** Tamaño del archivo del diario; con todo ya en Oracle se vuelve a escribir desde el inicio */
+    public static final int SALE_JOURNAL_BYTES = 64 * 1024 * 1024;
+    /** Forzar cada venta del diario al disco: resiste un corte de luz, pero tarda milisegundos */
+    public static final boolean SALE_JOURNAL_FORCE = false;
+    /** Ventas del diario por transacción al enviarlas a Oracle */
+    public static final int SALE_JOURNAL_BATCH_SIZE = 200;
+    /** Espera máxima sin ventas nuevas antes de volver a revisar el diario */
+    public static final long SALE_JOURNAL_IDLE_MS = 1_000;
+    /** Pausa antes de reintentar el envío del diario cuando Oracle no responde */
+    public static final long SALE_JOURNAL_RETRY_MS = 5_000;
+    /** Tiempo que se espera al salir a que se envíe lo pendiente del diario */
+    public static final long SALE_JOURNAL_CLOSE_WAIT_MS = 10_000;
+    /** Usuarios por página en el listado de usuarios */
+    public static final int USERS_PAGE_SIZE = 50;
+    /** Documentos por lote (batchSize) del cursor al recorrer "usuarios" */
+    public static final int USERS_CURSOR_BATCH_SIZE = 1_000;
+    /** Documentos por insertMany al importar usuarios desde archivo */
+    public static final int USER_IMPORT_CHUNK_SIZE = 1_000;
+    /** Escritores en paralelo al importar usuarios */
+    public static final int USER_IMPORT_WRITERS = 4;
+
+    /** Puerto por defecto del servidor HTTP (modo --http) */
+    public static final int HTTP_PORT = 8080;
+    /** Conexiones pendientes de aceptar en el servidor HTTP; 0 usa el valor del sistema */
+    public static final int HTTP_BACKLOG = 0;
+    /** Segundos que se espera a las peticiones en curso al detener el servidor */
+    public static final int HTTP_SHUTDOWN_GRACE_S = 10;
+    /** Productos por consulta a Oracle al enviar el catálogo completo por HTTP */
+    public static final int HTTP_LIST_PAGE_SIZE = 500;
+
+    /** Archivo donde se guarda la fotografía de métricas al salir */
+    public static final String METRICS_SNAPSHOT_FILE = "metricas.json";
+}
@@ -0,0 +1,39 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.controllers;
+
+/**
+ *
+ * @author dard
+ */
+import java.util.concurrent.CompletionException;
+
+/**
+ * Mensajes de error para la consola a partir de las excepciones que
+ * devuelven las operaciones asíncronas del servicio.
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+final class Errores {
+
+    private Errores() {
+    }
+
+    /**
+     * Obtiene el mensaje de la causa original, sin la envoltura de
+     * {@link CompletionException}.
+     *
+     * @param e excepción recibida al esperar una operación
+     * @return mensaje de la causa
+     */
+    static String mensaje(Throwable e) {
+        Throwable cause = e;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.toString();
+    }
+}
@@ -8,28 +8,32 @@ package com.mycompany.bases.controllers;
  *
  * @author dard
  */
-import com.mongodb.client.MongoClients;
-import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoDatabase;
-import static com.mongodb.client.model.Filters.eq;
-import org.bson.Document;
 import com.mycompany.bases.config.DatabaseConfig;
+import com.mycompany.bases.importer.UserImporter;
+import com.mycompany.bases.models.Usuario;
+import com.mycompany.bases.repository.UserRepository;
+import com.mycompany.bases.services.TiendaService;
+import com.mycompany.bases.utils.DocumentLineRenderer;
+import static com.mycompany.bases.utils.PrettyPrinter.documentLines;
 import static com.mycompany.bases.utils.PrettyPrinter.printDocument;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
 import java.util.Scanner;
+import java.util.concurrent.CompletionException;
 
 /**
- * Controlador para la gestión de usuarios en MongoDB.
+ * Controlador de consola para la gestión de usuarios en MongoDB.
  *
- * Esta clase proporciona una interfaz completa para realizar operaciones CRUD
- * (Create, Read, Update, Delete) sobre una colección de usuarios en MongoDB.
+ * Esta clase proporciona una interfaz de consola para realizar operaciones
+ * CRUD (Create, Read, Update, Delete) sobre la colección de usuarios.
  *
- * Funcionalidades principales: - Conexión y configuración automática con
- * MongoDB - Gestión completa de usuarios (agregar, mostrar, buscar, eliminar) -
- * Interfaz de consola interactiva para el usuario - Manejo de recursos con
- * cierre adecuado de conexiones
+ * Funcionalidades principales: - Gestión completa de usuarios (agregar,
+ * mostrar, buscar, eliminar, importar) - Interfaz de consola interactiva para
+ * el usuario
  *
- * La clase utiliza el patrón Controller del MVC, encapsulando toda la lógica de
- * negocio relacionada con la gestión de usuarios en MongoDB.
+ * Las operaciones sobre la base de datos las realiza {@link TiendaService};
+ * este controlador solo pide los datos, espera el resultado y lo muestra.
  *
  * @author DarThunder
  * @version 1.0
@@ -37,14 +41,19 @@ import java.util.Scanner;
 public class MongoController {
 
     /**
-     * Cliente de conexión a MongoDB
+     * Campos que muestra el listado de usuarios
      */
-    private final MongoClient client;
+    private static final String[] LIST_FIELDS = {"idCliente", "nombre", "email", "edad"};
 
     /**
-     * Referencia a la base de datos MongoDB específica
+     * Ancho de cada campo del listado compacto
      */
-    private final MongoDatabase mongoDb;
+    private static final int[] LIST_WIDTHS = {9, 25, 30, 4};
+
+    /**
+     * Servicio que ejecuta las operaciones
+     */
+    private final TiendaService service;
 
     /**
      * Scanner para entrada de datos del usuario
@@ -52,25 +61,14 @@ public class MongoController {
     private final Scanner scanner;
 
     /**
-     * Constructor que inicializa la conexión a MongoDB y los recursos
-     * necesarios.
-     *
-     * Establece la conexión utilizando la configuración definida en
-     * DatabaseConfig, selecciona la base de datos correspondiente e inicializa
-     * el scanner para la entrada de datos del usuario.
+     * Constructor que recibe el servicio compartido de la aplicación.
      *
-     * La conexión se establece de forma síncrona y está lista para usar
-     * inmediatamente después de la construcción del objeto.
+     * @param service servicio de la tienda
+     * @param scanner entrada de la consola
      */
-    public MongoController() {
-        // Establece conexión con MongoDB usando la URI de configuración
-        this.client = MongoClients.create(DatabaseConfig.MONGO_URI);
-
-        // Selecciona la base de datos específica según configuración
-        this.mongoDb = client.getDatabase(DatabaseConfig.MONGO_DB);
-
-        // Inicializa scanner para entrada de datos del usuario
-        this.scanner = new Scanner(System.in);
+    public MongoController(TiendaService service, Scanner scanner) {
+        this.service = service;
+        this.scanner = scanner;
     }
 
     /**
@@ -83,7 +81,8 @@ public class MongoController {
      * Opciones disponibles: 1. Agregar usuario - Crea un nuevo usuario en la
      * colección 2. Mostrar todos los usuarios - Lista todos los usuarios
      * existentes 3. Buscar usuario por nombre - Encuentra un usuario específico
-     * 4. Eliminar usuario - Borra un usuario de la colección 0. Volver al menú
+     * 4. Eliminar usuario - Borra un usuario de la colección 5. Importar
+     * usuarios - Carga masiva desde CSV o NDJSON 0. Volver al menú
      * principal - Sale del módulo de gestión
      *
      * Utiliza un bucle do-while para mantener el menú activo y switch
@@ -98,6 +97,7 @@ public class MongoController {
             System.out.println("2. Mostrar todos los usuarios");
             System.out.println("3. Buscar usuario por nombre");
             System.out.println("4. Eliminar usuario");
+            System.out.println("5. Importar usuarios desde archivo");
             System.out.println("0. Volver al menú principal");
             System.out.print("Seleccione una opción: ");
 
@@ -115,6 +115,8 @@ public class MongoController {
                     findUserByName();             // Buscar usuario específico
                 case 4 ->
                     deleteUser();                 // Eliminar usuario
+                case 5 ->
+                    importUsers();                // Importación masiva
                 case 0 ->
                     System.out.println("Volviendo al menú principal..."); // Salir
                 default ->
@@ -126,15 +128,8 @@ public class MongoController {
     /**
      * Agrega un nuevo usuario a la colección de MongoDB.
      *
-     * Solicita al usuario los datos necesarios (nombre, email, edad) y crea un
-     * documento MongoDB con esta información más la fecha de registro
-     * automática.
-     *
-     * Campos del documento creado: - nombre: String con el nombre del usuario -
-     * email: String con el correo electrónico - edad: Integer con la edad -
-     * fechaRegistro: Date con la fecha y hora actual de creación
-     *
-     * La operación es atómica y se confirma inmediatamente en la base de datos.
+     * Solicita al usuario los datos necesarios (nombre, email, edad); el
+     * servicio asigna la clave de cliente y la fecha de registro.
      */
     private void addUser() {
         // Solicita los datos del nuevo usuario
@@ -148,120 +143,150 @@ public class MongoController {
         int edad = scanner.nextInt();
         scanner.nextLine(); // Consume el salto de línea pendiente
 
-        // Crea el documento con los datos del usuario
-        Document user = new Document("nombre", nombre)
-                .append("email", email)
-                .append("edad", edad)
-                .append("fechaRegistro", new java.util.Date()); // Fecha automática
-
-        // Inserta el documento en la colección "usuarios"
-        mongoDb.getCollection("usuarios").insertOne(user);
-
-        System.out.println("Usuario agregado con éxito!");
+        try {
+            Usuario usuario = service.addUser(nombre, email, edad).join();
+            System.out.println("Usuario agregado con éxito! ID de cliente: " + usuario.idCliente());
+        } catch (CompletionException e) {
+            System.err.println("Error al agregar usuario: " + Errores.mensaje(e));
+        }
     }
 
     /**
-     * Muestra todos los usuarios existentes en la colección.
+     * Muestra los usuarios de la colección, una línea por usuario.
      *
-     * Realiza una consulta que recupera todos los documentos de la colección
-     * "usuarios" y los muestra utilizando el método printDocument para un
-     * formato visualmente atractivo.
+     * El listado avanza por rangos de {@code _id}: cada página pide los
+     * documentos con {@code _id} mayor al último mostrado, ordenados por el
+     * índice de {@code _id}, de modo que ninguna página recorre las
+     * anteriores. Solo se traen del servidor los campos que se muestran y
+     * cada documento se escribe en cuanto llega del cursor, así que el
+     * consumo de memoria no depende del tamaño de la colección.
      *
-     * Si no hay usuarios en la colección, simplemente no mostrará ningún
-     * resultado. La consulta es eficiente y recupera todos los documentos en
-     * una sola operación.
+     * Opciones tras cada página: [s] siguiente, [t] mostrar todo lo restante
+     * sin pausas, [q] salir.
      */
     public void showAllUsers() {
         System.out.println("\n=== LISTA DE USUARIOS ===");
 
-        // Itera sobre todos los documentos de la colección "usuarios"
-        for (Document user : mongoDb.getCollection("usuarios").find()) {
-            // Utiliza método auxiliar para mostrar cada documento formateado
-            printDocument(user);
+        DocumentLineRenderer lines = documentLines(LIST_FIELDS, LIST_WIDTHS);
+        lines.writeHeader();
+
+        try {
+            int pageSize = DatabaseConfig.USERS_PAGE_SIZE;
+            Usuario last = null;
+            long shown = 0;
+            while (true) {
+                UserRepository.UserScan page = service.scanUsers(last, pageSize,
+                        usuario -> lines.writeLine(usuario.toDocument())).join();
+                lines.flush();
+                shown += page.count();
+                last = page.last();
+
+                if (page.count() < pageSize) {
+                    break;
+                }
+
+                System.out.print("[s] siguiente, [t] todo, [q] salir: ");
+                String accion = scanner.nextLine().trim().toLowerCase();
+                if (accion.equals("q")) {
+                    return;
+                } else if (accion.equals("t")) {
+                    // Sin límite: un solo cursor recorre el resto por lotes
+                    UserRepository.UserScan rest = service.scanUsers(last, 0,
+                            usuario -> lines.writeLine(usuario.toDocument())).join();
+                    lines.flush();
+                    shown += rest.count();
+                    break;
+                }
+            }
+
+            if (shown == 0) {
+                System.out.println("No hay usuarios registrados.");
+            } else {
+                System.out.println("Total mostrado: " + shown + " usuarios");
+            }
+        } catch (CompletionException e) {
+            lines.flush();
+            System.err.println("Error al mostrar usuarios: " + Errores.mensaje(e));
         }
     }
 
     /**
      * Busca y muestra un usuario específico por su nombre.
      *
-     * Solicita al usuario el nombre a buscar y realiza una consulta exacta
-     * utilizando el filtro eq() de MongoDB. Si encuentra el usuario, lo muestra
-     * formateado; si no, informa que no fue encontrado.
+     * Solicita al usuario el nombre a buscar y lo consulta en la base. Si
+     * encuentra el usuario, lo muestra formateado; si no, informa que no fue
+     * encontrado.
      *
-     * La búsqueda es case-sensitive y debe coincidir exactamente con el nombre
-     * almacenado en la base de datos.
+     * La búsqueda no distingue mayúsculas de minúsculas, pero sí acentos,
+     * igual que el índice de nombres; si varios usuarios coinciden, se
+     * muestra solo uno.
      */
     public void findUserByName() {
         // Solicita el nombre a buscar
         System.out.print("\nIngrese nombre a buscar: ");
         String nombre = scanner.nextLine();
 
-        // Busca el primer documento que coincida con el nombre
-        Document user = mongoDb.getCollection("usuarios")
-                .find(eq("nombre", nombre)) // Filtro de igualdad exacta
-                .first();                    // Obtiene solo el primer resultado
-
-        // Verifica si se encontró el usuario
-        if (user != null) {
-            printDocument(user); // Muestra el usuario encontrado
-        } else {
-            System.out.println("Usuario no encontrado");
+        try {
+            Optional<Usuario> usuario = service.findUserByName(nombre).join();
+            if (usuario.isPresent()) {
+                printDocument(usuario.get().toDocument()); // Muestra el usuario encontrado
+            } else {
+                System.out.println("Usuario no encontrado");
+            }
+        } catch (CompletionException e) {
+            System.err.println("Error al buscar usuario: " + Errores.mensaje(e));
         }
     }
 
-    public String findUserByIndex(int index) {
-    Document user = mongoDb.getCollection("usuarios")
-                           .find()
-                           .skip(index)
-                           .first();
-
-    if (user != null) {
-        return user.getString("nombre");
-    } else {
-        return null;
-    }
-}
-
     /**
      * Elimina un usuario de la colección por su nombre.
      *
-     * Solicita al usuario el nombre del usuario a eliminar y realiza la
-     * operación de borrado. Informa el resultado de la operación basándose en
-     * el número de documentos eliminados.
-     *
      * La operación elimina únicamente el primer documento que coincida con el
-     * nombre especificado (deleteOne). Si existen múltiples usuarios con el
-     * mismo nombre, solo se eliminará uno.
+     * nombre especificado. Si existen múltiples usuarios con el mismo nombre,
+     * solo se eliminará uno.
      */
     public void deleteUser() {
         // Solicita el nombre del usuario a eliminar
         System.out.print("\nIngrese nombre del usuario a eliminar: ");
         String nombre = scanner.nextLine();
 
-        // Realiza la operación de eliminación y obtiene el conteo de documentos borrados
-        long deletedCount = mongoDb.getCollection("usuarios")
-                .deleteOne(eq("nombre", nombre)) // Elimina un documento que coincida
-                .getDeletedCount();               // Obtiene cantidad de documentos eliminados
-
-        // Informa el resultado de la operación
-        if (deletedCount > 0) {
-            System.out.println("Usuario eliminado con éxito!");
-        } else {
-            System.out.println("No se encontró usuario con ese nombre");
+        try {
+            if (service.deleteUserByName(nombre).join().isPresent()) {
+                System.out.println("Usuario eliminado con éxito!");
+            } else {
+                System.out.println("No se encontró usuario con ese nombre");
+            }
+        } catch (CompletionException e) {
+            System.err.println("Error al eliminar usuario: " + Errores.mensaje(e));
         }
     }
 
     /**
-     * Cierra la conexión con MongoDB liberando recursos.
+     * Importa usuarios desde un archivo CSV o NDJSON.
      *
-     * Es importante llamar este método al finalizar el uso del controlador para
-     * evitar memory leaks y liberar adecuadamente las conexiones de red.
-     *
-     * Debe ser llamado en un bloque finally o try-with-resources para
-     * garantizar que se ejecute incluso si ocurren excepciones.
+     * Solicita la ruta del archivo y lo procesa con {@link UserImporter}, que
+     * lo lee por partes y escribe en bloques con {@code insertMany} no
+     * ordenado. Al terminar muestra el rendimiento y los conteos de
+     * insertados, duplicados y rechazados.
      */
-    public void close() {
-        // Cierra la conexión del cliente MongoDB
-        client.close();
+    public void importUsers() {
+        if (!service.hasUserImport()) {
+            System.out.println("La importación requiere MongoDB; no está disponible en este modo.");
+            return;
+        }
+        System.out.print("\nIngrese la ruta del archivo (.csv, .ndjson o .jsonl): ");
+        Path file = Path.of(scanner.nextLine().trim());
+        if (!Files.isRegularFile(file)) {
+            System.out.println("El archivo no existe: " + file);
+            return;
+        }
+
+        try {
+            UserImporter.ImportReport report = service.importUsers(file).join();
+            System.out.println("Importación terminada: " + report);
+            report.errors().forEach(error -> System.out.println("  - " + error));
+        } catch (CompletionException e) {
+            System.err.println("Error al importar usuarios: " + Errores.mensaje(e));
+        }
     }
 }
@@ -8,37 +8,75 @@ package com.mycompany.bases.controllers;
  *
  * @author dard
  */
-import java.sql.*;
 import com.mycompany.bases.config.DatabaseConfig;
-import static com.mycompany.bases.utils.PrettyPrinter.printResultSet;
+import com.mycompany.bases.importer.ProductBulkLoader;
+import com.mycompany.bases.models.DetalleVenta;
+import com.mycompany.bases.models.LineaVenta;
+import com.mycompany.bases.models.ProductPage;
+import com.mycompany.bases.models.Producto;
+import com.mycompany.bases.models.ResultadoVenta;
+import com.mycompany.bases.models.Venta;
+import com.mycompany.bases.models.VentaEnDiario;
+import com.mycompany.bases.rollup.SalesRollups;
+import com.mycompany.bases.rollup.TopSellers;
+import com.mycompany.bases.search.ProductQuery;
+import com.mycompany.bases.search.ProductSearchResult;
+import com.mycompany.bases.services.SalesCustomerJoin;
+import com.mycompany.bases.services.TiendaService;
+import com.mycompany.bases.utils.PrettyPrinter;
+import com.mycompany.bases.utils.TableRenderer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Scanner;
-import oracle.sql.STRUCT;
+import java.util.concurrent.CompletionException;
 
 /**
- * Controlador para la gestión de productos y ventas en base de datos Oracle.
- * Proporciona funcionalidades CRUD para el inventario de ropa y sistema de
- * ventas.
+ * Controlador de consola para la gestión de productos y ventas en Oracle.
  *
  * <p>
- * Esta clase maneja la conexión con Oracle Database y ofrece interfaces de
- * usuario por consola para:</p>
+ * Ofrece interfaces de usuario por consola para:</p>
  * <ul>
  * <li>Gestión de productos (ropa)</li>
  * <li>Gestión de ventas</li>
  * <li>Creación de ventas completas con detalles</li>
  * </ul>
  *
+ * <p>
+ * Las operaciones sobre la base de datos las realiza {@link TiendaService};
+ * este controlador solo pide los datos, espera el resultado y lo
+ * muestra.</p>
+ *
  * @author DarThunder
  * @version 1.0
  * @since 2025
  */
 public class OracleController {
 
+    private static final String[] REPORT_HEADERS = {
+        "NIVEL", "CLAVE", "INGRESOS", "UNIDADES", "TICKETS", "TICKET PROM.", "PART.", "POS."};
+    private static final int[] REPORT_WIDTHS = {9, 40, 14, 9, 8, 12, 6, 5};
+    private static final String[] DASHBOARD_HEADERS = {"", "INGRESOS", "UNIDADES", "TICKETS", "TICKET PROM."};
+    private static final int[] DASHBOARD_WIDTHS = {24, 14, 9, 8, 12};
+    /** Días anteriores a hoy que muestra el tablero */
+    private static final int DASHBOARD_DAYS = 6;
+    private static final String[] TOP_PRODUCT_HEADERS = {"POS.", "PRODUCTO", "UNIDADES", "± ERROR"};
+    private static final int[] TOP_PRODUCT_WIDTHS = {5, 10, 12, 10};
+    private static final String[] TOP_CUSTOMER_HEADERS = {"POS.", "CLIENTE", "NOMBRE", "IMPORTE", "± ERROR"};
+    private static final int[] TOP_CUSTOMER_WIDTHS = {5, 10, 30, 14, 12};
+    /** Productos y clientes que muestra el ranking de más vendidos */
+    private static final int TOP_N = 20;
+
     /**
-     * Conexión a la base de datos Oracle
+     * Servicio que ejecuta las operaciones
      */
-    private final Connection oracleConn;
-    private final MongoController mongoController;
+    private final TiendaService service;
 
     /**
      * Scanner para entrada de datos por consola
@@ -46,19 +84,14 @@ public class OracleController {
     private final Scanner scanner;
 
     /**
-     * Constructor que inicializa la conexión a Oracle Database y el scanner.
+     * Constructor que recibe el servicio compartido de la aplicación.
      *
-     * @param mongoController
-     * @throws SQLException si ocurre un error al conectar con la base de datos
+     * @param service servicio de la tienda
+     * @param scanner entrada de la consola
      */
-    public OracleController(MongoController mongoController) throws SQLException {
-        this.oracleConn = DriverManager.getConnection(
-                DatabaseConfig.ORACLE_URL,
-                DatabaseConfig.ORACLE_USER,
-                DatabaseConfig.ORACLE_PASSWORD
-        );
-        this.mongoController = mongoController;
-        this.scanner = new Scanner(System.in);
+    public OracleController(TiendaService service, Scanner scanner) {
+        this.service = service;
+        this.scanner = scanner;
     }
 
     /**
@@ -72,6 +105,8 @@ public class OracleController {
      * <li>2. Mostrar todo el inventario</li>
      * <li>3. Buscar prenda por tipo</li>
      * <li>4. Eliminar prenda</li>
+     * <li>5. Búsqueda avanzada</li>
+     * <li>6. Carga masiva desde archivo</li>
      * <li>0. Volver al menú principal</li>
      * </ul>
      */
@@ -83,6 +118,8 @@ public class OracleController {
             System.out.println("2. Mostrar todo el inventario");
             System.out.println("3. Buscar prenda por tipo");
             System.out.println("4. Eliminar prenda");
+            System.out.println("5. Búsqueda avanzada");
+            System.out.println("6. Carga masiva desde archivo");
             System.out.println("0. Volver al menú principal");
             System.out.print("Seleccione una opción: ");
 
@@ -98,6 +135,10 @@ public class OracleController {
                     findProductByCategory();
                 case 4 ->
                     deleteProduct();
+                case 5 ->
+                    findProductsByFilters();
+                case 6 ->
+                    loadProducts();
                 case 0 ->
                     System.out.println("Volviendo al menú principal...");
                 default ->
@@ -110,51 +151,38 @@ public class OracleController {
      * Agrega un nuevo producto al inventario. Solicita al usuario los datos del
      * producto: nombre, categoría, color, talla y precio.
      *
-     * <p>
-     * Los datos se insertan en la tabla Producto usando una secuencia para el
-     * ID.</p>
-     *
      * @see #showAllProducts()
      * @see #findProductByCategory()
      */
     public void addProduct() {
-        try {
-            System.out.print("\nIngrese nombre del producto: ");
-            String nombre = scanner.nextLine();
-
-            System.out.print("Ingrese categoría (general/deportivo/playa/casual): ");
-            String categoria = scanner.nextLine();
-
-            System.out.print("Ingrese color: ");
-            String color = scanner.nextLine();
+        System.out.print("\nIngrese nombre del producto: ");
+        String nombre = scanner.nextLine();
 
-            System.out.print("Ingrese talla: ");
-            String talla = scanner.nextLine();
-
-            System.out.print("Ingrese precio: ");
-            double precio = scanner.nextDouble();
-            scanner.nextLine();
+        System.out.print("Ingrese categoría (general/deportivo/playa/casual): ");
+        String categoria = scanner.nextLine();
 
-            String sql = "INSERT INTO Productos VALUES (ProductoType(producto_seq.NEXTVAL, ?, ?, ?, ?, ?))";
+        System.out.print("Ingrese color: ");
+        String color = scanner.nextLine();
 
-            PreparedStatement pstmt = oracleConn.prepareStatement(sql);
-            pstmt.setString(1, nombre);
-            pstmt.setDouble(2, precio);
-            pstmt.setString(3, color);
-            pstmt.setString(4, talla);
-            pstmt.setString(5, categoria);
+        System.out.print("Ingrese talla: ");
+        String talla = scanner.nextLine();
 
-            pstmt.executeUpdate();
-            System.out.println("Producto agregado con éxito!");
+        System.out.print("Ingrese precio: ");
+        double precio = scanner.nextDouble();
+        scanner.nextLine();
 
-        } catch (SQLException e) {
-            System.err.println("Error al agregar producto: " + e.getMessage());
+        try {
+            Producto producto = service.addProduct(nombre, categoria, color, talla, precio).join();
+            System.out.println("Producto agregado con éxito! ID: " + producto.idProducto());
+        } catch (CompletionException e) {
+            System.err.println("Error al agregar producto: " + Errores.mensaje(e));
         }
     }
 
     /**
-     * Muestra todos los productos del inventario en formato tabular. Los
-     * productos se ordenan por ID de forma ascendente.
+     * Muestra el inventario en formato tabular, una página a la vez. Los
+     * productos se ordenan por ID de forma ascendente y se puede avanzar o
+     * retroceder sin volver a recorrer la tabla desde el inicio.
      *
      * <p>
      * Información mostrada por producto:</p>
@@ -171,98 +199,177 @@ public class OracleController {
         try {
             System.out.println("\n=== INVENTARIO DE PRODUCTOS ===");
 
-            Statement stmt = oracleConn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT * FROM Productos");
+            int pageSize = DatabaseConfig.PRODUCT_PAGE_SIZE;
+            ProductPage page = service.listProductsAfter(Integer.MIN_VALUE, pageSize).join();
+            if (page.productos().isEmpty()) {
+                System.out.println("No hay productos registrados.");
+                return;
+            }
 
-            System.out.printf("%-5s %-20s %-15s %-12s %-10s %-8s%n",
-                    "ID", "NOMBRE", "CATEGORÍA", "PRECIO", "COLOR", "TALLA");
-            System.out.println("─".repeat(75));
+            while (true) {
+                printProductos(page.productos());
+                if (!page.hasNext() && !page.hasPrevious()) {
+                    return;
+                }
 
-            while (rs.next()) {
-                int id = rs.getInt("IDPRODUCTO");
-                String nombre = rs.getString("NOMBRE");
-                double precio = rs.getDouble("PRECIO");
-                String categorias = rs.getString("CATEGORIAS");
-                String color = rs.getString("COLOR");
-                String talla = rs.getString("TALLA");
+                System.out.print("[s] siguiente, [a] anterior, [q] salir: ");
+                String accion = scanner.nextLine().trim().toLowerCase();
 
-                System.out.printf("%d, %s, %.2f, %s, %s, %s%n",
-                        id, nombre, precio, categorias, color, talla);
+                ProductPage target = null;
+                if (accion.equals("s") && page.hasNext()) {
+                    target = service.listProductsAfter(page.lastId(), pageSize).join();
+                } else if (accion.equals("a") && page.hasPrevious()) {
+                    target = service.listProductsBefore(page.firstId(), pageSize).join();
+                } else if (accion.equals("q")) {
+                    return;
+                }
+
+                if (target == null || target.productos().isEmpty()) {
+                    System.out.println("No hay más productos en esa dirección.");
+                } else {
+                    page = target;
+                }
             }
-        } catch (SQLException e) {
-            System.err.println("Error al mostrar productos: " + e.getMessage());
+        } catch (CompletionException e) {
+            System.err.println("Error al mostrar productos: " + Errores.mensaje(e));
         }
     }
 
     /**
      * Busca y muestra productos por categoría. La búsqueda es insensible a
-     * mayúsculas y minúsculas.
+     * mayúsculas, minúsculas y acentos, y se resuelve en el índice de
+     * productos en memoria, sin recorrer la tabla Productos.
      *
      * @see #showAllProducts()
      */
     public void findProductByCategory() {
-        try {
-            System.out.print("\nIngrese categoría a buscar: ");
-            String categoria = scanner.nextLine();
+        System.out.print("\nIngrese categoría a buscar: ");
+        String categoria = scanner.nextLine();
 
-            String sql = "SELECT * FROM Productos  WHERE LOWER(categorias) = LOWER(?)";
-
-            PreparedStatement pstmt = oracleConn.prepareStatement(sql);
-            pstmt.setString(1, categoria);
-
-            ResultSet rs = pstmt.executeQuery();
-
-            boolean encontrado = false;
-            System.out.printf("%-5s %-20s %-15s %-12s %-10s %-8s%n",
-                    "ID", "NOMBRE", "CATEGORÍA", "PRECIO", "COLOR", "TALLA");
-            System.out.println("─".repeat(75));
+        try {
+            ProductSearchResult result = service.searchProducts(ProductQuery.byCategoria(categoria)).join();
+            if (result.productos().isEmpty()) {
+                System.out.println("No se encontraron productos de esa categoría");
+                return;
+            }
+            printProductos(result.productos());
+            printFacet("Colores", result.colores());
+            printFacet("Tallas", result.tallas());
+        } catch (CompletionException e) {
+            System.err.println("Error al buscar producto: " + Errores.mensaje(e));
+        }
+    }
 
-            while (rs.next()) {
-                encontrado = true;
-                int id = rs.getInt("IDPRODUCTO");
-                String nombre = rs.getString("NOMBRE");
-                double precio = rs.getDouble("PRECIO");
-                String categorias = rs.getString("CATEGORIAS");
-                String color = rs.getString("COLOR");
-                String talla = rs.getString("TALLA");
+    /**
+     * Búsqueda combinada por categoría, color, talla y palabras del nombre.
+     * Los filtros que se dejan vacíos no restringen el resultado. Además de
+     * los productos muestra cuántos resultados hay por cada valor de las
+     * facetas.
+     */
+    public void findProductsByFilters() {
+        System.out.println("\n(Deje vacío un filtro para no aplicarlo)");
+        System.out.print("Categoría: ");
+        String categoria = scanner.nextLine();
+        System.out.print("Color: ");
+        String color = scanner.nextLine();
+        System.out.print("Talla: ");
+        String talla = scanner.nextLine();
+        System.out.print("Palabras del nombre: ");
+        String texto = scanner.nextLine();
 
-                System.out.printf("%d, %s, %.2f, %s, %s, %s%n",
-                        id, nombre, precio, categorias, color, talla);
+        try {
+            ProductSearchResult result = service.searchProducts(
+                    new ProductQuery(categoria, color, talla, texto)).join();
+            if (result.productos().isEmpty()) {
+                System.out.println("No se encontraron productos con esos filtros");
+                return;
             }
+            printProductos(result.productos());
+            printFacet("Categorías", result.categorias());
+            printFacet("Colores", result.colores());
+            printFacet("Tallas", result.tallas());
+        } catch (CompletionException e) {
+            System.err.println("Error al buscar producto: " + Errores.mensaje(e));
+        }
+    }
 
-            if (!encontrado) {
-                System.out.println("No se encontraron productos de esa categoría");
-            }
-        } catch (SQLException e) {
-            System.err.println("Error al buscar producto: " + e.getMessage());
+    /**
+     * Imprime productos con el mismo formato del inventario.
+     *
+     * @param productos productos a mostrar
+     */
+    private void printProductos(List<Producto> productos) {
+        System.out.printf("%-5s %-20s %-15s %-12s %-10s %-8s%n",
+                "ID", "NOMBRE", "CATEGORÍA", "PRECIO", "COLOR", "TALLA");
+        System.out.println("─".repeat(75));
+        for (Producto p : productos) {
+            System.out.printf("%d, %s, %.2f, %s, %s, %s%n",
+                    p.idProducto(), p.nombre(), p.precio(), p.categoria(), p.color(), p.talla());
         }
     }
 
+    /**
+     * Imprime los conteos de una faceta en una línea, por ejemplo
+     * {@code Colores: Azul (3), Negro (2)}.
+     *
+     * @param titulo nombre de la faceta
+     * @param conteos resultados por valor
+     */
+    private void printFacet(String titulo, Map<String, Integer> conteos) {
+        StringBuilder line = new StringBuilder(titulo).append(": ");
+        conteos.forEach((valor, n) -> line.append(valor).append(" (").append(n).append("), "));
+        line.setLength(line.length() - 2);
+        System.out.println(line);
+    }
+
     /**
      * Elimina un producto del inventario por su ID.
      *
      * @see #addProduct()
      */
     public void deleteProduct() {
-        try {
-            System.out.print("\nIngrese ID del producto a eliminar: ");
-            int id = scanner.nextInt();
-            scanner.nextLine();
-
-            String sql = "DELETE FROM Productos p WHERE p.idproducto = ?";
-
-            PreparedStatement pstmt = oracleConn.prepareStatement(sql);
-            pstmt.setInt(1, id);
+        System.out.print("\nIngrese ID del producto a eliminar: ");
+        int id = scanner.nextInt();
+        scanner.nextLine();
 
-            int deleted = pstmt.executeUpdate();
-
-            if (deleted > 0) {
+        try {
+            if (service.deleteProduct(id).join()) {
                 System.out.println("Producto eliminado con éxito!");
             } else {
                 System.out.println("No se encontró producto con ese ID");
             }
-        } catch (SQLException e) {
-            System.err.println("Error al eliminar producto: " + e.getMessage());
+        } catch (CompletionException e) {
+            System.err.println("Error al eliminar producto: " + Errores.mensaje(e));
+        }
+    }
+
+    /**
+     * Carga productos de forma masiva desde un archivo CSV con columnas
+     * {@code tipo,nombre,precio,color,talla,categoria}. Si una carga anterior
+     * del mismo archivo quedó incompleta, continúa desde el último punto
+     * confirmado.
+     *
+     * @see ProductBulkLoader
+     */
+    public void loadProducts() {
+        if (!service.hasProductBulkLoad()) {
+            System.out.println("La carga masiva requiere Oracle; no está disponible en este modo.");
+            return;
+        }
+        System.out.print("\nIngrese la ruta del archivo de productos: ");
+        Path file = Path.of(scanner.nextLine().trim());
+        if (!Files.isRegularFile(file)) {
+            System.out.println("El archivo no existe: " + file);
+            return;
+        }
+
+        try {
+            ProductBulkLoader.LoadReport report = service.loadProducts(file).join();
+            System.out.println("Carga terminada: " + report);
+            report.errors().forEach(error -> System.out.println("  - " + error));
+        } catch (CompletionException e) {
+            System.err.println("Error en la carga masiva (vuelva a ejecutarla para continuar): "
+                    + Errores.mensaje(e));
         }
     }
 
@@ -275,12 +382,12 @@ public class OracleController {
      * <li>1. Agregar venta</li>
      * <li>2. Mostrar todas las ventas</li>
      * <li>3. Buscar venta por ID</li>
-     * <li>4. Actualizar venta</li>
-     * <li>5. Eliminar venta</li>
+     * <li>4. Eliminar venta</li>
+     * <li>5. Reporte de ventas</li>
      * <li>0. Volver al menú principal</li>
      * </ul>
      *
-     * @see #createCompleteVenta()
+     * @see #addVenta()
      */
     public void manageVentas() {
         int opcion;
@@ -290,6 +397,9 @@ public class OracleController {
             System.out.println("2. Mostrar todas las ventas");
             System.out.println("3. Buscar venta por ID");
             System.out.println("4. Eliminar venta");
+            System.out.println("5. Reporte de ventas");
+            System.out.println("6. Tablero de ventas");
+            System.out.println("7. Más vendidos");
             System.out.println("0. Volver al menú principal");
             System.out.print("Seleccione una opción: ");
 
@@ -305,6 +415,12 @@ public class OracleController {
                     findVentaById();
                 case 4 ->
                     deleteVenta();
+                case 5 ->
+                    salesReport();
+                case 6 ->
+                    salesDashboard();
+                case 7 ->
+                    topSellers();
                 case 0 ->
                     System.out.println("Volviendo al menú principal...");
                 default ->
@@ -314,114 +430,109 @@ public class OracleController {
     }
 
     /**
-     * Crea una venta completa con sus detalles de productos. Permite agregar
-     * múltiples productos a la venta y calcula automáticamente el total basado
-     * en los subtotales de cada producto.
+     * Crea una venta completa con sus detalles de productos. Primero se arma
+     * el carrito por consola y después se registra todo de una vez.
      *
      * <p>
      * Proceso:</p>
      * <ol>
-     * <li>Crea la venta con total inicial de 0</li>
-     * <li>Permite agregar productos uno por uno</li>
-     * <li>Calcula subtotales automáticamente</li>
-     * <li>Actualiza el total final de la venta</li>
+     * <li>Solicita el cliente</li>
+     * <li>Permite agregar productos uno por uno al carrito, sin tocar la base
+     * de datos</li>
+     * <li>Registra la venta y todos sus detalles en una sola transacción</li>
+     * <li>Muestra los subtotales y el total final</li>
      * </ol>
      *
-     * @see #addVenta()
+     * <p>
+     * Si el diario de ventas está activo, la venta se valoriza (casi siempre
+     * desde la caché de productos), se guarda en él y se confirma al
+     * instante, sin esperar a que se registre en Oracle. Se muestran los
+     * productos no encontrados, los subtotales y el total estimado; el ID
+     * se asigna cuando el diario la envía. Así una venta no se pierde si
+     * Oracle está lento o caído.</p>
+     *
      * @see #manageVentas()
      */
     public void addVenta() {
-        try {
-            System.out.print("\nIngrese ID del usuario (cliente): ");
-            int idUsuario = scanner.nextInt();
-            scanner.nextLine();
-
-            PreparedStatement pstmt = oracleConn.prepareStatement(
-                    "INSERT INTO Ventas VALUES (VentaType(venta_seq.NEXTVAL, SYSDATE, 0, ?))");
-            pstmt.setInt(1, idUsuario);
-            pstmt.executeUpdate();
-
-            int idVenta = -1;
-            String sqlSeq = "SELECT venta_seq.CURRVAL FROM dual";
-            try (Statement stmt = oracleConn.createStatement(); ResultSet rs = stmt.executeQuery(sqlSeq)) {
-                if (rs.next()) {
-                    idVenta = rs.getInt(1);
-                }
-            }
-
-            System.out.println("Venta creada con ID: " + idVenta);
-
-            double totalVenta = 0;
-            String continuar = "s";
-
-            while (continuar.equalsIgnoreCase("s")) {
-                System.out.print("Ingrese ID del producto: ");
-                int idProducto = scanner.nextInt();
-
-                System.out.print("Ingrese cantidad: ");
-                int cantidad = scanner.nextInt();
-                scanner.nextLine();
-
-                PreparedStatement pstmtPrecio = oracleConn.prepareStatement(
-                        "SELECT REF(p), p.precio, p.nombre FROM Productos p WHERE p.idProducto = ?");
-                pstmtPrecio.setInt(1, idProducto);
-                ResultSet rs = pstmtPrecio.executeQuery();
+        System.out.print("\nIngrese ID del usuario (cliente): ");
+        int idUsuario = scanner.nextInt();
+        scanner.nextLine();
 
-                if (rs.next()) {
-                    double precio = rs.getDouble("precio");
-                    String nombreProducto = rs.getString("nombre");
-                    double subtotal = precio * cantidad;
-                    totalVenta += subtotal;
+        List<LineaVenta> carrito = new ArrayList<>();
+        String continuar = "s";
 
-                    // Obtenemos el REF al producto
-                    java.sql.Ref refProducto = (java.sql.Ref) rs.getRef(1);
+        while (continuar.equalsIgnoreCase("s")) {
+            System.out.print("Ingrese ID del producto: ");
+            int idProducto = scanner.nextInt();
 
-                    // Obtenemos el REF a la venta
-                    PreparedStatement pstmtVenta = oracleConn.prepareStatement(
-                            "SELECT REF(v) FROM Ventas v WHERE v.idVenta = ?");
-                    pstmtVenta.setInt(1, idVenta);
-                    ResultSet rsVenta = pstmtVenta.executeQuery();
+            System.out.print("Ingrese cantidad: ");
+            int cantidad = scanner.nextInt();
+            scanner.nextLine();
 
-                    if (rsVenta.next()) {
-                        java.sql.Ref refVenta = (java.sql.Ref) rsVenta.getRef(1);
+            carrito.add(new LineaVenta(idProducto, cantidad));
 
-                        // Insertamos el detalle
-                        PreparedStatement pstmtDetalle = oracleConn.prepareStatement(
-                                "INSERT INTO DetallesVenta VALUES (det_venta_seq.NEXTVAL, ?, ?, ?, ?)");
-                        pstmtDetalle.setInt(1, cantidad);
-                        pstmtDetalle.setDouble(2, subtotal);
-                        pstmtDetalle.setRef(3, refVenta);
-                        pstmtDetalle.setRef(4, refProducto);
+            System.out.print("¿Agregar otro producto? (s/n): ");
+            continuar = scanner.nextLine();
+        }
 
-                        pstmtDetalle.executeUpdate();
+        if (service.hasSaleJournal()) {
+            try {
+                VentaEnDiario venta = service.journalVenta(idUsuario, carrito).join();
 
-                        System.out.println("Producto '" + nombreProducto + "' agregado - Subtotal: $" + subtotal);
-                    } else {
-                        System.out.println("Venta no encontrada con ID: " + idVenta);
-                    }
-                } else {
-                    System.out.println("Producto no encontrado");
+                for (int idProducto : venta.productosNoEncontrados()) {
+                    System.out.println("Producto no encontrado: " + idProducto);
+                }
+                if (!venta.guardada()) {
+                    System.out.println("Venta cancelada: ningún producto válido.");
+                    return;
                 }
 
-                System.out.print("¿Agregar otro producto? (s/n): ");
-                continuar = scanner.nextLine();
+                System.out.println("Venta #" + venta.pendiente().secuencia()
+                        + " guardada en el diario; se registrará en Oracle en segundo plano.");
+                if (!venta.validada()) {
+                    System.out.println("Oracle no respondió: los productos y el total se revisarán al registrarla.");
+                    return;
+                }
+                for (DetalleVenta detalle : venta.detalles()) {
+                    System.out.println("Producto '" + detalle.nombre() + "' agregado - Subtotal: $" + detalle.subtotal());
+                }
+                System.out.println("Venta completada - Total estimado: $" + venta.total());
+            } catch (CompletionException e) {
+                System.err.println("Error al guardar la venta en el diario: " + Errores.mensaje(e));
             }
+            return;
+        }
 
-            PreparedStatement pstmtTotal = oracleConn.prepareStatement("UPDATE Ventas SET total = ? WHERE idVenta = ?");
-            pstmtTotal.setDouble(1, totalVenta);
-            pstmtTotal.setInt(2, idVenta);
-            pstmtTotal.executeUpdate();
+        try {
+            ResultadoVenta venta = service.createVenta(idUsuario, carrito).join();
 
-            System.out.println("Venta completada - Total: $" + totalVenta);
+            for (int idProducto : venta.productosNoEncontrados()) {
+                System.out.println("Producto no encontrado: " + idProducto);
+            }
+            if (!venta.creada()) {
+                System.out.println("Venta cancelada: ningún producto válido.");
+                return;
+            }
 
-        } catch (SQLException e) {
-            System.err.println("Error al crear venta: " + e.getMessage());
+            System.out.println("Venta creada con ID: " + venta.idVenta());
+            for (DetalleVenta detalle : venta.detalles()) {
+                System.out.println("Producto '" + detalle.nombre() + "' agregado - Subtotal: $" + detalle.subtotal());
+            }
+            System.out.println("Venta completada - Total: $" + venta.total());
+        } catch (CompletionException e) {
+            System.err.println("Error al crear venta: " + Errores.mensaje(e));
         }
     }
 
     /**
-     * Muestra todas las ventas registradas en el sistema. Incluye información
-     * del cliente mediante JOIN con la tabla Usuario.
+     * Muestra o exporta todas las ventas registradas en el sistema, con el
+     * nombre y el correo del cliente, obtenidos de MongoDB.
+     *
+     * <p>
+     * Las ventas y los clientes se unen con
+     * {@link TiendaService#joinVentasClientes}: los clientes se cargan una
+     * vez en una tabla en memoria, o se resuelven por lotes si no caben, y
+     * cada venta se dibuja en cuanto llega de Oracle.</p>
      *
      * <p>
      * Información mostrada por venta:</p>
@@ -429,100 +540,95 @@ public class OracleController {
      * <li>ID de la venta</li>
      * <li>Fecha</li>
      * <li>Total</li>
-     * <li>Nombre del cliente</li>
+     * <li>Nombre y correo del cliente</li>
      * </ul>
      */
     public void showAllVentas() {
-        try {
-            System.out.println("\n=== REGISTRO DE VENTAS ===");
-
-            String sql = "SELECT * FROM Ventas";
-            Statement stmt = oracleConn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-
-            System.out.printf("%-5s %-15s %-12s %-20s%n", "ID", "FECHA", "TOTAL", "CLIENTE");
-            System.out.println("─".repeat(60));
-
-            boolean hasResults = false;
-            while (rs.next()) {
-                hasResults = true;
-                int id = rs.getInt("IDVENTA");
-                String fecha = rs.getString("FECHA");
-                double total = rs.getDouble("TOTAL");
-                int userIndex = rs.getInt("USUARIO");
-
-                String nombreCliente = mongoController.findUserByIndex(userIndex);
-                if (nombreCliente == null) {
-                    nombreCliente = "¿?";
-                }
-
-                System.out.printf("%-5d %-15s %-12.2f %-20s%n", id, fecha, total, nombreCliente);
+        System.out.print("\n[c] consola, [a] archivo CSV: ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("a")) {
+            System.out.print("Ruta del archivo: ");
+            Path file = Path.of(scanner.nextLine().trim());
+            try {
+                SalesCustomerJoin.JoinReport report = service.exportVentasClientes(file).join();
+                System.out.println("Ventas exportadas a " + file + " (" + report.rows() + " filas).");
+            } catch (CompletionException e) {
+                System.err.println("Error al exportar ventas: " + Errores.mensaje(e));
             }
+            return;
+        }
 
-            if (!hasResults) {
+        System.out.println("\n=== REGISTRO DE VENTAS ===");
+        boolean[] primera = {true};
+        try {
+            SalesCustomerJoin.JoinReport report = service.joinVentasClientes(venta -> {
+                if (primera[0]) {
+                    System.out.printf("%-5s %-15s %-12s %-20s %-30s%n", "ID", "FECHA", "TOTAL", "CLIENTE", "EMAIL");
+                    System.out.println("─".repeat(86));
+                    primera[0] = false;
+                }
+                System.out.printf("%-5d %-15s %-12.2f %-20s %-30s%n",
+                        venta.idVenta(), venta.fecha(), venta.total(),
+                        venta.nombre() != null ? venta.nombre() : "¿?",
+                        venta.email() != null ? venta.email() : "");
+            }).join();
+            if (report.rows() == 0) {
                 System.out.println("No hay ventas registradas.");
+            } else if (report.unmatched() > 0) {
+                System.out.println(report.unmatched() + " ventas sin cliente en MongoDB.");
             }
-
-        } catch (SQLException e) {
-            System.err.println("Error al mostrar ventas: " + e.getMessage());
+        } catch (CompletionException e) {
+            System.err.println("Error al mostrar ventas: " + Errores.mensaje(e));
         }
     }
 
     /**
      * Busca y muestra una venta específica por su ID. También muestra los
      * detalles de productos asociados a la venta.
-     *
-     * @see #showVentaDetails(int)
      */
     public void findVentaById() {
-        try {
-            System.out.print("\nIngrese ID de la venta a buscar: ");
-            int id = scanner.nextInt();
-            scanner.nextLine();
+        System.out.print("\nIngrese ID de la venta a buscar: ");
+        int id = scanner.nextInt();
+        scanner.nextLine();
 
-            String sql = "SELECT * FROM Ventas WHERE idVenta = ?";
-
-            PreparedStatement pstmt = oracleConn.prepareStatement(sql);
-            pstmt.setInt(1, id);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
-                int ventaId = rs.getInt("IDVENTA");
-                Date fecha = rs.getDate("FECHA");
-                double total = rs.getDouble("TOTAL");
-                int userIndex = rs.getInt("USUARIO");
+        try {
+            Optional<Venta> encontrada = service.findVenta(id).join();
+            if (encontrada.isEmpty()) {
+                System.out.println("No se encontró venta con ID: " + id);
+                return;
+            }
+            Venta venta = encontrada.get();
+            String nombreUsuario = venta.nombreCliente() != null ? venta.nombreCliente() : "¿?";
 
-                String nombreUsuario = mongoController.findUserByIndex(userIndex);
-                if (nombreUsuario == null) {
-                    nombreUsuario = "¿?";
-                }
+            System.out.println("\n=== DETALLES DE LA VENTA ===");
+            System.out.printf("ID: %d\nFecha: %s\nTotal: $%.2f\nCliente: %s\n",
+                    venta.idVenta(), venta.fecha(), venta.total(), nombreUsuario);
 
-                System.out.println("\n=== DETALLES DE LA VENTA ===");
-                System.out.printf("ID: %d\nFecha: %s\nTotal: $%.2f\nCliente: %s\n",
-                        ventaId, fecha.toString(), total, nombreUsuario);
-                showVentaDetails(id);
-            } else {
-                System.out.println("No se encontró venta con ID: " + id);
+            if (venta.detalles().isEmpty()) {
+                System.out.println("(Sin detalles de productos)");
+                return;
+            }
+            System.out.printf("%-20s %-10s %-10s%n", "Producto", "Cantidad", "Subtotal");
+            System.out.println("─".repeat(45));
+            for (DetalleVenta detalle : venta.detalles()) {
+                System.out.printf("%-20s %-10d $%-10.2f%n",
+                        detalle.nombre(), detalle.cantidad(), detalle.subtotal());
             }
-        } catch (SQLException e) {
-            System.err.println("Error al buscar venta: " + e.getMessage());
+        } catch (CompletionException e) {
+            System.err.println("Error al buscar venta: " + Errores.mensaje(e));
         }
     }
 
     /**
-     * Elimina una venta del sistema. Primero elimina los detalles de la venta y
-     * luego la venta principal. Solicita confirmación antes de proceder con la
-     * eliminación.
-     *
-     * @see #ventaExists(int)
+     * Elimina una venta del sistema. Solicita confirmación antes de proceder
+     * con la eliminación.
      */
     public void deleteVenta() {
-        try {
-            System.out.print("\nIngrese ID de la venta a eliminar: ");
-            int id = scanner.nextInt();
-            scanner.nextLine();
+        System.out.print("\nIngrese ID de la venta a eliminar: ");
+        int id = scanner.nextInt();
+        scanner.nextLine();
 
-            if (!ventaExists(id)) {
+        try {
+            if (!service.ventaExists(id).join()) {
                 System.out.println("No se encontró venta con ID: " + id);
                 return;
             }
@@ -531,91 +637,217 @@ public class OracleController {
             String confirmacion = scanner.nextLine();
 
             if (confirmacion.equalsIgnoreCase("s")) {
-                String sql = "DELETE FROM Ventas v WHERE v.idVenta = ?";
-                PreparedStatement pstmt = oracleConn.prepareStatement(sql);
-                pstmt.setInt(1, id);
-                int deleted = pstmt.executeUpdate();
-
-                if (deleted > 0) {
+                if (service.deleteVenta(id).join()) {
                     System.out.println("Venta eliminada con éxito!");
                 }
             } else {
                 System.out.println("Operación cancelada.");
             }
-        } catch (SQLException e) {
-            System.err.println("Error al eliminar venta: " + e.getMessage());
+        } catch (CompletionException e) {
+            System.err.println("Error al eliminar venta: " + Errores.mensaje(e));
         }
     }
 
     /**
-     * Verifica si existe una venta con el ID especificado.
+     * Muestra o exporta el reporte de ventas de un periodo: ingresos,
+     * unidades, tickets y ticket promedio por día, por categoría y por
+     * producto, con la participación y la posición de cada fila en su nivel.
      *
-     * @param id el ID de la venta a verificar
-     * @return true si la venta existe, false en caso contrario
+     * <p>
+     * Las fechas se piden en formato AAAA-MM-DD; sin inicio se toman los
+     * últimos {@link DatabaseConfig#SALES_REPORT_DEFAULT_DAYS} días y sin fin,
+     * hasta hoy. En consola cada fila se dibuja en cuanto llega de Oracle; la
+     * exportación escribe un CSV.</p>
      */
-    private boolean ventaExists(int id) {
+    public void salesReport() {
+        LocalDate hoy = LocalDate.now();
+        LocalDate desde;
+        LocalDate hasta;
         try {
-            String sql = "SELECT COUNT(*) FROM Ventas WHERE idVenta = ?";
-            PreparedStatement pstmt = oracleConn.prepareStatement(sql);
-            pstmt.setInt(1, id);
-            ResultSet rs = pstmt.executeQuery();
+            System.out.print("\nDesde (AAAA-MM-DD, vacío = últimos "
+                    + DatabaseConfig.SALES_REPORT_DEFAULT_DAYS + " días): ");
+            String texto = scanner.nextLine().trim();
+            desde = texto.isEmpty() ? hoy.minusDays(DatabaseConfig.SALES_REPORT_DEFAULT_DAYS - 1) : LocalDate.parse(texto);
+            System.out.print("Hasta (AAAA-MM-DD, vacío = hoy): ");
+            texto = scanner.nextLine().trim();
+            hasta = texto.isEmpty() ? hoy : LocalDate.parse(texto);
+        } catch (DateTimeParseException e) {
+            System.out.println("Fecha inválida: " + e.getParsedString());
+            return;
+        }
+        if (hasta.isBefore(desde)) {
+            System.out.println("El periodo termina antes de empezar.");
+            return;
+        }
 
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
+        System.out.print("[c] consola, [a] archivo CSV: ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("a")) {
+            System.out.print("Ruta del archivo: ");
+            Path file = Path.of(scanner.nextLine().trim());
+            try {
+                long filas = service.exportSalesReport(desde, hasta, file).join();
+                System.out.println(filas == 0 ? "No hubo ventas en el periodo; el archivo solo tiene encabezado."
+                        : "Reporte exportado a " + file + " (" + filas + " filas).");
+            } catch (CompletionException e) {
+                System.err.println("Error al exportar el reporte: " + Errores.mensaje(e));
             }
-        } catch (SQLException e) {
-            System.err.println("Error al verificar existencia de venta: " + e.getMessage());
+            return;
+        }
+
+        System.out.println("\n=== REPORTE DE VENTAS " + desde + " a " + hasta + " ===");
+        TableRenderer table = PrettyPrinter.table(REPORT_WIDTHS);
+        boolean[] primera = {true};
+        try {
+            long filas = service.salesReport(desde, hasta, fila -> {
+                if (primera[0]) {
+                    table.writeTop();
+                    table.writeRow(REPORT_HEADERS);
+                    primera[0] = false;
+                }
+                table.writeSeparator();
+                table.writeRow(new String[]{
+                    fila.nivel().toString(),
+                    fila.clave(),
+                    String.format("%.2f", fila.ingresos()),
+                    String.valueOf(fila.unidades()),
+                    String.valueOf(fila.tickets()),
+                    String.format("%.2f", fila.ticketPromedio()),
+                    String.format("%.1f%%", fila.participacion() * 100),
+                    String.valueOf(fila.posicion())});
+            }).join();
+            if (filas == 0) {
+                System.out.println("No hubo ventas en el periodo.");
+                return;
+            }
+            table.writeBottom();
+        } catch (CompletionException e) {
+            System.err.println("Error al calcular el reporte: " + Errores.mensaje(e));
+        } finally {
+            table.flush();
         }
-        return false;
     }
 
     /**
-     * Muestra los detalles de productos de una venta específica. Incluye
-     * cantidad, subtotal y nombre del producto.
-     *
-     * @param idVenta el ID de la venta cuyos detalles se mostrarán
+     * Muestra el tablero de ventas: la hora en curso, hoy, los días
+     * anteriores y el total, y los acumulados por categoría. Se lee de los
+     * acumulados en memoria, sin consultar Oracle.
      */
-    private void showVentaDetails(int idVenta) {
-        try {
-            String sql = """
-            SELECT dv.Cantidad, dv.Subtotal, DEREF(dv.producto).nombre AS producto
-            FROM DetallesVenta dv
-            WHERE dv.venta = (SELECT REF(v) FROM Ventas v WHERE v.idVenta = ?)
-        """;
-
-            PreparedStatement pstmt = oracleConn.prepareStatement(sql);
-            pstmt.setInt(1, idVenta);
-            ResultSet rs = pstmt.executeQuery();
-
-            boolean hasDetails = false;
-            while (rs.next()) {
-                if (!hasDetails) {
-                    System.out.printf("%-20s %-10s %-10s%n", "Producto", "Cantidad", "Subtotal");
-                    System.out.println("─".repeat(45));
-                    hasDetails = true;
-                }
+    public void salesDashboard() {
+        SalesRollups rollups = service.getSalesRollups();
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDate hoy = ahora.toLocalDate();
 
-                System.out.printf("%-20s %-10d $%-10.2f%n",
-                        rs.getString("producto"),
-                        rs.getInt("Cantidad"),
-                        rs.getDouble("Subtotal"));
+        System.out.println("\n=== TABLERO DE VENTAS " + ahora.withNano(0) + " ===");
+        TableRenderer table = PrettyPrinter.table(DASHBOARD_WIDTHS);
+        try {
+            table.writeTop();
+            table.writeRow(DASHBOARD_HEADERS);
+            dashboardRow(table, "Hora " + ahora.getHour() + ":00", rollups.hora(ahora));
+            dashboardRow(table, "Hoy", rollups.dia(hoy));
+            for (int i = 1; i <= DASHBOARD_DAYS; i++) {
+                LocalDate dia = hoy.minusDays(i);
+                dashboardRow(table, dia.toString(), rollups.dia(dia));
             }
-
-            if (!hasDetails) {
-                System.out.println("(Sin detalles de productos)");
+            dashboardRow(table, "Total", rollups.total());
+            table.writeBottom();
+
+            List<Map.Entry<String, SalesRollups.Totales>> categorias = rollups.categorias();
+            if (!categorias.isEmpty()) {
+                // La primera tabla sigue en el buffer: debe salir antes que la línea en blanco
+                table.flush();
+                System.out.println();
+                table.writeTop();
+                table.writeRow(new String[]{"CATEGORÍA", "INGRESOS", "UNIDADES", "TICKETS", "TICKET PROM."});
+                for (Map.Entry<String, SalesRollups.Totales> categoria : categorias) {
+                    dashboardRow(table, categoria.getKey() == null ? "(sin categoría)" : categoria.getKey(),
+                            categoria.getValue());
+                }
+                table.writeBottom();
             }
-        } catch (SQLException e) {
-            System.err.println("Error al mostrar detalles de venta: " + e.getMessage());
+        } finally {
+            table.flush();
         }
     }
 
+    private static void dashboardRow(TableRenderer table, String etiqueta, SalesRollups.Totales totales) {
+        table.writeSeparator();
+        table.writeRow(new String[]{
+            etiqueta,
+            String.format("%.2f", totales.ingresos()),
+            String.valueOf(totales.unidades()),
+            String.valueOf(totales.tickets()),
+            String.format("%.2f", totales.ticketPromedio())});
+    }
+
     /**
-     * Cierra la conexión a la base de datos Oracle. Debe llamarse al finalizar
-     * el uso del controlador para liberar recursos.
-     *
-     * @throws SQLException si ocurre un error al cerrar la conexión
+     * Muestra los {@value #TOP_N} productos más vendidos y los clientes que
+     * más compraron en la última hora, el último día o desde el arranque.
+     * Son estimaciones en memoria: cada fila muestra cuánto puede
+     * sobrestimarse, y al final se indica el error máximo del periodo.
      */
-    public void close() throws SQLException {
-        oracleConn.close();
+    public void topSellers() {
+        System.out.print("\n[h] última hora, [d] último día, [t] histórico: ");
+        TopSellers.Periodo periodo = switch (scanner.nextLine().trim().toLowerCase()) {
+            case "h" ->
+                TopSellers.Periodo.ULTIMA_HORA;
+            case "d" ->
+                TopSellers.Periodo.ULTIMO_DIA;
+            default ->
+                TopSellers.Periodo.HISTORICO;
+        };
+        TopSellers.Ranking productos = service.getTopSellers().productos(periodo, TOP_N);
+        TopSellers.Ranking clientes = service.getTopSellers().clientes(periodo, TOP_N);
+        if (productos.destacados().isEmpty()) {
+            System.out.println("No hubo ventas en el periodo.");
+            return;
+        }
+
+        Map<Integer, String> nombres;
+        try {
+            nombres = service.findUserNamesByIds(clientes.destacados().stream()
+                    .map(d -> (int) d.clave()).toList()).join();
+        } catch (CompletionException e) {
+            System.err.println("No se pudieron obtener los nombres de los clientes: " + Errores.mensaje(e));
+            nombres = Map.of();
+        }
+
+        System.out.println("\n=== PRODUCTOS MÁS VENDIDOS (" + periodo + ") ===");
+        TableRenderer table = PrettyPrinter.table(TOP_PRODUCT_WIDTHS);
+        try {
+            table.writeTop();
+            table.writeRow(TOP_PRODUCT_HEADERS);
+            int posicion = 1;
+            for (TopSellers.Destacado d : productos.destacados()) {
+                table.writeSeparator();
+                table.writeRow(new String[]{
+                    String.valueOf(posicion++), String.valueOf(d.clave()),
+                    String.valueOf(d.estimado()), String.valueOf(d.error())});
+            }
+            table.writeBottom();
+        } finally {
+            table.flush();
+        }
+        System.out.println("Unidades del periodo: " + productos.total()
+                + "; error máximo: ±" + productos.errorMaximo());
+
+        System.out.println("\n=== CLIENTES CON MÁS COMPRAS (" + periodo + ") ===");
+        table = PrettyPrinter.table(TOP_CUSTOMER_WIDTHS);
+        try {
+            table.writeTop();
+            table.writeRow(TOP_CUSTOMER_HEADERS);
+            int posicion = 1;
+            for (TopSellers.Destacado d : clientes.destacados()) {
+                table.writeSeparator();
+                table.writeRow(new String[]{
+                    String.valueOf(posicion++), String.valueOf(d.clave()),
+                    nombres.getOrDefault((int) d.clave(), "(desconocido)"),
+                    String.format("%.2f", d.estimado() / 100.0), String.format("%.2f", d.error() / 100.0)});
+            }
+            table.writeBottom();
+        } finally {
+            table.flush();
+        }
+        System.out.println(String.format("Importe del periodo: %.2f; error máximo: ±%.2f",
+                clientes.total() / 100.0, clientes.errorMaximo() / 100.0));
     }
 }
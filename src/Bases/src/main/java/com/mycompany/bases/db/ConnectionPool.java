@@ -0,0 +1,409 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.db;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.config.DatabaseConfig;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool acotado de conexiones JDBC hacia Oracle.
+ *
+ * <p>
+ * Mantiene entre {@code minSize} y {@code maxSize} conexiones físicas y las
+ * presta por operación mediante {@link #borrow()}. Cada conexión prestada se
+ * devuelve al cerrar el {@link PooledConnection}, por lo que el uso esperado
+ * es dentro de un try-with-resources.</p>
+ *
+ * <p>
+ * Políticas:</p>
+ * <ul>
+ * <li>Validación al prestar: si la conexión estuvo ociosa más de
+ * {@link #VALIDATION_BYPASS_MS} se comprueba con {@code isValid}</li>
+ * <li>Expulsión de ociosas: una tarea periódica cierra las conexiones que
+ * superan el tiempo de inactividad mientras haya más de {@code minSize}</li>
+ * <li>Vida máxima: las conexiones más viejas que {@code maxLifetime} se
+ * reciclan al devolverse o al revisarse</li>
+ * <li>Espera acotada: si no hay conexión disponible en
+ * {@code borrowTimeout} se lanza {@link SQLTimeoutException}</li>
+ * </ul>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public final class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Fábrica de conexiones físicas. Permite sustituir DriverManager por otra
+     * fuente (por ejemplo un DataSource).
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+
+        Connection create() throws SQLException;
+    }
+
+    /**
+     * Fotografía de las métricas del pool en un instante dado.
+     *
+     * @param total conexiones físicas abiertas
+     * @param idle conexiones disponibles en el pool
+     * @param active conexiones prestadas
+     * @param borrows préstamos exitosos acumulados
+     * @param timeouts préstamos que agotaron el tiempo de espera
+     * @param created conexiones físicas creadas
+     * @param destroyed conexiones físicas cerradas
+     * @param validationFailures conexiones descartadas al validarse
+     * @param avgWaitMillis espera promedio para obtener una conexión
+     * @param maxWaitMillis mayor espera observada
+     * @param statementHits sentencias reutilizadas de la caché
+     * @param statementMisses sentencias que hubo que preparar
+     * @param statementEvictions sentencias cerradas por expulsión LRU
+     */
+    public record Stats(int total, int idle, int active, long borrows, long timeouts,
+            long created, long destroyed, long validationFailures,
+            double avgWaitMillis, double maxWaitMillis,
+            long statementHits, long statementMisses, long statementEvictions) {
+
+        /**
+         * Proporción de sentencias servidas desde la caché.
+         *
+         * @return valor entre 0 y 1
+         */
+        public double statementHitRate() {
+            long lookups = statementHits + statementMisses;
+            return lookups == 0 ? 0 : (double) statementHits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("total=%d activas=%d ociosas=%d préstamos=%d timeouts=%d "
+                    + "creadas=%d cerradas=%d inválidas=%d espera(prom=%.3fms, máx=%.3fms) "
+                    + "sentencias(aciertos=%d, fallos=%d, expulsadas=%d, tasa=%.1f%%)",
+                    total, active, idle, borrows, timeouts, created, destroyed,
+                    validationFailures, avgWaitMillis, maxWaitMillis,
+                    statementHits, statementMisses, statementEvictions,
+                    statementHitRate() * 100);
+        }
+    }
+
+    /**
+     * Una conexión usada hace menos de este tiempo no se valida al prestarse,
+     * así se evita un viaje extra al servidor en ráfagas de operaciones.
+     */
+    static final long VALIDATION_BYPASS_MS = 500;
+
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+    private final SlowQueryLog slowQueryLog;
+
+    /** Conexiones disponibles; se usa como pila (LIFO) para reusar las más calientes */
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+
+    /** Un permiso por conexión que puede estar prestada a la vez */
+    private final Semaphore permits;
+
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder destroyed = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+    private final LongAdder statementEvictions = new LongAdder();
+
+    /**
+     * Crea el pool con la configuración de {@link DatabaseConfig} y
+     * DriverManager como fábrica de conexiones.
+     *
+     * @return el pool listo con las conexiones mínimas abiertas
+     * @throws SQLException si no se pueden abrir las conexiones iniciales
+     */
+    public static ConnectionPool fromConfig() throws SQLException {
+        return new ConnectionPool(
+                () -> DriverManager.getConnection(
+                        DatabaseConfig.ORACLE_URL,
+                        DatabaseConfig.ORACLE_USER,
+                        DatabaseConfig.ORACLE_PASSWORD),
+                DatabaseConfig.ORACLE_POOL_MIN_SIZE,
+                DatabaseConfig.ORACLE_POOL_MAX_SIZE,
+                DatabaseConfig.ORACLE_POOL_BORROW_TIMEOUT_MS,
+                DatabaseConfig.ORACLE_POOL_IDLE_TIMEOUT_MS,
+                DatabaseConfig.ORACLE_POOL_MAX_LIFETIME_MS,
+                DatabaseConfig.ORACLE_POOL_VALIDATION_TIMEOUT_S,
+                DatabaseConfig.ORACLE_POOL_HOUSEKEEPING_MS,
+                DatabaseConfig.ORACLE_STATEMENT_CACHE_SIZE,
+                SlowQueryLog.fromConfig());
+    }
+
+    /**
+     * Constructor que abre las conexiones mínimas y arranca la tarea de
+     * mantenimiento.
+     *
+     * @param factory fábrica de conexiones físicas
+     * @param minSize conexiones que se mantienen abiertas
+     * @param maxSize máximo de conexiones simultáneas
+     * @param borrowTimeoutMillis espera máxima en {@link #borrow()}
+     * @param idleTimeoutMillis inactividad tras la cual se cierra una conexión
+     * @param maxLifetimeMillis vida máxima de una conexión física
+     * @param validationTimeoutSeconds límite para {@code Connection.isValid}
+     * @param housekeepingMillis intervalo de la tarea de mantenimiento
+     * @param statementCacheSize sentencias preparadas en caché por conexión
+     * @throws SQLException si no se pueden abrir las conexiones iniciales
+     */
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize,
+            long borrowTimeoutMillis, long idleTimeoutMillis, long maxLifetimeMillis,
+            int validationTimeoutSeconds, long housekeepingMillis,
+            int statementCacheSize) throws SQLException {
+        this(factory, minSize, maxSize, borrowTimeoutMillis, idleTimeoutMillis, maxLifetimeMillis,
+                validationTimeoutSeconds, housekeepingMillis, statementCacheSize, null);
+    }
+
+    /**
+     * Igual que el constructor anterior, con un registro de consultas lentas
+     * que reciben todas las sentencias del pool.
+     *
+     * @param factory fábrica de conexiones físicas
+     * @param minSize conexiones que se mantienen abiertas
+     * @param maxSize máximo de conexiones simultáneas
+     * @param borrowTimeoutMillis espera máxima en {@link #borrow()}
+     * @param idleTimeoutMillis inactividad tras la cual se cierra una conexión
+     * @param maxLifetimeMillis vida máxima de una conexión física
+     * @param validationTimeoutSeconds límite para {@code Connection.isValid}
+     * @param housekeepingMillis intervalo de la tarea de mantenimiento
+     * @param statementCacheSize sentencias preparadas en caché por conexión
+     * @param slowQueryLog registro de consultas lentas, o null para no
+     * usarlo; el pool lo cierra
+     * @throws SQLException si no se pueden abrir las conexiones iniciales
+     */
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize,
+            long borrowTimeoutMillis, long idleTimeoutMillis, long maxLifetimeMillis,
+            int validationTimeoutSeconds, long housekeepingMillis,
+            int statementCacheSize, SlowQueryLog slowQueryLog) throws SQLException {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Tamaños de pool inválidos: min=" + minSize + ", max=" + maxSize);
+        }
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.slowQueryLog = slowQueryLog;
+        this.permits = new Semaphore(maxSize, true);
+
+        // Las conexiones mínimas se abren ahora para que el primer préstamo
+        // no pague el establecimiento de la sesión
+        try {
+            for (int i = 0; i < minSize; i++) {
+                idle.offerLast(open());
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "oracle-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep,
+                housekeepingMillis, housekeepingMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Presta una conexión del pool. Debe cerrarse para devolverla.
+     *
+     * @return conexión lista para usar, en modo autocommit
+     * @throws SQLTimeoutException si no hubo conexión disponible a tiempo
+     * @throws SQLException si el pool está cerrado o no se pudo abrir una
+     * conexión nueva
+     */
+    public PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("El pool de conexiones está cerrado");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLTimeoutException("No hubo conexión disponible en "
+                        + borrowTimeoutMillis + " ms (" + stats() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando una conexión", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            PooledConnection conn;
+            while ((conn = idle.pollFirst()) != null) {
+                long now = System.currentTimeMillis();
+                if (conn.isExpired(now, maxLifetimeMillis)) {
+                    destroy(conn);
+                    continue;
+                }
+                if (now - conn.getLastUsedAt() > VALIDATION_BYPASS_MS
+                        && !conn.isValid(validationTimeoutSeconds)) {
+                    validationFailures.increment();
+                    destroy(conn);
+                    continue;
+                }
+                break;
+            }
+            if (conn == null) {
+                conn = open();
+            }
+            conn.markBorrowed();
+            borrows.increment();
+            return conn;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Recibe una conexión devuelta por {@link PooledConnection#close()}.
+     * Deshace cualquier transacción pendiente y la deja en autocommit antes de
+     * volver a ofrecerla.
+     *
+     * @param conn la conexión devuelta
+     */
+    void release(PooledConnection conn) {
+        try {
+            boolean reusable = !closed
+                    && !conn.isExpired(System.currentTimeMillis(), maxLifetimeMillis)
+                    && totalConnections.get() <= maxSize
+                    && conn.reset();
+            if (reusable) {
+                idle.offerFirst(conn);
+            } else {
+                destroy(conn);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Tarea periódica: cierra conexiones ociosas o vencidas y repone el mínimo.
+     */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        for (PooledConnection conn : new ArrayList<>(idle)) {
+            boolean expired = conn.isExpired(now, maxLifetimeMillis);
+            boolean idleTooLong = now - conn.getLastUsedAt() > idleTimeoutMillis
+                    && totalConnections.get() > minSize;
+            // remove() falla si otro hilo la tomó mientras tanto
+            if ((expired || idleTooLong) && idle.remove(conn)) {
+                destroy(conn);
+            }
+        }
+
+        try {
+            while (!closed && totalConnections.get() < minSize) {
+                idle.offerLast(open());
+            }
+        } catch (SQLException e) {
+            System.err.println("Pool Oracle: no se pudo reponer conexión: " + e.getMessage());
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection physical = factory.create();
+        totalConnections.incrementAndGet();
+        created.increment();
+        return new PooledConnection(this, physical, new StatementCache(
+                statementCacheSize, statementHits, statementMisses, statementEvictions), slowQueryLog);
+    }
+
+    private void destroy(PooledConnection conn) {
+        totalConnections.decrementAndGet();
+        destroyed.increment();
+        conn.closePhysical();
+    }
+
+    private void recordWait(long nanos) {
+        waitNanos.add(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Obtiene las métricas actuales del pool.
+     *
+     * @return fotografía de contadores y tiempos de espera
+     */
+    public Stats stats() {
+        long totalBorrows = borrows.sum();
+        int idleCount = idle.size();
+        int total = totalConnections.get();
+        return new Stats(total, idleCount, Math.max(0, total - idleCount),
+                totalBorrows, timeouts.sum(), created.sum(), destroyed.sum(),
+                validationFailures.sum(),
+                totalBorrows == 0 ? 0 : waitNanos.sum() / 1e6 / totalBorrows,
+                maxWaitNanos.get() / 1e6,
+                statementHits.sum(), statementMisses.sum(), statementEvictions.sum());
+    }
+
+    /**
+     * @return el registro de consultas lentas, o null si el pool no tiene
+     */
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    /**
+     * Cierra el pool y todas las conexiones ociosas. Las conexiones prestadas
+     * se cierran cuando se devuelvan. El registro de consultas lentas escribe
+     * su resumen y se cierra.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (housekeeper != null) {
+            housekeeper.shutdownNow();
+        }
+        List<PooledConnection> drained = new ArrayList<>();
+        idle.drainTo(drained);
+        drained.forEach(this::destroy);
+        if (slowQueryLog != null) {
+            slowQueryLog.close();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.db;
+
+/**
+ *
+ * @author dard
+ */
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOptions;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Updates.inc;
+import static com.mongodb.client.model.Updates.max;
+import org.bson.Document;
+
+/**
+ * Asigna claves numéricas de cliente ({@value #FIELD}) a los documentos de
+ * "usuarios".
+ *
+ * <p>
+ * Usa un documento contador en la colección "contadores" que guarda el
+ * siguiente valor libre. Cada asignación es un {@code findOneAndUpdate} con
+ * {@code $inc}, atómico en el servidor, por lo que varios procesos pueden
+ * asignar claves sin repetirlas. Las claves nunca se reutilizan aunque el
+ * usuario se elimine.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class CustomerIdAllocator {
+
+    /** Campo de "usuarios" con la clave que referencia {@code Ventas.usuario} */
+    public static final String FIELD = "idCliente";
+
+    private static final String COUNTER_ID = "usuarios";
+    private static final String NEXT_FIELD = "siguiente";
+
+    private final MongoCollection<Document> counters;
+
+    public CustomerIdAllocator(MongoDatabase db) {
+        this.counters = db.getCollection("contadores");
+    }
+
+    /**
+     * Reserva una clave de cliente.
+     *
+     * @return la clave asignada
+     */
+    public long next() {
+        return allocate(1);
+    }
+
+    /**
+     * Reserva un rango contiguo de claves en una sola operación.
+     *
+     * @param count cantidad de claves a reservar
+     * @return la primera clave del rango [inicio, inicio + count)
+     */
+    public long allocate(int count) {
+        // Se pide el documento ANTES del incremento: su valor es el inicio del
+        // rango. Si el contador no existía, upsert lo crea y el rango empieza en 0
+        Document before = counters.findOneAndUpdate(
+                eq("_id", COUNTER_ID),
+                inc(NEXT_FIELD, (long) count),
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.BEFORE));
+        return before == null ? 0 : before.get(NEXT_FIELD, Number.class).longValue();
+    }
+
+    /**
+     * Indica si el contador ya fue inicializado.
+     *
+     * @return true si existe el documento contador
+     */
+    boolean isInitialized() {
+        return counters.find(eq("_id", COUNTER_ID)).first() != null;
+    }
+
+    /**
+     * Garantiza que el siguiente valor sea al menos {@code next}. Se usa tras
+     * la migración para no repetir claves ya asignadas.
+     *
+     * @param next valor mínimo para la siguiente clave
+     */
+    void advanceTo(long next) {
+        counters.updateOne(eq("_id", COUNTER_ID), max(NEXT_FIELD, next),
+                new UpdateOptions().upsert(true));
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.db;
+
+/**
+ *
+ * @author dard
+ */
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.exists;
+import static com.mongodb.client.model.Projections.include;
+import static com.mongodb.client.model.Updates.set;
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.Document;
+
+/**
+ * Migración que asigna {@link CustomerIdAllocator#FIELD} a los usuarios que
+ * no lo tienen y crea su índice único.
+ *
+ * <p>
+ * Antes de esta clave, {@code Ventas.usuario} era la posición del documento
+ * en el orden natural de "usuarios". En la primera ejecución (contador aún
+ * sin crear) cada usuario recibe como clave esa misma posición, de modo que
+ * las ventas existentes siguen apuntando al mismo cliente. En ejecuciones
+ * posteriores los documentos sin clave reciben claves nuevas del contador.</p>
+ *
+ * <p>
+ * Las actualizaciones se envían en lotes no ordenados con
+ * {@code bulkWrite}. La migración es idempotente: solo toca documentos sin
+ * clave.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class CustomerIdMigration {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String INDEX_NAME = "idCliente_unico";
+
+    private final MongoCollection<Document> usuarios;
+    private final CustomerIdAllocator allocator;
+
+    public CustomerIdMigration(MongoDatabase db, CustomerIdAllocator allocator) {
+        this.usuarios = db.getCollection("usuarios");
+        this.allocator = allocator;
+    }
+
+    /**
+     * Ejecuta la migración y asegura el índice único sobre la clave.
+     *
+     * @return cantidad de documentos a los que se asignó clave
+     */
+    public long run() {
+        long migrated = allocator.isInitialized() ? assignFromCounter() : assignPositions();
+
+        // El índice se crea después del relleno: con documentos sin clave un
+        // índice único fallaría por valores nulos repetidos
+        usuarios.createIndex(Indexes.ascending(CustomerIdAllocator.FIELD),
+                new IndexOptions().unique(true).name(INDEX_NAME));
+        return migrated;
+    }
+
+    /**
+     * Primera ejecución: la clave de cada usuario es su posición actual.
+     */
+    private long assignPositions() {
+        List<WriteModel<Document>> batch = new ArrayList<>(BATCH_SIZE);
+        long migrated = 0;
+        long position = 0;
+        long maxId = -1;
+
+        for (Document user : usuarios.find()
+                .projection(include("_id", CustomerIdAllocator.FIELD))
+                .batchSize(BATCH_SIZE)) {
+            Object current = user.get(CustomerIdAllocator.FIELD);
+            if (current instanceof Number number) {
+                maxId = Math.max(maxId, number.longValue());
+            } else {
+                batch.add(new UpdateOneModel<>(eq("_id", user.get("_id")),
+                        set(CustomerIdAllocator.FIELD, position)));
+                maxId = Math.max(maxId, position);
+            }
+            position++;
+
+            if (batch.size() == BATCH_SIZE) {
+                migrated += flush(batch);
+            }
+        }
+        migrated += flush(batch);
+
+        allocator.advanceTo(maxId + 1);
+        return migrated;
+    }
+
+    /**
+     * Ejecuciones posteriores: documentos sin clave (insertados por versiones
+     * anteriores) reciben rangos nuevos del contador.
+     */
+    private long assignFromCounter() {
+        long migrated = 0;
+        while (true) {
+            List<Object> ids = new ArrayList<>(BATCH_SIZE);
+            for (Document user : usuarios.find(exists(CustomerIdAllocator.FIELD, false))
+                    .projection(include("_id"))
+                    .limit(BATCH_SIZE)) {
+                ids.add(user.get("_id"));
+            }
+            if (ids.isEmpty()) {
+                return migrated;
+            }
+
+            long next = allocator.allocate(ids.size());
+            List<WriteModel<Document>> batch = new ArrayList<>(ids.size());
+            for (Object id : ids) {
+                batch.add(new UpdateOneModel<>(eq("_id", id), set(CustomerIdAllocator.FIELD, next++)));
+            }
+            migrated += flush(batch);
+        }
+    }
+
+    private long flush(List<WriteModel<Document>> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        long modified = usuarios.bulkWrite(batch, new BulkWriteOptions().ordered(false))
+                .getModifiedCount();
+        batch.clear();
+        return modified;
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.db;
+
+/**
+ *
+ * @author dard
+ */
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.MongoException;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import org.bson.Document;
+
+/**
+ * Revisa al arrancar los índices de {@link IndexRegistry}.
+ *
+ * <p>
+ * En MongoDB crea los índices que falten ({@code createIndex} no hace nada
+ * si ya existen) y pide con {@code explain} el plan de cada consulta
+ * registrada, con su tiempo de ejecución. En Oracle comprueba en
+ * {@code USER_INDEXES} que existan los índices esperados, obtiene el plan de
+ * cada consulta con {@code EXPLAIN PLAN} y la ejecuta una vez con un valor
+ * de muestra para medirla. Una consulta que recorrería la colección o la
+ * tabla completa se informa como {@link Status#FULL_SCAN}.</p>
+ *
+ * <p>
+ * Ninguna falla detiene el arranque: cada revisión termina en una fila del
+ * {@link Report}, incluidas las que no se pudieron hacer (por ejemplo, sin
+ * permisos sobre {@code PLAN_TABLE}).</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class IndexBootstrapper {
+
+    /** Prefijo de los {@code STATEMENT_ID} que se escriben en PLAN_TABLE */
+    private static final String PLAN_ID = "bases_indices_";
+
+    /**
+     * Resultado de una revisión.
+     */
+    public enum Status {
+        /** El índice existe o la consulta lo usa */
+        OK,
+        /** El índice faltaba y se creó */
+        CREATED,
+        /** El índice de Oracle no existe; hay que crearlo con bases.sql */
+        MISSING,
+        /** La consulta recorre la colección o la tabla completa */
+        FULL_SCAN,
+        /** La revisión no se pudo hacer */
+        ERROR
+    }
+
+    /**
+     * Una revisión.
+     *
+     * @param store "MongoDB" u "Oracle"
+     * @param target índice o consulta revisada
+     * @param status resultado
+     * @param detail plan, sentencia para crear el índice o error
+     * @param millis lo que tardó la creación o la consulta; 0 si no aplica
+     */
+    public record Check(String store, String target, Status status, String detail, double millis) {
+
+    }
+
+    /**
+     * Resultado de todas las revisiones.
+     *
+     * @param checks una fila por índice y por consulta
+     */
+    public record Report(List<Check> checks) {
+
+        /**
+         * @return true si algún índice falta, alguna consulta recorre todo o
+         * alguna revisión falló
+         */
+        public boolean hasProblems() {
+            return checks.stream().anyMatch(c -> c.status() == Status.MISSING
+                    || c.status() == Status.FULL_SCAN || c.status() == Status.ERROR);
+        }
+
+        /**
+         * @return tabla de texto con una línea por revisión
+         */
+        public String format() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format(Locale.ROOT, "%-7s %-9s %-40s %9s  %s%n",
+                    "base", "estado", "índice / consulta", "ms", "detalle"));
+            for (Check c : checks) {
+                out.append(String.format(Locale.ROOT, "%-7s %-9s %-40s %9.1f  %s%n",
+                        c.store(), c.status(), c.target(), c.millis(), c.detail()));
+            }
+            return out.toString();
+        }
+    }
+
+    private final MongoDatabase db;
+    private final ConnectionPool pool;
+
+    public IndexBootstrapper(MongoDatabase db, ConnectionPool pool) {
+        this.db = db;
+        this.pool = pool;
+    }
+
+    /**
+     * Crea los índices de MongoDB que falten y revisa todos los registrados.
+     *
+     * @return una fila por índice y por consulta
+     */
+    public Report run() {
+        List<Check> checks = new ArrayList<>();
+        for (IndexRegistry.MongoIndex index : IndexRegistry.MONGO_INDEXES) {
+            checks.add(ensureMongoIndex(index));
+        }
+        for (IndexRegistry.MongoProbe probe : IndexRegistry.MONGO_PROBES) {
+            checks.add(explainMongo(probe));
+        }
+        try (PooledConnection conn = pool.borrow()) {
+            for (IndexRegistry.OracleIndex index : IndexRegistry.ORACLE_INDEXES) {
+                checks.add(checkOracleIndex(conn, index));
+            }
+            for (int i = 0; i < IndexRegistry.ORACLE_PROBES.size(); i++) {
+                checks.add(explainOracle(conn, IndexRegistry.ORACLE_PROBES.get(i), PLAN_ID + i));
+            }
+        } catch (SQLException e) {
+            checks.add(new Check("Oracle", "conexión", Status.ERROR, e.getMessage(), 0));
+        }
+        return new Report(checks);
+    }
+
+    private Check ensureMongoIndex(IndexRegistry.MongoIndex index) {
+        String name = index.options().getName();
+        String target = index.collection() + "." + name;
+        MongoCollection<Document> collection = db.getCollection(index.collection());
+        try {
+            Set<String> existing = new HashSet<>();
+            for (Document info : collection.listIndexes()) {
+                existing.add(info.getString("name"));
+            }
+            if (existing.contains(name)) {
+                return new Check("MongoDB", target, Status.OK, "ya existía", 0);
+            }
+            long start = System.nanoTime();
+            collection.createIndex(index.keys(), index.options());
+            return new Check("MongoDB", target, Status.CREATED, index.keys().toBsonDocument().toJson(),
+                    (System.nanoTime() - start) / 1e6);
+        } catch (MongoException e) {
+            return new Check("MongoDB", target, Status.ERROR, e.getMessage(), 0);
+        }
+    }
+
+    private Check explainMongo(IndexRegistry.MongoProbe probe) {
+        try {
+            FindIterable<Document> find = db.getCollection(probe.collection()).find(probe.filter());
+            if (probe.collation() != null) {
+                find = find.collation(probe.collation());
+            }
+            Document explain = find.explain(ExplainVerbosity.EXECUTION_STATS);
+            Document planner = explain.get("queryPlanner", Document.class);
+            Document stats = explain.get("executionStats", Document.class);
+            Object winning = planner == null ? null : planner.get("winningPlan");
+            double millis = stats == null ? 0 : stats.get("executionTimeMillis", Number.class).doubleValue();
+            Number examined = stats == null ? null : stats.get("totalDocsExamined", Number.class);
+
+            if (findValue(winning, "stage", "COLLSCAN")) {
+                return new Check("MongoDB", probe.description(), Status.FULL_SCAN,
+                        "COLLSCAN sobre " + probe.collection() + ", " + examined + " documentos examinados", millis);
+            }
+            Object indexName = findField(winning, "indexName");
+            return new Check("MongoDB", probe.description(), Status.OK,
+                    "IXSCAN " + (indexName == null ? "" : indexName), millis);
+        } catch (MongoException e) {
+            return new Check("MongoDB", probe.description(), Status.ERROR, e.getMessage(), 0);
+        }
+    }
+
+    private Check checkOracleIndex(PooledConnection conn, IndexRegistry.OracleIndex index) {
+        String target = index.table() + "." + index.name();
+        try {
+            PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT COUNT(*) FROM user_indexes WHERE index_name = ? AND table_name = ?");
+            pstmt.setString(1, index.name());
+            pstmt.setString(2, index.table());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next() && rs.getInt(1) > 0) {
+                    return new Check("Oracle", target, Status.OK, "existe", 0);
+                }
+            }
+            return new Check("Oracle", target, Status.MISSING, index.ddl(), 0);
+        } catch (SQLException e) {
+            return new Check("Oracle", target, Status.ERROR, e.getMessage(), 0);
+        }
+    }
+
+    private Check explainOracle(PooledConnection conn, IndexRegistry.OracleProbe probe, String planId) {
+        try {
+            // EXPLAIN PLAN no admite parámetros JDBC; se explica con una variable de enlace con nombre
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("EXPLAIN PLAN SET STATEMENT_ID = '" + planId + "' FOR "
+                        + probe.sql().replace("?", ":b1"));
+            }
+            boolean fullScan;
+            PreparedStatement plan = conn.prepareStatement("""
+                    SELECT COUNT(*) FROM plan_table
+                    WHERE statement_id = ? AND operation = 'TABLE ACCESS' AND options = 'FULL' AND object_name = ?""");
+            plan.setString(1, planId);
+            plan.setString(2, probe.table());
+            try (ResultSet rs = plan.executeQuery()) {
+                fullScan = rs.next() && rs.getInt(1) > 0;
+            }
+            PreparedStatement cleanup = conn.prepareStatement("DELETE FROM plan_table WHERE statement_id = ?");
+            cleanup.setString(1, planId);
+            cleanup.executeUpdate();
+
+            PreparedStatement query = conn.prepareStatement(probe.sql());
+            query.setObject(1, probe.sample());
+            long rows = 0;
+            long start = System.nanoTime();
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    rows++;
+                }
+            }
+            double millis = (System.nanoTime() - start) / 1e6;
+
+            return fullScan
+                    ? new Check("Oracle", probe.description(), Status.FULL_SCAN,
+                            "TABLE ACCESS FULL " + probe.table() + " (" + rows + " filas)", millis)
+                    : new Check("Oracle", probe.description(), Status.OK, "usa índice", millis);
+        } catch (SQLException e) {
+            return new Check("Oracle", probe.description(), Status.ERROR, e.getMessage(), 0);
+        }
+    }
+
+    /**
+     * Busca en un plan anidado (documentos y listas) un campo con un valor.
+     */
+    private static boolean findValue(Object node, String field, String value) {
+        return switch (node) {
+            case Document doc -> {
+                if (value.equals(doc.get(field))) {
+                    yield true;
+                }
+                for (Object child : doc.values()) {
+                    if (findValue(child, field, value)) {
+                        yield true;
+                    }
+                }
+                yield false;
+            }
+            case List<?> list ->
+                list.stream().anyMatch(child -> findValue(child, field, value));
+            case null, default ->
+                false;
+        };
+    }
+
+    /**
+     * Primer valor de un campo en un plan anidado.
+     */
+    private static Object findField(Object node, String field) {
+        return switch (node) {
+            case Document doc -> {
+                if (doc.containsKey(field)) {
+                    yield doc.get(field);
+                }
+                for (Object child : doc.values()) {
+                    Object found = findField(child, field);
+                    if (found != null) {
+                        yield found;
+                    }
+                }
+                yield null;
+            }
+            case List<?> list -> {
+                for (Object child : list) {
+                    Object found = findField(child, field);
+                    if (found != null) {
+                        yield found;
+                    }
+                }
+                yield null;
+            }
+            case null, default ->
+                null;
+        };
+    }
+}
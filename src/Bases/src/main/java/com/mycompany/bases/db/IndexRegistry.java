@@ -0,0 +1,153 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.db;
+
+/**
+ *
+ * @author dard
+ */
+import com.mongodb.client.model.Collation;
+import com.mongodb.client.model.CollationStrength;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.in;
+import static com.mongodb.client.model.Filters.type;
+import java.util.List;
+import org.bson.BsonType;
+import org.bson.conversions.Bson;
+
+/**
+ * Índices que necesitan las consultas de la aplicación, en MongoDB y en
+ * Oracle, y las consultas con las que se comprueba que se usan.
+ *
+ * <p>
+ * {@link IndexBootstrapper} lo recorre al arrancar: crea los índices de
+ * MongoDB que falten, verifica que los de Oracle existan (el esquema de
+ * Oracle lo crea {@code bases.sql}, no la aplicación) y pide el plan de
+ * cada consulta para avisar de las que recorrerían la colección o la tabla
+ * completa.</p>
+ *
+ * <p>
+ * El índice único de {@code idCliente} no está aquí: lo crea
+ * {@link CustomerIdMigration} después de asignar las claves, porque antes
+ * fallaría por los documentos sin clave.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public final class IndexRegistry {
+
+    /**
+     * Comparación de nombres en español sin distinguir mayúsculas (fuerza
+     * secundaria: los acentos sí cuentan). Las búsquedas por nombre deben
+     * usar esta misma colación para aprovechar el índice.
+     */
+    public static final Collation NOMBRE_COLLATION = Collation.builder()
+            .locale("es")
+            .collationStrength(CollationStrength.SECONDARY)
+            .build();
+
+    /**
+     * Índice único de {@code email}: la clave natural de un usuario. Se
+     * compara con {@link #NOMBRE_COLLATION}, así que dos correos que solo
+     * difieren en mayúsculas cuentan como el mismo; los documentos sin email
+     * quedan fuera.
+     */
+    public static final String EMAIL_INDEX = "email_unico";
+
+    /**
+     * Detalles de una venta ({@code findVenta}), por el índice
+     * {@code detallesventa_venta_idx}. Parámetro: ID de la venta.
+     */
+    public static final String DETALLES_VENTA_SQL = """
+            SELECT DEREF(dv.producto).idProducto, DEREF(dv.producto).nombre, dv.cantidad, dv.subtotal
+            FROM DetallesVenta dv
+            WHERE dv.venta = (SELECT REF(v) FROM Ventas v WHERE v.idVenta = ?)""";
+
+    /**
+     * Ventas de un cliente ({@code listVentasByCliente}), por el índice
+     * {@code ventas_usuario_idx}. Parámetro: clave del cliente.
+     */
+    public static final String VENTAS_CLIENTE_SQL
+            = "SELECT idVenta, fecha, total FROM Ventas WHERE usuario = ? ORDER BY idVenta";
+
+    /**
+     * Índice de MongoDB que se crea si falta.
+     *
+     * @param collection colección
+     * @param keys campos del índice
+     * @param options opciones; deben incluir el nombre
+     */
+    public record MongoIndex(String collection, Bson keys, IndexOptions options) {
+
+    }
+
+    /**
+     * Índice de Oracle que debe existir.
+     *
+     * @param name nombre del índice
+     * @param table tabla
+     * @param ddl sentencias que lo crean, las mismas que trae
+     * {@code bases.sql}; incluye la de la tabla si el índice depende de cómo
+     * se creó
+     */
+    public record OracleIndex(String name, String table, String ddl) {
+
+    }
+
+    /**
+     * Consulta de MongoDB cuyo plan se revisa.
+     *
+     * @param description operación que la usa
+     * @param collection colección
+     * @param filter filtro, con valores de muestra
+     * @param collation colación con la que consulta la aplicación, o null
+     */
+    public record MongoProbe(String description, String collection, Bson filter, Collation collation) {
+
+    }
+
+    /**
+     * Consulta de Oracle cuyo plan se revisa.
+     *
+     * @param description operación que la usa
+     * @param table tabla que no debería recorrerse completa
+     * @param sql la consulta, con un único parámetro {@code ?}
+     * @param sample valor de muestra para el parámetro al medirla
+     */
+    public record OracleProbe(String description, String table, String sql, Object sample) {
+
+    }
+
+    public static final List<MongoIndex> MONGO_INDEXES = List.of(
+            new MongoIndex("usuarios", Indexes.ascending("nombre"),
+                    new IndexOptions().name("nombre_ci").collation(NOMBRE_COLLATION)),
+            new MongoIndex("usuarios", Indexes.ascending("email"),
+                    new IndexOptions().name(EMAIL_INDEX).unique(true).collation(NOMBRE_COLLATION)
+                            .partialFilterExpression(type("email", BsonType.STRING))));
+
+    public static final List<MongoProbe> MONGO_PROBES = List.of(
+            new MongoProbe("findUserByName / deleteUserByName", "usuarios",
+                    eq("nombre", ""), NOMBRE_COLLATION),
+            new MongoProbe("findUserNamesByIds / findCustomersByIds", "usuarios",
+                    in(CustomerIdAllocator.FIELD, List.of(-1)), null));
+
+    public static final List<OracleIndex> ORACLE_INDEXES = List.of(
+            // Una columna REF solo se puede indexar si tiene SCOPE (ORA-02327)
+            new OracleIndex("DETALLESVENTA_VENTA_IDX", "DETALLESVENTA",
+                    "CREATE TABLE DetallesVenta OF DetallesVentaType"
+                    + " (SCOPE FOR (venta) IS Ventas, SCOPE FOR (producto) IS Productos);"
+                    + " CREATE INDEX detallesventa_venta_idx ON DetallesVenta(venta)"),
+            new OracleIndex("VENTAS_USUARIO_IDX", "VENTAS",
+                    "CREATE INDEX ventas_usuario_idx ON Ventas(usuario)"));
+
+    public static final List<OracleProbe> ORACLE_PROBES = List.of(
+            new OracleProbe("findVenta (detalles)", "DETALLESVENTA", DETALLES_VENTA_SQL, -1),
+            new OracleProbe("listVentasByCliente", "VENTAS", VENTAS_CLIENTE_SQL, -1));
+
+    private IndexRegistry() {
+    }
+}
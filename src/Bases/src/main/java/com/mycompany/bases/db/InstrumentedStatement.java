@@ -0,0 +1,355 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.db;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.metrics.Metrics;
+import com.mycompany.bases.metrics.OracleStatementEvent;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Envoltura de las sentencias de la caché que instrumenta cada ejecución
+ * ({@code execute}, {@code executeQuery}, {@code executeUpdate},
+ * {@code executeBatch}...):
+ * <ul>
+ * <li>la cuenta como un viaje a Oracle de la operación en curso, con
+ * {@link Metrics#countRoundTrip()};</li>
+ * <li>la mide y la pasa al {@link SlowQueryLog} del pool, con los valores de
+ * enlace asignados con {@code setXxx(índice, valor)};</li>
+ * <li>si se está grabando con Java Flight Recorder, emite un
+ * {@link OracleStatementEvent} con el SQL y las filas.</li>
+ * </ul>
+ * En las consultas el {@code ResultSet} se envuelve para contar las filas
+ * leídas, y la ejecución se informa al cerrarlo. La duración que se compara
+ * con el umbral es la de la llamada a {@code execute*}; el tiempo hasta el
+ * cierre se informa aparte como lectura, porque incluye lo que tarda quien
+ * recorre las filas. Si {@code execute} devuelve un {@code ResultSet}, se
+ * envuelve el que entrega {@code getResultSet()}.
+ *
+ * <p>
+ * La envoltura se crea una sola vez, al preparar la sentencia, y queda en
+ * la caché en lugar de la original; el resto de los métodos pasan directo a
+ * la sentencia del controlador JDBC. Como la conexión la usa un solo hilo a
+ * la vez, los valores de enlace se guardan sin sincronizar. Sin registro ni
+ * grabación activa el costo es una comprobación de {@code isEnabled()}.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+final class InstrumentedStatement implements InvocationHandler {
+
+    private static final Object[] NO_BINDS = {};
+
+    private final Statement target;
+    private final String sql;
+    private final SlowQueryLog log;
+
+    /** Valores de enlace actuales; el índice 0 es el parámetro 1 */
+    private Object[] binds = NO_BINDS;
+    private int bindCount;
+    private int batchSize;
+
+    /**
+     * Ejecución de {@code execute} con un {@code ResultSet} que todavía no
+     * se pidió con {@code getResultSet()}
+     */
+    private Execution pending;
+
+    private InstrumentedStatement(Statement target, String sql, SlowQueryLog log) {
+        this.target = target;
+        this.sql = sql;
+        this.log = log;
+    }
+
+    /**
+     * Envuelve una sentencia.
+     *
+     * @param <T> interfaz de la sentencia
+     * @param type interfaz que debe implementar la envoltura
+     * @param stmt sentencia del controlador
+     * @param sql texto con el que se preparó
+     * @param log registro de consultas lentas, o null
+     * @return la envoltura
+     */
+    static <T extends Statement> T wrap(Class<T> type, T stmt, String sql, SlowQueryLog log) {
+        return type.cast(Proxy.newProxyInstance(InstrumentedStatement.class.getClassLoader(),
+                new Class<?>[]{type}, new InstrumentedStatement(stmt, sql, log)));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return switch (method.getName()) {
+                case "equals" ->
+                    proxy == args[0];
+                case "hashCode" ->
+                    System.identityHashCode(proxy);
+                default ->
+                    "Instrumentada[" + target + "]";
+            };
+        }
+        String name = method.getName();
+        if (pending != null && !name.equals("getResultSet")) {
+            finishPending();
+        }
+        if (name.equals("getResultSet")) {
+            Object rs = call(target, method, args);
+            if (pending != null) {
+                Execution execution = pending;
+                pending = null;
+                return rs == null ? finish(execution, null) : CountingResultSet.wrap((ResultSet) rs, execution);
+            }
+            return rs;
+        }
+        if (!name.startsWith("execute")) {
+            if (log != null) {
+                track(name, args);
+            }
+            return call(target, method, args);
+        }
+        Metrics.countRoundTrip();
+        OracleStatementEvent event = new OracleStatementEvent();
+        boolean jfr = event.isEnabled();
+        if (!jfr && log == null) {
+            return call(target, method, args);
+        }
+        Execution execution = new Execution(jfr ? event : null, kind(name));
+        Object result;
+        try {
+            result = call(target, method, args);
+        } catch (Throwable e) {
+            execution.finish(-1, true);
+            throw e;
+        } finally {
+            execution.executed();
+            if (execution.batch > 0) {
+                batchSize = 0;
+            }
+        }
+        if (result instanceof ResultSet rs) {
+            return CountingResultSet.wrap(rs, execution);
+        }
+        if (Boolean.TRUE.equals(result)) {
+            pending = execution;
+            return result;
+        }
+        return finish(execution, result);
+    }
+
+    private static Object finish(Execution execution, Object result) {
+        execution.finish(rows(result), false);
+        return result;
+    }
+
+    /**
+     * Informa la ejecución de {@code execute} cuyo {@code ResultSet} no se
+     * pidió antes de volver a usar la sentencia.
+     */
+    private void finishPending() {
+        Execution execution = pending;
+        pending = null;
+        execution.finish(-1, false);
+    }
+
+    /**
+     * Sigue los valores de enlace y el tamaño del lote.
+     */
+    private void track(String name, Object[] args) {
+        if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+            if (index > binds.length) {
+                binds = Arrays.copyOf(binds, Math.max(index, binds.length * 2));
+            }
+            if (index >= 1) {
+                binds[index - 1] = name.equals("setNull") ? null : args[1];
+                bindCount = Math.max(bindCount, index);
+            }
+        } else if (name.equals("clearParameters")) {
+            Arrays.fill(binds, null);
+            bindCount = 0;
+        } else if (name.equals("addBatch")) {
+            batchSize++;
+        } else if (name.equals("clearBatch")) {
+            batchSize = 0;
+        }
+    }
+
+    /**
+     * Ejecución en curso: la termina la sentencia o, en las consultas, el
+     * cierre del {@code ResultSet}. La duración de la llamada se toma en
+     * {@link #executed()}; lo que pasa después hasta {@link #finish} es
+     * lectura.
+     */
+    private final class Execution {
+
+        private final OracleStatementEvent event;
+        private final String kind;
+        private final Object[] bindsAtStart;
+        private final int batch;
+        private final long start;
+        private long executeNanos = -1;
+
+        Execution(OracleStatementEvent event, String kind) {
+            this.event = event;
+            this.kind = kind;
+            this.bindsAtStart = log == null ? null : usedBinds();
+            this.batch = "batch".equals(kind) ? batchSize : 0;
+            if (event != null) {
+                event.begin();
+            }
+            this.start = System.nanoTime();
+        }
+
+        /**
+         * Marca el fin de la llamada a {@code execute*}; las siguientes
+         * llamadas no cambian la duración.
+         */
+        void executed() {
+            if (executeNanos < 0) {
+                executeNanos = System.nanoTime() - start;
+                if (event != null) {
+                    event.end();
+                }
+            }
+        }
+
+        void finish(long rows, boolean failed) {
+            executed();
+            long fetchNanos = System.nanoTime() - start - executeNanos;
+            if (event != null && event.shouldCommit()) {
+                event.operation = Metrics.currentOperation();
+                event.sql = sql;
+                event.kind = kind;
+                event.rows = rows;
+                event.fetch = fetchNanos;
+                event.failed = failed;
+                event.commit();
+            }
+            if (log != null) {
+                log.record(sql, kind, bindsAtStart, batch, rows, executeNanos, fetchNanos, failed);
+            }
+        }
+    }
+
+    private Object[] usedBinds() {
+        return bindCount == 0 ? NO_BINDS : Arrays.copyOf(binds, bindCount);
+    }
+
+    private static String kind(String method) {
+        return switch (method) {
+            case "executeQuery" ->
+                "query";
+            case "executeUpdate", "executeLargeUpdate" ->
+                "update";
+            case "executeBatch", "executeLargeBatch" ->
+                "batch";
+            default ->
+                "execute";
+        };
+    }
+
+    /**
+     * Filas afectadas según el resultado de la ejecución; en los lotes, la
+     * suma de las sentencias que lo informan.
+     */
+    private static long rows(Object result) {
+        return switch (result) {
+            case Integer n ->
+                n;
+            case Long n ->
+                n;
+            case int[] counts -> {
+                long total = 0;
+                for (int n : counts) {
+                    total += Math.max(n, 0);
+                }
+                yield total;
+            }
+            case long[] counts -> {
+                long total = 0;
+                for (long n : counts) {
+                    total += Math.max(n, 0);
+                }
+                yield total;
+            }
+            case null, default ->
+                -1;
+        };
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * {@code ResultSet} que cuenta las filas recorridas y termina la
+     * ejecución de su consulta al cerrarse.
+     */
+    private static final class CountingResultSet implements InvocationHandler {
+
+        private final ResultSet target;
+        private final Execution execution;
+        private long rows;
+        private boolean closed;
+
+        private CountingResultSet(ResultSet target, Execution execution) {
+            this.target = target;
+            this.execution = execution;
+        }
+
+        static ResultSet wrap(ResultSet rs, Execution execution) {
+            return (ResultSet) Proxy.newProxyInstance(InstrumentedStatement.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, new CountingResultSet(rs, execution));
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" ->
+                        proxy == args[0];
+                    case "hashCode" ->
+                        System.identityHashCode(proxy);
+                    default ->
+                        "Contado[" + target + "]";
+                };
+            }
+            switch (method.getName()) {
+                case "next" -> {
+                    Object more = call(target, method, args);
+                    if (Boolean.TRUE.equals(more)) {
+                        rows++;
+                    }
+                    return more;
+                }
+                case "close" -> {
+                    try {
+                        return call(target, method, args);
+                    } finally {
+                        if (!closed) {
+                            closed = true;
+                            execution.finish(rows, false);
+                        }
+                    }
+                }
+                default -> {
+                    return call(target, method, args);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.db;
+
+/**
+ *
+ * @author dard
+ */
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Conexión prestada por un {@link ConnectionPool}.
+ *
+ * <p>
+ * Envuelve la conexión física y la devuelve al pool en {@link #close()} en
+ * lugar de cerrarla. Está pensada para un solo hilo a la vez: el que la tomó
+ * prestada.</p>
+ *
+ * <p>
+ * Las sentencias obtenidas con {@link #prepareStatement(String)} pertenecen a
+ * la caché de la conexión y no deben cerrarse; lo que sí debe cerrarse
+ * siempre es el {@link java.sql.ResultSet} que producen. Cada ejecución de
+ * esas sentencias cuenta como un viaje en las métricas de la operación en
+ * curso, pasa por el registro de consultas lentas del pool y, con Java
+ * Flight Recorder activo, emite un evento con su SQL.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class PooledConnection implements AutoCloseable {
+
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final StatementCache statementCache;
+    private final SlowQueryLog slowQueryLog;
+    private final long createdAt;
+    private volatile long lastUsedAt;
+
+    /** Evita devolver dos veces la misma conexión al pool */
+    private final AtomicBoolean borrowed = new AtomicBoolean();
+
+    PooledConnection(ConnectionPool pool, Connection connection, StatementCache statementCache,
+            SlowQueryLog slowQueryLog) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCache = statementCache;
+        this.slowQueryLog = slowQueryLog;
+        this.createdAt = System.currentTimeMillis();
+        this.lastUsedAt = createdAt;
+    }
+
+    /**
+     * Acceso a la conexión física para operaciones no cubiertas por esta
+     * clase (transacciones, metadatos). No debe cerrarse directamente.
+     *
+     * @return la conexión JDBC subyacente
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Obtiene una sentencia preparada de la caché de la conexión, o la prepara
+     * y la guarda si es la primera vez que se usa este SQL.
+     *
+     * <p>
+     * La sentencia no debe cerrarse: la caché la cierra al expulsarla o al
+     * cerrarse la conexión física.</p>
+     *
+     * @param sql texto SQL con parámetros {@code ?}
+     * @return la sentencia preparada, sin parámetros asignados
+     * @throws SQLException si Oracle rechaza la sentencia
+     */
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        PreparedStatement stmt = statementCache.get(sql);
+        if (stmt == null) {
+            stmt = InstrumentedStatement.wrap(PreparedStatement.class, connection.prepareStatement(sql), sql, slowQueryLog);
+            statementCache.put(sql, stmt);
+        }
+        return stmt;
+    }
+
+    /**
+     * Obtiene de la caché una llamada PL/SQL (bloque anónimo o procedimiento),
+     * o la prepara si es la primera vez. Se usa para sentencias con
+     * {@code RETURNING ... INTO}. Igual que las sentencias preparadas, no debe
+     * cerrarse.
+     *
+     * @param sql bloque PL/SQL o llamada con parámetros {@code ?}
+     * @return la llamada preparada, sin parámetros asignados
+     * @throws SQLException si Oracle rechaza el bloque
+     */
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        // Prefijo para no confundirla con una sentencia preparada del mismo texto
+        String key = "{call}" + sql;
+        CallableStatement stmt = (CallableStatement) statementCache.get(key);
+        if (stmt == null) {
+            stmt = InstrumentedStatement.wrap(CallableStatement.class, connection.prepareCall(sql), sql, slowQueryLog);
+            statementCache.put(key, stmt);
+        }
+        return stmt;
+    }
+
+    /**
+     * Crea una sentencia simple sobre la conexión prestada. A diferencia de
+     * {@link #prepareStatement(String)} no pasa por la caché, por lo que quien
+     * la crea debe cerrarla.
+     *
+     * @return la sentencia creada
+     * @throws SQLException si ocurre un error de conexión
+     */
+    public Statement createStatement() throws SQLException {
+        return connection.createStatement();
+    }
+
+    /**
+     * Devuelve la conexión al pool. Llamadas repetidas no tienen efecto.
+     */
+    @Override
+    public void close() {
+        if (borrowed.compareAndSet(true, false)) {
+            lastUsedAt = System.currentTimeMillis();
+            pool.release(this);
+        }
+    }
+
+    void markBorrowed() {
+        borrowed.set(true);
+    }
+
+    long getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    boolean isExpired(long now, long maxLifetimeMillis) {
+        return now - createdAt > maxLifetimeMillis;
+    }
+
+    boolean isValid(int timeoutSeconds) {
+        try {
+            return connection.isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Deja la conexión lista para el siguiente préstamo: deshace la
+     * transacción abierta y restaura el autocommit.
+     *
+     * @return false si la conexión quedó inutilizable
+     */
+    boolean reset() {
+        try {
+            if (connection.isClosed()) {
+                return false;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void closePhysical() {
+        statementCache.clear();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error al cerrar conexión Oracle: " + e.getMessage());
+        }
+    }
+}
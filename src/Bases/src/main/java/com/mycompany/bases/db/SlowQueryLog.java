@@ -0,0 +1,356 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.db;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.config.DatabaseConfig;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Ref;
+import java.sql.Struct;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro de consultas lentas de Oracle.
+ *
+ * <p>
+ * Las sentencias de {@link PooledConnection} le informan cada ejecución.
+ * Todas se acumulan por SQL (ejecuciones, tiempo total y máximo), y las que
+ * tardan al menos el umbral se escriben en un archivo de texto con sus
+ * valores de enlace, las filas leídas o afectadas y el tiempo. La primera
+ * vez que un SQL resulta lento se agregan pistas para revisar su plan.</p>
+ *
+ * <p>
+ * El umbral, el total y el máximo se miden sobre la llamada a
+ * {@code execute*}. En las consultas, el tiempo de lectura (desde que
+ * vuelve {@code executeQuery} hasta que se cierra el {@code ResultSet}) se
+ * acumula aparte: depende de cuánto tarda quien recorre las filas, no solo
+ * de Oracle.</p>
+ *
+ * <p>
+ * El archivo se abre al escribir la primera entrada y rota al superar el
+ * tamaño máximo ({@code consultas-lentas.log.1}, {@code .2}...). Al
+ * cerrarse se escribe el resumen por SQL. Un error de escritura desactiva
+ * el archivo pero nunca interrumpe la operación que se estaba midiendo.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class SlowQueryLog implements AutoCloseable {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    /** Caracteres que se conservan de cada valor de enlace de texto */
+    private static final int MAX_BIND_CHARS = 100;
+
+    /**
+     * Acumulado de un SQL.
+     *
+     * @param sql texto de la sentencia
+     * @param executions ejecuciones
+     * @param slow ejecuciones que superaron el umbral
+     * @param totalMillis tiempo total de ejecución
+     * @param maxMillis ejecución más lenta
+     * @param fetchMillis tiempo total de lectura de filas
+     */
+    public record SqlStats(String sql, long executions, long slow, double totalMillis, double maxMillis,
+            double fetchMillis) {
+
+    }
+
+    private static final class Aggregate {
+
+        final LongAdder executions = new LongAdder();
+        final LongAdder slow = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+        final LongAdder fetchNanos = new LongAdder();
+    }
+
+    private final Path file;
+    private final long thresholdNanos;
+    private final long maxBytes;
+    private final int backups;
+    private final Map<String, Aggregate> aggregates = new ConcurrentHashMap<>();
+
+    /** SQL que ya recibieron pistas de plan en el archivo */
+    private final Set<String> hinted = ConcurrentHashMap.newKeySet();
+
+    private OutputStream out;
+    private long written;
+    private boolean failed;
+    private boolean closed;
+
+    /**
+     * Crea el registro.
+     *
+     * @param file archivo de texto; se agrega al final si ya existe
+     * @param thresholdMillis tiempo mínimo para escribir una ejecución
+     * @param maxBytes tamaño a partir del cual se rota
+     * @param backups archivos rotados que se conservan
+     */
+    public SlowQueryLog(Path file, long thresholdMillis, long maxBytes, int backups) {
+        this.file = file.toAbsolutePath();
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.maxBytes = maxBytes;
+        this.backups = backups;
+    }
+
+    /**
+     * Crea el registro con la configuración de {@link DatabaseConfig}.
+     *
+     * @return el registro, o null si el umbral configurado es negativo
+     */
+    public static SlowQueryLog fromConfig() {
+        if (DatabaseConfig.SLOW_QUERY_THRESHOLD_MS < 0) {
+            return null;
+        }
+        return new SlowQueryLog(Path.of(DatabaseConfig.SLOW_QUERY_LOG_FILE),
+                DatabaseConfig.SLOW_QUERY_THRESHOLD_MS,
+                DatabaseConfig.SLOW_QUERY_LOG_MAX_BYTES,
+                DatabaseConfig.SLOW_QUERY_LOG_BACKUPS);
+    }
+
+    /**
+     * Registra una ejecución.
+     *
+     * @param sql texto de la sentencia
+     * @param kind query, update, batch o execute
+     * @param binds valores de enlace por posición (el índice 0 es el
+     * parámetro 1); en un lote, los de la última fila agregada
+     * @param batchSize filas del lote, 0 si no es un lote
+     * @param rows filas leídas o afectadas, -1 si no se conocen
+     * @param nanos duración de la llamada a {@code execute*}
+     * @param fetchNanos duración de la lectura de filas, 0 si no es una
+     * consulta
+     * @param error true si la ejecución lanzó una excepción
+     */
+    void record(String sql, String kind, Object[] binds, int batchSize, long rows, long nanos, long fetchNanos,
+            boolean error) {
+        Aggregate aggregate = aggregates.computeIfAbsent(sql, key -> new Aggregate());
+        aggregate.executions.increment();
+        aggregate.totalNanos.add(nanos);
+        aggregate.fetchNanos.add(fetchNanos);
+        if (nanos > aggregate.maxNanos.get()) {
+            aggregate.maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+        if (nanos < thresholdNanos) {
+            return;
+        }
+        aggregate.slow.increment();
+        StringBuilder entry = new StringBuilder(256 + sql.length());
+        entry.append(LocalDateTime.now().format(TIMESTAMP))
+                .append(String.format(Locale.ROOT, " %.3f ms ", nanos / 1e6))
+                .append(kind);
+        if (batchSize > 0) {
+            entry.append(" lote=").append(batchSize);
+        }
+        if (rows >= 0) {
+            entry.append(kind.equals("query") ? " filas leídas=" : " filas=").append(rows);
+        }
+        if (fetchNanos > 0) {
+            entry.append(String.format(Locale.ROOT, " lectura=%.3f ms", fetchNanos / 1e6));
+        }
+        if (error) {
+            entry.append(" ERROR");
+        }
+        entry.append("\n  sql: ").append(oneLine(sql))
+                .append("\n  binds: ").append(formatBinds(binds));
+        if (hinted.add(sql)) {
+            for (String hint : planHints(sql)) {
+                entry.append("\n  plan: ").append(hint);
+            }
+        }
+        write(entry.append('\n').toString());
+    }
+
+    /**
+     * @return acumulados por SQL, del mayor tiempo total al menor
+     */
+    public List<SqlStats> summary() {
+        List<SqlStats> stats = new ArrayList<>(aggregates.size());
+        aggregates.forEach((sql, a) -> stats.add(new SqlStats(sql, a.executions.sum(), a.slow.sum(),
+                a.totalNanos.sum() / 1e6, a.maxNanos.get() / 1e6, a.fetchNanos.sum() / 1e6)));
+        stats.sort(Comparator.comparingDouble(SqlStats::totalMillis).reversed());
+        return stats;
+    }
+
+    /**
+     * Resumen legible de {@link #summary()}.
+     *
+     * @return una línea por SQL, o una cadena vacía si no hubo ejecuciones
+     */
+    public String report() {
+        List<SqlStats> stats = summary();
+        if (stats.isEmpty()) {
+            return "";
+        }
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.ROOT, "%11s %6s %12s %10s %12s  %s%n",
+                "ejecuciones", "lentas", "total ms", "máx ms", "lectura ms", "sql"));
+        for (SqlStats s : stats) {
+            report.append(String.format(Locale.ROOT, "%11d %6d %12.3f %10.3f %12.3f  %s%n",
+                    s.executions(), s.slow(), s.totalMillis(), s.maxMillis(), s.fetchMillis(),
+                    abbreviate(oneLine(s.sql()), 120)));
+        }
+        return report.toString();
+    }
+
+    /**
+     * Escribe el resumen por SQL al final del archivo y lo cierra.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        String report = report();
+        if (!report.isEmpty()) {
+            writeLocked(LocalDateTime.now().format(TIMESTAMP) + " resumen por SQL (umbral "
+                    + TimeUnit.NANOSECONDS.toMillis(thresholdNanos) + " ms)\n" + report);
+        }
+        closed = true;
+        closeStream();
+    }
+
+    private synchronized void write(String entry) {
+        if (!closed) {
+            writeLocked(entry);
+        }
+    }
+
+    private void writeLocked(String text) {
+        if (failed) {
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        try {
+            if (out != null && written + bytes.length > maxBytes) {
+                rotate();
+            }
+            if (out == null) {
+                out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                written = Files.size(file);
+            }
+            out.write(bytes);
+            out.flush();
+            written += bytes.length;
+        } catch (IOException e) {
+            failed = true;
+            closeStream();
+            System.err.println("Registro de consultas lentas desactivado: " + e.getMessage());
+        }
+    }
+
+    private void rotate() throws IOException {
+        closeStream();
+        for (int i = backups; i >= 1; i--) {
+            Path from = i == 1 ? file : backup(i - 1);
+            if (Files.exists(from)) {
+                Files.move(from, backup(i), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (backups < 1) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private Path backup(int n) {
+        return file.resolveSibling(file.getFileName() + "." + n);
+    }
+
+    private void closeStream() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            // El contenido ya se vació con flush; nada más que hacer
+        }
+        out = null;
+    }
+
+    /**
+     * Pistas para revisar el plan de un SQL lento: la sentencia para pedir
+     * el plan y avisos sobre construcciones que suelen impedir el uso de
+     * índices o multiplicar las lecturas.
+     */
+    static List<String> planHints(String sql) {
+        List<String> hints = new ArrayList<>();
+        String upper = sql.toUpperCase(Locale.ROOT);
+        if (upper.contains("LOWER(") || upper.contains("UPPER(")) {
+            hints.add("la columna va dentro de LOWER/UPPER: un índice normal no sirve, "
+                    + "hace falta un índice basado en la función");
+        }
+        if (upper.contains("DEREF(")) {
+            hints.add("DEREF resuelve una REF por fila: el costo crece con el número de detalles");
+        }
+        int where = upper.indexOf("WHERE");
+        if (where >= 0 && upper.indexOf("SELECT", where) > 0) {
+            hints.add("subconsulta en el WHERE: comprobar que no se evalúe una vez por fila");
+        }
+        hints.add("EXPLAIN PLAN FOR " + oneLine(sql) + "; SELECT * FROM TABLE(DBMS_XPLAN.DISPLAY);");
+        return hints;
+    }
+
+    static String formatBinds(Object[] binds) {
+        if (binds == null || binds.length == 0) {
+            return "(ninguno)";
+        }
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < binds.length; i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            out.append(i + 1).append('=').append(formatBind(binds[i]));
+        }
+        return out.toString();
+    }
+
+    private static String formatBind(Object value) {
+        return switch (value) {
+            case null ->
+                "NULL";
+            case CharSequence text ->
+                "'" + abbreviate(text.toString(), MAX_BIND_CHARS).replace("'", "''") + "'";
+            case Number number ->
+                number.toString();
+            case Ref ref ->
+                "REF";
+            case Struct struct ->
+                "STRUCT";
+            default ->
+                abbreviate(value.toString(), MAX_BIND_CHARS);
+        };
+    }
+
+    private static String oneLine(String sql) {
+        return sql.replaceAll("\\s+", " ").trim();
+    }
+
+    private static String abbreviate(String text, int max) {
+        return text.length() <= max ? text : text.substring(0, max) + "...";
+    }
+}
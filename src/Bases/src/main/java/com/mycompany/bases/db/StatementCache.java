@@ -0,0 +1,115 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.db;
+
+/**
+ *
+ * @author dard
+ */
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché LRU de sentencias preparadas de una conexión física.
+ *
+ * <p>
+ * La clave es el texto SQL exacto. Al reutilizar una sentencia Oracle no
+ * vuelve a analizar el SQL y el número de cursores abiertos por sesión queda
+ * acotado por {@code capacity}. Al expulsarse, la sentencia se cierra y libera
+ * su cursor en el servidor.</p>
+ *
+ * <p>
+ * No es segura entre hilos: pertenece a una única {@link PooledConnection},
+ * que solo usa el hilo que la tomó prestada.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+class StatementCache {
+
+    private final int capacity;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+
+    /** Contadores compartidos por todas las cachés del mismo pool */
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+
+    StatementCache(int capacity, LongAdder hits, LongAdder misses, LongAdder evictions) {
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        // accessOrder = true: el recorrido va del menos al más recientemente usado
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Obtiene la sentencia en caché para el SQL dado, o null si no existe.
+     * Una sentencia reutilizada se entrega sin parámetros asignados.
+     *
+     * @param sql texto SQL exacto
+     * @return la sentencia lista para asignar parámetros, o null
+     * @throws SQLException si no se pudieron limpiar los parámetros
+     */
+    PreparedStatement get(String sql) throws SQLException {
+        PreparedStatement stmt = statements.get(sql);
+        if (stmt == null || stmt.isClosed()) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        stmt.clearParameters();
+        return stmt;
+    }
+
+    /**
+     * Agrega una sentencia recién preparada, expulsando la menos usada si se
+     * supera la capacidad.
+     *
+     * @param sql texto SQL exacto
+     * @param stmt la sentencia preparada
+     */
+    void put(String sql, PreparedStatement stmt) {
+        PreparedStatement previous = statements.put(sql, stmt);
+        if (previous != null && previous != stmt) {
+            closeQuietly(previous);
+        }
+        Iterator<Map.Entry<String, PreparedStatement>> it = statements.entrySet().iterator();
+        while (statements.size() > capacity && it.hasNext()) {
+            PreparedStatement eldest = it.next().getValue();
+            it.remove();
+            evictions.increment();
+            closeQuietly(eldest);
+        }
+    }
+
+    /**
+     * Cierra todas las sentencias en caché.
+     */
+    void clear() {
+        List<PreparedStatement> all = new ArrayList<>(statements.values());
+        statements.clear();
+        all.forEach(StatementCache::closeQuietly);
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    private static void closeQuietly(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            // La sentencia ya no es utilizable; no hay nada más que hacer
+        }
+    }
+}
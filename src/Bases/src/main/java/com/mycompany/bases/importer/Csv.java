@@ -0,0 +1,56 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.importer;
+
+/**
+ *
+ * @author dard
+ */
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lectura de líneas CSV compartida por los importadores.
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+final class Csv {
+
+    private Csv() {
+    }
+
+    /**
+     * Separa una línea CSV respetando valores entre comillas y comillas
+     * dobles escapadas ({@code ""}).
+     */
+    static List<String> split(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+}
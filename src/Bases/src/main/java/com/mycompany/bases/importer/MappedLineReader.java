@@ -0,0 +1,121 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.importer;
+
+/**
+ *
+ * @author dard
+ */
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lector de líneas UTF-8 sobre un archivo mapeado en memoria.
+ *
+ * <p>
+ * El archivo se mapea por ventanas de tamaño fijo, por lo que admite archivos
+ * mayores que la memoria y que el límite de 2 GB de un solo mapeo. Lleva la
+ * posición en bytes del inicio de la siguiente línea, que sirve como punto de
+ * reanudación: un lector abierto en esa posición continúa exactamente donde
+ * quedó el anterior.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+final class MappedLineReader implements AutoCloseable {
+
+    /** Bytes mapeados a la vez; una línea no puede ser más larga */
+    private static final long WINDOW = 64L << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer buffer;
+    private long bufferStart;
+    private long position;
+
+    /**
+     * @param file archivo a leer
+     * @param offset posición en bytes desde la que se empieza a leer
+     * @throws IOException si el archivo no se puede abrir
+     */
+    MappedLineReader(Path file, long offset) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.position = Math.min(offset, size);
+    }
+
+    /**
+     * Lee la siguiente línea sin el salto de línea ({@code \n} o
+     * {@code \r\n}).
+     *
+     * @return la línea, o null al final del archivo
+     * @throws IOException si falla el mapeo o una línea excede la ventana
+     */
+    String readLine() throws IOException {
+        if (position >= size) {
+            return null;
+        }
+        while (true) {
+            if (buffer == null || position >= bufferStart + buffer.limit()) {
+                map(position);
+            }
+            int from = (int) (position - bufferStart);
+            int limit = buffer.limit();
+            for (int i = from; i < limit; i++) {
+                if (buffer.get(i) == '\n') {
+                    position = bufferStart + i + 1;
+                    return decode(from, i);
+                }
+            }
+            if (bufferStart + limit >= size) {
+                // Última línea del archivo, sin salto final
+                position = size;
+                return decode(from, limit);
+            }
+            if (from == 0) {
+                throw new IOException("Línea mayor a " + WINDOW + " bytes en la posición " + position);
+            }
+            // La línea cruza el fin de la ventana: se vuelve a mapear desde su inicio
+            map(position);
+        }
+    }
+
+    /**
+     * Posición en bytes del inicio de la siguiente línea.
+     *
+     * @return desplazamiento desde el inicio del archivo
+     */
+    long position() {
+        return position;
+    }
+
+    long size() {
+        return size;
+    }
+
+    private void map(long start) throws IOException {
+        bufferStart = start;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW, size - start));
+    }
+
+    private String decode(int from, int end) {
+        if (end > from && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        byte[] bytes = new byte[end - from];
+        buffer.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.importer;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.db.ConnectionPool;
+import com.mycompany.bases.db.PooledConnection;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carga masiva de productos desde un archivo CSV hacia Productos y sus tablas
+ * especializadas.
+ *
+ * <p>
+ * Formato del archivo, con encabezado opcional:</p>
+ * <pre>
+ * tipo,nombre,precio,color,talla,categoria
+ * short,Short Deportivo,249.99,Negro,32,Deportivo
+ * </pre>
+ *
+ * <p>
+ * {@code tipo} decide la tabla destino: producto (o vacío) → Productos,
+ * short → Shorts, sueter → Sueters, pantalon → Pantalones y camisa →
+ * Camisas. Los IDs salen de {@code producto_seq}.</p>
+ *
+ * <p>
+ * El archivo se lee mapeado en memoria con {@link MappedLineReader}. Las
+ * filas se acumulan en lotes JDBC por tabla, que se envían de una vez
+ * ({@code executeBatch}) al llegar a {@code batchSize} filas pendientes, y
+ * se confirma cada {@code commitEvery} filas. En la misma transacción que
+ * confirma los datos se guarda en CargasProductos la posición en bytes del
+ * archivo hasta donde se cargó, de modo que si la carga falla, volver a
+ * ejecutarla continúa desde el último punto confirmado sin repetir ni perder
+ * filas.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class ProductBulkLoader {
+
+    /** Mensajes de error que se conservan para el reporte */
+    private static final int MAX_ERRORS = 20;
+
+    private final ConnectionPool pool;
+    private final int batchSize;
+    private final int commitEvery;
+
+    /**
+     * Tabla destino de una fila según su tipo.
+     */
+    private enum Destino {
+        PRODUCTOS("Productos", "ProductoType"),
+        SHORTS("Shorts", "ShortType"),
+        SUETERS("Sueters", "SueterType"),
+        PANTALONES("Pantalones", "PantalonType"),
+        CAMISAS("Camisas", "CamisaType");
+
+        final String tabla;
+        final String sql;
+
+        Destino(String tabla, String tipo) {
+            this.tabla = tabla;
+            this.sql = "INSERT INTO " + tabla + " VALUES (" + tipo
+                    + "(producto_seq.NEXTVAL, ?, ?, ?, ?, ?))";
+        }
+
+        static Destino of(String tipo) {
+            String key = Normalizer.normalize(tipo.trim().toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                    .replaceAll("\\p{M}+", "");
+            return switch (key) {
+                case "", "producto", "productos" -> PRODUCTOS;
+                case "short", "shorts" -> SHORTS;
+                case "sueter", "sueters" -> SUETERS;
+                case "pantalon", "pantalones" -> PANTALONES;
+                case "camisa", "camisas" -> CAMISAS;
+                default -> null;
+            };
+        }
+    }
+
+    /**
+     * Resultado de una carga.
+     *
+     * @param read filas leídas en esta ejecución
+     * @param inserted filas insertadas en esta ejecución
+     * @param rejected filas con formato inválido o tipo desconocido
+     * @param resumedFrom posición en bytes desde la que se reanudó (0 si
+     * empezó desde el inicio)
+     * @param elapsedMillis duración total
+     * @param porTabla filas insertadas por tabla destino
+     * @param errors primeros mensajes de error, con su número de línea
+     */
+    public record LoadReport(long read, long inserted, long rejected, long resumedFrom,
+            long elapsedMillis, Map<String, Long> porTabla, List<String> errors) {
+
+        /**
+         * Filas insertadas por segundo.
+         *
+         * @return rendimiento de la carga
+         */
+        public double rowsPerSecond() {
+            return elapsedMillis == 0 ? inserted : inserted * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "leídas=%d, insertadas=%d, rechazadas=%d, reanudada desde byte %d, tiempo=%.1fs, %.0f filas/s %s",
+                    read, inserted, rejected, resumedFrom, elapsedMillis / 1000.0, rowsPerSecond(), porTabla);
+        }
+    }
+
+    /**
+     * @param pool pool de conexiones a Oracle
+     * @param batchSize filas pendientes que disparan el envío de los lotes
+     * @param commitEvery filas entre confirmaciones (y puntos de reanudación)
+     */
+    public ProductBulkLoader(ConnectionPool pool, int batchSize, int commitEvery) {
+        if (batchSize < 1 || commitEvery < batchSize) {
+            throw new IllegalArgumentException("Tamaño de lote o intervalo de confirmación inválidos");
+        }
+        this.pool = pool;
+        this.batchSize = batchSize;
+        this.commitEvery = commitEvery;
+    }
+
+    /**
+     * Carga un archivo, continuando desde el último punto confirmado si una
+     * carga anterior del mismo archivo quedó incompleta.
+     *
+     * @param file archivo de productos
+     * @return conteos y rendimiento de la carga
+     * @throws IOException si el archivo no se puede leer
+     * @throws SQLException si falla la inserción; lo confirmado hasta el
+     * último punto de reanudación se conserva
+     */
+    public LoadReport load(Path file) throws IOException, SQLException {
+        String archivo = file.toAbsolutePath().normalize().toString();
+        long start = System.nanoTime();
+
+        try (PooledConnection conn = pool.borrow()) {
+            Connection tx = conn.getConnection();
+            tx.setAutoCommit(false);
+
+            long[] checkpoint = readCheckpoint(conn, archivo);
+            long offset = checkpoint[0];
+            long totalRows = checkpoint[1];
+
+            try (MappedLineReader reader = new MappedLineReader(file, offset)) {
+                if (offset > reader.size()) {
+                    // El archivo cambió desde la carga anterior
+                    throw new IOException("El archivo es más corto que su punto de reanudación ("
+                            + offset + " bytes); elimine su fila en CargasProductos para cargarlo de nuevo");
+                }
+
+                Map<Destino, PreparedStatement> statements = new EnumMap<>(Destino.class);
+                Map<Destino, Integer> pending = new EnumMap<>(Destino.class);
+                Map<Destino, Long> inserted = new EnumMap<>(Destino.class);
+                List<String> errors = new ArrayList<>();
+                long read = 0;
+                long rejected = 0;
+                long lineNumber = 0;
+                int pendingRows = 0;
+                int uncommitted = 0;
+
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        lineNumber++;
+                        if (line.isBlank() || (offset == 0 && lineNumber == 1 && isHeader(line))) {
+                            continue;
+                        }
+                        read++;
+
+                        String error = null;
+                        List<String> values = Csv.split(line);
+                        Destino destino = values.size() == 6 ? Destino.of(values.get(0)) : null;
+                        if (values.size() != 6) {
+                            error = "se esperaban 6 columnas";
+                        } else if (destino == null) {
+                            error = "tipo desconocido '" + values.get(0).trim() + "'";
+                        } else if (values.get(1).isBlank()) {
+                            error = "falta el nombre";
+                        }
+
+                        double precio = 0;
+                        if (error == null) {
+                            try {
+                                precio = Double.parseDouble(values.get(2).trim());
+                            } catch (NumberFormatException e) {
+                                error = "precio inválido '" + values.get(2).trim() + "'";
+                            }
+                        }
+                        if (error != null) {
+                            rejected++;
+                            if (errors.size() < MAX_ERRORS) {
+                                // Con reanudación, el número es relativo al punto de partida
+                                errors.add("Línea " + lineNumber + ": " + error);
+                            }
+                            continue;
+                        }
+
+                        PreparedStatement pstmt = statements.get(destino);
+                        if (pstmt == null) {
+                            pstmt = conn.prepareStatement(destino.sql);
+                            statements.put(destino, pstmt);
+                        }
+                        pstmt.setString(1, values.get(1).trim());
+                        pstmt.setDouble(2, precio);
+                        pstmt.setString(3, values.get(3).trim());
+                        pstmt.setString(4, values.get(4).trim());
+                        pstmt.setString(5, values.get(5).trim());
+                        pstmt.addBatch();
+                        pending.merge(destino, 1, Integer::sum);
+                        pendingRows++;
+
+                        if (pendingRows >= batchSize) {
+                            flush(statements, pending, inserted);
+                            uncommitted += pendingRows;
+                            pendingRows = 0;
+
+                            // Solo tras enviar los lotes: la posición guardada
+                            // no debe cubrir filas que aún no están en la base
+                            if (uncommitted >= commitEvery) {
+                                totalRows += uncommitted;
+                                saveCheckpoint(conn, archivo, reader.position(), totalRows);
+                                tx.commit();
+                                uncommitted = 0;
+                            }
+                        }
+                    }
+
+                    flush(statements, pending, inserted);
+                    totalRows += uncommitted + pendingRows;
+                    saveCheckpoint(conn, archivo, reader.position(), totalRows);
+                    tx.commit();
+                } catch (SQLException | RuntimeException e) {
+                    tx.rollback();
+                    throw e;
+                } finally {
+                    // Las sentencias vuelven a la caché: no deben quedar con lotes a medias
+                    for (PreparedStatement pstmt : statements.values()) {
+                        pstmt.clearBatch();
+                    }
+                }
+
+                Map<String, Long> porTabla = new LinkedHashMap<>();
+                long insertedTotal = 0;
+                for (Map.Entry<Destino, Long> entry : inserted.entrySet()) {
+                    porTabla.put(entry.getKey().tabla, entry.getValue());
+                    insertedTotal += entry.getValue();
+                }
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                return new LoadReport(read, insertedTotal, rejected, offset, elapsed, porTabla, errors);
+            }
+        }
+    }
+
+    /**
+     * Envía los lotes pendientes de cada tabla.
+     */
+    private static void flush(Map<Destino, PreparedStatement> statements, Map<Destino, Integer> pending,
+            Map<Destino, Long> inserted) throws SQLException {
+        for (Map.Entry<Destino, Integer> entry : pending.entrySet()) {
+            if (entry.getValue() > 0) {
+                statements.get(entry.getKey()).executeBatch();
+                inserted.merge(entry.getKey(), (long) entry.getValue(), Long::sum);
+            }
+        }
+        pending.clear();
+    }
+
+    private static boolean isHeader(String line) {
+        return line.trim().toLowerCase(Locale.ROOT).startsWith("tipo,");
+    }
+
+    /**
+     * Lee el punto de reanudación de un archivo.
+     *
+     * @return posición en bytes y filas cargadas hasta ese punto
+     */
+    private static long[] readCheckpoint(PooledConnection conn, String archivo) throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT desplazamiento, filas FROM CargasProductos WHERE archivo = ?");
+        pstmt.setString(1, archivo);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? new long[]{rs.getLong(1), rs.getLong(2)} : new long[]{0, 0};
+        }
+    }
+
+    private static void saveCheckpoint(PooledConnection conn, String archivo, long offset, long rows)
+            throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement("""
+                MERGE INTO CargasProductos c
+                USING (SELECT ? archivo FROM dual) s ON (c.archivo = s.archivo)
+                WHEN MATCHED THEN UPDATE SET c.desplazamiento = ?, c.filas = ?, c.actualizado = SYSDATE
+                WHEN NOT MATCHED THEN INSERT (archivo, desplazamiento, filas, actualizado)
+                  VALUES (s.archivo, ?, ?, SYSDATE)""");
+        pstmt.setString(1, archivo);
+        pstmt.setLong(2, offset);
+        pstmt.setLong(3, rows);
+        pstmt.setLong(4, offset);
+        pstmt.setLong(5, rows);
+        pstmt.executeUpdate();
+    }
+}
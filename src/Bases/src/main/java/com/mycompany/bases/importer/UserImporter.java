@@ -0,0 +1,369 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.importer;
+
+/**
+ *
+ * @author dard
+ */
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mycompany.bases.db.CustomerIdAllocator;
+import com.mycompany.bases.db.IndexRegistry;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.bson.Document;
+import org.bson.json.JsonParseException;
+
+/**
+ * Importación masiva de usuarios a la colección "usuarios" desde un archivo
+ * CSV o NDJSON (un documento JSON por línea).
+ *
+ * <p>
+ * El archivo se lee línea a línea y los documentos válidos se agrupan en
+ * bloques de tamaño fijo. Cada bloque recibe un rango de claves de cliente con
+ * una sola operación sobre el contador y se escribe con un
+ * {@code insertMany} no ordenado, de modo que un documento rechazado no
+ * detiene al resto del bloque. Varios escritores envían bloques en paralelo;
+ * un semáforo limita los bloques en vuelo, así que la memoria usada no
+ * depende del tamaño del archivo.</p>
+ *
+ * <p>
+ * Formatos aceptados:</p>
+ * <ul>
+ * <li>CSV con encabezado que incluya {@code nombre}, {@code email} y,
+ * opcionalmente, {@code edad}; los valores pueden ir entre comillas.</li>
+ * <li>NDJSON ({@code .ndjson}, {@code .jsonl}): cada línea es un documento;
+ * se conservan todos sus campos.</li>
+ * </ul>
+ *
+ * <p>
+ * Las filas sin nombre, con email inválido o edad no numérica se cuentan
+ * como rechazadas. Las que violan un índice único se cuentan como
+ * duplicadas: un email que ya tiene otro usuario o que se repite en el
+ * archivo (índice {@link IndexRegistry#EMAIL_INDEX}), o un {@code _id} ya
+ * importado. Si ese índice no existe, por ejemplo porque los datos
+ * anteriores ya repiten correos, los emails repetidos no se detectan y el
+ * reporte lo avisa.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class UserImporter {
+
+    /** Código de MongoDB para violación de índice único */
+    private static final int DUPLICATE_KEY = 11000;
+
+    /** Mensajes de error que se conservan para el reporte */
+    private static final int MAX_ERRORS = 20;
+
+    private final MongoCollection<Document> usuarios;
+    private final CustomerIdAllocator customerIds;
+    private final int chunkSize;
+    private final int writers;
+
+    /**
+     * Resultado de una importación.
+     *
+     * @param read líneas de datos leídas del archivo
+     * @param inserted documentos insertados
+     * @param duplicates documentos rechazados por clave duplicada
+     * @param rejected filas inválidas o documentos rechazados por otro motivo
+     * @param elapsedMillis duración total
+     * @param errors primeros mensajes de error, con su número de línea
+     */
+    public record ImportReport(long read, long inserted, long duplicates, long rejected,
+            long elapsedMillis, List<String> errors) {
+
+        /**
+         * Documentos insertados por segundo.
+         *
+         * @return rendimiento de la importación
+         */
+        public double throughput() {
+            return elapsedMillis == 0 ? inserted : inserted * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "leídos=%d, insertados=%d, duplicados=%d, rechazados=%d, tiempo=%.1fs, %.0f docs/s",
+                    read, inserted, duplicates, rejected, elapsedMillis / 1000.0, throughput());
+        }
+    }
+
+    /**
+     * @param db base de datos con la colección "usuarios"
+     * @param customerIds asignador de claves de cliente
+     * @param chunkSize documentos por {@code insertMany}
+     * @param writers escritores en paralelo
+     */
+    public UserImporter(MongoDatabase db, CustomerIdAllocator customerIds, int chunkSize, int writers) {
+        if (chunkSize < 1 || writers < 1) {
+            throw new IllegalArgumentException("Tamaño de bloque o escritores inválidos");
+        }
+        this.usuarios = db.getCollection("usuarios");
+        this.customerIds = customerIds;
+        this.chunkSize = chunkSize;
+        this.writers = writers;
+    }
+
+    /**
+     * Importa un archivo. El formato se deduce de la extensión: {@code .csv}
+     * o {@code .ndjson}/{@code .jsonl}.
+     *
+     * @param file archivo a importar
+     * @return conteos de la importación
+     * @throws IOException si el archivo no se puede leer o su formato no es
+     * válido
+     */
+    public ImportReport importFile(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean csv = name.endsWith(".csv");
+        if (!csv && !name.endsWith(".ndjson") && !name.endsWith(".jsonl")) {
+            throw new IOException("Formato no soportado (use .csv, .ndjson o .jsonl): " + file);
+        }
+
+        Run run = new Run();
+        if (!hasEmailIndex()) {
+            run.error("Falta el índice " + IndexRegistry.EMAIL_INDEX
+                    + ": los emails repetidos se importarán como usuarios nuevos");
+        }
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(writers, r -> {
+            Thread t = new Thread(r, "importador-usuarios");
+            t.setDaemon(true);
+            return t;
+        });
+        // Bloques leídos pero aún no escritos: uno en cada escritor más uno
+        // esperando por escritor
+        Semaphore inFlight = new Semaphore(writers * 2);
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, Integer> columns = csv ? readCsvHeader(reader) : null;
+
+            List<Document> chunk = new ArrayList<>(chunkSize);
+            String line;
+            long lineNumber = csv ? 1 : 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                run.read.increment();
+
+                Document user = csv ? parseCsv(line, columns, lineNumber, run) : parseJson(line, lineNumber, run);
+                if (user == null) {
+                    continue;
+                }
+                chunk.add(user);
+
+                if (chunk.size() == chunkSize) {
+                    submit(pool, inFlight, chunk, run);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                submit(pool, inFlight, chunk, run);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Importación interrumpida", e);
+        } finally {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new ImportReport(run.read.sum(), run.inserted.sum(), run.duplicates.sum(),
+                run.rejected.sum(), elapsed, List.copyOf(run.errors));
+    }
+
+    private boolean hasEmailIndex() {
+        try {
+            for (Document info : usuarios.listIndexes()) {
+                if (IndexRegistry.EMAIL_INDEX.equals(info.getString("name"))) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (MongoException e) {
+            // Si no se puede consultar, la propia escritura dirá si hay un problema
+            return true;
+        }
+    }
+
+    /**
+     * Contadores de una importación, compartidos por lector y escritores.
+     */
+    private static final class Run {
+
+        final LongAdder read = new LongAdder();
+        final LongAdder inserted = new LongAdder();
+        final LongAdder duplicates = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final Queue<String> errors = new ConcurrentLinkedQueue<>();
+        final AtomicInteger errorCount = new AtomicInteger();
+
+        void reject(String message) {
+            rejected.increment();
+            error(message);
+        }
+
+        void error(String message) {
+            if (errorCount.getAndIncrement() < MAX_ERRORS) {
+                errors.add(message);
+            }
+        }
+    }
+
+    private void submit(ExecutorService pool, Semaphore inFlight, List<Document> chunk, Run run)
+            throws InterruptedException {
+        // Si los escritores van atrasados, el lector espera en lugar de acumular
+        inFlight.acquire();
+        pool.execute(() -> {
+            try {
+                write(chunk, run);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private void write(List<Document> chunk, Run run) {
+        try {
+            long next = customerIds.allocate(chunk.size());
+            for (Document user : chunk) {
+                user.put(CustomerIdAllocator.FIELD, next++);
+            }
+        } catch (MongoException e) {
+            run.rejected.add(chunk.size());
+            run.error("No se pudieron asignar claves de cliente: " + e.getMessage());
+            return;
+        }
+
+        try {
+            usuarios.insertMany(chunk, new InsertManyOptions().ordered(false));
+            run.inserted.add(chunk.size());
+        } catch (MongoBulkWriteException e) {
+            // Con ordered(false) se insertó todo lo que no aparece como error
+            List<BulkWriteError> failures = e.getWriteErrors();
+            run.inserted.add(chunk.size() - failures.size());
+            for (BulkWriteError failure : failures) {
+                if (failure.getCode() == DUPLICATE_KEY) {
+                    run.duplicates.increment();
+                } else {
+                    run.reject("Documento rechazado: " + failure.getMessage());
+                }
+            }
+        } catch (MongoException e) {
+            run.rejected.add(chunk.size());
+            run.error("Bloque rechazado: " + e.getMessage());
+        }
+    }
+
+    private static Map<String, Integer> readCsvHeader(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IOException("El archivo CSV está vacío");
+        }
+        // Un BOM de UTF-8 al inicio haría que la primera columna no coincida
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = Csv.split(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("nombre") || !columns.containsKey("email")) {
+            throw new IOException("El encabezado CSV debe incluir las columnas nombre y email");
+        }
+        return columns;
+    }
+
+    private static Document parseCsv(String line, Map<String, Integer> columns, long lineNumber, Run run) {
+        List<String> values = Csv.split(line);
+        String nombre = column(values, columns, "nombre");
+        String email = column(values, columns, "email");
+        String edad = column(values, columns, "edad");
+
+        Document user = new Document("nombre", nombre).append("email", email);
+        if (edad != null && !edad.isEmpty()) {
+            try {
+                user.append("edad", Integer.parseInt(edad));
+            } catch (NumberFormatException e) {
+                run.reject("Línea " + lineNumber + ": edad no numérica '" + edad + "'");
+                return null;
+            }
+        }
+        return validate(user, lineNumber, run);
+    }
+
+    private static Document parseJson(String line, long lineNumber, Run run) {
+        Document user;
+        try {
+            user = Document.parse(line);
+        } catch (JsonParseException e) {
+            run.reject("Línea " + lineNumber + ": JSON inválido");
+            return null;
+        }
+        // La clave de cliente siempre la asigna el contador
+        user.remove(CustomerIdAllocator.FIELD);
+        if (user.containsKey("edad") && !(user.get("edad") instanceof Number)) {
+            run.reject("Línea " + lineNumber + ": edad no numérica");
+            return null;
+        }
+        return validate(user, lineNumber, run);
+    }
+
+    private static Document validate(Document user, long lineNumber, Run run) {
+        Object nombre = user.get("nombre");
+        Object email = user.get("email");
+        if (!(nombre instanceof String n) || n.isBlank()) {
+            run.reject("Línea " + lineNumber + ": falta el nombre");
+            return null;
+        }
+        if (!(email instanceof String e) || e.indexOf('@') < 1) {
+            run.reject("Línea " + lineNumber + ": email inválido");
+            return null;
+        }
+        user.putIfAbsent("fechaRegistro", new Date());
+        return user;
+    }
+
+    private static String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        return values.get(index).trim();
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.journal;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.db.ConnectionPool;
+import com.mycompany.bases.db.PooledConnection;
+import com.mycompany.bases.models.ResultadoVenta;
+import com.mycompany.bases.models.VentaPendiente;
+import com.mycompany.bases.services.SaleService;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLNonTransientException;
+import java.util.List;
+
+/**
+ * Envía a Oracle, en segundo plano, las ventas del {@link SaleJournal}.
+ *
+ * <p>
+ * Un hilo toma las ventas pendientes en orden y registra hasta
+ * {@code batchSize} en una sola transacción con
+ * {@link SaleService#createVentas}; mientras más ventas se acumulan (por
+ * ejemplo, mientras Oracle estuvo caído), más grandes son los lotes. En la
+ * misma transacción se guarda en DiarioVentas el número de la última venta
+ * enviada, así que ese avance y las ventas se confirman o se pierden juntos:
+ * tras una caída, al volver a abrir se continúa desde ese número y ninguna
+ * venta se registra dos veces ni se pierde.</p>
+ *
+ * <p>
+ * Si Oracle no responde, se reintenta cada {@code retryMillis} y las ventas
+ * esperan en el diario. Si Oracle rechaza los datos de un lote (un error no
+ * transitorio), se envían una por una para aislar la venta que falla, que se
+ * descarta con un aviso para no detener a las demás. Una venta sin ningún
+ * producto existente no se registra, igual que en la caja.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public final class JournalDrainer implements AutoCloseable {
+
+    private final SaleJournal journal;
+    private final SaleService sales;
+    private final ConnectionPool pool;
+    private final int batchSize;
+    private final long idleMillis;
+    private final long retryMillis;
+    private final long closeWaitMillis;
+    private volatile boolean stopping;
+    private Thread thread;
+
+    /**
+     * @param journal diario de donde se toman las ventas
+     * @param sales registro de ventas en Oracle
+     * @param pool pool de la misma base, para el avance del diario
+     * @param batchSize ventas máximas por transacción
+     * @param idleMillis espera máxima sin ventas antes de volver a revisar
+     * @param retryMillis pausa antes de reintentar si Oracle falla
+     * @param closeWaitMillis tiempo que {@link #close()} espera a que se
+     * envíe lo pendiente
+     */
+    public JournalDrainer(SaleJournal journal, SaleService sales, ConnectionPool pool, int batchSize,
+            long idleMillis, long retryMillis, long closeWaitMillis) {
+        this.journal = journal;
+        this.sales = sales;
+        this.pool = pool;
+        this.batchSize = batchSize;
+        this.idleMillis = idleMillis;
+        this.retryMillis = retryMillis;
+        this.closeWaitMillis = closeWaitMillis;
+    }
+
+    /**
+     * Lee de Oracle hasta dónde se envió el diario y arranca el hilo. La
+     * lectura es síncrona: al volver, el diario ya no cuenta como pendiente
+     * nada de lo que Oracle tiene, y puede recibir ventas nuevas.
+     *
+     * @throws SQLException si no se puede leer el avance
+     */
+    public void start() throws SQLException {
+        try (PooledConnection conn = pool.borrow()) {
+            journal.drained(readCheckpoint(conn));
+        }
+        thread = Thread.ofPlatform().daemon().name("diario-ventas").start(this::run);
+    }
+
+    private void run() {
+        int batch = batchSize;
+        // Última venta del lote rechazado: hasta pasarla se envía de una en una
+        long isolateUntil = 0;
+        boolean failing = false;
+        try {
+            while (true) {
+                List<VentaPendiente> ventas = journal.pending(batch);
+                if (ventas.isEmpty()) {
+                    if (stopping) {
+                        return;
+                    }
+                    journal.awaitPending(idleMillis);
+                    continue;
+                }
+                long last = ventas.get(ventas.size() - 1).secuencia();
+                try {
+                    List<ResultadoVenta> resultados = sales.createVentas(ventas,
+                            conn -> saveCheckpoint(conn, last));
+                    journal.drained(last);
+                    report(ventas, resultados);
+                    if (last >= isolateUntil) {
+                        batch = batchSize;
+                    }
+                    if (failing) {
+                        System.err.println("Diario de ventas: Oracle responde de nuevo");
+                        failing = false;
+                    }
+                } catch (SQLException e) {
+                    if (isRejected(e) && ventas.size() > 1) {
+                        isolateUntil = last;
+                        batch = 1;
+                        continue;
+                    }
+                    if (isRejected(e) && discard(ventas.get(0), e)) {
+                        if (last >= isolateUntil) {
+                            batch = batchSize;
+                        }
+                        continue;
+                    }
+                    if (stopping) {
+                        return;
+                    }
+                    if (!failing) {
+                        System.err.println("Diario de ventas: no se pudo enviar a Oracle ("
+                                + e.getMessage() + "); se reintentará");
+                        failing = true;
+                    }
+                    pause();
+                } catch (RuntimeException e) {
+                    if (stopping) {
+                        return;
+                    }
+                    System.err.println("Diario de ventas: error al enviar a Oracle: " + e);
+                    pause();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Descarta una venta que Oracle rechaza: solo avanza el diario.
+     *
+     * @return true si se descartó; false si tampoco se pudo guardar el
+     * avance
+     */
+    private boolean discard(VentaPendiente venta, SQLException causa) {
+        try (PooledConnection conn = pool.borrow()) {
+            Connection tx = conn.getConnection();
+            tx.setAutoCommit(false);
+            try {
+                saveCheckpoint(conn, venta.secuencia());
+                tx.commit();
+            } catch (SQLException | RuntimeException e) {
+                tx.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            return false;
+        }
+        journal.drained(venta.secuencia());
+        System.err.println("Diario de ventas: Oracle rechazó la venta #" + venta.secuencia()
+                + " del cliente " + venta.idUsuario() + " y se descartó: " + causa.getMessage());
+        return true;
+    }
+
+    private static void report(List<VentaPendiente> ventas, List<ResultadoVenta> resultados) {
+        for (int i = 0; i < resultados.size(); i++) {
+            if (!resultados.get(i).creada()) {
+                System.err.println("Diario de ventas: la venta #" + ventas.get(i).secuencia()
+                        + " no tiene productos existentes y no se registró");
+            }
+        }
+    }
+
+    /**
+     * Datos que Oracle rechaza siempre, a diferencia de una conexión caída o
+     * un tiempo de espera agotado.
+     */
+    private static boolean isRejected(SQLException e) {
+        return e instanceof SQLNonTransientException && !(e instanceof SQLNonTransientConnectionException);
+    }
+
+    private synchronized void pause() throws InterruptedException {
+        if (!stopping) {
+            wait(retryMillis);
+        }
+    }
+
+    private long readCheckpoint(PooledConnection conn) throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement("SELECT secuencia FROM DiarioVentas WHERE diario = ?");
+        pstmt.setString(1, journal.getId());
+        try (ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private void saveCheckpoint(PooledConnection conn, long secuencia) throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement("""
+                MERGE INTO DiarioVentas d
+                USING (SELECT ? diario FROM dual) s ON (d.diario = s.diario)
+                WHEN MATCHED THEN UPDATE SET d.secuencia = ?, d.actualizado = SYSDATE
+                WHEN NOT MATCHED THEN INSERT (diario, secuencia, actualizado)
+                  VALUES (s.diario, ?, SYSDATE)""");
+        pstmt.setString(1, journal.getId());
+        pstmt.setLong(2, secuencia);
+        pstmt.setLong(3, secuencia);
+        pstmt.executeUpdate();
+    }
+
+    /**
+     * Envía lo pendiente, si Oracle responde, y detiene el hilo. Espera a lo
+     * sumo {@code closeWaitMillis}; lo que quede se envía la próxima vez que
+     * se abra el diario.
+     */
+    @Override
+    public void close() {
+        stopping = true;
+        synchronized (this) {
+            notifyAll();
+        }
+        journal.wakeUp();
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(closeWaitMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
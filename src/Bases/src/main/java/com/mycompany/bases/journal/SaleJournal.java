@@ -0,0 +1,410 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.journal;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.models.LineaVenta;
+import com.mycompany.bases.models.VentaPendiente;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * Diario de ventas: archivo local de solo agregar, mapeado en memoria, donde
+ * la caja escribe cada venta antes de que llegue a Oracle.
+ *
+ * <p>
+ * Agregar una venta es copiar unas decenas de bytes al mapeo, sin llamadas
+ * al sistema ni viajes a la base de datos, así que la caja confirma en
+ * microsegundos aunque Oracle esté lento o caído. El sistema operativo
+ * escribe las páginas al disco por su cuenta: lo agregado sobrevive a que el
+ * proceso termine de golpe, y con {@code force} también a un corte de luz, a
+ * cambio de esperar al disco en cada venta. {@link JournalDrainer} envía
+ * después las ventas a Oracle.</p>
+ *
+ * <p>
+ * Formato del archivo:</p>
+ * <ul>
+ * <li>Encabezado de {@value #HEADER} bytes: marca, versión, identificador
+ * del diario (un UUID fijo desde su creación) y número de la primera venta
+ * que contiene.</li>
+ * <li>Registros seguidos: longitud, CRC32C y cuerpo (número de venta, fecha,
+ * cliente, cantidad de líneas y, por línea, producto y cantidad).</li>
+ * </ul>
+ *
+ * <p>
+ * Al abrir se recorren los registros desde el inicio mientras su CRC sea
+ * válido y sus números sigan de uno en uno; lo que sigue (un registro a
+ * medio escribir, o restos de una vuelta anterior) se ignora y se
+ * sobrescribe. Cuando todo lo escrito ya está en Oracle y se pasó de la
+ * mitad del archivo, se vuelve a escribir desde el inicio; los números de
+ * venta siguen creciendo.</p>
+ *
+ * <p>
+ * Es seguro entre hilos, y un candado sobre el archivo impide que lo abran
+ * dos procesos a la vez.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public final class SaleJournal implements AutoCloseable {
+
+    /**
+     * Fotografía del diario.
+     *
+     * @param capacity tamaño del archivo en bytes
+     * @param used bytes escritos desde el inicio de la vuelta actual
+     * @param appended ventas agregadas desde que se abrió
+     * @param pending ventas que aún no están en Oracle
+     * @param lastApplied número de la última venta confirmada en Oracle
+     */
+    public record Stats(long capacity, long used, long appended, long pending, long lastApplied) {
+
+        @Override
+        public String toString() {
+            return String.format("pendientes=%d agregadas=%d ultimaAplicada=%d uso=%.1f%%",
+                    pending, appended, lastApplied, capacity == 0 ? 0 : used * 100.0 / capacity);
+        }
+    }
+
+    /** "BVJ1" */
+    private static final int MAGIC = 0x42564A31;
+    private static final int VERSION = 1;
+    /** Bytes del encabezado del archivo */
+    private static final int HEADER = 64;
+    private static final int FIRST_SEQ_OFFSET = 24;
+    /** Longitud y CRC de cada registro */
+    private static final int RECORD_HEADER = 8;
+    /** Número de venta, fecha, cliente y cantidad de líneas */
+    private static final int FIXED_BODY = 24;
+    private static final int LINE_BYTES = 8;
+    /** Líneas máximas de una venta en el diario */
+    public static final int MAX_LINES = 10_000;
+    /** Tamaño mínimo del archivo: cabe al menos una venta de {@link #MAX_LINES} líneas */
+    private static final int MIN_CAPACITY = 1 << 20;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final FileLock fileLock;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final String id;
+    private final boolean force;
+
+    // Todo lo que sigue se protege con el monitor del diario
+    private long firstSeq;
+    /** Posición donde va el siguiente registro */
+    private int writePos;
+    private long nextSeq;
+    /** Posición del primer registro que aún no está en Oracle */
+    private int drainPos;
+    private long drainedSeq;
+    private long appended;
+    private boolean closed;
+
+    private SaleJournal(Path file, FileChannel channel, FileLock fileLock, MappedByteBuffer buffer,
+            boolean force) {
+        this.file = file;
+        this.channel = channel;
+        this.fileLock = fileLock;
+        this.buffer = buffer;
+        this.capacity = buffer.capacity();
+        this.force = force;
+        this.id = new UUID(buffer.getLong(8), buffer.getLong(16)).toString();
+        this.firstSeq = buffer.getLong(FIRST_SEQ_OFFSET);
+        recover();
+    }
+
+    /**
+     * Abre el diario, creándolo si no existe, y recupera las ventas que
+     * contiene.
+     *
+     * @param file archivo del diario
+     * @param capacity tamaño en bytes de un diario nuevo; uno existente
+     * conserva el suyo
+     * @param force true para forzar cada venta al disco al agregarla
+     * @return el diario abierto; todas sus ventas cuentan como pendientes
+     * hasta {@link #drained(long)}
+     * @throws IOException si el archivo no se puede abrir, no es un diario
+     * de ventas o ya está en uso
+     */
+    public static SaleJournal open(Path file, int capacity, boolean force) throws IOException {
+        if (capacity < MIN_CAPACITY) {
+            throw new IllegalArgumentException("El diario de ventas necesita al menos " + MIN_CAPACITY
+                    + " bytes: " + capacity);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            FileLock fileLock;
+            try {
+                fileLock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                // Ya lo tiene abierto este mismo proceso
+                fileLock = null;
+            }
+            if (fileLock == null) {
+                throw new IOException("El diario de ventas " + file + " ya está en uso");
+            }
+            long size = channel.size();
+            if (size > 0 && (size < MIN_CAPACITY || size > Integer.MAX_VALUE)) {
+                throw new IOException(file + " no es un diario de ventas (" + size + " bytes)");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    size == 0 ? capacity : size);
+            if (size == 0) {
+                UUID id = UUID.randomUUID();
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putLong(8, id.getMostSignificantBits());
+                buffer.putLong(16, id.getLeastSignificantBits());
+                buffer.putLong(FIRST_SEQ_OFFSET, 1);
+                buffer.force(0, HEADER);
+            } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException(file + " no es un diario de ventas");
+            }
+            return new SaleJournal(file, channel, fileLock, buffer, force);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Busca el final de lo escrito: el primer registro incompleto, con un
+     * CRC que no coincide o con un número fuera de secuencia.
+     */
+    private void recover() {
+        int pos = HEADER;
+        long seq = firstSeq;
+        CRC32C crc = new CRC32C();
+        while (pos + RECORD_HEADER + FIXED_BODY <= capacity) {
+            int length = buffer.getInt(pos);
+            if (length < FIXED_BODY || (length - FIXED_BODY) % LINE_BYTES != 0
+                    || length > capacity - pos - RECORD_HEADER) {
+                break;
+            }
+            int body = pos + RECORD_HEADER;
+            crc.reset();
+            crc.update(buffer.slice(body, length));
+            if ((int) crc.getValue() != buffer.getInt(pos + 4) || buffer.getLong(body) != seq) {
+                break;
+            }
+            pos = body + length;
+            seq++;
+        }
+        writePos = pos;
+        nextSeq = seq;
+        drainPos = HEADER;
+        drainedSeq = firstSeq - 1;
+    }
+
+    /**
+     * Agrega una venta al final del diario.
+     *
+     * @param idUsuario clave del cliente
+     * @param fecha fecha y hora de la venta
+     * @param lineas productos y cantidades del carrito
+     * @return la venta con su número en el diario
+     * @throws IOException si el diario está lleno de ventas que aún no
+     * llegan a Oracle
+     */
+    public VentaPendiente append(int idUsuario, LocalDateTime fecha, List<LineaVenta> lineas)
+            throws IOException {
+        if (lineas.isEmpty() || lineas.size() > MAX_LINES) {
+            throw new IllegalArgumentException("Una venta del diario lleva de 1 a " + MAX_LINES
+                    + " líneas: " + lineas.size());
+        }
+        int length = FIXED_BODY + LINE_BYTES * lineas.size();
+        // La hora local se guarda como si fuera UTC: solo importa que vuelva igual
+        Instant instante = fecha.toInstant(ZoneOffset.UTC);
+
+        synchronized (this) {
+            ensureOpen();
+            if (writePos + RECORD_HEADER + length > capacity) {
+                if (drainedSeq + 1 < nextSeq) {
+                    throw new IOException("El diario de ventas está lleno: faltan "
+                            + (nextSeq - 1 - drainedSeq) + " ventas por enviar a Oracle");
+                }
+                restart();
+            }
+
+            long seq = nextSeq;
+            int body = writePos + RECORD_HEADER;
+            buffer.putLong(body, seq);
+            buffer.putLong(body + 8, instante.toEpochMilli());
+            buffer.putInt(body + 16, idUsuario);
+            buffer.putInt(body + 20, lineas.size());
+            int at = body + FIXED_BODY;
+            for (LineaVenta linea : lineas) {
+                buffer.putInt(at, linea.idProducto());
+                buffer.putInt(at + 4, linea.cantidad());
+                at += LINE_BYTES;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(body, length));
+            buffer.putInt(writePos + 4, (int) crc.getValue());
+            // La longitud va al final: mientras no esté, el registro no existe
+            buffer.putInt(writePos, length);
+            if (force) {
+                buffer.force(writePos, RECORD_HEADER + length);
+            }
+
+            writePos = body + length;
+            nextSeq++;
+            appended++;
+            notifyAll();
+            return new VentaPendiente(seq, idUsuario, LocalDateTime.ofInstant(instante, ZoneOffset.UTC),
+                    List.copyOf(lineas));
+        }
+    }
+
+    /**
+     * Lee, sin quitarlas, las primeras ventas que aún no están en Oracle.
+     *
+     * @param max ventas como máximo
+     * @return las ventas en orden; vacía si no hay pendientes o el diario
+     * está cerrado
+     */
+    public synchronized List<VentaPendiente> pending(int max) {
+        List<VentaPendiente> ventas = new ArrayList<>(Math.min(max, 64));
+        if (closed) {
+            return ventas;
+        }
+        int pos = drainPos;
+        for (long seq = drainedSeq + 1; seq < nextSeq && ventas.size() < max; seq++) {
+            int body = pos + RECORD_HEADER;
+            long millis = buffer.getLong(body + 8);
+            int idUsuario = buffer.getInt(body + 16);
+            int n = buffer.getInt(body + 20);
+            List<LineaVenta> lineas = new ArrayList<>(n);
+            int at = body + FIXED_BODY;
+            for (int i = 0; i < n; i++) {
+                lineas.add(new LineaVenta(buffer.getInt(at), buffer.getInt(at + 4)));
+                at += LINE_BYTES;
+            }
+            ventas.add(new VentaPendiente(seq, idUsuario,
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC), lineas));
+            pos = at;
+        }
+        return ventas;
+    }
+
+    /**
+     * Marca como enviadas a Oracle las ventas hasta {@code seq}, incluida.
+     *
+     * <p>
+     * Si Oracle ya tiene números que el diario no (el final del archivo se
+     * perdió en una caída del sistema), el diario sigue numerando después de
+     * ellos, para que una venta nueva nunca pase por aplicada.</p>
+     *
+     * @param seq número de la última venta confirmada en Oracle
+     */
+    public synchronized void drained(long seq) {
+        if (closed) {
+            return;
+        }
+        while (drainedSeq < seq && drainedSeq + 1 < nextSeq) {
+            drainPos += RECORD_HEADER + buffer.getInt(drainPos);
+            drainedSeq++;
+        }
+        if (seq > drainedSeq) {
+            drainedSeq = seq;
+            nextSeq = seq + 1;
+            restart();
+        } else if (drainedSeq + 1 == nextSeq && writePos > capacity / 2) {
+            restart();
+        }
+    }
+
+    /**
+     * Espera a que haya ventas pendientes.
+     *
+     * @param millis espera máxima
+     * @throws InterruptedException si se interrumpe el hilo
+     */
+    public synchronized void awaitPending(long millis) throws InterruptedException {
+        if (!closed && drainedSeq + 1 == nextSeq) {
+            wait(millis);
+        }
+    }
+
+    /**
+     * Despierta a quien espere en {@link #awaitPending(long)}.
+     */
+    public synchronized void wakeUp() {
+        notifyAll();
+    }
+
+    /**
+     * Vuelve a escribir desde el inicio. Solo se llama con todo enviado a
+     * Oracle; el encabezado se fuerza al disco antes de sobrescribir
+     * registros, o al abrir se tomarían los nuevos por restos de la vuelta
+     * anterior.
+     */
+    private void restart() {
+        firstSeq = nextSeq;
+        buffer.putLong(FIRST_SEQ_OFFSET, firstSeq);
+        buffer.force(0, HEADER);
+        writePos = HEADER;
+        drainPos = HEADER;
+    }
+
+    /**
+     * @return el identificador del diario, fijo desde que se creó el archivo
+     */
+    public String getId() {
+        return id;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(capacity, writePos, appended, nextSeq - 1 - drainedSeq, drainedSeq);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("El diario de ventas está cerrado");
+        }
+    }
+
+    /**
+     * Fuerza lo escrito al disco y libera el archivo. Las ventas pendientes
+     * se envían a Oracle la próxima vez que se abra.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        notifyAll();
+        try {
+            buffer.force();
+            fileLock.release();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.memory;
+
+/**
+ *
+ * @author dard
+ */
+import java.util.Arrays;
+
+/**
+ * Lista ordenada y sin repetidos de IDs, la entrada de un índice secundario
+ * (por ejemplo, las ventas de un cliente). Guarda los IDs en un
+ * {@code int[]}; como los IDs nuevos son los mayores, agregar es casi siempre
+ * escribir al final.
+ *
+ * <p>
+ * No es segura entre hilos.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+final class IdList {
+
+    private int[] ids = new int[4];
+    private int size;
+
+    void add(int id) {
+        int at;
+        if (size == 0 || id > ids[size - 1]) {
+            at = size;
+        } else {
+            int i = Arrays.binarySearch(ids, 0, size, id);
+            if (i >= 0) {
+                return;
+            }
+            at = -i - 1;
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, at, ids, at + 1, size - at);
+        ids[at] = id;
+        size++;
+    }
+
+    /**
+     * @param id ID a quitar
+     * @return true si estaba
+     */
+    boolean remove(int id) {
+        int i = Arrays.binarySearch(ids, 0, size, id);
+        if (i < 0) {
+            return false;
+        }
+        System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return el menor ID; la lista no debe estar vacía
+     */
+    int first() {
+        return ids[0];
+    }
+
+    /**
+     * @return copia de los IDs, en orden ascendente
+     */
+    int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+}
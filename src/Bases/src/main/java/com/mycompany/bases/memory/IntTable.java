@@ -0,0 +1,169 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.memory;
+
+/**
+ *
+ * @author dard
+ */
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Mapa ordenado de clave {@code int} a valor, la tabla de los almacenes en
+ * memoria.
+ *
+ * <p>
+ * Las claves se guardan ordenadas en un {@code int[]} (sin cajas
+ * {@code Integer} ni un nodo por entrada) y los valores en un arreglo
+ * paralelo. Buscar cuesta una búsqueda binaria; agregar una clave mayor que
+ * todas, el caso de los IDs que salen de una secuencia, es agregar al final.
+ * Insertar en medio o borrar desplaza el resto de los arreglos con
+ * {@link System#arraycopy}. Las páginas por clave (mayores o menores a un
+ * cursor) son un tramo contiguo de los arreglos.</p>
+ *
+ * <p>
+ * No es segura entre hilos: los repositorios la protegen con su
+ * candado.</p>
+ *
+ * @param <V> tipo de los valores
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+final class IntTable<V> {
+
+    private int[] keys = new int[16];
+    private Object[] values = new Object[16];
+    private int size;
+
+    /**
+     * @param key clave
+     * @return el valor, o null si la clave no está
+     */
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        int i = indexOf(key);
+        return i < 0 ? null : (V) values[i];
+    }
+
+    /**
+     * Agrega o reemplaza una entrada.
+     *
+     * @param key clave
+     * @param value valor, no null
+     * @return el valor anterior, o null si la clave no estaba
+     */
+    @SuppressWarnings("unchecked")
+    V put(int key, V value) {
+        if (size > 0 && key > keys[size - 1]) {
+            grow();
+            keys[size] = key;
+            values[size++] = value;
+            return null;
+        }
+        int i = indexOf(key);
+        if (i >= 0) {
+            V old = (V) values[i];
+            values[i] = value;
+            return old;
+        }
+        int at = -i - 1;
+        grow();
+        System.arraycopy(keys, at, keys, at + 1, size - at);
+        System.arraycopy(values, at, values, at + 1, size - at);
+        keys[at] = key;
+        values[at] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * Quita una entrada.
+     *
+     * @param key clave
+     * @return el valor quitado, o null si la clave no estaba
+     */
+    @SuppressWarnings("unchecked")
+    V remove(int key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        V old = (V) values[i];
+        System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+        System.arraycopy(values, i + 1, values, i, size - i - 1);
+        values[--size] = null;
+        return old;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return la mayor clave, o {@link Integer#MIN_VALUE} si está vacía
+     */
+    int lastKey() {
+        return size == 0 ? Integer.MIN_VALUE : keys[size - 1];
+    }
+
+    /**
+     * Copia los valores de claves mayores a {@code after}, en orden
+     * ascendente.
+     *
+     * @param after cursor, excluido
+     * @param limit máximo de valores
+     * @param out lista de destino
+     */
+    @SuppressWarnings("unchecked")
+    void after(int after, int limit, List<? super V> out) {
+        int from = indexOf(after);
+        from = from < 0 ? -from - 1 : from + 1;
+        for (int i = from; i < size && i - from < limit; i++) {
+            out.add((V) values[i]);
+        }
+    }
+
+    /**
+     * Copia los últimos {@code limit} valores de claves menores a
+     * {@code before}, en orden ascendente.
+     *
+     * @param before cursor, excluido
+     * @param limit máximo de valores
+     * @param out lista de destino
+     */
+    @SuppressWarnings("unchecked")
+    void before(int before, int limit, List<? super V> out) {
+        int to = indexOf(before);
+        to = to < 0 ? -to - 1 : to;
+        for (int i = Math.max(0, to - limit); i < to; i++) {
+            out.add((V) values[i]);
+        }
+    }
+
+    /**
+     * Copia todos los valores, en orden ascendente de clave.
+     *
+     * @param out lista de destino
+     */
+    @SuppressWarnings("unchecked")
+    void values(List<? super V> out) {
+        for (int i = 0; i < size; i++) {
+            out.add((V) values[i]);
+        }
+    }
+
+    private int indexOf(int key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void grow() {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.memory;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.models.ProductPage;
+import com.mycompany.bases.models.Producto;
+import com.mycompany.bases.repository.ProductRepository;
+import com.mycompany.bases.search.ProductQuery;
+import com.mycompany.bases.search.ProductSearchIndex;
+import com.mycompany.bases.search.ProductSearchResult;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Catálogo de productos en memoria, para trabajar sin Oracle.
+ *
+ * <p>
+ * Los productos están en una {@link IntTable} por ID, de modo que buscar es
+ * una búsqueda binaria y las páginas por clave son tramos contiguos, con la
+ * misma semántica que las consultas de {@code ProductService}. El índice
+ * secundario por categoría, color, talla y nombre es el mismo
+ * {@link ProductSearchIndex} que usa la versión de Oracle, pero aquí se
+ * actualiza en cada alta, cambio o baja y nunca necesita recargarse.</p>
+ *
+ * <p>
+ * Las lecturas se hacen en paralelo y las escrituras toman un candado
+ * exclusivo. Los IDs salen de un contador que empieza en 1, como
+ * {@code producto_seq}.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class MemoryProductRepository implements ProductRepository {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final IntTable<Producto> productos = new IntTable<>();
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+    private int nextId = 1;
+
+    @Override
+    public Producto addProduct(String nombre, String categoria, String color, String talla, double precio) {
+        lock.writeLock().lock();
+        try {
+            Producto producto = new Producto(nextId++, nombre, precio, color, talla, categoria);
+            productos.put(producto.idProducto(), producto);
+            searchIndex.add(producto);
+            return producto;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Producto> findProduct(int idProducto) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(productos.get(idProducto));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean updateProduct(Producto producto) {
+        lock.writeLock().lock();
+        try {
+            if (productos.get(producto.idProducto()) == null) {
+                return false;
+            }
+            productos.put(producto.idProducto(), producto);
+            searchIndex.add(producto);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean deleteProduct(int idProducto) {
+        lock.writeLock().lock();
+        try {
+            searchIndex.remove(idProducto);
+            return productos.remove(idProducto) != null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public ProductPage listProductsAfter(int afterId, int pageSize) {
+        List<Producto> page = new ArrayList<>(pageSize + 1);
+        lock.readLock().lock();
+        try {
+            productos.after(afterId, pageSize + 1, page);
+        } finally {
+            lock.readLock().unlock();
+        }
+        boolean hasNext = page.size() > pageSize;
+        if (hasNext) {
+            page.remove(page.size() - 1);
+        }
+        return new ProductPage(page, afterId != Integer.MIN_VALUE, hasNext);
+    }
+
+    @Override
+    public ProductPage listProductsBefore(int beforeId, int pageSize) {
+        List<Producto> page = new ArrayList<>(pageSize + 1);
+        List<Producto> next = new ArrayList<>(1);
+        lock.readLock().lock();
+        try {
+            productos.before(beforeId, pageSize + 1, page);
+            // Hay página siguiente si queda algún producto después del último de esta
+            int lastId = page.isEmpty() ? Integer.MIN_VALUE : page.get(page.size() - 1).idProducto();
+            productos.after(lastId, 1, next);
+        } finally {
+            lock.readLock().unlock();
+        }
+        boolean hasPrevious = page.size() > pageSize;
+        if (hasPrevious) {
+            page.remove(0);
+        }
+        return new ProductPage(page, hasPrevious, !next.isEmpty());
+    }
+
+    @Override
+    public ProductSearchResult searchProducts(ProductQuery query) {
+        return searchIndex.search(query);
+    }
+
+    /**
+     * Obtiene varios productos con una sola toma del candado, para valorizar
+     * una venta.
+     *
+     * @param ids IDs de producto, pueden repetirse
+     * @return mapa ID → producto; los inexistentes no aparecen
+     */
+    Map<Integer, Producto> getAll(Collection<Integer> ids) {
+        Map<Integer, Producto> found = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (int id : ids) {
+                Producto producto = productos.get(id);
+                if (producto != null) {
+                    found.put(id, producto);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+}
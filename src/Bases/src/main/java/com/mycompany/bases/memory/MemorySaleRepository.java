@@ -0,0 +1,311 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.memory;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.models.DetalleVenta;
+import com.mycompany.bases.models.FilaReporteVentas;
+import com.mycompany.bases.models.LineaVenta;
+import com.mycompany.bases.models.Producto;
+import com.mycompany.bases.models.ResultadoVenta;
+import com.mycompany.bases.models.Venta;
+import com.mycompany.bases.models.VentaRegistrada;
+import com.mycompany.bases.repository.SaleListener;
+import com.mycompany.bases.repository.SaleRepository;
+import com.mycompany.bases.repository.UserRepository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Ventas y sus detalles en memoria, para trabajar sin Oracle.
+ *
+ * <p>
+ * Cada venta se guarda completa (encabezado, detalles y líneas con su
+ * categoría) en una {@link IntTable} por ID. El índice secundario por
+ * cliente lleva de la clave del cliente a los IDs de sus ventas, ordenados,
+ * y se mantiene en la misma toma del candado que la tabla, así que nunca
+ * queda desfasado.</p>
+ *
+ * <p>
+ * Los precios se leen de {@link MemoryProductRepository} y los nombres de
+ * cliente del {@link UserRepository}, fuera del candado de las ventas. Una
+ * venta queda registrada de forma atómica: la ven completa todas las
+ * lecturas posteriores o no la ve ninguna. Como {@code SaleService}, avisa a
+ * los {@link SaleListener} después de confirmar.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class MemorySaleRepository implements SaleRepository {
+
+    /**
+     * Una venta guardada.
+     *
+     * @param venta encabezado y líneas tal como los reciben los oyentes
+     * @param total total de la venta
+     * @param detalles detalles con nombre y precio del momento de la venta
+     */
+    private record Registro(VentaRegistrada venta, double total, List<DetalleVenta> detalles) {
+
+        Venta toVenta(String nombreCliente, List<DetalleVenta> detalles) {
+            return new Venta(venta.idVenta(), venta.fecha() == null ? null : venta.fecha().toLocalDate(),
+                    total, venta.idUsuario(), nombreCliente, detalles);
+        }
+    }
+
+    private final MemoryProductRepository products;
+    private final UserRepository users;
+    private final List<SaleListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final IntTable<Registro> ventas = new IntTable<>();
+    /** Índice secundario: clave del cliente → IDs de sus ventas */
+    private final IntTable<IdList> porCliente = new IntTable<>();
+    private int nextId = 1;
+
+    public MemorySaleRepository(MemoryProductRepository products, UserRepository users) {
+        this.products = products;
+        this.users = users;
+    }
+
+    @Override
+    public void addListener(SaleListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public ResultadoVenta createVenta(int idUsuario, List<LineaVenta> lineas) {
+        Map<Integer, Producto> precios = products.getAll(lineas.stream().map(LineaVenta::idProducto).toList());
+
+        List<DetalleVenta> detalles = new ArrayList<>(lineas.size());
+        List<Integer> noEncontrados = new ArrayList<>();
+        List<VentaRegistrada.Linea> lineasRegistradas = new ArrayList<>(lineas.size());
+        double total = 0;
+        for (LineaVenta linea : lineas) {
+            Producto producto = precios.get(linea.idProducto());
+            if (producto == null) {
+                noEncontrados.add(linea.idProducto());
+                continue;
+            }
+            double subtotal = producto.precio() * linea.cantidad();
+            total += subtotal;
+            detalles.add(new DetalleVenta(linea.idProducto(), producto.nombre(),
+                    linea.cantidad(), producto.precio(), subtotal));
+            lineasRegistradas.add(new VentaRegistrada.Linea(linea.idProducto(), producto.categoria(),
+                    linea.cantidad(), subtotal));
+        }
+
+        if (detalles.isEmpty()) {
+            return new ResultadoVenta(-1, 0, List.of(), noEncontrados);
+        }
+
+        VentaRegistrada registrada;
+        lock.writeLock().lock();
+        try {
+            int idVenta = nextId++;
+            registrada = new VentaRegistrada(idVenta, idUsuario, LocalDateTime.now(),
+                    List.copyOf(lineasRegistradas));
+            ventas.put(idVenta, new Registro(registrada, total, List.copyOf(detalles)));
+            IdList delCliente = porCliente.get(idUsuario);
+            if (delCliente == null) {
+                delCliente = new IdList();
+                porCliente.put(idUsuario, delCliente);
+            }
+            delCliente.add(idVenta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        notify(registrada, true);
+        return new ResultadoVenta(registrada.idVenta(), total, detalles, noEncontrados);
+    }
+
+    @Override
+    public Optional<Venta> findVenta(int idVenta) {
+        Registro registro;
+        lock.readLock().lock();
+        try {
+            registro = ventas.get(idVenta);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (registro == null) {
+            return Optional.empty();
+        }
+        return Optional.of(registro.toVenta(users.findUserNameById(registro.venta().idUsuario()),
+                registro.detalles()));
+    }
+
+    @Override
+    public List<Venta> listVentas(int afterId, int pageSize) {
+        List<Registro> page = new ArrayList<>(pageSize);
+        lock.readLock().lock();
+        try {
+            ventas.after(afterId, pageSize, page);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Integer, String> nombres = users.findUserNamesByIds(
+                page.stream().map(r -> r.venta().idUsuario()).toList());
+        List<Venta> result = new ArrayList<>(page.size());
+        for (Registro registro : page) {
+            result.add(registro.toVenta(nombres.get(registro.venta().idUsuario()), List.of()));
+        }
+        return result;
+    }
+
+    /**
+     * Obtiene las ventas de un cliente a través del índice por cliente, sin
+     * recorrer las demás.
+     *
+     * @param idCliente clave del cliente
+     * @return sus ventas, en orden ascendente de ID
+     */
+    @Override
+    public List<Venta> listVentasByCliente(int idCliente) {
+        List<Venta> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            IdList ids = porCliente.get(idCliente);
+            if (ids != null) {
+                for (int idVenta : ids.toArray()) {
+                    result.add(ventas.get(idVenta).toVenta(null, List.of()));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    @Override
+    public boolean ventaExists(int idVenta) {
+        lock.readLock().lock();
+        try {
+            return ventas.get(idVenta) != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean deleteVenta(int idVenta) {
+        Registro eliminado;
+        lock.writeLock().lock();
+        try {
+            eliminado = ventas.remove(idVenta);
+            if (eliminado != null) {
+                int idCliente = eliminado.venta().idUsuario();
+                IdList delCliente = porCliente.get(idCliente);
+                delCliente.remove(idVenta);
+                if (delCliente.size() == 0) {
+                    porCliente.remove(idCliente);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (eliminado == null) {
+            return false;
+        }
+        notify(eliminado.venta(), false);
+        return true;
+    }
+
+    @Override
+    public long countVentas() {
+        lock.readLock().lock();
+        try {
+            return ventas.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long scanVentas(Consumer<VentaRegistrada> action) {
+        List<Registro> all = snapshot();
+        all.forEach(registro -> action.accept(registro.venta()));
+        return all.size();
+    }
+
+    @Override
+    public long scanVentaHeaders(Consumer<Venta> action) {
+        List<Registro> all = snapshot();
+        all.forEach(registro -> action.accept(registro.toVenta(null, List.of())));
+        return all.size();
+    }
+
+    /**
+     * Calcula el reporte con {@link MemorySalesReport} sobre una copia de las
+     * ventas y el catálogo actual.
+     *
+     * @param desde primer día, incluido
+     * @param hasta último día, incluido
+     * @param action acción por fila
+     * @return filas entregadas
+     */
+    @Override
+    public long salesReport(LocalDate desde, LocalDate hasta, Consumer<FilaReporteVentas> action) {
+        if (hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("El periodo termina antes de empezar: " + desde + " a " + hasta);
+        }
+        List<VentaRegistrada> periodo = new ArrayList<>();
+        Set<Integer> ids = new HashSet<>();
+        for (Registro registro : snapshot()) {
+            LocalDateTime fecha = registro.venta().fecha();
+            if (fecha == null || fecha.toLocalDate().isBefore(desde) || fecha.toLocalDate().isAfter(hasta)) {
+                continue;
+            }
+            periodo.add(registro.venta());
+            for (VentaRegistrada.Linea linea : registro.venta().lineas()) {
+                ids.add(linea.idProducto());
+            }
+        }
+        return MemorySalesReport.run(periodo, products.getAll(ids), desde, hasta, action);
+    }
+
+    /**
+     * Copia las ventas bajo el candado de lectura; los recorridos llaman a
+     * sus acciones ya sin él, para no detener las ventas nuevas.
+     */
+    private List<Registro> snapshot() {
+        lock.readLock().lock();
+        try {
+            List<Registro> all = new ArrayList<>(ventas.size());
+            ventas.values(all);
+            return all;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void notify(VentaRegistrada venta, boolean registrada) {
+        for (SaleListener listener : listeners) {
+            try {
+                if (registrada) {
+                    listener.ventaRegistrada(venta);
+                } else {
+                    listener.ventaEliminada(venta);
+                }
+            } catch (RuntimeException e) {
+                // La venta ya quedó registrada; un oyente no la revierte
+                System.err.println("Error al avisar la venta " + venta.idVenta() + ": " + e.getMessage());
+            }
+        }
+    }
+}
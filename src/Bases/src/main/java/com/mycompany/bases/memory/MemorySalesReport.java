@@ -0,0 +1,156 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.memory;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.models.FilaReporteVentas;
+import com.mycompany.bases.models.FilaReporteVentas.Nivel;
+import com.mycompany.bases.models.Producto;
+import com.mycompany.bases.models.VentaRegistrada;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * El reporte de ventas por día, categoría y producto calculado sobre las
+ * ventas en memoria, con las mismas filas y el mismo orden que la consulta
+ * {@code GROUPING SETS} de {@code SalesReportService}.
+ *
+ * <p>
+ * Las ventas se recorren una vez y cada línea suma en los cuatro niveles a
+ * la vez. Como en Oracle, el nombre y la categoría son los actuales del
+ * catálogo y no cuentan las líneas de productos ya eliminados. La posición
+ * sigue a {@code RANK}: los empates comparten lugar y el siguiente salta.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+final class MemorySalesReport {
+
+    /**
+     * Totales de una fila. Las líneas de una venta llegan juntas, así que
+     * basta recordar la última venta contada para contar tickets distintos.
+     */
+    private static final class Acumulado {
+
+        final LocalDate dia;
+        final String categoria;
+        final Integer idProducto;
+        final String nombre;
+        double ingresos;
+        long unidades;
+        long tickets;
+        int ultimaVenta;
+        boolean vacio = true;
+
+        Acumulado(LocalDate dia, String categoria, Integer idProducto, String nombre) {
+            this.dia = dia;
+            this.categoria = categoria;
+            this.idProducto = idProducto;
+            this.nombre = nombre;
+        }
+
+        void add(int idVenta, VentaRegistrada.Linea linea) {
+            ingresos += linea.subtotal();
+            unidades += linea.cantidad();
+            if (vacio || ultimaVenta != idVenta) {
+                tickets++;
+                ultimaVenta = idVenta;
+                vacio = false;
+            }
+        }
+    }
+
+    private MemorySalesReport() {
+    }
+
+    /**
+     * Calcula el reporte y entrega sus filas en orden.
+     *
+     * @param ventas ventas en orden de ID
+     * @param catalogo productos actuales por ID
+     * @param desde primer día, incluido
+     * @param hasta último día, incluido
+     * @param action acción por fila
+     * @return filas entregadas
+     */
+    static long run(List<VentaRegistrada> ventas, Map<Integer, Producto> catalogo, LocalDate desde,
+            LocalDate hasta, Consumer<FilaReporteVentas> action) {
+        Map<LocalDate, Acumulado> dias = new TreeMap<>();
+        Map<String, Acumulado> categorias = new HashMap<>();
+        Map<Integer, Acumulado> productos = new HashMap<>();
+        Acumulado total = new Acumulado(null, null, null, null);
+
+        for (VentaRegistrada venta : ventas) {
+            if (venta.fecha() == null) {
+                continue;
+            }
+            LocalDate dia = venta.fecha().toLocalDate();
+            if (dia.isBefore(desde) || dia.isAfter(hasta)) {
+                continue;
+            }
+            for (VentaRegistrada.Linea linea : venta.lineas()) {
+                Producto producto = catalogo.get(linea.idProducto());
+                if (producto == null) {
+                    continue;
+                }
+                dias.computeIfAbsent(dia, d -> new Acumulado(d, null, null, null))
+                        .add(venta.idVenta(), linea);
+                categorias.computeIfAbsent(producto.categoria(), c -> new Acumulado(null, c, null, null))
+                        .add(venta.idVenta(), linea);
+                productos.computeIfAbsent(producto.idProducto(),
+                        id -> new Acumulado(null, null, id, producto.nombre()))
+                        .add(venta.idVenta(), linea);
+                total.add(venta.idVenta(), linea);
+            }
+        }
+        if (total.vacio) {
+            return 0;
+        }
+
+        long count = emit(Nivel.DIA, new ArrayList<>(dias.values()), total.ingresos, null, action);
+        count += emit(Nivel.CATEGORIA, new ArrayList<>(categorias.values()), total.ingresos,
+                Comparator.comparing(a -> Objects.toString(a.categoria, "")), action);
+        count += emit(Nivel.PRODUCTO, new ArrayList<>(productos.values()), total.ingresos,
+                Comparator.comparing(a -> a.idProducto), action);
+        count += emit(Nivel.TOTAL, List.of(total), total.ingresos, null, action);
+        return count;
+    }
+
+    /**
+     * Entrega las filas de un nivel. Sin {@code desempate} se conserva el
+     * orden de la lista (los días); con él se ordena por posición y luego
+     * por el desempate.
+     */
+    private static long emit(Nivel nivel, List<Acumulado> filas, double ingresosTotales,
+            Comparator<Acumulado> desempate, Consumer<FilaReporteVentas> action) {
+        Map<Acumulado, Integer> posiciones = new HashMap<>();
+        List<Acumulado> porIngresos = new ArrayList<>(filas);
+        porIngresos.sort(Comparator.comparingDouble((Acumulado a) -> a.ingresos).reversed());
+        for (int i = 0; i < porIngresos.size(); i++) {
+            Acumulado a = porIngresos.get(i);
+            boolean empate = i > 0 && porIngresos.get(i - 1).ingresos == a.ingresos;
+            posiciones.put(a, empate ? posiciones.get(porIngresos.get(i - 1)) : i + 1);
+        }
+        if (desempate != null) {
+            filas.sort(Comparator.comparing((Acumulado a) -> posiciones.get(a)).thenComparing(desempate));
+        }
+        for (Acumulado a : filas) {
+            action.accept(new FilaReporteVentas(nivel, a.dia, a.categoria, a.idProducto, a.nombre,
+                    a.ingresos, a.unidades, a.tickets, a.ingresos / a.tickets,
+                    ingresosTotales == 0 ? 0 : a.ingresos / ingresosTotales, posiciones.get(a)));
+        }
+        return filas.size();
+    }
+}
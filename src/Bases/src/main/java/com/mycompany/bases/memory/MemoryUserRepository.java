@@ -0,0 +1,198 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.memory;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.models.Usuario;
+import com.mycompany.bases.repository.UserRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Usuarios en memoria, para trabajar sin MongoDB.
+ *
+ * <p>
+ * Los usuarios están en una {@link IntTable} por {@code idCliente}, que
+ * también hace de {@code id}: los recorridos van en orden de clave y se
+ * reanudan desde la última entregada. El índice secundario por nombre lleva
+ * del nombre en minúsculas a las claves que lo usan, igual que el índice
+ * {@code nombre_ci} de MongoDB (sin distinguir mayúsculas; los acentos sí
+ * cuentan). "El primero" con un nombre es el de menor clave. El email es
+ * único con la misma comparación, como el índice {@code email_unico}.</p>
+ *
+ * <p>
+ * Los recorridos copian un tramo bajo el candado de lectura y llaman a la
+ * acción ya sin él, para no detener las altas mientras tanto.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class MemoryUserRepository implements UserRepository {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final IntTable<Usuario> usuarios = new IntTable<>();
+    private final Map<String, IdList> porNombre = new HashMap<>();
+    private final Map<String, Integer> porEmail = new HashMap<>();
+    private int nextId = 1;
+
+    @Override
+    public Usuario addUser(String nombre, String email, int edad) {
+        lock.writeLock().lock();
+        try {
+            if (email != null && porEmail.containsKey(key(email))) {
+                throw new IllegalArgumentException("Ya existe un usuario con el email " + email);
+            }
+            int idCliente = nextId++;
+            Usuario usuario = new Usuario(idCliente, idCliente, nombre, email, edad, new Date());
+            usuarios.put(idCliente, usuario);
+            if (email != null) {
+                porEmail.put(key(email), idCliente);
+            }
+            porNombre.computeIfAbsent(key(nombre), k -> new IdList()).add(idCliente);
+            return usuario;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Usuario> findUserByName(String nombre) {
+        lock.readLock().lock();
+        try {
+            IdList ids = porNombre.get(key(nombre));
+            return ids == null ? Optional.empty() : Optional.of(usuarios.get(ids.first()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Usuario> deleteUserByName(String nombre) {
+        lock.writeLock().lock();
+        try {
+            String key = key(nombre);
+            IdList ids = porNombre.get(key);
+            if (ids == null) {
+                return Optional.empty();
+            }
+            int idCliente = ids.first();
+            ids.remove(idCliente);
+            if (ids.size() == 0) {
+                porNombre.remove(key);
+            }
+            Usuario usuario = usuarios.remove(idCliente);
+            if (usuario.email() != null) {
+                porEmail.remove(key(usuario.email()));
+            }
+            return Optional.of(usuario);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Entrega los usuarios con clave mayor a la de {@code after}.
+     *
+     * @param after último usuario entregado, o null para empezar; su
+     * {@link Usuario#idCliente()} es la clave
+     * @param limit máximo de usuarios; 0 para todos los restantes
+     * @param action acción por cada usuario
+     * @return cantidad entregada y último usuario
+     */
+    @Override
+    public UserScan scanUsers(Usuario after, int limit, Consumer<Usuario> action) {
+        List<Usuario> page = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            usuarios.after(after == null ? Integer.MIN_VALUE : (int) after.idCliente(),
+                    limit > 0 ? limit : Integer.MAX_VALUE, page);
+        } finally {
+            lock.readLock().unlock();
+        }
+        page.forEach(action);
+        return new UserScan(page.size(), page.isEmpty() ? after : page.get(page.size() - 1));
+    }
+
+    @Override
+    public boolean scanCustomers(Predicate<Usuario> action) {
+        for (Usuario usuario : snapshot()) {
+            if (!action.test(usuario)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long estimatedUserCount() {
+        lock.readLock().lock();
+        try {
+            return usuarios.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<Integer, Usuario> findCustomersByIds(Collection<Integer> ids) {
+        Map<Integer, Usuario> customers = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (int id : ids) {
+                Usuario usuario = usuarios.get(id);
+                if (usuario != null) {
+                    customers.put(id, usuario);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return customers;
+    }
+
+    @Override
+    public Map<Integer, String> findUserNamesByIds(Collection<Integer> ids) {
+        Map<Integer, String> names = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Integer id : ids) {
+                Usuario usuario = id == null ? null : usuarios.get(id);
+                if (usuario != null && usuario.nombre() != null) {
+                    names.put(id, usuario.nombre());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return names;
+    }
+
+    private List<Usuario> snapshot() {
+        lock.readLock().lock();
+        try {
+            List<Usuario> all = new ArrayList<>(usuarios.size());
+            usuarios.values(all);
+            return all;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static String key(String texto) {
+        return texto == null ? "" : texto.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.metrics;
+
+/**
+ *
+ * @author dard
+ */
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias de tamaño fijo y sin bloqueos.
+ *
+ * <p>
+ * Los valores (en nanosegundos) se agrupan en cubetas log-lineales: cada
+ * potencia de dos se divide en {@value #SUB_BUCKETS} cubetas iguales, así
+ * que el error relativo de un percentil es como mucho 1/{@value #SUB_BUCKETS}
+ * (~3%) para cualquier magnitud, de nanosegundos a horas. Registrar un valor
+ * es un cálculo de índice y un incremento atómico; la memoria es fija
+ * (~15 KB) sin importar cuántos valores se registren.</p>
+ *
+ * <p>
+ * Las lecturas ({@link #snapshot()}) no detienen a quienes registran: con
+ * registros concurrentes el resultado puede mezclar valores de instantes
+ * ligeramente distintos.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Fotografía del histograma; los tiempos están en nanosegundos.
+     *
+     * @param count valores registrados
+     * @param mean promedio
+     * @param p50 mediana
+     * @param p99 percentil 99
+     * @param p999 percentil 99.9
+     * @param max máximo exacto
+     */
+    public record Snapshot(long count, double mean, long p50, long p99, long p999, long max) {
+
+    }
+
+    /**
+     * Registra una duración.
+     *
+     * @param nanos duración en nanosegundos; los negativos cuentan como 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        long maxValue = max.get();
+        long n = count.sum();
+        double mean = n == 0 ? 0 : (double) sum.sum() / n;
+        return new Snapshot(total, mean,
+                percentile(counts, total, 0.50, maxValue),
+                percentile(counts, total, 0.99, maxValue),
+                percentile(counts, total, 0.999, maxValue),
+                maxValue);
+    }
+
+    /**
+     * Descarta todos los valores registrados.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * Valor bajo el cual queda la fracción {@code q} de los registros: el
+     * límite superior de la cubeta que la contiene, sin pasar del máximo.
+     */
+    private static long percentile(long[] counts, long total, double q, long maxValue) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        long upper = lower + (1L << shift) - 1;
+        // Las cubetas más altas rebasan el rango de long
+        return lower < 0 || upper < 0 ? Long.MAX_VALUE : upper;
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.metrics;
+
+/**
+ *
+ * @author dard
+ */
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToLongFunction;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Métricas por operación del servicio: histograma de latencias, llamadas,
+ * errores, filas devueltas y viajes a Oracle y MongoDB.
+ *
+ * <p>
+ * Cada operación se mide con {@link #time}. Mientras corre, la operación
+ * queda asociada al hilo, y los viajes que se cuentan con
+ * {@link #countRoundTrip()} (las sentencias de {@code PooledConnection} y
+ * los comandos de MongoDB, vía {@link #commandListener()}) se le atribuyen.
+ * Como el servicio ejecuta cada operación en su propio hilo virtual, la
+ * atribución es exacta; el trabajo que una operación reparte en otros hilos
+ * (los escritores de la importación de usuarios) no se cuenta.</p>
+ *
+ * <p>
+ * Si se pide, cada operación se publica como MBean
+ * {@code com.mycompany.bases:type=Operacion,name=...} y el conjunto como
+ * {@code com.mycompany.bases:type=Metricas}, que permite guardar una
+ * fotografía en JSON y poner todo en cero desde JConsole o VisualVM.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public final class Metrics implements MetricsMBean, AutoCloseable {
+
+    public static final String JMX_DOMAIN = "com.mycompany.bases";
+
+    /** Operación que se está midiendo en el hilo actual */
+    private static final ThreadLocal<OperationStats> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private final MBeanServer mbeans;
+    private final List<ObjectName> registered = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean jmxConflictReported = new AtomicBoolean();
+
+    /**
+     * Crea un conjunto de métricas vacío. Los MBeans publicados se retiran
+     * con {@link #close()}; si otra instancia de la JVM ya publicó los mismos
+     * nombres, esta mide sin publicar y lo avisa por la salida de errores.
+     *
+     * @param publishJmx true para registrar los MBeans en el servidor de
+     * la plataforma
+     */
+    public Metrics(boolean publishJmx) {
+        this.mbeans = publishJmx ? ManagementFactory.getPlatformMBeanServer() : null;
+        register("type=Metricas", this);
+    }
+
+    /**
+     * Ejecuta y mide una operación.
+     *
+     * @param <T> tipo del resultado
+     * @param name nombre de la operación
+     * @param task trabajo a ejecutar
+     * @param rows filas devueltas según el resultado
+     * @return el resultado de la tarea
+     * @throws Exception la excepción de la tarea, que se cuenta como error
+     */
+    public <T> T time(String name, Callable<T> task, ToLongFunction<? super T> rows) throws Exception {
+        OperationStats stats = operation(name);
+        OperationStats outer = CURRENT.get();
+        CURRENT.set(stats);
+        long start = System.nanoTime();
+        long rowCount = 0;
+        boolean failed = true;
+        try {
+            T result = task.call();
+            rowCount = rows.applyAsLong(result);
+            failed = false;
+            return result;
+        } finally {
+            stats.record(System.nanoTime() - start, rowCount, failed);
+            if (outer == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(outer);
+            }
+        }
+    }
+
+    /**
+     * Obtiene (o crea y publica) las métricas de una operación.
+     *
+     * @param name nombre de la operación
+     * @return sus métricas
+     */
+    public OperationStats operation(String name) {
+        OperationStats stats = operations.get(name);
+        if (stats != null) {
+            return stats;
+        }
+        return operations.computeIfAbsent(name, key -> {
+            OperationStats created = new OperationStats(key);
+            register("type=Operacion,name=" + ObjectName.quote(key), created);
+            return created;
+        });
+    }
+
+    /**
+     * Cuenta un viaje a la base de datos para la operación en curso en este
+     * hilo. Fuera de una operación medida no hace nada.
+     */
+    public static void countRoundTrip() {
+        OperationStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.roundTrip();
+        }
+    }
+
+    /**
+     * @return nombre de la operación que se está midiendo en este hilo, o
+     * null fuera de una operación
+     */
+    public static String currentOperation() {
+        OperationStats stats = CURRENT.get();
+        return stats == null ? null : stats.getName();
+    }
+
+    /**
+     * Listener para el cliente de MongoDB que cuenta cada comando como un
+     * viaje. El controlador síncrono emite el evento en el hilo que ejecuta
+     * la operación.
+     *
+     * @return el listener
+     */
+    public static CommandListener commandListener() {
+        return new CommandListener() {
+            @Override
+            public void commandStarted(CommandStartedEvent event) {
+                countRoundTrip();
+            }
+        };
+    }
+
+    /**
+     * @return fotografía de todas las operaciones, ordenadas por nombre
+     */
+    public List<OperationStats.Snapshot> snapshot() {
+        return operations.values().stream()
+                .map(OperationStats::snapshot)
+                .sorted((a, b) -> a.name().compareTo(b.name()))
+                .toList();
+    }
+
+    /**
+     * Fotografía en JSON; los tiempos en microsegundos.
+     *
+     * @return el documento JSON
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(256 + operations.size() * 256);
+        json.append("{\"generado\":\"").append(Instant.now()).append("\",\"operaciones\":[");
+        boolean first = true;
+        for (OperationStats.Snapshot op : snapshot()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            LatencyHistogram.Snapshot latency = op.latency();
+            json.append("{\"nombre\":\"").append(op.name().replace("\\", "\\\\").replace("\"", "\\\"")).append('"')
+                    .append(",\"llamadas\":").append(op.calls())
+                    .append(",\"errores\":").append(op.errors())
+                    .append(",\"filas\":").append(op.rows())
+                    .append(",\"viajes\":").append(op.roundTrips())
+                    .append(",\"latenciaMicros\":{")
+                    .append(String.format(Locale.ROOT,
+                            "\"media\":%.3f,\"p50\":%.3f,\"p99\":%.3f,\"p999\":%.3f,\"max\":%.3f",
+                            latency.mean() / 1_000.0, latency.p50() / 1_000.0, latency.p99() / 1_000.0,
+                            latency.p999() / 1_000.0, latency.max() / 1_000.0))
+                    .append("}}");
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Guarda {@link #toJson()} en un archivo. Se escribe primero un archivo
+     * temporal y luego se renombra, para que quien lo lea nunca vea uno a
+     * medias.
+     *
+     * @param file destino
+     * @throws IOException si no se puede escribir
+     */
+    public void writeSnapshot(Path file) throws IOException {
+        Path target = file.toAbsolutePath();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.writeString(tmp, toJson(), StandardCharsets.UTF_8);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public String[] getOperationNames() {
+        return operations.keySet().stream().sorted().toArray(String[]::new);
+    }
+
+    @Override
+    public void dumpSnapshot(String path) throws IOException {
+        writeSnapshot(Path.of(path));
+    }
+
+    @Override
+    public void resetAll() {
+        operations.values().forEach(OperationStats::reset);
+    }
+
+    /**
+     * Retira los MBeans publicados.
+     */
+    @Override
+    public void close() {
+        for (ObjectName name : registered) {
+            try {
+                mbeans.unregisterMBean(name);
+            } catch (JMException e) {
+                // Ya retirado: nada que hacer
+            }
+        }
+        registered.clear();
+    }
+
+    private void register(String properties, Object mbean) {
+        if (mbeans == null) {
+            return;
+        }
+        try {
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":" + properties);
+            mbeans.registerMBean(mbean, name);
+            registered.add(name);
+        } catch (InstanceAlreadyExistsException e) {
+            // Otra instancia en la misma JVM ya publicó ese nombre; esta
+            // sigue midiendo, solo que sin JMX. Se avisa una vez por instancia
+            if (jmxConflictReported.compareAndSet(false, true)) {
+                System.err.println("Métricas: " + JMX_DOMAIN + ":" + properties
+                        + " ya está publicado por otra instancia; esta mide sin publicar en JMX");
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("No se pudo publicar el MBean " + properties, e);
+        }
+    }
+}
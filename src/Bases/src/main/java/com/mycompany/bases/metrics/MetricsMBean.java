@@ -0,0 +1,38 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.metrics;
+
+/**
+ *
+ * @author dard
+ */
+import java.io.IOException;
+
+/**
+ * Operaciones JMX sobre el conjunto de métricas.
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public interface MetricsMBean {
+
+    /**
+     * @return nombres de las operaciones con métricas
+     */
+    String[] getOperationNames();
+
+    /**
+     * Guarda una fotografía de todas las operaciones en un archivo JSON.
+     *
+     * @param path ruta del archivo; se reemplaza si existe
+     * @throws IOException si no se puede escribir
+     */
+    void dumpSnapshot(String path) throws IOException;
+
+    /**
+     * Pone en cero todas las operaciones.
+     */
+    void resetAll();
+}
@@ -0,0 +1,67 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.metrics;
+
+/**
+ *
+ * @author dard
+ */
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Evento de Java Flight Recorder para un comando enviado a MongoDB.
+ *
+ * <p>
+ * Lo emite {@link MongoCommandEvents}. El filtro se guarda solo como forma:
+ * campos y operadores, con los valores reemplazados por {@code ?}, para no
+ * copiar datos de clientes a la grabación.</p>
+ *
+ * <p>
+ * Por omisión solo se guardan los comandos de {@value #THRESHOLD} o más y
+ * sin pila; el umbral se cambia al grabar con
+ * {@code +com.mycompany.bases.MongoCommand#threshold=...}.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+@Name("com.mycompany.bases.MongoCommand")
+@Label("Comando MongoDB")
+@Category({"Bases", "MongoDB"})
+@Description("Comando de MongoDB con su colección, la forma del filtro y los documentos devueltos o afectados")
+@StackTrace(false)
+@Threshold(MongoCommandEvent.THRESHOLD)
+public final class MongoCommandEvent extends Event {
+
+    public static final String THRESHOLD = "20 ms";
+
+    @Label("Operación")
+    @Description("Operación del servicio que envió el comando")
+    public String operation;
+
+    @Label("Base de datos")
+    public String database;
+
+    @Label("Colección")
+    public String collection;
+
+    @Label("Comando")
+    public String command;
+
+    @Label("Forma del filtro")
+    public String filterShape;
+
+    @Label("Documentos")
+    @Description("Documentos devueltos o afectados; -1 si la respuesta no lo indica")
+    public long documents;
+
+    @Label("Falló")
+    public boolean failed;
+}
@@ -0,0 +1,215 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.metrics;
+
+/**
+ *
+ * @author dard
+ */
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+/**
+ * Listener del cliente de MongoDB que emite un {@link MongoCommandEvent} por
+ * comando.
+ *
+ * <p>
+ * El evento empieza en {@code commandStarted} y termina en
+ * {@code commandSucceeded} o {@code commandFailed}, que el controlador
+ * empareja por {@code requestId}. Los documentos que entrega el controlador
+ * solo son válidos durante cada llamada, así que la colección y la forma del
+ * filtro se extraen al empezar y el conteo de documentos al terminar, y
+ * esto último solo si el evento superó el umbral. Si no se está grabando el
+ * evento, el listener no hace nada.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public final class MongoCommandEvents implements CommandListener {
+
+    /** Largo máximo de la forma del filtro en el evento */
+    private static final int MAX_SHAPE = 512;
+
+    private final Map<Integer, MongoCommandEvent> inFlight = new ConcurrentHashMap<>();
+
+    @Override
+    public void commandStarted(CommandStartedEvent started) {
+        MongoCommandEvent event = new MongoCommandEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        BsonDocument command = started.getCommand();
+        String name = started.getCommandName();
+        event.operation = Metrics.currentOperation();
+        event.database = started.getDatabaseName();
+        event.command = name;
+        event.collection = collectionOf(name, command);
+        BsonDocument filter = filterOf(name, command);
+        event.filterShape = filter == null ? null : truncate(shape(filter, new StringBuilder()).toString());
+        event.begin();
+        inFlight.put(started.getRequestId(), event);
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent succeeded) {
+        MongoCommandEvent event = inFlight.remove(succeeded.getRequestId());
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.documents = documentsOf(succeeded.getResponse());
+            event.commit();
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent failed) {
+        MongoCommandEvent event = inFlight.remove(failed.getRequestId());
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.documents = -1;
+            event.failed = true;
+            event.commit();
+        }
+    }
+
+    private static String collectionOf(String name, BsonDocument command) {
+        if ("getMore".equals(name)) {
+            BsonValue collection = command.get("collection");
+            return collection != null && collection.isString() ? collection.asString().getValue() : null;
+        }
+        BsonValue value = command.get(name);
+        return value != null && value.isString() ? value.asString().getValue() : null;
+    }
+
+    /**
+     * Filtro del comando: el de {@code find}, el {@code query} de
+     * {@code count}/{@code distinct}/{@code findAndModify}, el primer
+     * {@code $match} de un {@code aggregate} o el {@code q} de la primera
+     * sentencia de un {@code delete}/{@code update}.
+     */
+    private static BsonDocument filterOf(String name, BsonDocument command) {
+        BsonValue filter = switch (name) {
+            case "find" ->
+                command.get("filter");
+            case "count", "distinct", "findAndModify" ->
+                command.get("query");
+            case "aggregate" ->
+                firstField(command.get("pipeline"), "$match");
+            case "delete" ->
+                firstField(command.get("deletes"), "q");
+            case "update" ->
+                firstField(command.get("updates"), "q");
+            default ->
+                null;
+        };
+        return filter != null && filter.isDocument() ? filter.asDocument() : null;
+    }
+
+    /**
+     * Campo {@code key} del primer documento de una lista.
+     */
+    private static BsonValue firstField(BsonValue list, String key) {
+        if (list == null || !list.isArray() || list.asArray().isEmpty()) {
+            return null;
+        }
+        BsonValue first = list.asArray().get(0);
+        return first.isDocument() ? first.asDocument().get(key) : null;
+    }
+
+    /**
+     * Escribe el documento con sus campos y operadores, cambiando cada valor
+     * por {@code ?}; las listas de condiciones ({@code $and}, {@code $or},
+     * {@code $nor}) se recorren y las demás listas se resumen con su tamaño.
+     */
+    private static StringBuilder shape(BsonDocument doc, StringBuilder out) {
+        out.append('{');
+        boolean first = true;
+        for (Map.Entry<String, BsonValue> entry : doc.entrySet()) {
+            if (out.length() > MAX_SHAPE) {
+                break;
+            }
+            if (!first) {
+                out.append(", ");
+            }
+            first = false;
+            out.append(entry.getKey()).append(": ");
+            BsonValue value = entry.getValue();
+            if (value.isDocument()) {
+                shape(value.asDocument(), out);
+            } else if (value.isArray()) {
+                shape(entry.getKey(), value.asArray(), out);
+            } else {
+                out.append('?');
+            }
+        }
+        return out.append('}');
+    }
+
+    private static void shape(String key, BsonArray array, StringBuilder out) {
+        boolean conditions = "$and".equals(key) || "$or".equals(key) || "$nor".equals(key);
+        if (!conditions) {
+            out.append("[").append(array.size()).append(" valores]");
+            return;
+        }
+        out.append('[');
+        for (int i = 0; i < array.size() && out.length() <= MAX_SHAPE; i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            BsonValue item = array.get(i);
+            if (item.isDocument()) {
+                shape(item.asDocument(), out);
+            } else {
+                out.append('?');
+            }
+        }
+        out.append(']');
+    }
+
+    private static String truncate(String shape) {
+        return shape.length() <= MAX_SHAPE ? shape : shape.substring(0, MAX_SHAPE) + "...";
+    }
+
+    /**
+     * Documentos de la respuesta: el lote de un cursor, el {@code n} de
+     * {@code count}, {@code insert}, {@code update} y {@code delete}, los
+     * valores de {@code distinct} o el documento de {@code findAndModify}.
+     */
+    private static long documentsOf(BsonDocument response) {
+        BsonValue cursor = response.get("cursor");
+        if (cursor != null && cursor.isDocument()) {
+            BsonValue batch = cursor.asDocument().get("firstBatch");
+            if (batch == null) {
+                batch = cursor.asDocument().get("nextBatch");
+            }
+            return batch != null && batch.isArray() ? batch.asArray().size() : -1;
+        }
+        BsonValue n = response.get("n");
+        if (n != null && n.isNumber()) {
+            return n.asNumber().longValue();
+        }
+        BsonValue values = response.get("values");
+        if (values != null && values.isArray()) {
+            return values.asArray().size();
+        }
+        BsonValue value = response.get("value");
+        if (value != null) {
+            return value.isNull() ? 0 : 1;
+        }
+        return -1;
+    }
+}
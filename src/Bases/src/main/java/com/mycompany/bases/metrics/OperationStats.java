@@ -0,0 +1,135 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.metrics;
+
+/**
+ *
+ * @author dard
+ */
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas acumuladas de una operación: latencia, llamadas, errores, filas
+ * devueltas y viajes a las bases de datos.
+ *
+ * <p>
+ * Todos los contadores son {@link LongAdder}, así que registrar desde muchos
+ * hilos a la vez no genera contención.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public final class OperationStats implements OperationStatsMBean {
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder roundTrips = new LongAdder();
+
+    /**
+     * Fotografía de una operación.
+     *
+     * @param name nombre de la operación
+     * @param calls llamadas terminadas
+     * @param errors llamadas que terminaron con excepción
+     * @param rows filas o documentos devueltos
+     * @param roundTrips sentencias y comandos enviados a Oracle y MongoDB
+     * @param latency latencias en nanosegundos
+     */
+    public record Snapshot(String name, long calls, long errors, long rows, long roundTrips,
+            LatencyHistogram.Snapshot latency) {
+
+    }
+
+    OperationStats(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Registra una llamada terminada.
+     *
+     * @param nanos duración
+     * @param rowCount filas devueltas
+     * @param failed true si terminó con excepción
+     */
+    public void record(long nanos, long rowCount, boolean failed) {
+        latency.record(nanos);
+        calls.increment();
+        if (failed) {
+            errors.increment();
+        }
+        if (rowCount > 0) {
+            rows.add(rowCount);
+        }
+    }
+
+    void roundTrip() {
+        roundTrips.increment();
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(name, calls.sum(), errors.sum(), rows.sum(), roundTrips.sum(), latency.snapshot());
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public long getRoundTrips() {
+        return roundTrips.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.snapshot().mean() / 1_000.0;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latency.snapshot().p50() / 1_000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latency.snapshot().p99() / 1_000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return latency.snapshot().p999() / 1_000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latency.snapshot().max() / 1_000.0;
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        calls.reset();
+        errors.reset();
+        rows.reset();
+        roundTrips.reset();
+    }
+}
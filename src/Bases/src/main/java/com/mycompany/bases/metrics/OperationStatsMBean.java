@@ -0,0 +1,39 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.metrics;
+
+/**
+ *
+ * @author dard
+ */
+/**
+ * Atributos JMX de una operación del servicio. Los tiempos están en
+ * microsegundos.
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public interface OperationStatsMBean {
+
+    long getCalls();
+
+    long getErrors();
+
+    long getRows();
+
+    long getRoundTrips();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+
+    void reset();
+}
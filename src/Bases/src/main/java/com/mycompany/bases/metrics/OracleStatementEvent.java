@@ -0,0 +1,70 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.metrics;
+
+/**
+ *
+ * @author dard
+ */
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Evento de Java Flight Recorder para una ejecución JDBC contra Oracle.
+ *
+ * <p>
+ * Lo emite la envoltura de las sentencias de {@code PooledConnection}. La
+ * duración es la de la llamada a {@code execute*}. En las consultas el
+ * evento se confirma al cerrarse el {@code ResultSet}, con las filas leídas
+ * y el tiempo de lectura desde que volvió {@code executeQuery}.</p>
+ *
+ * <p>
+ * Por omisión solo se guardan las ejecuciones de {@value #THRESHOLD} o más
+ * y sin pila, así que se puede dejar activo en producción. El umbral se
+ * cambia al grabar, por ejemplo
+ * {@code -XX:StartFlightRecording:+com.mycompany.bases.OracleStatement#threshold=1ms}.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+@Name("com.mycompany.bases.OracleStatement")
+@Label("Sentencia Oracle")
+@Category({"Bases", "Oracle"})
+@Description("Ejecución de una sentencia JDBC con su SQL y las filas afectadas o leídas")
+@StackTrace(false)
+@Threshold(OracleStatementEvent.THRESHOLD)
+public final class OracleStatementEvent extends Event {
+
+    public static final String THRESHOLD = "20 ms";
+
+    @Label("Operación")
+    @Description("Operación del servicio que ejecutó la sentencia")
+    public String operation;
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Tipo")
+    @Description("query, update, batch o execute")
+    public String kind;
+
+    @Label("Filas")
+    @Description("Filas leídas o afectadas; -1 si el controlador no lo informa")
+    public long rows;
+
+    @Label("Lectura")
+    @Description("Tiempo desde que volvió la ejecución hasta que se cerró el ResultSet")
+    @Timespan
+    public long fetch;
+
+    @Label("Falló")
+    public boolean failed;
+}
@@ -0,0 +1,25 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.models;
+
+/**
+ *
+ * @author dard
+ */
+/**
+ * Línea de una venta ya valorizada, tal como se guarda en DetallesVenta.
+ *
+ * @param idProducto ID del producto vendido
+ * @param nombre nombre del producto al momento de la venta
+ * @param cantidad unidades vendidas
+ * @param precio precio unitario aplicado
+ * @param subtotal precio por cantidad
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public record DetalleVenta(int idProducto, String nombre, int cantidad, double precio, double subtotal) {
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.models;
+
+/**
+ *
+ * @author dard
+ */
+import java.time.LocalDate;
+
+/**
+ * Una fila del reporte de ventas: los totales de un día, de una categoría,
+ * de un producto o del periodo completo.
+ *
+ * @param nivel agrupación a la que pertenece la fila
+ * @param dia día, solo en el nivel {@link Nivel#DIA}
+ * @param categoria categoría, solo en el nivel {@link Nivel#CATEGORIA}; null
+ * para los productos sin categoría
+ * @param idProducto producto, solo en el nivel {@link Nivel#PRODUCTO}
+ * @param nombre nombre del producto, solo en el nivel {@link Nivel#PRODUCTO}
+ * @param ingresos suma de los subtotales
+ * @param unidades suma de las cantidades
+ * @param tickets ventas distintas que aportan a la fila
+ * @param ticketPromedio ingresos entre tickets
+ * @param participacion fracción de los ingresos del nivel (de 0 a 1)
+ * @param posicion lugar por ingresos dentro del nivel, desde 1
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public record FilaReporteVentas(Nivel nivel, LocalDate dia, String categoria, Integer idProducto,
+        String nombre, double ingresos, long unidades, long tickets, double ticketPromedio,
+        double participacion, int posicion) {
+
+    /**
+     * Agrupaciones del reporte, en el orden en que se entregan.
+     */
+    public enum Nivel {
+        DIA, CATEGORIA, PRODUCTO, TOTAL
+    }
+
+    /**
+     * Texto que identifica la fila dentro de su nivel.
+     *
+     * @return el día, la categoría, "id nombre" del producto o "Total"
+     */
+    public String clave() {
+        return switch (nivel) {
+            case DIA ->
+                String.valueOf(dia);
+            case CATEGORIA ->
+                categoria == null ? "(sin categoría)" : categoria;
+            case PRODUCTO ->
+                idProducto + " " + nombre;
+            case TOTAL ->
+                "Total";
+        };
+    }
+}
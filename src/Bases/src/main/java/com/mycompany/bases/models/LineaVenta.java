@@ -0,0 +1,23 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.models;
+
+/**
+ *
+ * @author dard
+ */
+/**
+ * Línea del carrito de una venta: producto y cantidad solicitada, antes de
+ * conocer su precio.
+ *
+ * @param idProducto ID del producto en Productos
+ * @param cantidad unidades vendidas
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public record LineaVenta(int idProducto, int cantidad) {
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.models;
+
+/**
+ *
+ * @author dard
+ */
+import java.util.List;
+
+/**
+ * Página de productos obtenida por cursor de clave ({@code idProducto}).
+ *
+ * <p>
+ * Los cursores para moverse son el primer y el último ID de la página: la
+ * siguiente página empieza después de {@link #lastId()} y la anterior termina
+ * antes de {@link #firstId()}.</p>
+ *
+ * @param productos productos de la página, ordenados por ID ascendente
+ * @param hasPrevious true si la página no es la primera del recorrido
+ * @param hasNext true si hay productos con ID mayor al último
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public record ProductPage(List<Producto> productos, boolean hasPrevious, boolean hasNext) {
+
+    public int firstId() {
+        return productos.isEmpty() ? Integer.MIN_VALUE : productos.get(0).idProducto();
+    }
+
+    public int lastId() {
+        return productos.isEmpty() ? Integer.MAX_VALUE : productos.get(productos.size() - 1).idProducto();
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.models;
+
+/**
+ *
+ * @author dard
+ */
+/**
+ * Producto del catálogo, con los mismos atributos que ProductoType.
+ *
+ * @param idProducto ID del producto
+ * @param nombre nombre comercial
+ * @param precio precio unitario
+ * @param color color de la prenda
+ * @param talla talla de la prenda
+ * @param categoria categoría (columna {@code categorias})
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public record Producto(int idProducto, String nombre, double precio, String color,
+        String talla, String categoria) {
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.models;
+
+/**
+ *
+ * @author dard
+ */
+import java.util.List;
+
+/**
+ * Resultado de registrar una venta completa.
+ *
+ * @param idVenta ID asignado a la venta, o -1 si no se creó por no tener
+ * productos válidos
+ * @param total suma de los subtotales
+ * @param detalles líneas guardadas en DetallesVenta
+ * @param productosNoEncontrados IDs solicitados que no existen en Productos
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public record ResultadoVenta(int idVenta, double total, List<DetalleVenta> detalles,
+        List<Integer> productosNoEncontrados) {
+
+    /**
+     * Indica si la venta se registró.
+     *
+     * @return true si se creó la venta en Oracle
+     */
+    public boolean creada() {
+        return idVenta >= 0;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.models;
+
+/**
+ *
+ * @author dard
+ */
+import java.util.Date;
+import org.bson.Document;
+
+/**
+ * Usuario (cliente) guardado en la colección "usuarios" de MongoDB.
+ *
+ * @param id valor de {@code _id}, usado como cursor al recorrer la colección
+ * @param idCliente clave numérica que referencia {@code Ventas.usuario}
+ * @param nombre nombre del usuario
+ * @param email correo electrónico
+ * @param edad edad, o null si no se registró
+ * @param fechaRegistro fecha de alta, o null si no se registró
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public record Usuario(Object id, long idCliente, String nombre, String email, Integer edad,
+        Date fechaRegistro) {
+
+    /**
+     * Construye el usuario a partir de un documento; los campos no
+     * proyectados quedan en null.
+     *
+     * @param doc documento de "usuarios"
+     * @return el usuario
+     */
+    public static Usuario fromDocument(Document doc) {
+        Number idCliente = doc.get("idCliente", Number.class);
+        Number edad = doc.get("edad", Number.class);
+        return new Usuario(doc.get("_id"),
+                idCliente == null ? -1 : idCliente.longValue(),
+                doc.getString("nombre"),
+                doc.getString("email"),
+                edad == null ? null : edad.intValue(),
+                doc.getDate("fechaRegistro"));
+    }
+
+    /**
+     * Documento con los campos visibles del usuario, en el orden en que se
+     * muestran.
+     *
+     * @return documento sin {@code _id}
+     */
+    public Document toDocument() {
+        Document doc = new Document("idCliente", idCliente)
+                .append("nombre", nombre)
+                .append("email", email);
+        if (edad != null) {
+            doc.append("edad", edad);
+        }
+        if (fechaRegistro != null) {
+            doc.append("fechaRegistro", fechaRegistro);
+        }
+        return doc;
+    }
+}
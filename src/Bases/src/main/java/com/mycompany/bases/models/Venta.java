@@ -0,0 +1,31 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.models;
+
+/**
+ *
+ * @author dard
+ */
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Venta registrada, con el nombre del cliente ya resuelto en MongoDB.
+ *
+ * @param idVenta ID de la venta
+ * @param fecha fecha de la venta
+ * @param total importe total
+ * @param idCliente clave del cliente ({@code Ventas.usuario})
+ * @param nombreCliente nombre del cliente, o null si ya no existe
+ * @param detalles líneas de la venta; vacía en los listados, que no las
+ * cargan
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public record Venta(int idVenta, LocalDate fecha, double total, int idCliente, String nombreCliente,
+        List<DetalleVenta> detalles) {
+
+}
@@ -0,0 +1,29 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.models;
+
+/**
+ *
+ * @author dard
+ */
+import java.time.LocalDate;
+
+/**
+ * Venta de Oracle junto con los datos de su cliente en MongoDB.
+ *
+ * @param idVenta ID de la venta
+ * @param fecha fecha de la venta, o null si no se registró
+ * @param total total de la venta
+ * @param idCliente clave del cliente ({@code Ventas.usuario})
+ * @param nombre nombre del cliente, o null si no existe en MongoDB
+ * @param email correo del cliente, o null si no existe o no lo tiene
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public record VentaCliente(int idVenta, LocalDate fecha, double total, int idCliente, String nombre,
+        String email) {
+
+}
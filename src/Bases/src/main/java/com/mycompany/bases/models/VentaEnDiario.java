@@ -0,0 +1,41 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.models;
+
+/**
+ *
+ * @author dard
+ */
+import java.util.List;
+
+/**
+ * Resultado de guardar una venta en el diario de ventas: lo que quedó en el
+ * diario y la valorización que se muestra en caja.
+ *
+ * @param pendiente la venta tal como quedó en el diario, o null si no se
+ * guardó porque ninguno de sus productos existe
+ * @param total total con los precios al guardarla; Oracle lo recalcula al
+ * registrarla
+ * @param detalles líneas valorizadas, sin los productos inexistentes
+ * @param productosNoEncontrados IDs solicitados que no existen en
+ * Productos; no se guardan en el diario
+ * @param validada false si Oracle no respondió al valorizar: se guardó el
+ * carrito completo y sus productos se revisan al enviarlo
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public record VentaEnDiario(VentaPendiente pendiente, double total, List<DetalleVenta> detalles,
+        List<Integer> productosNoEncontrados, boolean validada) {
+
+    /**
+     * Indica si la venta se guardó en el diario.
+     *
+     * @return true si quedó pendiente de enviar a Oracle
+     */
+    public boolean guardada() {
+        return pendiente != null;
+    }
+}
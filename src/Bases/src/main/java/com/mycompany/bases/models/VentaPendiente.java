@@ -0,0 +1,29 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.models;
+
+/**
+ *
+ * @author dard
+ */
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Venta guardada en el diario de ventas que todavía puede no estar en
+ * Oracle: se conoce el carrito, pero aún no el ID de la venta ni sus
+ * precios.
+ *
+ * @param secuencia número de la venta en el diario; crece de uno en uno
+ * @param idUsuario clave del cliente ({@code idCliente} en MongoDB)
+ * @param fecha fecha y hora en que se registró en caja
+ * @param lineas productos y cantidades del carrito
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public record VentaPendiente(long secuencia, int idUsuario, LocalDateTime fecha, List<LineaVenta> lineas) {
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.models;
+
+/**
+ *
+ * @author dard
+ */
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Venta tal como la reciben los acumulados: cuándo ocurrió, a quién y qué
+ * se vendió de cada producto y categoría.
+ *
+ * @param idVenta ID de la venta
+ * @param idUsuario cliente ({@code idCliente} en MongoDB)
+ * @param fecha fecha y hora de la venta
+ * @param lineas líneas de la venta
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public record VentaRegistrada(int idVenta, int idUsuario, LocalDateTime fecha, List<Linea> lineas) {
+
+    /**
+     * Una línea de la venta.
+     *
+     * @param idProducto producto vendido
+     * @param categoria categoría del producto, o null si no tiene
+     * @param cantidad unidades
+     * @param subtotal importe de la línea
+     */
+    public record Linea(int idProducto, String categoria, int cantidad, double subtotal) {
+
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.repository;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.models.ProductPage;
+import com.mycompany.bases.models.Producto;
+import com.mycompany.bases.search.ProductQuery;
+import com.mycompany.bases.search.ProductSearchResult;
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * Almacén del catálogo de productos.
+ *
+ * <p>
+ * La implementación principal es {@code ProductService}, sobre Oracle;
+ * {@code MemoryProductRepository} guarda el catálogo en memoria para el modo
+ * sin conexión. Las implementaciones deben ser seguras entre hilos. Las que
+ * no usan Oracle no lanzan {@link SQLException}.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public interface ProductRepository {
+
+    /**
+     * Da de alta un producto con un ID nuevo.
+     *
+     * @param nombre nombre del producto
+     * @param categoria categoría
+     * @param color color
+     * @param talla talla
+     * @param precio precio unitario
+     * @return el producto creado, con su ID
+     * @throws SQLException si falla la inserción
+     */
+    Producto addProduct(String nombre, String categoria, String color, String talla, double precio)
+            throws SQLException;
+
+    /**
+     * Busca un producto por su ID.
+     *
+     * @param idProducto ID del producto
+     * @return el producto, si existe
+     * @throws SQLException si falla la consulta
+     */
+    Optional<Producto> findProduct(int idProducto) throws SQLException;
+
+    /**
+     * Reemplaza los datos de un producto existente.
+     *
+     * @param producto datos nuevos; el ID indica el producto a modificar
+     * @return true si el producto existía
+     * @throws SQLException si falla la actualización
+     */
+    boolean updateProduct(Producto producto) throws SQLException;
+
+    /**
+     * Elimina un producto por su ID.
+     *
+     * @param idProducto ID del producto
+     * @return true si el producto existía
+     * @throws SQLException si falla el borrado
+     */
+    boolean deleteProduct(int idProducto) throws SQLException;
+
+    /**
+     * Obtiene la página de productos con ID mayor a {@code afterId}.
+     *
+     * @param afterId último ID de la página anterior, o
+     * {@link Integer#MIN_VALUE} para la primera página
+     * @param pageSize productos por página
+     * @return la página, en orden ascendente de ID
+     * @throws SQLException si falla la consulta
+     */
+    ProductPage listProductsAfter(int afterId, int pageSize) throws SQLException;
+
+    /**
+     * Obtiene la página de productos con ID menor a {@code beforeId}.
+     *
+     * @param beforeId primer ID de la página actual
+     * @param pageSize productos por página
+     * @return la página, en orden ascendente de ID
+     * @throws SQLException si falla la consulta
+     */
+    ProductPage listProductsBefore(int beforeId, int pageSize) throws SQLException;
+
+    /**
+     * Busca productos por categoría, color, talla y palabras del nombre.
+     *
+     * @param query filtros de la búsqueda
+     * @return productos encontrados y conteos por faceta
+     * @throws SQLException si falla la consulta
+     */
+    ProductSearchResult searchProducts(ProductQuery query) throws SQLException;
+}
@@ -0,0 +1,39 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.repository;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.models.VentaRegistrada;
+
+/**
+ * Recibe las ventas que un {@link SaleRepository} confirma o elimina.
+ *
+ * <p>
+ * Se llama en el hilo de la operación, después del commit o del borrado, y
+ * solo si la operación tuvo efecto. Debe ser rápido y no lanzar
+ * excepciones: la venta ya quedó confirmada.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public interface SaleListener {
+
+    /**
+     * Una venta nueva quedó confirmada.
+     *
+     * @param venta la venta con sus líneas
+     */
+    void ventaRegistrada(VentaRegistrada venta);
+
+    /**
+     * Una venta se eliminó.
+     *
+     * @param venta la venta como estaba antes de eliminarla
+     */
+    void ventaEliminada(VentaRegistrada venta);
+}
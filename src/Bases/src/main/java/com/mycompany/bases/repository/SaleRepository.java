@@ -0,0 +1,149 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.repository;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.models.FilaReporteVentas;
+import com.mycompany.bases.models.LineaVenta;
+import com.mycompany.bases.models.ResultadoVenta;
+import com.mycompany.bases.models.Venta;
+import com.mycompany.bases.models.VentaRegistrada;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Almacén de las ventas y sus detalles.
+ *
+ * <p>
+ * La implementación principal es {@code SaleService}, sobre Oracle;
+ * {@code MemorySaleRepository} guarda las ventas en memoria para el modo sin
+ * conexión. Ambas toman los precios de su {@link ProductRepository} y los
+ * nombres de cliente de su {@link UserRepository}, y avisan las ventas
+ * confirmadas y eliminadas a los {@link SaleListener} registrados. Las
+ * implementaciones deben ser seguras entre hilos.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public interface SaleRepository {
+
+    /**
+     * Registra un oyente que recibe las ventas confirmadas y eliminadas a
+     * partir de ahora.
+     *
+     * @param listener el oyente
+     */
+    void addListener(SaleListener listener);
+
+    /**
+     * Registra una venta con todas sus líneas de forma atómica: o quedan la
+     * venta y todos sus detalles, o nada. Las líneas con productos
+     * inexistentes se omiten y se informan en el resultado.
+     *
+     * @param idUsuario clave del cliente
+     * @param lineas productos y cantidades del carrito
+     * @return la venta registrada, o una con ID -1 si ninguna línea era válida
+     * @throws SQLException si falla el registro
+     */
+    ResultadoVenta createVenta(int idUsuario, List<LineaVenta> lineas) throws SQLException;
+
+    /**
+     * Busca una venta por su ID junto con sus detalles y el nombre del
+     * cliente.
+     *
+     * @param idVenta ID de la venta
+     * @return la venta, si existe
+     * @throws SQLException si falla la consulta
+     */
+    Optional<Venta> findVenta(int idVenta) throws SQLException;
+
+    /**
+     * Obtiene las ventas con ID mayor a {@code afterId}, sin sus detalles.
+     *
+     * @param afterId último ID de la página anterior, o
+     * {@link Integer#MIN_VALUE} para la primera
+     * @param pageSize ventas por página
+     * @return la página, en orden ascendente de ID; si tiene menos de
+     * {@code pageSize} ventas es la última
+     * @throws SQLException si falla la consulta
+     */
+    List<Venta> listVentas(int afterId, int pageSize) throws SQLException;
+
+    /**
+     * Obtiene las ventas de un cliente, sin sus detalles ni el nombre del
+     * cliente, usando el índice por cliente.
+     *
+     * @param idCliente clave del cliente
+     * @return sus ventas, en orden ascendente de ID
+     * @throws SQLException si falla la consulta
+     */
+    List<Venta> listVentasByCliente(int idCliente) throws SQLException;
+
+    /**
+     * Verifica si existe una venta con el ID especificado.
+     *
+     * @param idVenta el ID de la venta a verificar
+     * @return true si la venta existe
+     * @throws SQLException si falla la consulta
+     */
+    boolean ventaExists(int idVenta) throws SQLException;
+
+    /**
+     * Elimina una venta y sus detalles.
+     *
+     * @param idVenta ID de la venta
+     * @return true si la venta existía
+     * @throws SQLException si falla el borrado
+     */
+    boolean deleteVenta(int idVenta) throws SQLException;
+
+    /**
+     * Cantidad de ventas registradas.
+     *
+     * @return ventas
+     * @throws SQLException si falla la consulta
+     */
+    long countVentas() throws SQLException;
+
+    /**
+     * Recorre todas las ventas con sus líneas, en orden de ID, sin cargarlas
+     * todas en memoria a la vez.
+     *
+     * @param action acción por venta; se ejecuta en el hilo que llama
+     * @return ventas entregadas
+     * @throws SQLException si falla la consulta
+     */
+    long scanVentas(Consumer<VentaRegistrada> action) throws SQLException;
+
+    /**
+     * Recorre todas las ventas sin detalles ni nombre de cliente, en orden de
+     * ID.
+     *
+     * @param action acción por venta; se ejecuta en el hilo que llama
+     * @return ventas entregadas
+     * @throws SQLException si falla la consulta
+     */
+    long scanVentaHeaders(Consumer<Venta> action) throws SQLException;
+
+    /**
+     * Calcula el reporte de un periodo y entrega sus filas en orden: los días
+     * en orden cronológico, luego las categorías y los productos de mayor a
+     * menor ingreso, y al final el total. Si no hubo ventas no se entrega
+     * ninguna fila.
+     *
+     * @param desde primer día, incluido
+     * @param hasta último día, incluido
+     * @param action acción por fila
+     * @return filas entregadas
+     * @throws SQLException si falla la consulta
+     */
+    long salesReport(LocalDate desde, LocalDate hasta, Consumer<FilaReporteVentas> action) throws SQLException;
+}
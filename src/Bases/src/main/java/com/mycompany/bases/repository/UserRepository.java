@@ -0,0 +1,127 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.repository;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.models.Usuario;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Almacén de los usuarios (clientes).
+ *
+ * <p>
+ * La implementación principal es {@code UserService}, sobre MongoDB;
+ * {@code MemoryUserRepository} guarda los usuarios en memoria para el modo
+ * sin conexión. Los nombres se comparan sin distinguir mayúsculas. Las
+ * implementaciones deben ser seguras entre hilos.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public interface UserRepository {
+
+    /**
+     * Resultado de recorrer un tramo de los usuarios.
+     *
+     * @param count usuarios entregados
+     * @param last último usuario entregado, punto de partida del siguiente
+     * tramo; si no se entregó ninguno, el punto de partida de este
+     */
+    record UserScan(int count, Usuario last) {
+
+    }
+
+    /**
+     * Da de alta un usuario con una clave de cliente nueva.
+     *
+     * @param nombre nombre del usuario
+     * @param email correo electrónico
+     * @param edad edad
+     * @return el usuario creado
+     * @throws IllegalArgumentException si ya hay un usuario con ese email
+     * (sin distinguir mayúsculas)
+     */
+    Usuario addUser(String nombre, String email, int edad);
+
+    /**
+     * Busca el primer usuario con el nombre indicado.
+     *
+     * @param nombre nombre a buscar
+     * @return el usuario, si existe
+     */
+    Optional<Usuario> findUserByName(String nombre);
+
+    /**
+     * Elimina el primer usuario con el nombre indicado.
+     *
+     * @param nombre nombre del usuario
+     * @return el usuario eliminado, si existía
+     */
+    Optional<Usuario> deleteUserByName(String nombre);
+
+    /**
+     * Entrega los usuarios que siguen a {@code after}, en orden de
+     * {@code id}.
+     *
+     * @param after último usuario entregado ({@link UserScan#last()} del
+     * tramo anterior), o null para empezar
+     * @param limit máximo de usuarios; 0 para todos los restantes
+     * @param action acción por cada usuario
+     * @return cantidad entregada y último usuario
+     */
+    UserScan scanUsers(Usuario after, int limit, Consumer<Usuario> action);
+
+    /**
+     * Recorre los usuarios que tienen {@code idCliente}, con al menos la
+     * clave, el nombre y el correo, hasta terminar o hasta que la acción
+     * pida detenerse.
+     *
+     * @param action acción por usuario; devuelve false para detener el
+     * recorrido
+     * @return true si se recorrieron todos
+     */
+    boolean scanCustomers(Predicate<Usuario> action);
+
+    /**
+     * Cantidad aproximada de usuarios, sin recorrerlos.
+     *
+     * @return usuarios estimados
+     */
+    long estimatedUserCount();
+
+    /**
+     * Resuelve en lote clave, nombre y correo de varios clientes.
+     *
+     * @param ids claves de cliente, sin repetidos
+     * @return mapa clave → usuario; las claves inexistentes no aparecen
+     */
+    Map<Integer, Usuario> findCustomersByIds(Collection<Integer> ids);
+
+    /**
+     * Resuelve en lote los nombres de varios clientes.
+     *
+     * @param ids claves de cliente a resolver (puede tener repetidos)
+     * @return mapa clave → nombre; las claves inexistentes no aparecen
+     */
+    Map<Integer, String> findUserNamesByIds(Collection<Integer> ids);
+
+    /**
+     * Obtiene el nombre de un cliente.
+     *
+     * @param idCliente clave del cliente
+     * @return el nombre del cliente, o null si no existe
+     */
+    default String findUserNameById(int idCliente) {
+        return findUserNamesByIds(Collections.singleton(idCliente)).get(idCliente);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.rollup;
+
+/**
+ *
+ * @author dard
+ */
+import java.util.function.Consumer;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tabla de contadores con clave {@code long}, sin cajas ({@code Long}) ni
+ * entradas intermedias por búsqueda.
+ *
+ * <p>
+ * Es una tabla de direccionamiento abierto con sondeo lineal. Cada clave
+ * tiene una {@link Cell} con contadores {@link LongAdder}, que reparten los
+ * incrementos concurrentes entre varias celdas internas en lugar de pelear
+ * por una sola.</p>
+ *
+ * <p>
+ * Buscar una clave existente no toma candados: lee el arreglo actual y
+ * sondea. Solo dar de alta una clave nueva (algo raro: una hora, un día o un
+ * producto que no se había visto) y crecer la tabla se hace bajo el candado
+ * de la tabla. Al crecer se copian las mismas celdas, así que un incremento
+ * hecho sobre el arreglo anterior no se pierde. Las celdas nunca se
+ * eliminan; una clave cuyas ventas se borraron queda en cero.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+final class CounterTable {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Contadores de una clave. Los importes van en centavos para sumar y
+     * restar sin errores de redondeo.
+     */
+    static final class Cell {
+
+        final long key;
+        final LongAdder cents = new LongAdder();
+        final LongAdder units = new LongAdder();
+        final LongAdder tickets = new LongAdder();
+
+        Cell(long key) {
+            this.key = key;
+        }
+    }
+
+    /** Se reemplaza completo al crecer; las lecturas sin candado ven uno u otro */
+    private volatile Cell[] cells = new Cell[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Celda de una clave, sin crearla.
+     *
+     * @param key clave
+     * @return la celda, o null si la clave nunca se registró
+     */
+    Cell peek(long key) {
+        Cell[] table = cells;
+        int mask = table.length - 1;
+        for (int i = spread(key) & mask;; i = (i + 1) & mask) {
+            Cell cell = table[i];
+            if (cell == null || cell.key == key) {
+                return cell;
+            }
+        }
+    }
+
+    /**
+     * Celda de una clave, creándola si no existe.
+     *
+     * @param key clave
+     * @return la celda
+     */
+    Cell get(long key) {
+        Cell cell = peek(key);
+        // Un null también puede ser una celda recién publicada que este hilo
+        // todavía no ve; bajo el candado se vuelve a buscar
+        return cell != null ? cell : insert(key);
+    }
+
+    private synchronized Cell insert(long key) {
+        Cell[] table = cells;
+        int mask = table.length - 1;
+        int i = spread(key) & mask;
+        for (Cell cell; (cell = table[i]) != null; i = (i + 1) & mask) {
+            if (cell.key == key) {
+                return cell;
+            }
+        }
+        Cell created = new Cell(key);
+        if ((size + 1) * 2 > table.length) {
+            table = grow(table);
+            mask = table.length - 1;
+            i = spread(key) & mask;
+            while (table[i] != null) {
+                i = (i + 1) & mask;
+            }
+        }
+        table[i] = created;
+        size++;
+        // Escritura volátil: publica la celda a las lecturas sin candado
+        cells = table;
+        return created;
+    }
+
+    private static Cell[] grow(Cell[] table) {
+        Cell[] bigger = new Cell[table.length * 2];
+        int mask = bigger.length - 1;
+        for (Cell cell : table) {
+            if (cell != null) {
+                int i = spread(cell.key) & mask;
+                while (bigger[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                bigger[i] = cell;
+            }
+        }
+        return bigger;
+    }
+
+    /**
+     * Recorre todas las celdas, en ningún orden en particular.
+     *
+     * @param action acción por celda
+     */
+    void forEach(Consumer<Cell> action) {
+        for (Cell cell : cells) {
+            if (cell != null) {
+                action.accept(cell);
+            }
+        }
+    }
+
+    /**
+     * Mezcla los bits de la clave (finalizador de MurmurHash3) para que
+     * claves consecutivas, como horas o IDs, no formen racimos.
+     */
+    static int spread(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
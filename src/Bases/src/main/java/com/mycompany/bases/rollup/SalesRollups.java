@@ -0,0 +1,233 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.rollup;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.models.VentaRegistrada;
+import com.mycompany.bases.repository.SaleListener;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acumulados de ventas en memoria por hora, día, categoría y producto.
+ *
+ * <p>
+ * Se construyen una vez al arrancar, recorriendo las ventas de Oracle con
+ * {@link #ventaRegistrada}, y después se mantienen al día como
+ * {@link SaleListener} de {@code SaleService}: cada venta confirmada suma y
+ * cada venta eliminada resta. Leer cualquier acumulado es buscar una clave
+ * en una {@link CounterTable} y sumar sus contadores, sin importar cuántas
+ * ventas haya.</p>
+ *
+ * <p>
+ * Las horas y los días se indexan por su número desde la época (la hora
+ * local tomada tal cual, sin zona), los productos por su ID y las
+ * categorías por un ID interno que se asigna la primera vez que aparecen.
+ * Cada venta cuenta como un ticket en su hora y su día, y en cada producto y
+ * categoría que incluye.</p>
+ *
+ * <p>
+ * Las ventas se atribuyen al producto y la categoría guardados en cada
+ * detalle al venderse, también al reconstruir y al eliminar; el reporte de
+ * Oracle usa la categoría actual, así que ambos pueden diferir si una
+ * categoría cambia.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class SalesRollups implements SaleListener {
+
+    private static final long NO_CATEGORY = -1;
+
+    /**
+     * Acumulado de una hora, día, categoría o producto.
+     *
+     * @param ingresos suma de los subtotales
+     * @param unidades unidades vendidas
+     * @param tickets ventas que aportan al acumulado
+     */
+    public record Totales(double ingresos, long unidades, long tickets) {
+
+        static final Totales CERO = new Totales(0, 0, 0);
+
+        /**
+         * @return ingresos entre tickets, o 0 sin tickets
+         */
+        public double ticketPromedio() {
+            return tickets == 0 ? 0 : ingresos / tickets;
+        }
+    }
+
+    private final CounterTable hours = new CounterTable();
+    private final CounterTable days = new CounterTable();
+    private final CounterTable categories = new CounterTable();
+    private final CounterTable products = new CounterTable();
+
+    private final LongAdder totalCents = new LongAdder();
+    private final LongAdder totalUnits = new LongAdder();
+    private final LongAdder totalTickets = new LongAdder();
+
+    private final Map<String, Integer> categoryIds = new ConcurrentHashMap<>();
+    private final List<String> categoryNames = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void ventaRegistrada(VentaRegistrada venta) {
+        apply(venta, 1);
+    }
+
+    @Override
+    public void ventaEliminada(VentaRegistrada venta) {
+        apply(venta, -1);
+    }
+
+    /**
+     * Suma o resta una venta. Una venta sin líneas igual cuenta como ticket
+     * en su hora, su día y el total, para que alta y baja siempre se
+     * compensen.
+     */
+    private void apply(VentaRegistrada venta, int sign) {
+        long cents = 0;
+        long units = 0;
+        // Una venta con dos líneas del mismo producto es un solo ticket para él
+        Set<Long> productKeys = new HashSet<>();
+        Set<Long> categoryKeys = new HashSet<>();
+        for (VentaRegistrada.Linea linea : venta.lineas()) {
+            long lineCents = sign * Math.round(linea.subtotal() * 100);
+            long lineUnits = (long) sign * linea.cantidad();
+            cents += lineCents;
+            units += lineUnits;
+
+            CounterTable.Cell product = products.get(linea.idProducto());
+            product.cents.add(lineCents);
+            product.units.add(lineUnits);
+            if (productKeys.add((long) linea.idProducto())) {
+                product.tickets.add(sign);
+            }
+
+            long categoryKey = categoryKey(linea.categoria());
+            CounterTable.Cell category = categories.get(categoryKey);
+            category.cents.add(lineCents);
+            category.units.add(lineUnits);
+            if (categoryKeys.add(categoryKey)) {
+                category.tickets.add(sign);
+            }
+        }
+
+        if (venta.fecha() != null) {
+            for (CounterTable.Cell cell : new CounterTable.Cell[]{
+                hours.get(hourKey(venta.fecha())), days.get(venta.fecha().toLocalDate().toEpochDay())}) {
+                cell.cents.add(cents);
+                cell.units.add(units);
+                cell.tickets.add(sign);
+            }
+        }
+        totalCents.add(cents);
+        totalUnits.add(units);
+        totalTickets.add(sign);
+    }
+
+    /**
+     * @param hora cualquier instante de la hora
+     * @return acumulado de esa hora
+     */
+    public Totales hora(LocalDateTime hora) {
+        return totales(hours.peek(hourKey(hora)));
+    }
+
+    /**
+     * @param dia el día
+     * @return acumulado de ese día
+     */
+    public Totales dia(LocalDate dia) {
+        return totales(days.peek(dia.toEpochDay()));
+    }
+
+    /**
+     * @param categoria la categoría, o null para los productos sin categoría
+     * @return acumulado de la categoría
+     */
+    public Totales categoria(String categoria) {
+        Integer id = categoria == null ? null : categoryIds.get(categoria);
+        if (categoria != null && id == null) {
+            return Totales.CERO;
+        }
+        return totales(categories.peek(id == null ? NO_CATEGORY : id));
+    }
+
+    /**
+     * @param idProducto el producto
+     * @return acumulado del producto
+     */
+    public Totales producto(int idProducto) {
+        return totales(products.peek(idProducto));
+    }
+
+    /**
+     * @return acumulado de todas las ventas
+     */
+    public Totales total() {
+        return new Totales(totalCents.sum() / 100.0, totalUnits.sum(), totalTickets.sum());
+    }
+
+    /**
+     * Acumulados de todas las categorías con ventas, de mayor a menor
+     * ingreso. Recorre las categorías, que son pocas.
+     *
+     * @return categoría (null para "sin categoría") y su acumulado
+     */
+    public List<Map.Entry<String, Totales>> categorias() {
+        List<Map.Entry<String, Totales>> result = new ArrayList<>();
+        categories.forEach(cell -> {
+            Totales totales = totales(cell);
+            if (totales.tickets() > 0) {
+                String name = cell.key == NO_CATEGORY ? null : categoryNames.get((int) cell.key);
+                result.add(new AbstractMap.SimpleImmutableEntry<>(name, totales));
+            }
+        });
+        result.sort(Comparator.comparingDouble((Map.Entry<String, Totales> e) -> e.getValue().ingresos()).reversed());
+        return result;
+    }
+
+    private long categoryKey(String categoria) {
+        if (categoria == null) {
+            return NO_CATEGORY;
+        }
+        Integer id = categoryIds.get(categoria);
+        if (id != null) {
+            return id;
+        }
+        synchronized (categoryNames) {
+            return categoryIds.computeIfAbsent(categoria, name -> {
+                categoryNames.add(name);
+                return categoryNames.size() - 1;
+            });
+        }
+    }
+
+    private static long hourKey(LocalDateTime fecha) {
+        return fecha.toEpochSecond(ZoneOffset.UTC) / 3600;
+    }
+
+    private static Totales totales(CounterTable.Cell cell) {
+        if (cell == null) {
+            return Totales.CERO;
+        }
+        return new Totales(cell.cents.sum() / 100.0, cell.units.sum(), cell.tickets.sum());
+    }
+}
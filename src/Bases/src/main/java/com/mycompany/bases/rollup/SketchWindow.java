@@ -0,0 +1,114 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.rollup;
+
+/**
+ *
+ * @author dard
+ */
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ventana deslizante de resúmenes {@link SpaceSaving}: un anillo de franjas
+ * de tiempo de igual duración, cada una con su propio resumen.
+ *
+ * <p>
+ * Cada evento va a la franja de su instante. Cuando el tiempo llega a una
+ * franja del anillo que guardaba un periodo anterior, esa franja se vacía y
+ * se reutiliza, así que la memoria es fija: {@code buckets} resúmenes. Las
+ * consultas combinan las franjas que caen dentro de la ventana; la ventana
+ * avanza de franja en franja, no de segundo en segundo.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+final class SketchWindow {
+
+    private final long bucketSeconds;
+    private final SpaceSaving[] sketches;
+    /** Periodo (instante / bucketSeconds) que guarda cada franja */
+    private final long[] periods;
+
+    /**
+     * @param buckets franjas del anillo
+     * @param bucketSeconds duración de cada franja
+     * @param capacity contadores por franja
+     */
+    SketchWindow(int buckets, long bucketSeconds, int capacity) {
+        this.bucketSeconds = bucketSeconds;
+        this.sketches = new SpaceSaving[buckets];
+        this.periods = new long[buckets];
+        for (int i = 0; i < buckets; i++) {
+            sketches[i] = new SpaceSaving(capacity);
+            periods[i] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Suma peso a una clave en la franja de un instante. Los eventos más
+     * viejos que la franja que ocupa su lugar en el anillo se descartan.
+     *
+     * @param epochSecond instante del evento
+     * @param key la clave
+     * @param weight peso
+     */
+    synchronized void add(long epochSecond, long key, long weight) {
+        SpaceSaving sketch = bucket(epochSecond, true);
+        if (sketch != null) {
+            sketch.add(key, weight);
+        }
+    }
+
+    /**
+     * Resta peso a una clave en la franja de un instante, si esa franja sigue
+     * en el anillo.
+     *
+     * @param epochSecond instante del evento original
+     * @param key la clave
+     * @param weight peso
+     */
+    synchronized void subtract(long epochSecond, long key, long weight) {
+        SpaceSaving sketch = bucket(epochSecond, false);
+        if (sketch != null) {
+            sketch.subtract(key, weight);
+        }
+    }
+
+    /**
+     * Claves de mayor peso en la ventana que termina en {@code nowEpochSecond}:
+     * la franja actual y las {@code buckets - 1} anteriores.
+     *
+     * @param nowEpochSecond instante de la consulta
+     * @param n claves a devolver
+     * @param out recibe las claves, de mayor a menor cuenta
+     * @return {total, error máximo}
+     * @see SpaceSaving#top(List, int, List)
+     */
+    synchronized long[] top(long nowEpochSecond, int n, List<SpaceSaving.Estimate> out) {
+        long current = Math.floorDiv(nowEpochSecond, bucketSeconds);
+        List<SpaceSaving> live = new ArrayList<>(sketches.length);
+        for (int i = 0; i < sketches.length; i++) {
+            if (periods[i] <= current && periods[i] > current - sketches.length) {
+                live.add(sketches[i]);
+            }
+        }
+        return SpaceSaving.top(live, n, out);
+    }
+
+    private SpaceSaving bucket(long epochSecond, boolean claim) {
+        long period = Math.floorDiv(epochSecond, bucketSeconds);
+        int i = (int) Math.floorMod(period, (long) sketches.length);
+        if (periods[i] == period) {
+            return sketches[i];
+        }
+        if (!claim || periods[i] > period) {
+            return null;
+        }
+        sketches[i].clear();
+        periods[i] = period;
+        return sketches[i];
+    }
+}
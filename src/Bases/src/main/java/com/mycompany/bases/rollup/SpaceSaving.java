@@ -0,0 +1,310 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.rollup;
+
+/**
+ *
+ * @author dard
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resumen Space-Saving (Metwally, Agrawal y El Abbadi) de los elementos más
+ * frecuentes de un flujo con pesos.
+ *
+ * <p>
+ * Guarda a lo sumo {@code capacity} contadores, sin importar cuántas claves
+ * distintas pasen. Una clave nueva con el resumen lleno reemplaza a la de
+ * menor cuenta y hereda esa cuenta como error. Con un peso total {@code N},
+ * cada cuenta sobrestima la real en a lo sumo su error, que no pasa de
+ * {@code N / capacity}, y toda clave con peso real mayor que
+ * {@link #floor()} está en él.</p>
+ *
+ * <p>
+ * Las restas pueden bajar la menor cuenta por debajo de lo que tenían las
+ * claves ya reemplazadas, así que el piso no es solo la menor cuenta: se
+ * guarda también la mayor cuenta reemplazada, que nunca baja.</p>
+ *
+ * <p>
+ * Los contadores forman un montículo de mínimos en arreglos paralelos, de
+ * modo que el reemplazo es O(log capacity), y un índice de direccionamiento
+ * abierto lleva de cada clave a su posición en el montículo. Todo es de
+ * tipos primitivos y se reserva al crear el resumen.</p>
+ *
+ * <p>
+ * No es seguro entre hilos; quien lo usa sincroniza.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+final class SpaceSaving {
+
+    /**
+     * Estimación de una clave tras combinar uno o varios resúmenes.
+     *
+     * @param key la clave
+     * @param count cuenta estimada; nunca menor que la real
+     * @param error cuánto puede sobrestimar la cuenta
+     */
+    record Estimate(long key, long count, long error) {
+
+    }
+
+    private final int capacity;
+
+    // Montículo de mínimos por cuenta
+    private final long[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    /** Posición en el índice de la clave en cada posición del montículo */
+    private final int[] slotOf;
+    private int size;
+
+    // Índice clave → posición en el montículo + 1 (0 = vacío)
+    private final long[] slotKeys;
+    private final int[] slotPos;
+    private final int mask;
+
+    private long total;
+
+    /** Mayor cuenta que tenía una clave al ser reemplazada */
+    private long evictedFloor;
+
+    SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacidad inválida: " + capacity);
+        }
+        this.capacity = capacity;
+        this.keys = new long[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.slotOf = new int[capacity];
+        int slots = 2;
+        while (slots < capacity * 2) {
+            slots <<= 1;
+        }
+        this.slotKeys = new long[slots];
+        this.slotPos = new int[slots];
+        this.mask = slots - 1;
+    }
+
+    /**
+     * Suma peso a una clave.
+     *
+     * @param key la clave
+     * @param weight peso, mayor que cero
+     */
+    void add(long key, long weight) {
+        if (weight <= 0) {
+            return;
+        }
+        total += weight;
+        int pos = position(key);
+        if (pos >= 0) {
+            counts[pos] += weight;
+            siftDown(pos);
+        } else if (size < capacity) {
+            pos = size++;
+            keys[pos] = key;
+            counts[pos] = weight;
+            errors[pos] = 0;
+            slotOf[pos] = insertSlot(key, pos);
+            siftUp(pos);
+        } else {
+            long floor = floor();
+            evictedFloor = floor;
+            removeSlot(slotOf[0]);
+            keys[0] = key;
+            counts[0] = floor + weight;
+            errors[0] = floor;
+            slotOf[0] = insertSlot(key, 0);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Resta peso a una clave, por ejemplo al eliminar una venta. Si la clave
+     * no está en el resumen solo se descuenta del total.
+     *
+     * <p>
+     * Las cuentas y {@link #floor()} siguen siendo cotas superiores de las
+     * reales, pero la cota {@code N / capacity} del error se refiere al peso
+     * que pasó por el resumen, incluido el que después se restó.</p>
+     *
+     * @param key la clave
+     * @param weight peso, mayor que cero
+     */
+    void subtract(long key, long weight) {
+        if (weight <= 0) {
+            return;
+        }
+        total = Math.max(0, total - weight);
+        int pos = position(key);
+        if (pos >= 0) {
+            counts[pos] = Math.max(0, counts[pos] - weight);
+            errors[pos] = Math.min(errors[pos], counts[pos]);
+            siftUp(pos);
+        }
+    }
+
+    /**
+     * @return peso total que pasó por el resumen
+     */
+    long total() {
+        return total;
+    }
+
+    /**
+     * Cuenta que se le supone a una clave que no está en el resumen: 0 si
+     * todavía cabe todo; si no, la mayor entre la menor cuenta y la mayor
+     * cuenta reemplazada. Ningún error de las claves presentes la supera.
+     *
+     * @return cota superior del peso de cualquier clave ausente
+     */
+    long floor() {
+        return size < capacity ? 0 : Math.max(counts[0], evictedFloor);
+    }
+
+    /**
+     * Vacía el resumen sin liberar sus arreglos.
+     */
+    void clear() {
+        size = 0;
+        total = 0;
+        evictedFloor = 0;
+        Arrays.fill(slotPos, 0);
+    }
+
+    /**
+     * Combina varios resúmenes y devuelve las claves de mayor cuenta.
+     *
+     * <p>
+     * Una clave ausente de un resumen lleno pudo tener ahí hasta su
+     * {@link #floor()}, así que se le suma como cuenta y como error. El error
+     * de cualquier resultado es a lo sumo la suma de los pisos, que se
+     * devuelve junto con el total.</p>
+     *
+     * @param sketches resúmenes a combinar
+     * @param n claves a devolver
+     * @param out recibe las claves, de mayor a menor cuenta
+     * @return {total, suma de los pisos}
+     */
+    static long[] top(List<SpaceSaving> sketches, int n, List<Estimate> out) {
+        long total = 0;
+        long floors = 0;
+        for (SpaceSaving sketch : sketches) {
+            total += sketch.total;
+            floors += sketch.floor();
+        }
+
+        Map<Long, long[]> merged = new HashMap<>();
+        for (SpaceSaving sketch : sketches) {
+            long floor = sketch.floor();
+            for (int i = 0; i < sketch.size; i++) {
+                long[] acc = merged.get(sketch.keys[i]);
+                if (acc == null) {
+                    acc = new long[]{floors, floors};
+                    merged.put(sketch.keys[i], acc);
+                }
+                acc[0] += sketch.counts[i] - floor;
+                acc[1] += sketch.errors[i] - floor;
+            }
+        }
+
+        List<Estimate> estimates = new ArrayList<>(merged.size());
+        merged.forEach((key, acc) -> {
+            if (acc[0] > 0) {
+                estimates.add(new Estimate(key, acc[0], acc[1]));
+            }
+        });
+        estimates.sort(Comparator.comparingLong(Estimate::count).reversed()
+                .thenComparingLong(Estimate::key));
+        out.addAll(estimates.subList(0, Math.min(n, estimates.size())));
+        return new long[]{total, floors};
+    }
+
+    private int position(long key) {
+        for (int i = CounterTable.spread(key) & mask; slotPos[i] != 0; i = (i + 1) & mask) {
+            if (slotKeys[i] == key) {
+                return slotPos[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private int insertSlot(long key, int pos) {
+        int i = CounterTable.spread(key) & mask;
+        while (slotPos[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        slotKeys[i] = key;
+        slotPos[i] = pos + 1;
+        return i;
+    }
+
+    /**
+     * Libera una posición del índice y recorre hacia atrás las claves que la
+     * seguían, para que el sondeo lineal no encuentre huecos.
+     */
+    private void removeSlot(int i) {
+        slotPos[i] = 0;
+        for (int j = (i + 1) & mask; slotPos[j] != 0; j = (j + 1) & mask) {
+            int home = CounterTable.spread(slotKeys[j]) & mask;
+            // j puede ocupar i si i no queda antes de su posición natural
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                slotKeys[i] = slotKeys[j];
+                slotPos[i] = slotPos[j];
+                slotOf[slotPos[i] - 1] = i;
+                slotPos[j] = 0;
+                i = j;
+            }
+        }
+    }
+
+    private void siftUp(int pos) {
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (counts[pos] >= counts[parent]) {
+                return;
+            }
+            swap(pos, parent);
+            pos = parent;
+        }
+    }
+
+    private void siftDown(int pos) {
+        for (int child; (child = 2 * pos + 1) < size; pos = child) {
+            if (child + 1 < size && counts[child + 1] < counts[child]) {
+                child++;
+            }
+            if (counts[pos] <= counts[child]) {
+                return;
+            }
+            swap(pos, child);
+        }
+    }
+
+    private void swap(int a, int b) {
+        long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        long count = counts[a];
+        counts[a] = counts[b];
+        counts[b] = count;
+        long error = errors[a];
+        errors[a] = errors[b];
+        errors[b] = error;
+        int slot = slotOf[a];
+        slotOf[a] = slotOf[b];
+        slotOf[b] = slot;
+        slotPos[slotOf[a]] = a + 1;
+        slotPos[slotOf[b]] = b + 1;
+    }
+}
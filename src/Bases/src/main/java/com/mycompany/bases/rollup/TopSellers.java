@@ -0,0 +1,204 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.rollup;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.models.VentaRegistrada;
+import com.mycompany.bases.repository.SaleListener;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Productos más vendidos (por unidades) y clientes que más compran (por
+ * importe), en la última hora, el último día y desde el arranque.
+ *
+ * <p>
+ * Cada ranking sale de resúmenes {@link SpaceSaving} de capacidad fija, así
+ * que la memoria no crece con el catálogo ni con los clientes: por cada
+ * ranking hay 12 resúmenes de 5 minutos para la última hora, 24 de una hora
+ * para el último día y uno histórico. Consultar es combinar esos resúmenes,
+ * sin tocar Oracle.</p>
+ *
+ * <p>
+ * Los resultados son estimaciones: cada {@link Destacado} trae su cuenta,
+ * que nunca es menor que la real, y cuánto puede sobrestimarla. El
+ * {@link Ranking} trae además el error máximo de la consulta, que no pasa de
+ * {@code total / capacidad} por resumen combinado; cualquier producto o
+ * cliente con más peso real que ese error aparece en el ranking si cabe en
+ * los primeros {@code n}.</p>
+ *
+ * <p>
+ * Como los acumulados, se siembra al arrancar con todas las ventas de Oracle
+ * y después recibe cada venta confirmada o eliminada como
+ * {@link SaleListener}. Las ventanas se miden con la fecha de cada venta en
+ * hora local.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class TopSellers implements SaleListener {
+
+    private static final int HOUR_BUCKETS = 12;
+    private static final long HOUR_BUCKET_SECONDS = 300;
+    private static final int DAY_BUCKETS = 24;
+    private static final long DAY_BUCKET_SECONDS = 3_600;
+
+    /**
+     * Periodo de un ranking.
+     */
+    public enum Periodo {
+        /** Las últimas 12 franjas de 5 minutos, incluida la actual */
+        ULTIMA_HORA,
+        /** Las últimas 24 horas de reloj, incluida la actual */
+        ULTIMO_DIA,
+        /** Todas las ventas desde el arranque, incluidas las sembradas */
+        HISTORICO
+    }
+
+    /**
+     * Un producto o cliente del ranking.
+     *
+     * @param clave ID del producto o del cliente
+     * @param estimado unidades (productos) o centavos (clientes); nunca menor
+     * que el real
+     * @param error cuánto puede sobrestimar {@code estimado}
+     */
+    public record Destacado(long clave, long estimado, long error) {
+
+        /**
+         * @return cantidad que seguro se alcanzó
+         */
+        public long garantizado() {
+            return estimado - error;
+        }
+    }
+
+    /**
+     * Resultado de una consulta.
+     *
+     * @param destacados de mayor a menor estimado
+     * @param total unidades o centavos de todo el periodo
+     * @param errorMaximo lo más que puede sobrestimarse cualquier cuenta; un
+     * producto o cliente ausente tuvo a lo sumo esto
+     */
+    public record Ranking(List<Destacado> destacados, long total, long errorMaximo) {
+
+    }
+
+    /**
+     * Resúmenes de un ranking: ventana de una hora, de un día e histórico.
+     */
+    private static final class Tracker {
+
+        final SketchWindow hour;
+        final SketchWindow day;
+        final SpaceSaving all;
+
+        Tracker(int capacity) {
+            hour = new SketchWindow(HOUR_BUCKETS, HOUR_BUCKET_SECONDS, capacity);
+            day = new SketchWindow(DAY_BUCKETS, DAY_BUCKET_SECONDS, capacity);
+            all = new SpaceSaving(capacity);
+        }
+
+        void add(LocalDateTime fecha, long key, long weight, int sign) {
+            if (fecha != null) {
+                long epochSecond = fecha.toEpochSecond(ZoneOffset.UTC);
+                if (sign > 0) {
+                    hour.add(epochSecond, key, weight);
+                    day.add(epochSecond, key, weight);
+                } else {
+                    hour.subtract(epochSecond, key, weight);
+                    day.subtract(epochSecond, key, weight);
+                }
+            }
+            synchronized (all) {
+                if (sign > 0) {
+                    all.add(key, weight);
+                } else {
+                    all.subtract(key, weight);
+                }
+            }
+        }
+
+        Ranking top(Periodo periodo, int n) {
+            long now = LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+            List<SpaceSaving.Estimate> estimates = new ArrayList<>(n);
+            long[] totals = switch (periodo) {
+                case ULTIMA_HORA ->
+                    hour.top(now, n, estimates);
+                case ULTIMO_DIA ->
+                    day.top(now, n, estimates);
+                case HISTORICO -> {
+                    synchronized (all) {
+                        yield SpaceSaving.top(List.of(all), n, estimates);
+                    }
+                }
+            };
+            List<Destacado> destacados = new ArrayList<>(estimates.size());
+            for (SpaceSaving.Estimate e : estimates) {
+                destacados.add(new Destacado(e.key(), e.count(), e.error()));
+            }
+            return new Ranking(destacados, totals[0], totals[1]);
+        }
+    }
+
+    private final Tracker products;
+    private final Tracker customers;
+
+    /**
+     * @param capacity contadores por resumen; el error de cada resumen es a
+     * lo sumo su total entre esta capacidad
+     */
+    public TopSellers(int capacity) {
+        this.products = new Tracker(capacity);
+        this.customers = new Tracker(capacity);
+    }
+
+    @Override
+    public void ventaRegistrada(VentaRegistrada venta) {
+        apply(venta, 1);
+    }
+
+    @Override
+    public void ventaEliminada(VentaRegistrada venta) {
+        apply(venta, -1);
+    }
+
+    private void apply(VentaRegistrada venta, int sign) {
+        long cents = 0;
+        for (VentaRegistrada.Linea linea : venta.lineas()) {
+            products.add(venta.fecha(), linea.idProducto(), linea.cantidad(), sign);
+            cents += Math.round(linea.subtotal() * 100);
+        }
+        customers.add(venta.fecha(), venta.idUsuario(), cents, sign);
+    }
+
+    /**
+     * Productos con más unidades vendidas.
+     *
+     * @param periodo periodo del ranking
+     * @param n productos a devolver
+     * @return el ranking; {@code estimado} y {@code total} en unidades
+     */
+    public Ranking productos(Periodo periodo, int n) {
+        return products.top(periodo, n);
+    }
+
+    /**
+     * Clientes con mayor importe comprado.
+     *
+     * @param periodo periodo del ranking
+     * @param n clientes a devolver
+     * @return el ranking; {@code estimado} y {@code total} en centavos
+     */
+    public Ranking clientes(Periodo periodo, int n) {
+        return customers.top(periodo, n);
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.search;
+
+/**
+ *
+ * @author dard
+ */
+/**
+ * Filtros de una búsqueda de productos. Un filtro nulo o vacío no restringe;
+ * los filtros presentes se combinan con AND.
+ *
+ * @param categoria categoría exacta (sin distinguir mayúsculas ni acentos)
+ * @param color color exacto
+ * @param talla talla exacta
+ * @param texto palabras que deben aparecer todas en el nombre
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public record ProductQuery(String categoria, String color, String talla, String texto) {
+
+    /**
+     * Búsqueda solo por categoría.
+     *
+     * @param categoria la categoría buscada
+     * @return la consulta
+     */
+    public static ProductQuery byCategoria(String categoria) {
+        return new ProductQuery(categoria, null, null, null);
+    }
+}
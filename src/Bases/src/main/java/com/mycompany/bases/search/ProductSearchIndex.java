@@ -0,0 +1,262 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.search;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.models.Producto;
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria del catálogo de productos.
+ *
+ * <p>
+ * Cada producto ocupa una posición (slot) y, por cada valor de categoría,
+ * color, talla y palabra del nombre, se guarda un {@link BitSet} con las
+ * posiciones que lo contienen. Una búsqueda combinada es la intersección
+ * (AND) de esos conjuntos y los conteos por faceta se calculan recorriendo
+ * solo los productos resultantes, por lo que no se consulta Oracle.</p>
+ *
+ * <p>
+ * Los valores se comparan sin distinguir mayúsculas ni acentos. Las lecturas
+ * se hacen en paralelo y las altas/bajas toman un candado exclusivo.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class ProductSearchIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Producto por posición; null en posiciones libres */
+    private final List<Producto> docs = new ArrayList<>();
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+
+    private final Facet categorias = new Facet();
+    private final Facet colores = new Facet();
+    private final Facet tallas = new Facet();
+    private final Map<String, BitSet> tokens = new HashMap<>();
+
+    /**
+     * Lista de posiciones por valor normalizado de un campo, junto con el
+     * texto original con que se muestra cada valor.
+     */
+    private static final class Facet {
+
+        final Map<String, BitSet> postings = new HashMap<>();
+        final Map<String, String> labels = new HashMap<>();
+
+        void add(String value, int slot) {
+            String key = normalize(value);
+            postings.computeIfAbsent(key, k -> new BitSet()).set(slot);
+            labels.putIfAbsent(key, value == null ? "" : value.trim());
+        }
+
+        void remove(String value, int slot) {
+            String key = normalize(value);
+            BitSet bits = postings.get(key);
+            if (bits != null) {
+                bits.clear(slot);
+                if (bits.isEmpty()) {
+                    postings.remove(key);
+                    labels.remove(key);
+                }
+            }
+        }
+
+        BitSet get(String value) {
+            return postings.get(normalize(value));
+        }
+
+        String label(String value) {
+            return labels.getOrDefault(normalize(value), value);
+        }
+    }
+
+    /**
+     * Agrega o reemplaza un producto en el índice.
+     *
+     * @param producto el producto a indexar
+     */
+    public void add(Producto producto) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(producto.idProducto());
+
+            Integer free = freeSlots.poll();
+            int slot = free != null ? free : docs.size();
+            if (free != null) {
+                docs.set(slot, producto);
+            } else {
+                docs.add(producto);
+            }
+            slotById.put(producto.idProducto(), slot);
+            live.set(slot);
+
+            categorias.add(producto.categoria(), slot);
+            colores.add(producto.color(), slot);
+            tallas.add(producto.talla(), slot);
+            for (String token : tokenize(producto.nombre())) {
+                tokens.computeIfAbsent(token, k -> new BitSet()).set(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Agrega varios productos con una sola toma del candado.
+     *
+     * @param productos productos a indexar
+     */
+    public void addAll(List<Producto> productos) {
+        lock.writeLock().lock();
+        try {
+            productos.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un producto del índice.
+     *
+     * @param idProducto ID del producto eliminado
+     * @return true si estaba indexado
+     */
+    public boolean remove(int idProducto) {
+        lock.writeLock().lock();
+        try {
+            return removeUnlocked(idProducto);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean removeUnlocked(int idProducto) {
+        Integer slot = slotById.remove(idProducto);
+        if (slot == null) {
+            return false;
+        }
+        Producto old = docs.get(slot);
+        categorias.remove(old.categoria(), slot);
+        colores.remove(old.color(), slot);
+        tallas.remove(old.talla(), slot);
+        for (String token : tokenize(old.nombre())) {
+            BitSet bits = tokens.get(token);
+            if (bits != null) {
+                bits.clear(slot);
+                if (bits.isEmpty()) {
+                    tokens.remove(token);
+                }
+            }
+        }
+        docs.set(slot, null);
+        live.clear(slot);
+        freeSlots.push(slot);
+        return true;
+    }
+
+    /**
+     * Busca los productos que cumplen todos los filtros y calcula los conteos
+     * por categoría, color y talla sobre el resultado.
+     *
+     * @param query filtros de la búsqueda
+     * @return productos encontrados y facetas
+     */
+    public ProductSearchResult search(ProductQuery query) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = (BitSet) live.clone();
+            intersect(matches, categorias, query.categoria());
+            intersect(matches, colores, query.color());
+            intersect(matches, tallas, query.talla());
+            for (String token : tokenize(query.texto())) {
+                BitSet bits = tokens.get(token);
+                if (bits == null) {
+                    matches.clear();
+                    break;
+                }
+                matches.and(bits);
+            }
+
+            List<Producto> productos = new ArrayList<>(matches.cardinality());
+            Map<String, Integer> porCategoria = new LinkedHashMap<>();
+            Map<String, Integer> porColor = new LinkedHashMap<>();
+            Map<String, Integer> porTalla = new LinkedHashMap<>();
+            for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+                Producto producto = docs.get(slot);
+                productos.add(producto);
+                porCategoria.merge(categorias.label(producto.categoria()), 1, Integer::sum);
+                porColor.merge(colores.label(producto.color()), 1, Integer::sum);
+                porTalla.merge(tallas.label(producto.talla()), 1, Integer::sum);
+            }
+            productos.sort(Comparator.comparingInt(Producto::idProducto));
+            return new ProductSearchResult(productos, porCategoria, porColor, porTalla);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void intersect(BitSet matches, Facet facet, String value) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        BitSet bits = facet.get(value);
+        if (bits == null) {
+            matches.clear();
+        } else {
+            matches.and(bits);
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String lower = value.trim().toLowerCase(Locale.ROOT);
+        return DIACRITICS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> result = new ArrayList<>();
+        if (text == null) {
+            return result;
+        }
+        for (String token : TOKEN_SEPARATOR.split(normalize(text))) {
+            if (!token.isEmpty() && !result.contains(token)) {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.search;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.models.Producto;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado de una búsqueda en el índice de productos.
+ *
+ * @param productos productos que cumplen todos los filtros, ordenados por ID
+ * @param categorias conteo de resultados por categoría
+ * @param colores conteo de resultados por color
+ * @param tallas conteo de resultados por talla
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public record ProductSearchResult(List<Producto> productos, Map<String, Integer> categorias,
+        Map<String, Integer> colores, Map<String, Integer> tallas) {
+
+}
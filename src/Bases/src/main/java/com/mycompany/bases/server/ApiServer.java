@@ -0,0 +1,444 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.server;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.config.DatabaseConfig;
+import com.mycompany.bases.models.LineaVenta;
+import com.mycompany.bases.models.ProductPage;
+import com.mycompany.bases.models.Producto;
+import com.mycompany.bases.models.ResultadoVenta;
+import com.mycompany.bases.models.Venta;
+import com.mycompany.bases.search.ProductQuery;
+import com.mycompany.bases.search.ProductSearchResult;
+import com.mycompany.bases.services.TiendaService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.bson.Document;
+import org.bson.json.JsonParseException;
+
+/**
+ * Servidor HTTP embebido que expone las operaciones de {@link TiendaService}
+ * como una API JSON.
+ *
+ * <p>
+ * Usa el servidor HTTP del JDK con un hilo virtual por petición: una
+ * petición que espera a Oracle o a MongoDB no retiene un hilo del sistema,
+ * así que el número de peticiones simultáneas no está limitado por un pool
+ * de hilos sino por el pool de conexiones.</p>
+ *
+ * <p>
+ * Recursos:</p>
+ * <ul>
+ * <li>{@code GET /usuarios}, {@code GET|DELETE /usuarios/{nombre}},
+ * {@code POST /usuarios}</li>
+ * <li>{@code GET /productos} (con {@code categoria}, {@code color},
+ * {@code talla} o {@code q} realiza una búsqueda),
+ * {@code GET|PUT|DELETE /productos/{id}}, {@code POST /productos}</li>
+ * <li>{@code GET /ventas} (con {@code cliente}, solo las de ese cliente),
+ * {@code GET|DELETE /ventas/{id}}, {@code POST /ventas}</li>
+ * <li>{@code GET /estado}: estadísticas del pool, de la caché y del diario de
+ * ventas</li>
+ * <li>{@code GET /metricas}: latencias y contadores por operación</li>
+ * </ul>
+ *
+ * <p>
+ * Los listados completos se envían por fragmentos conforme se leen de la
+ * base de datos, página a página, sin reunirlos antes en memoria.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class ApiServer {
+
+    private final TiendaService service;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicBoolean stopping = new AtomicBoolean();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * Manejador de un recurso; recibe el resto de la ruta tras el prefijo.
+     */
+    @FunctionalInterface
+    private interface Route {
+
+        void handle(HttpExchange ex, String id) throws Exception;
+    }
+
+    /**
+     * Crea el servidor sin iniciarlo.
+     *
+     * @param service servicio de la tienda; no se cierra al detener el
+     * servidor
+     * @param port puerto TCP; 0 para uno libre
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public ApiServer(TiendaService service, int port) throws IOException {
+        this.service = service;
+        this.server = HttpServer.create(new InetSocketAddress(port), DatabaseConfig.HTTP_BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/usuarios", handler("/usuarios", this::usuarios));
+        server.createContext("/productos", handler("/productos", this::productos));
+        server.createContext("/ventas", handler("/ventas", this::ventas));
+        server.createContext("/estado", handler("/estado", this::estado));
+        server.createContext("/metricas", handler("/metricas", this::metricas));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Detiene el servidor de forma ordenada: deja de aceptar conexiones,
+     * espera hasta {@link DatabaseConfig#HTTP_SHUTDOWN_GRACE_S} segundos a
+     * que terminen las peticiones en curso e interrumpe las que queden.
+     * Llamadas repetidas esperan a que termine la primera.
+     */
+    public void stop() {
+        if (!stopping.compareAndSet(false, true)) {
+            awaitStopUninterruptibly();
+            return;
+        }
+        try {
+            // stop() cierra el puerto y espera a que terminen los intercambios abiertos
+            server.stop(DatabaseConfig.HTTP_SHUTDOWN_GRACE_S);
+            executor.shutdown();
+            if (!executor.awaitTermination(DatabaseConfig.HTTP_SHUTDOWN_GRACE_S, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            stopped.countDown();
+        }
+    }
+
+    /**
+     * Bloquea hasta que el servidor se haya detenido.
+     *
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    private void awaitStopUninterruptibly() {
+        boolean interrupted = false;
+        while (stopped.getCount() > 0) {
+            try {
+                stopped.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Envuelve un recurso con el manejo común de errores: los datos
+     * inválidos responden 400 y los fallos de las bases de datos 500. Si la
+     * respuesta ya había comenzado (un listado por fragmentos), solo se
+     * cierra la conexión.
+     */
+    private HttpHandler handler(String prefix, Route route) {
+        return ex -> {
+            try {
+                String path = ex.getRequestURI().getPath().substring(prefix.length());
+                if (!path.isEmpty() && !path.startsWith("/")) {
+                    // El contexto coincide por prefijo: "/ventasX" no es "/ventas"
+                    Json.error(ex, 404, "Recurso no encontrado");
+                    return;
+                }
+                String id = path.length() <= 1 ? null : path.substring(1);
+                route.handle(ex, id);
+            } catch (Exception e) {
+                Throwable cause = e;
+                while (cause instanceof CompletionException && cause.getCause() != null) {
+                    cause = cause.getCause();
+                }
+                if (ex.getResponseCode() == -1 && !(cause instanceof UncheckedIOException)) {
+                    boolean badRequest = cause instanceof IllegalArgumentException
+                            || cause instanceof JsonParseException
+                            || cause instanceof ClassCastException;
+                    String mensaje = cause.getMessage() != null ? cause.getMessage() : cause.toString();
+                    Json.error(ex, badRequest ? 400 : 500, mensaje);
+                }
+            } finally {
+                ex.close();
+            }
+        };
+    }
+
+    // ===== Usuarios =====
+
+    private void usuarios(HttpExchange ex, String nombre) throws Exception {
+        switch (ex.getRequestMethod()) {
+            case "GET" -> {
+                if (nombre == null) {
+                    try (Json.ArrayStream out = Json.array(ex)) {
+                        // Sin límite: un solo cursor recorre la colección por lotes
+                        service.scanUsers(null, 0, usuario -> out.write(Json.usuario(usuario))).join();
+                        out.end();
+                    }
+                } else {
+                    var usuario = service.findUserByName(nombre).join();
+                    if (usuario.isPresent()) {
+                        Json.send(ex, 200, Json.usuario(usuario.get()));
+                    } else {
+                        Json.error(ex, 404, "Usuario no encontrado");
+                    }
+                }
+            }
+            case "POST" -> {
+                Document body = Json.read(ex);
+                var usuario = service.addUser(Json.requireString(body, "nombre"),
+                        Json.requireString(body, "email"),
+                        Json.requireNumber(body, "edad").intValue()).join();
+                Json.send(ex, 201, Json.usuario(usuario));
+            }
+            case "DELETE" -> {
+                if (nombre != null && service.deleteUserByName(nombre).join().isPresent()) {
+                    Json.noContent(ex);
+                } else {
+                    Json.error(ex, 404, "Usuario no encontrado");
+                }
+            }
+            default ->
+                Json.error(ex, 405, "Método no permitido");
+        }
+    }
+
+    // ===== Productos =====
+
+    private void productos(HttpExchange ex, String id) throws Exception {
+        switch (ex.getRequestMethod()) {
+            case "GET" -> {
+                if (id != null) {
+                    var producto = service.findProduct(parseId(id)).join();
+                    if (producto.isPresent()) {
+                        Json.send(ex, 200, Json.producto(producto.get()));
+                    } else {
+                        Json.error(ex, 404, "Producto no encontrado");
+                    }
+                    return;
+                }
+                Map<String, String> query = query(ex);
+                if (query.isEmpty()) {
+                    streamProductos(ex);
+                } else {
+                    ProductSearchResult result = service.searchProducts(new ProductQuery(
+                            query.get("categoria"), query.get("color"), query.get("talla"), query.get("q"))).join();
+                    Json.send(ex, 200, new Document("productos", Json.productos(result.productos()))
+                            .append("facetas", new Document("categorias", Json.faceta(result.categorias()))
+                                    .append("colores", Json.faceta(result.colores()))
+                                    .append("tallas", Json.faceta(result.tallas()))));
+                }
+            }
+            case "POST" -> {
+                Document body = Json.read(ex);
+                Producto producto = service.addProduct(Json.requireString(body, "nombre"),
+                        Json.requireString(body, "categoria"),
+                        Json.requireString(body, "color"),
+                        Json.requireString(body, "talla"),
+                        Json.requireNumber(body, "precio").doubleValue()).join();
+                Json.send(ex, 201, Json.producto(producto));
+            }
+            case "PUT" -> {
+                int idProducto = parseId(id);
+                Document body = Json.read(ex);
+                Producto producto = new Producto(idProducto,
+                        Json.requireString(body, "nombre"),
+                        Json.requireNumber(body, "precio").doubleValue(),
+                        Json.requireString(body, "color"),
+                        Json.requireString(body, "talla"),
+                        Json.requireString(body, "categoria"));
+                if (service.updateProduct(producto).join()) {
+                    Json.send(ex, 200, Json.producto(producto));
+                } else {
+                    Json.error(ex, 404, "Producto no encontrado");
+                }
+            }
+            case "DELETE" -> {
+                if (service.deleteProduct(parseId(id)).join()) {
+                    Json.noContent(ex);
+                } else {
+                    Json.error(ex, 404, "Producto no encontrado");
+                }
+            }
+            default ->
+                Json.error(ex, 405, "Método no permitido");
+        }
+    }
+
+    /**
+     * Envía el catálogo completo recorriéndolo por páginas de ID; cada
+     * página se escribe antes de pedir la siguiente.
+     */
+    private void streamProductos(HttpExchange ex) throws IOException {
+        int pageSize = DatabaseConfig.HTTP_LIST_PAGE_SIZE;
+        try (Json.ArrayStream out = Json.array(ex)) {
+            ProductPage page = service.listProductsAfter(Integer.MIN_VALUE, pageSize).join();
+            while (true) {
+                page.productos().forEach(p -> out.write(Json.producto(p)));
+                if (!page.hasNext()) {
+                    break;
+                }
+                page = service.listProductsAfter(page.lastId(), pageSize).join();
+            }
+            out.end();
+        }
+    }
+
+    // ===== Ventas =====
+
+    private void ventas(HttpExchange ex, String id) throws Exception {
+        switch (ex.getRequestMethod()) {
+            case "GET" -> {
+                if (id == null) {
+                    String cliente = query(ex).get("cliente");
+                    if (cliente == null) {
+                        streamVentas(ex);
+                    } else {
+                        List<Document> ventas = new ArrayList<>();
+                        service.listVentasByCliente(parseId(cliente)).join()
+                                .forEach(v -> ventas.add(Json.venta(v, false)));
+                        Json.send(ex, 200, new Document("ventas", ventas));
+                    }
+                    return;
+                }
+                var venta = service.findVenta(parseId(id)).join();
+                if (venta.isPresent()) {
+                    Json.send(ex, 200, Json.venta(venta.get(), true));
+                } else {
+                    Json.error(ex, 404, "Venta no encontrada");
+                }
+            }
+            case "POST" -> {
+                Document body = Json.read(ex);
+                int idCliente = Json.requireNumber(body, "idCliente").intValue();
+                List<LineaVenta> lineas = new ArrayList<>();
+                for (Document linea : body.getList("lineas", Document.class, List.of())) {
+                    lineas.add(new LineaVenta(Json.requireNumber(linea, "idProducto").intValue(),
+                            Json.requireNumber(linea, "cantidad").intValue()));
+                }
+                if (lineas.isEmpty()) {
+                    throw new IllegalArgumentException("La venta debe tener al menos una línea");
+                }
+
+                ResultadoVenta venta = service.createVenta(idCliente, lineas).join();
+                Document respuesta = new Document("idVenta", venta.idVenta())
+                        .append("total", venta.total())
+                        .append("detalles", Json.detalles(venta.detalles()))
+                        .append("productosNoEncontrados", venta.productosNoEncontrados());
+                Json.send(ex, venta.creada() ? 201 : 422, respuesta);
+            }
+            case "DELETE" -> {
+                if (service.deleteVenta(parseId(id)).join()) {
+                    Json.noContent(ex);
+                } else {
+                    Json.error(ex, 404, "Venta no encontrada");
+                }
+            }
+            default ->
+                Json.error(ex, 405, "Método no permitido");
+        }
+    }
+
+    /**
+     * Envía todas las ventas, sin detalles, por páginas de
+     * {@link DatabaseConfig#VENTAS_PAGE_SIZE}.
+     */
+    private void streamVentas(HttpExchange ex) throws IOException {
+        int pageSize = DatabaseConfig.VENTAS_PAGE_SIZE;
+        try (Json.ArrayStream out = Json.array(ex)) {
+            List<Venta> page = service.listVentas(Integer.MIN_VALUE, pageSize).join();
+            while (true) {
+                page.forEach(v -> out.write(Json.venta(v, false)));
+                if (page.size() < pageSize) {
+                    break;
+                }
+                page = service.listVentas(page.get(page.size() - 1).idVenta(), pageSize).join();
+            }
+            out.end();
+        }
+    }
+
+    // ===== Estado =====
+
+    private void estado(HttpExchange ex, String id) throws IOException {
+        if (!ex.getRequestMethod().equals("GET")) {
+            Json.error(ex, 405, "Método no permitido");
+            return;
+        }
+        // Sin Oracle (modo en memoria) no hay pool ni caché de productos
+        Json.send(ex, 200, new Document("pool", String.valueOf(service.getPoolStats()))
+                .append("cacheProductos", String.valueOf(service.getProductCacheStats()))
+                .append("diarioVentas", String.valueOf(service.getSaleJournalStats())));
+    }
+
+    private void metricas(HttpExchange ex, String id) throws IOException {
+        if (!ex.getRequestMethod().equals("GET")) {
+            Json.error(ex, 405, "Método no permitido");
+            return;
+        }
+        Json.send(ex, 200, Document.parse(service.getMetrics().toJson()));
+    }
+
+    // ===== Utilidades =====
+
+    private static int parseId(String id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Falta el ID en la ruta");
+        }
+        return Integer.parseInt(id);
+    }
+
+    /**
+     * Parámetros de la consulta con valor no vacío.
+     */
+    private static Map<String, String> query(HttpExchange ex) {
+        Map<String, String> params = new HashMap<>();
+        String raw = ex.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0 || eq == pair.length() - 1) {
+                continue;
+            }
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+}
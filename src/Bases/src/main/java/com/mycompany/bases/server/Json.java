@@ -0,0 +1,253 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.server;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.models.DetalleVenta;
+import com.mycompany.bases.models.Producto;
+import com.mycompany.bases.models.Usuario;
+import com.mycompany.bases.models.Venta;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+
+/**
+ * Lectura y escritura de JSON sobre un {@link HttpExchange}.
+ *
+ * <p>
+ * Se apoya en {@link Document} del controlador de MongoDB, que ya está en
+ * el classpath, en lugar de añadir una biblioteca de JSON. Las fechas se
+ * escriben como texto ISO-8601 y los {@code ObjectId} como su valor
+ * hexadecimal, no con la notación extendida de MongoDB.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+final class Json {
+
+    static final String CONTENT_TYPE = "application/json; charset=utf-8";
+
+    static final JsonWriterSettings SETTINGS = JsonWriterSettings.builder()
+            .outputMode(JsonMode.RELAXED)
+            .dateTimeConverter((millis, writer) -> writer.writeString(Instant.ofEpochMilli(millis).toString()))
+            .objectIdConverter((id, writer) -> writer.writeString(id.toHexString()))
+            .build();
+
+    private Json() {
+    }
+
+    /**
+     * Lee el cuerpo de la petición como un objeto JSON.
+     *
+     * @param ex intercambio HTTP
+     * @return el documento recibido
+     * @throws IOException si falla la lectura
+     * @throws IllegalArgumentException si el cuerpo está vacío
+     */
+    static Document read(HttpExchange ex) throws IOException {
+        String body = new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        if (body.isBlank()) {
+            throw new IllegalArgumentException("Se esperaba un objeto JSON en el cuerpo");
+        }
+        return Document.parse(body);
+    }
+
+    /**
+     * Envía un documento completo con longitud conocida.
+     *
+     * @param ex intercambio HTTP
+     * @param status código de estado
+     * @param body documento a enviar
+     * @throws IOException si falla el envío
+     */
+    static void send(HttpExchange ex, int status, Document body) throws IOException {
+        byte[] bytes = body.toJson(SETTINGS).getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Envía un error con el formato {@code {"error": "..."}}.
+     *
+     * @param ex intercambio HTTP
+     * @param status código de estado
+     * @param mensaje descripción del error
+     * @throws IOException si falla el envío
+     */
+    static void error(HttpExchange ex, int status, String mensaje) throws IOException {
+        send(ex, status, new Document("error", mensaje));
+    }
+
+    /**
+     * Responde 204 sin cuerpo.
+     *
+     * @param ex intercambio HTTP
+     * @throws IOException si falla el envío
+     */
+    static void noContent(HttpExchange ex) throws IOException {
+        ex.sendResponseHeaders(204, -1);
+    }
+
+    /**
+     * Inicia una respuesta 200 con un arreglo JSON que se escribe elemento a
+     * elemento, en fragmentos ({@code Transfer-Encoding: chunked}).
+     *
+     * @param ex intercambio HTTP
+     * @return el arreglo abierto; cerrarlo termina la respuesta
+     * @throws IOException si falla el envío de cabeceras
+     */
+    static ArrayStream array(HttpExchange ex) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        ex.sendResponseHeaders(200, 0);
+        return new ArrayStream(ex.getResponseBody());
+    }
+
+    /**
+     * Arreglo JSON en curso de escritura. Los elementos se acumulan en un
+     * búfer y se envían cada vez que se llena, de modo que la memoria usada
+     * no depende de la cantidad de elementos.
+     *
+     * <p>
+     * Si se cierra sin llamar a {@link #end()} el arreglo queda sin el
+     * corchete final: el cliente recibe un JSON inválido en lugar de un
+     * listado truncado que parezca completo.</p>
+     */
+    static final class ArrayStream implements AutoCloseable {
+
+        private final BufferedWriter out;
+        private boolean first = true;
+
+        private ArrayStream(OutputStream body) throws IOException {
+            this.out = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8), 1 << 14);
+            out.write('[');
+        }
+
+        /**
+         * Agrega un elemento al arreglo.
+         *
+         * @param doc elemento
+         * @throws UncheckedIOException si el cliente cerró la conexión; se
+         * lanza sin comprobar para poder escribir desde un {@code Consumer}
+         */
+        void write(Document doc) {
+            try {
+                if (!first) {
+                    out.write(',');
+                }
+                first = false;
+                out.write(doc.toJson(SETTINGS));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Cierra el arreglo tras el último elemento.
+         *
+         * @throws IOException si falla el envío
+         */
+        void end() throws IOException {
+            out.write(']');
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    // ===== Conversión de modelos =====
+
+    static Document usuario(Usuario usuario) {
+        return usuario.toDocument();
+    }
+
+    static Document producto(Producto p) {
+        return new Document("idProducto", p.idProducto())
+                .append("nombre", p.nombre())
+                .append("precio", p.precio())
+                .append("color", p.color())
+                .append("talla", p.talla())
+                .append("categoria", p.categoria());
+    }
+
+    static List<Document> productos(List<Producto> productos) {
+        return productos.stream().map(Json::producto).toList();
+    }
+
+    /**
+     * Conteos de una faceta, conservando el orden del resultado.
+     */
+    static Document faceta(Map<String, Integer> conteos) {
+        Document doc = new Document();
+        conteos.forEach(doc::append);
+        return doc;
+    }
+
+    static Document detalle(DetalleVenta d) {
+        return new Document("idProducto", d.idProducto())
+                .append("nombre", d.nombre())
+                .append("cantidad", d.cantidad())
+                .append("precio", d.precio())
+                .append("subtotal", d.subtotal());
+    }
+
+    static List<Document> detalles(List<DetalleVenta> detalles) {
+        return detalles.stream().map(Json::detalle).toList();
+    }
+
+    /**
+     * Convierte una venta; los detalles solo se incluyen si se pidieron.
+     *
+     * @param v venta
+     * @param conDetalles true para incluir la lista de detalles
+     * @return documento de la venta
+     */
+    static Document venta(Venta v, boolean conDetalles) {
+        Document doc = new Document("idVenta", v.idVenta())
+                .append("fecha", v.fecha() == null ? null : v.fecha().toString())
+                .append("total", v.total())
+                .append("idCliente", v.idCliente())
+                .append("cliente", v.nombreCliente());
+        if (conDetalles) {
+            doc.append("detalles", detalles(v.detalles()));
+        }
+        return doc;
+    }
+
+    // ===== Lectura de campos =====
+
+    static String requireString(Document doc, String field) {
+        Object value = doc.get(field);
+        if (!(value instanceof String s) || s.isBlank()) {
+            throw new IllegalArgumentException("El campo '" + field + "' es obligatorio y debe ser texto");
+        }
+        return s;
+    }
+
+    static Number requireNumber(Document doc, String field) {
+        if (!(doc.get(field) instanceof Number n)) {
+            throw new IllegalArgumentException("El campo '" + field + "' es obligatorio y debe ser numérico");
+        }
+        return n;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.services;
+
+/**
+ *
+ * @author dard
+ */
+import java.util.Arrays;
+
+/**
+ * Tabla hash compacta de clientes por {@code idCliente}, el lado de
+ * construcción de {@link SalesCustomerJoin}.
+ *
+ * <p>
+ * Los clientes se guardan en arreglos paralelos (clave, nombre, correo) y un
+ * índice de direccionamiento abierto con sondeo lineal lleva de la clave a su
+ * posición, sin cajas ({@code Integer}) ni una entrada por cliente. Lleva
+ * una estimación de los bytes que ocupa para que la unión pueda abandonarla
+ * al pasar su presupuesto.</p>
+ *
+ * <p>
+ * No es segura entre hilos: la construye y la consulta un solo hilo.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+final class CustomerTable {
+
+    /**
+     * Bytes aproximados por cliente sin contar los caracteres: clave, dos
+     * posiciones del índice, dos referencias y las cabeceras de dos
+     * {@code String} con sus arreglos.
+     */
+    static final int ENTRY_OVERHEAD_BYTES = 100;
+
+    private int[] ids = new int[1024];
+    private String[] names = new String[1024];
+    private String[] emails = new String[1024];
+    private int size;
+
+    /** Posición en los arreglos + 1; 0 = vacío */
+    private int[] slots = new int[2048];
+    private long bytes;
+
+    /**
+     * Agrega un cliente; si la clave ya estaba, conserva el primero.
+     *
+     * @param id clave del cliente
+     * @param name nombre
+     * @param email correo, o null
+     */
+    void put(int id, String name, String email) {
+        int mask = slots.length - 1;
+        int i = spread(id) & mask;
+        for (; slots[i] != 0; i = (i + 1) & mask) {
+            if (ids[slots[i] - 1] == id) {
+                return;
+            }
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            names = Arrays.copyOf(names, size * 2);
+            emails = Arrays.copyOf(emails, size * 2);
+        }
+        ids[size] = id;
+        names[size] = name;
+        emails[size] = email;
+        slots[i] = ++size;
+        bytes += ENTRY_OVERHEAD_BYTES + length(name) + length(email);
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+    }
+
+    /**
+     * @param id clave del cliente
+     * @return su posición, o -1 si no está
+     */
+    int find(int id) {
+        int mask = slots.length - 1;
+        for (int i = spread(id) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            if (ids[slots[i] - 1] == id) {
+                return slots[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    String name(int index) {
+        return names[index];
+    }
+
+    String email(int index) {
+        return emails[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return bytes aproximados que ocupan los clientes guardados
+     */
+    long bytes() {
+        return bytes;
+    }
+
+    private void rehash() {
+        int[] bigger = new int[slots.length * 2];
+        int mask = bigger.length - 1;
+        for (int index = 0; index < size; index++) {
+            int i = spread(ids[index]) & mask;
+            while (bigger[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            bigger[i] = index + 1;
+        }
+        slots = bigger;
+    }
+
+    private static int length(String s) {
+        return s == null ? 0 : s.length();
+    }
+
+    private static int spread(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,614 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.services;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.cache.ProductCache;
+import com.mycompany.bases.cache.ProductCache.CachedProduct;
+import com.mycompany.bases.config.DatabaseConfig;
+import com.mycompany.bases.db.ConnectionPool;
+import com.mycompany.bases.db.PooledConnection;
+import com.mycompany.bases.importer.ProductBulkLoader;
+import com.mycompany.bases.models.ProductPage;
+import com.mycompany.bases.models.Producto;
+import com.mycompany.bases.repository.ProductRepository;
+import com.mycompany.bases.search.ProductQuery;
+import com.mycompany.bases.search.ProductSearchIndex;
+import com.mycompany.bases.search.ProductSearchResult;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Operaciones sobre el catálogo de productos en Oracle: la implementación de
+ * {@link ProductRepository} que usa la aplicación conectada.
+ *
+ * <p>
+ * Mantiene la caché de precios usada al vender y el índice de búsqueda en
+ * memoria, y los actualiza en cada alta, cambio o baja. No lee de consola
+ * ni imprime, y es segura entre hilos.</p>
+ *
+ * <p>
+ * Lo que otros procesos cambian en Productos llega al índice de búsqueda al
+ * sincronizarlo ({@link #refreshSearchIndex()}): los productos nuevos en
+ * cada carga incremental, y los cambios y bajas solo en la recarga completa
+ * de cada {@link DatabaseConfig#SEARCH_INDEX_RECONCILE_MS}. Esa recarga
+ * arma un índice nuevo en segundo plano y lo pone en lugar del anterior al
+ * terminar, así que las búsquedas y las altas no la esperan.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class ProductService implements ProductRepository {
+
+    /**
+     * Máximo de elementos que Oracle acepta en una lista IN
+     */
+    private static final int MAX_IN_LIST = 1000;
+
+    private final ConnectionPool pool;
+
+    /**
+     * Caché de precios, nombres y REF de productos para valorizar ventas
+     */
+    private final ProductCache productCache = new ProductCache(
+            DatabaseConfig.PRODUCT_CACHE_SIZE, DatabaseConfig.PRODUCT_CACHE_TTL_MS);
+
+    /**
+     * Cambio de este proceso en el índice de búsqueda.
+     *
+     * @param idProducto ID del producto
+     * @param producto datos nuevos, o null si se dio de baja
+     */
+    private record IndexEdit(int idProducto, Producto producto) {
+
+        void applyTo(ProductSearchIndex index) {
+            if (producto == null) {
+                index.remove(idProducto);
+            } else {
+                index.add(producto);
+            }
+        }
+    }
+
+    /**
+     * Índice en memoria por categoría, color, talla y nombre. La recarga
+     * completa lo reemplaza por uno nuevo.
+     */
+    private volatile ProductSearchIndex searchIndex = new ProductSearchIndex();
+    private volatile long searchIndexRefreshedAt;
+    /** Serializa la primera carga del índice; las búsquedas la esperan */
+    private final Object searchIndexFirstLoad = new Object();
+    /**
+     * Mayor ID leído de Oracle al sincronizar el índice; las altas de este
+     * proceso no lo mueven. Este campo y los siguientes se protegen con el
+     * monitor del servicio.
+     */
+    private int searchIndexLoadedUpTo = Integer.MIN_VALUE;
+    private long searchIndexReconciledAt;
+    private boolean searchIndexReconciling;
+    /**
+     * Cambios de este proceso hechos mientras hay cargas del índice en curso
+     * ({@link #searchIndexLoads}); cada carga los aplica sobre lo que leyó,
+     * que puede ser anterior a ellos. Se vacía cuando no queda ninguna.
+     */
+    private final List<IndexEdit> searchIndexEdits = new ArrayList<>();
+    private int searchIndexLoads;
+
+    public ProductService(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Da de alta un producto en la tabla Productos. El ID sale de
+     * {@code producto_seq} y se obtiene con {@code RETURNING}.
+     *
+     * @param nombre nombre del producto
+     * @param categoria categoría
+     * @param color color
+     * @param talla talla
+     * @param precio precio unitario
+     * @return el producto creado, con su ID
+     * @throws SQLException si falla la inserción
+     */
+    @Override
+    public Producto addProduct(String nombre, String categoria, String color, String talla, double precio)
+            throws SQLException {
+        String sql = """
+                BEGIN
+                  INSERT INTO Productos VALUES (ProductoType(producto_seq.NEXTVAL, ?, ?, ?, ?, ?))
+                  RETURNING idProducto INTO ?;
+                END;""";
+
+        int idProducto;
+        try (PooledConnection conn = pool.borrow()) {
+            CallableStatement cstmt = conn.prepareCall(sql);
+            cstmt.setString(1, nombre);
+            cstmt.setDouble(2, precio);
+            cstmt.setString(3, color);
+            cstmt.setString(4, talla);
+            cstmt.setString(5, categoria);
+            cstmt.registerOutParameter(6, Types.INTEGER);
+
+            cstmt.execute();
+            idProducto = cstmt.getInt(6);
+        }
+        Producto producto = new Producto(idProducto, nombre, precio, color, talla, categoria);
+        // Un ID reutilizado tras un borrado no debe servir datos viejos
+        productCache.invalidate(idProducto);
+        indexProduct(producto);
+        return producto;
+    }
+
+    /**
+     * Busca un producto por su ID.
+     *
+     * @param idProducto ID del producto
+     * @return el producto, si existe
+     * @throws SQLException si falla la consulta
+     */
+    @Override
+    public Optional<Producto> findProduct(int idProducto) throws SQLException {
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement pstmt = conn.prepareStatement("""
+                    SELECT idProducto, nombre, precio, color, talla, categorias
+                    FROM Productos
+                    WHERE idProducto = ?""");
+            pstmt.setInt(1, idProducto);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return Optional.empty();
+                }
+                return Optional.of(new Producto(rs.getInt(1), rs.getString(2), rs.getDouble(3),
+                        rs.getString(4), rs.getString(5), rs.getString(6)));
+            }
+        }
+    }
+
+    /**
+     * Reemplaza los datos de un producto existente.
+     *
+     * @param producto datos nuevos; el ID indica el producto a modificar
+     * @return true si el producto existía
+     * @throws SQLException si falla la actualización
+     */
+    @Override
+    public boolean updateProduct(Producto producto) throws SQLException {
+        String sql = """
+                UPDATE Productos p
+                SET p.nombre = ?, p.precio = ?, p.color = ?, p.talla = ?, p.categorias = ?
+                WHERE p.idProducto = ?""";
+
+        int updated;
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement pstmt = conn.prepareStatement(sql);
+            pstmt.setString(1, producto.nombre());
+            pstmt.setDouble(2, producto.precio());
+            pstmt.setString(3, producto.color());
+            pstmt.setString(4, producto.talla());
+            pstmt.setString(5, producto.categoria());
+            pstmt.setInt(6, producto.idProducto());
+            updated = pstmt.executeUpdate();
+        }
+        productCache.invalidate(producto.idProducto());
+        if (updated > 0) {
+            indexProduct(producto);
+        }
+        return updated > 0;
+    }
+
+    /**
+     * Elimina un producto por su ID.
+     *
+     * @param idProducto ID del producto
+     * @return true si el producto existía
+     * @throws SQLException si falla el borrado
+     */
+    @Override
+    public boolean deleteProduct(int idProducto) throws SQLException {
+        int deleted;
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement pstmt = conn.prepareStatement("DELETE FROM Productos p WHERE p.idproducto = ?");
+            pstmt.setInt(1, idProducto);
+            deleted = pstmt.executeUpdate();
+        }
+        productCache.invalidate(idProducto);
+        unindexProduct(idProducto);
+        return deleted > 0;
+    }
+
+    /**
+     * Obtiene la página de productos con ID mayor a {@code afterId}.
+     *
+     * <p>
+     * La consulta proyecta solo las columnas mostradas y se apoya en la clave
+     * primaria: cada página cuesta lo mismo sin importar en qué parte del
+     * catálogo esté, a diferencia de recorrer o saltar filas con OFFSET. Se
+     * pide una fila extra para saber si hay página siguiente.</p>
+     *
+     * @param afterId último ID de la página anterior, o
+     * {@link Integer#MIN_VALUE} para la primera página
+     * @param pageSize productos por página
+     * @return la página, en orden ascendente de ID
+     * @throws SQLException si falla la consulta
+     */
+    @Override
+    public ProductPage listProductsAfter(int afterId, int pageSize) throws SQLException {
+        List<Producto> productos = fetchProductPage("""
+                SELECT idProducto, nombre, precio, color, talla, categorias
+                FROM Productos
+                WHERE idProducto > ?
+                ORDER BY idProducto
+                FETCH FIRST ? ROWS ONLY""", afterId, pageSize);
+
+        boolean hasNext = productos.size() > pageSize;
+        if (hasNext) {
+            productos.remove(productos.size() - 1);
+        }
+        return new ProductPage(productos, afterId != Integer.MIN_VALUE, hasNext);
+    }
+
+    /**
+     * Obtiene la página de productos con ID menor a {@code beforeId}, es decir,
+     * la página anterior a una ya mostrada. Si hay página siguiente se
+     * comprueba con una lectura aparte sobre la clave, porque los productos
+     * desde {@code beforeId} pudieron borrarse.
+     *
+     * @param beforeId primer ID de la página actual
+     * @param pageSize productos por página
+     * @return la página, en orden ascendente de ID
+     * @throws SQLException si falla la consulta
+     */
+    @Override
+    public ProductPage listProductsBefore(int beforeId, int pageSize) throws SQLException {
+        // Se recorre hacia atrás por la clave y luego se invierte el orden
+        List<Producto> productos = fetchProductPage("""
+                SELECT idProducto, nombre, precio, color, talla, categorias
+                FROM Productos
+                WHERE idProducto < ?
+                ORDER BY idProducto DESC
+                FETCH FIRST ? ROWS ONLY""", beforeId, pageSize);
+
+        boolean hasPrevious = productos.size() > pageSize;
+        if (hasPrevious) {
+            productos.remove(productos.size() - 1);
+        }
+        Collections.reverse(productos);
+        boolean hasNext = existsProductAfter(productos.isEmpty()
+                ? Integer.MIN_VALUE : productos.get(productos.size() - 1).idProducto());
+        return new ProductPage(productos, hasPrevious, hasNext);
+    }
+
+    private boolean existsProductAfter(int afterId) throws SQLException {
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT 1 FROM Productos WHERE idProducto > ? FETCH FIRST 1 ROWS ONLY");
+            pstmt.setInt(1, afterId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Ejecuta una consulta de página por clave pidiendo {@code pageSize + 1}
+     * filas.
+     */
+    private List<Producto> fetchProductPage(String sql, int cursor, int pageSize) throws SQLException {
+        List<Producto> productos = new ArrayList<>(pageSize + 1);
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement pstmt = conn.prepareStatement(sql);
+            // Toda la página llega en un solo viaje, acotado por la configuración
+            pstmt.setFetchSize(Math.min(pageSize + 1, DatabaseConfig.PRODUCT_FETCH_SIZE));
+            pstmt.setInt(1, cursor);
+            pstmt.setInt(2, pageSize + 1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    productos.add(new Producto(rs.getInt(1), rs.getString(2), rs.getDouble(3),
+                            rs.getString(4), rs.getString(5), rs.getString(6)));
+                }
+            }
+        }
+        return productos;
+    }
+
+    /**
+     * Resuelve una búsqueda en el índice de productos. Si el índice no se ha
+     * sincronizado en {@link DatabaseConfig#SEARCH_INDEX_REFRESH_MS}, antes
+     * carga de Oracle los productos nuevos.
+     *
+     * @param query filtros de la búsqueda
+     * @return productos encontrados y conteos por faceta
+     * @throws SQLException si falla la carga incremental
+     */
+    @Override
+    public ProductSearchResult searchProducts(ProductQuery query) throws SQLException {
+        if (System.currentTimeMillis() - searchIndexRefreshedAt > DatabaseConfig.SEARCH_INDEX_REFRESH_MS) {
+            refreshSearchIndex();
+        }
+        return searchIndex.search(query);
+    }
+
+    /**
+     * Sincroniza el índice con Oracle, recorriendo Productos por páginas de
+     * clave (keyset).
+     *
+     * <p>
+     * La primera llamada lee el catálogo completo, y quien busca la espera
+     * porque aún no hay índice. Las demás solo cargan los productos con ID
+     * mayor al último leído de Oracle, sin releer lo ya cargado; si pasó
+     * {@link DatabaseConfig#SEARCH_INDEX_RECONCILE_MS} desde la última lectura
+     * completa, además lanzan otra en segundo plano para recoger los cambios
+     * y bajas de otros procesos y los productos confirmados fuera de orden de
+     * ID.</p>
+     *
+     * @throws SQLException si falla la consulta
+     */
+    public void refreshSearchIndex() throws SQLException {
+        if (searchIndexRefreshedAt == 0) {
+            synchronized (searchIndexFirstLoad) {
+                if (searchIndexRefreshedAt == 0) {
+                    rebuildSearchIndex();
+                }
+            }
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        int lastId;
+        int editsFrom;
+        synchronized (this) {
+            lastId = searchIndexLoadedUpTo;
+            editsFrom = beginSearchIndexLoad();
+        }
+        try {
+            ProductPage page;
+            do {
+                page = listProductsAfter(lastId, DatabaseConfig.SEARCH_INDEX_LOAD_BATCH);
+                if (!page.productos().isEmpty()) {
+                    lastId = page.lastId();
+                    indexLoaded(page.productos(), lastId, editsFrom);
+                }
+            } while (page.hasNext());
+        } finally {
+            endSearchIndexLoad();
+        }
+        searchIndexRefreshedAt = now;
+
+        synchronized (this) {
+            if (searchIndexReconciling
+                    || now - searchIndexReconciledAt <= DatabaseConfig.SEARCH_INDEX_RECONCILE_MS) {
+                return;
+            }
+            searchIndexReconciling = true;
+        }
+        Thread.ofVirtual().name("indice-productos").start(() -> {
+            try {
+                rebuildSearchIndex();
+            } catch (SQLException | RuntimeException e) {
+                // Se reintenta en la siguiente sincronización
+                System.err.println("Índice de búsqueda: no se pudo recargar el catálogo: " + e.getMessage());
+            } finally {
+                synchronized (this) {
+                    searchIndexReconciling = false;
+                }
+            }
+        });
+    }
+
+    /**
+     * Lee el catálogo completo en un índice nuevo, sin candados, y lo pone
+     * en lugar del actual con una sola escritura. Antes se le aplican los
+     * cambios de este proceso hechos durante la lectura.
+     */
+    private void rebuildSearchIndex() throws SQLException {
+        long now = System.currentTimeMillis();
+        int editsFrom;
+        synchronized (this) {
+            editsFrom = beginSearchIndexLoad();
+        }
+        try {
+            ProductSearchIndex fresh = new ProductSearchIndex();
+            int lastId = Integer.MIN_VALUE;
+            ProductPage page;
+            do {
+                page = listProductsAfter(lastId, DatabaseConfig.SEARCH_INDEX_LOAD_BATCH);
+                fresh.addAll(page.productos());
+                if (!page.productos().isEmpty()) {
+                    lastId = page.lastId();
+                }
+            } while (page.hasNext());
+
+            synchronized (this) {
+                for (int i = editsFrom; i < searchIndexEdits.size(); i++) {
+                    searchIndexEdits.get(i).applyTo(fresh);
+                }
+                searchIndex = fresh;
+                searchIndexLoadedUpTo = Math.max(searchIndexLoadedUpTo, lastId);
+                searchIndexReconciledAt = now;
+            }
+        } finally {
+            endSearchIndexLoad();
+        }
+        searchIndexRefreshedAt = now;
+    }
+
+    /**
+     * Agrega al índice los productos de una carga incremental, salvo los que
+     * este proceso cambió después de que la carga empezó: lo leído puede ser
+     * anterior a ese cambio.
+     */
+    private synchronized void indexLoaded(List<Producto> productos, int lastId, int editsFrom) {
+        Set<Integer> edited = new HashSet<>();
+        for (int i = editsFrom; i < searchIndexEdits.size(); i++) {
+            edited.add(searchIndexEdits.get(i).idProducto());
+        }
+        List<Producto> nuevos = new ArrayList<>(productos.size());
+        for (Producto producto : productos) {
+            if (!edited.contains(producto.idProducto())) {
+                nuevos.add(producto);
+            }
+        }
+        searchIndex.addAll(nuevos);
+        if (searchIndexLoads > 0) {
+            // Una recarga completa en curso también debe verlos
+            for (Producto producto : nuevos) {
+                searchIndexEdits.add(new IndexEdit(producto.idProducto(), producto));
+            }
+        }
+        searchIndexLoadedUpTo = Math.max(searchIndexLoadedUpTo, lastId);
+    }
+
+    /**
+     * @return posición desde la que la carga debe aplicar los cambios de
+     * este proceso
+     */
+    private int beginSearchIndexLoad() {
+        searchIndexLoads++;
+        return searchIndexEdits.size();
+    }
+
+    private synchronized void endSearchIndexLoad() {
+        if (--searchIndexLoads == 0) {
+            searchIndexEdits.clear();
+        }
+    }
+
+    /**
+     * Las altas, cambios y bajas de este proceso entran al índice bajo el
+     * monitor del servicio y, si hay cargas en curso, quedan registradas para
+     * que estas no las pisen con datos leídos antes.
+     */
+    private synchronized void indexProduct(Producto producto) {
+        editSearchIndex(new IndexEdit(producto.idProducto(), producto));
+    }
+
+    private synchronized void unindexProduct(int idProducto) {
+        editSearchIndex(new IndexEdit(idProducto, null));
+    }
+
+    private void editSearchIndex(IndexEdit edit) {
+        edit.applyTo(searchIndex);
+        if (searchIndexLoads > 0) {
+            searchIndexEdits.add(edit);
+        }
+    }
+
+    /**
+     * Carga productos de forma masiva desde un archivo, continuando desde el
+     * último punto confirmado si una carga anterior quedó incompleta.
+     *
+     * @param file archivo de productos
+     * @return conteos y rendimiento de la carga
+     * @throws IOException si el archivo no se puede leer
+     * @throws SQLException si falla la inserción
+     * @see ProductBulkLoader
+     */
+    public ProductBulkLoader.LoadReport loadProducts(Path file) throws IOException, SQLException {
+        ProductBulkLoader.LoadReport report = new ProductBulkLoader(pool,
+                DatabaseConfig.PRODUCT_LOAD_BATCH_SIZE, DatabaseConfig.PRODUCT_LOAD_COMMIT_ROWS)
+                .load(file);
+        // Los productos nuevos tienen IDs mayores a los indexados: la carga
+        // incremental los agrega ya (o, si aún no hay índice, se construye)
+        refreshSearchIndex();
+        return report;
+    }
+
+    /**
+     * Obtiene precio, nombre, categoría y REF de varios productos, primero
+     * de la caché y el resto con una consulta sobre la conexión de la
+     * transacción en curso.
+     *
+     * @param conn conexión de la transacción
+     * @param ids IDs de producto, pueden repetirse
+     * @return mapa ID → datos del producto; los inexistentes no aparecen
+     * @throws SQLException si falla la consulta
+     */
+    Map<Integer, CachedProduct> getPrecios(PooledConnection conn, Collection<Integer> ids) throws SQLException {
+        return productCache.getAll(ids, missing -> fetchPrecios(conn, missing));
+    }
+
+    /**
+     * Como {@link #getPrecios(PooledConnection, Collection)}, fuera de una
+     * transacción: solo se pide una conexión al pool si falta algún producto
+     * en la caché.
+     *
+     * @param ids IDs de producto, pueden repetirse
+     * @return mapa ID → datos del producto; los inexistentes no aparecen
+     * @throws SQLException si falla la consulta o no hay conexión
+     */
+    Map<Integer, CachedProduct> getPrecios(Collection<Integer> ids) throws SQLException {
+        return productCache.getAll(ids, missing -> {
+            try (PooledConnection conn = pool.borrow()) {
+                return fetchPrecios(conn, missing);
+            }
+        });
+    }
+
+    /**
+     * Obtiene precio, nombre, categoría y REF de varios productos con una
+     * sola consulta.
+     *
+     * <p>
+     * La lista del {@code IN} se rellena repitiendo el último ID hasta la
+     * siguiente potencia de dos, así carritos de tamaños parecidos comparten
+     * el mismo texto SQL y la misma sentencia en caché.</p>
+     *
+     * @param conn conexión de la transacción en curso
+     * @param ids IDs de producto sin repetir
+     * @return mapa ID → datos del producto; los inexistentes no aparecen
+     * @throws SQLException si ocurre un error en la consulta
+     */
+    private Map<Integer, CachedProduct> fetchPrecios(PooledConnection conn, List<Integer> ids)
+            throws SQLException {
+        Map<Integer, CachedProduct> precios = new HashMap<>();
+        // Oracle admite como máximo 1000 elementos en una lista IN
+        for (int from = 0; from < ids.size(); from += MAX_IN_LIST) {
+            List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IN_LIST));
+            int slots = Math.min(MAX_IN_LIST, Integer.highestOneBit(chunk.size() * 2 - 1));
+
+            PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT p.idProducto, REF(p), p.precio, p.nombre, p.categorias FROM Productos p WHERE p.idProducto IN ("
+                    + "?, ".repeat(slots - 1) + "?)");
+            for (int i = 0; i < slots; i++) {
+                pstmt.setInt(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt(1);
+                    precios.put(id, new CachedProduct(id, rs.getString(4), rs.getDouble(3), rs.getRef(2),
+                            rs.getString(5)));
+                }
+            }
+        }
+        return precios;
+    }
+
+    /**
+     * Obtiene las métricas de la caché de productos (aciertos, fallos,
+     * vencimientos e invalidaciones).
+     *
+     * @return fotografía de las métricas de la caché
+     */
+    public ProductCache.Stats getProductCacheStats() {
+        return productCache.stats();
+    }
+}
@@ -0,0 +1,647 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.services;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.cache.ProductCache.CachedProduct;
+import com.mycompany.bases.config.DatabaseConfig;
+import com.mycompany.bases.db.ConnectionPool;
+import com.mycompany.bases.db.IndexRegistry;
+import com.mycompany.bases.db.PooledConnection;
+import com.mycompany.bases.models.DetalleVenta;
+import com.mycompany.bases.models.FilaReporteVentas;
+import com.mycompany.bases.models.LineaVenta;
+import com.mycompany.bases.models.ResultadoVenta;
+import com.mycompany.bases.models.Venta;
+import com.mycompany.bases.models.VentaPendiente;
+import com.mycompany.bases.models.VentaRegistrada;
+import com.mycompany.bases.repository.SaleListener;
+import com.mycompany.bases.repository.SaleRepository;
+import com.mycompany.bases.repository.UserRepository;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Registro y consulta de ventas en Oracle: la implementación de
+ * {@link SaleRepository} que usa la aplicación conectada.
+ *
+ * <p>
+ * Los precios se toman de la caché de {@link ProductService} y los nombres
+ * de cliente se resuelven en lote con el {@link UserRepository}. El reporte y
+ * los recorridos completos los hace {@link SalesReportService}. No lee de
+ * consola ni imprime, y es segura entre hilos.</p>
+ *
+ * <p>
+ * Las ventas confirmadas y eliminadas se avisan a los {@link SaleListener}
+ * registrados con {@link #addListener}.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class SaleService implements SaleRepository {
+
+    /**
+     * Paso que se ejecuta dentro de la transacción de
+     * {@link #createVentas}, antes del commit.
+     */
+    @FunctionalInterface
+    public interface TransactionStep {
+
+        /**
+         * @param conn conexión de la transacción; no debe confirmarla ni
+         * cerrarla
+         * @throws SQLException si falla; se deshace toda la transacción
+         */
+        void run(PooledConnection conn) throws SQLException;
+    }
+
+    /**
+     * Una venta insertada y aún sin confirmar.
+     *
+     * @param registrada lo que se avisa a los oyentes tras el commit, o null
+     * si no se insertó
+     */
+    private record Insercion(ResultadoVenta resultado, VentaRegistrada registrada) {
+
+    }
+
+    private static final String INSERT_DETALLE
+            = "INSERT INTO DetallesVenta VALUES (det_venta_seq.NEXTVAL, ?, ?, ?, ?, ?, ?)";
+
+    private final ConnectionPool pool;
+    private final ProductService products;
+    private final UserRepository users;
+    private final SalesReportService reports;
+    private final List<SaleListener> listeners = new CopyOnWriteArrayList<>();
+
+    public SaleService(ConnectionPool pool, ProductService products, UserRepository users) {
+        this.pool = pool;
+        this.products = products;
+        this.users = users;
+        this.reports = new SalesReportService(pool);
+    }
+
+    /**
+     * Registra un oyente que recibe las ventas confirmadas y eliminadas a
+     * partir de ahora.
+     *
+     * @param listener el oyente
+     */
+    @Override
+    public void addListener(SaleListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Registra una venta con todas sus líneas en una sola transacción.
+     *
+     * <p>
+     * Viajes a Oracle, independientemente del número de líneas:</p>
+     * <ol>
+     * <li>Precios, nombres y REF de los productos que no estén en la caché de
+     * productos, con una consulta {@code IN} (ninguna si todos están)</li>
+     * <li>Alta de la venta con su total ya calculado, obteniendo el ID y la
+     * fecha con {@code RETURNING}</li>
+     * <li>REF de la venta, una sola vez</li>
+     * <li>Alta de todos los detalles en un lote JDBC</li>
+     * <li>Commit</li>
+     * </ol>
+     *
+     * <p>
+     * Si falla cualquier paso se deshace todo: no quedan ventas sin detalles
+     * ni con un total incorrecto. Las líneas con productos inexistentes se
+     * omiten y se informan en el resultado.</p>
+     *
+     * @param idUsuario clave del cliente ({@code idCliente} en MongoDB)
+     * @param lineas productos y cantidades del carrito
+     * @return la venta registrada, o una con ID -1 si ninguna línea era válida
+     * @throws SQLException si Oracle rechaza alguna operación
+     */
+    @Override
+    public ResultadoVenta createVenta(int idUsuario, List<LineaVenta> lineas) throws SQLException {
+        try (PooledConnection conn = pool.borrow()) {
+            Connection tx = conn.getConnection();
+            tx.setAutoCommit(false);
+            try {
+                Map<Integer, CachedProduct> precios = products.getPrecios(conn,
+                        lineas.stream().map(LineaVenta::idProducto).toList());
+
+                Insercion venta;
+                PreparedStatement pstmtDetalle = conn.prepareStatement(INSERT_DETALLE);
+                try {
+                    venta = insertVenta(conn, precios, idUsuario, null, lineas, pstmtDetalle);
+                    if (venta.registrada() == null) {
+                        tx.rollback();
+                        return venta.resultado();
+                    }
+                    pstmtDetalle.executeBatch();
+                } finally {
+                    // La sentencia vuelve a la caché: no debe quedar con un lote a medias
+                    pstmtDetalle.clearBatch();
+                }
+
+                tx.commit();
+                notify(venta.registrada(), true);
+                return venta.resultado();
+            } catch (SQLException | RuntimeException e) {
+                tx.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Valoriza un carrito sin registrar nada, con los mismos precios que
+     * usaría {@link #createVenta}. Los productos de la caché no cuestan
+     * ninguna consulta; el resto se busca en Oracle.
+     *
+     * @param lineas productos y cantidades del carrito
+     * @return la valorización, siempre con ID -1; las líneas con productos
+     * inexistentes se omiten y se informan
+     * @throws SQLException si falla la consulta de los productos que no
+     * están en la caché
+     */
+    public ResultadoVenta cotizarVenta(List<LineaVenta> lineas) throws SQLException {
+        Map<Integer, CachedProduct> precios = products.getPrecios(
+                lineas.stream().map(LineaVenta::idProducto).toList());
+        List<DetalleVenta> detalles = new ArrayList<>(lineas.size());
+        List<Integer> noEncontrados = new ArrayList<>();
+        double total = 0;
+        for (LineaVenta linea : lineas) {
+            CachedProduct producto = precios.get(linea.idProducto());
+            if (producto == null) {
+                noEncontrados.add(linea.idProducto());
+                continue;
+            }
+            double subtotal = producto.precio() * linea.cantidad();
+            total += subtotal;
+            detalles.add(new DetalleVenta(linea.idProducto(), producto.nombre(),
+                    linea.cantidad(), producto.precio(), subtotal));
+        }
+        return new ResultadoVenta(-1, total, detalles, noEncontrados);
+    }
+
+    /**
+     * Registra varias ventas del diario de ventas en una sola transacción.
+     *
+     * <p>
+     * Los precios de todas las ventas se obtienen juntos y los detalles de
+     * todas van en un mismo lote JDBC; cada venta solo cuesta su alta y la
+     * lectura de su REF. {@code beforeCommit} se ejecuta sobre la misma
+     * conexión justo antes del commit, de modo que lo que escriba (el avance
+     * del diario) se confirma o se deshace junto con las ventas.</p>
+     *
+     * <p>
+     * Cada venta conserva la fecha con la que se registró en caja. Las que no
+     * tienen ninguna línea válida no se insertan y su resultado lleva ID
+     * -1.</p>
+     *
+     * @param ventas ventas a registrar, en orden
+     * @param beforeCommit paso final dentro de la transacción
+     * @return un resultado por venta, en el mismo orden
+     * @throws SQLException si Oracle rechaza alguna operación; no queda
+     * registrada ninguna de las ventas
+     */
+    public List<ResultadoVenta> createVentas(List<VentaPendiente> ventas, TransactionStep beforeCommit)
+            throws SQLException {
+        try (PooledConnection conn = pool.borrow()) {
+            Connection tx = conn.getConnection();
+            tx.setAutoCommit(false);
+            try {
+                List<Integer> ids = new ArrayList<>();
+                for (VentaPendiente venta : ventas) {
+                    venta.lineas().forEach(linea -> ids.add(linea.idProducto()));
+                }
+                Map<Integer, CachedProduct> precios = products.getPrecios(conn, ids);
+
+                List<Insercion> insertadas = new ArrayList<>(ventas.size());
+                PreparedStatement pstmtDetalle = conn.prepareStatement(INSERT_DETALLE);
+                try {
+                    for (VentaPendiente venta : ventas) {
+                        insertadas.add(insertVenta(conn, precios, venta.idUsuario(), venta.fecha(),
+                                venta.lineas(), pstmtDetalle));
+                    }
+                    pstmtDetalle.executeBatch();
+                } finally {
+                    pstmtDetalle.clearBatch();
+                }
+
+                beforeCommit.run(conn);
+                tx.commit();
+
+                List<ResultadoVenta> resultados = new ArrayList<>(insertadas.size());
+                for (Insercion venta : insertadas) {
+                    if (venta.registrada() != null) {
+                        notify(venta.registrada(), true);
+                    }
+                    resultados.add(venta.resultado());
+                }
+                return resultados;
+            } catch (SQLException | RuntimeException e) {
+                tx.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Valoriza el carrito, inserta la venta y agrega sus detalles al lote de
+     * {@code pstmtDetalle}, sin ejecutarlo ni confirmar.
+     *
+     * @param fecha fecha de la venta, o null para la del servidor
+     * @return el resultado; {@code registrada} es null si ninguna línea era
+     * válida y no se insertó nada
+     */
+    private Insercion insertVenta(PooledConnection conn, Map<Integer, CachedProduct> precios, int idUsuario,
+            LocalDateTime fecha, List<LineaVenta> lineas, PreparedStatement pstmtDetalle) throws SQLException {
+        List<DetalleVenta> detalles = new ArrayList<>(lineas.size());
+        List<Ref> refsProducto = new ArrayList<>(lineas.size());
+        List<Integer> noEncontrados = new ArrayList<>();
+        List<VentaRegistrada.Linea> lineasRegistradas = new ArrayList<>(lineas.size());
+        double total = 0;
+        for (LineaVenta linea : lineas) {
+            CachedProduct producto = precios.get(linea.idProducto());
+            if (producto == null) {
+                noEncontrados.add(linea.idProducto());
+                continue;
+            }
+            double subtotal = producto.precio() * linea.cantidad();
+            total += subtotal;
+            detalles.add(new DetalleVenta(linea.idProducto(), producto.nombre(),
+                    linea.cantidad(), producto.precio(), subtotal));
+            refsProducto.add(producto.ref());
+            lineasRegistradas.add(new VentaRegistrada.Linea(linea.idProducto(), producto.categoria(),
+                    linea.cantidad(), subtotal));
+        }
+
+        if (detalles.isEmpty()) {
+            return new Insercion(new ResultadoVenta(-1, 0, List.of(), noEncontrados), null);
+        }
+
+        // El total ya se conoce: la venta se inserta completa y no
+        // hace falta el UPDATE final
+        CallableStatement insertVenta = conn.prepareCall("""
+                BEGIN
+                  INSERT INTO Ventas VALUES (VentaType(venta_seq.NEXTVAL, NVL(?, SYSDATE), ?, ?))
+                  RETURNING idVenta, fecha INTO ?, ?;
+                END;""");
+        if (fecha == null) {
+            insertVenta.setNull(1, Types.TIMESTAMP);
+        } else {
+            insertVenta.setTimestamp(1, Timestamp.valueOf(fecha));
+        }
+        insertVenta.setDouble(2, total);
+        insertVenta.setInt(3, idUsuario);
+        insertVenta.registerOutParameter(4, Types.INTEGER);
+        insertVenta.registerOutParameter(5, Types.TIMESTAMP);
+        insertVenta.execute();
+        int idVenta = insertVenta.getInt(4);
+        Timestamp registrada = insertVenta.getTimestamp(5);
+
+        Ref refVenta;
+        PreparedStatement pstmtVenta = conn.prepareStatement(
+                "SELECT REF(v) FROM Ventas v WHERE v.idVenta = ?");
+        pstmtVenta.setInt(1, idVenta);
+        try (ResultSet rs = pstmtVenta.executeQuery()) {
+            if (!rs.next()) {
+                throw new SQLException("Venta recién creada no encontrada: " + idVenta);
+            }
+            refVenta = rs.getRef(1);
+        }
+
+        for (int i = 0; i < detalles.size(); i++) {
+            DetalleVenta detalle = detalles.get(i);
+            pstmtDetalle.setInt(1, detalle.cantidad());
+            pstmtDetalle.setDouble(2, detalle.subtotal());
+            pstmtDetalle.setRef(3, refVenta);
+            pstmtDetalle.setRef(4, refsProducto.get(i));
+            // Producto y categoría quedan en el detalle para restar la venta al eliminarla
+            pstmtDetalle.setInt(5, detalle.idProducto());
+            pstmtDetalle.setString(6, lineasRegistradas.get(i).categoria());
+            pstmtDetalle.addBatch();
+        }
+
+        return new Insercion(new ResultadoVenta(idVenta, total, detalles, noEncontrados),
+                new VentaRegistrada(idVenta, idUsuario, registrada == null ? null : registrada.toLocalDateTime(),
+                        lineasRegistradas));
+    }
+
+    /**
+     * Busca una venta por su ID junto con sus detalles y el nombre del
+     * cliente.
+     *
+     * @param idVenta ID de la venta
+     * @return la venta, si existe
+     * @throws SQLException si falla la consulta
+     */
+    @Override
+    public Optional<Venta> findVenta(int idVenta) throws SQLException {
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT idVenta, fecha, total, usuario FROM Ventas WHERE idVenta = ?");
+            pstmt.setInt(1, idVenta);
+
+            java.sql.Date fecha;
+            double total;
+            int idCliente;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return Optional.empty();
+                }
+                fecha = rs.getDate(2);
+                total = rs.getDouble(3);
+                idCliente = rs.getInt(4);
+            }
+
+            List<DetalleVenta> detalles = new ArrayList<>();
+            PreparedStatement pstmtDetalles = conn.prepareStatement(IndexRegistry.DETALLES_VENTA_SQL);
+            pstmtDetalles.setInt(1, idVenta);
+            try (ResultSet rs = pstmtDetalles.executeQuery()) {
+                while (rs.next()) {
+                    int cantidad = rs.getInt(3);
+                    double subtotal = rs.getDouble(4);
+                    // Precio al momento de la venta, no el actual del catálogo
+                    double precio = cantidad == 0 ? 0 : subtotal / cantidad;
+                    detalles.add(new DetalleVenta(rs.getInt(1), rs.getString(2), cantidad, precio, subtotal));
+                }
+            }
+
+            return Optional.of(new Venta(idVenta, fecha == null ? null : fecha.toLocalDate(), total,
+                    idCliente, users.findUserNameById(idCliente), detalles));
+        }
+    }
+
+    /**
+     * Obtiene las ventas con ID mayor a {@code afterId}, sin sus detalles.
+     *
+     * <p>
+     * Recorre Ventas por su clave primaria y resuelve los clientes distintos
+     * de la página con una sola consulta a MongoDB, en lugar de una por
+     * venta.</p>
+     *
+     * @param afterId último ID de la página anterior, o
+     * {@link Integer#MIN_VALUE} para la primera
+     * @param pageSize ventas por página
+     * @return la página, en orden ascendente de ID; si tiene menos de
+     * {@code pageSize} ventas es la última
+     * @throws SQLException si falla la consulta
+     */
+    @Override
+    public List<Venta> listVentas(int afterId, int pageSize) throws SQLException {
+        record Fila(int id, java.sql.Date fecha, double total, int usuario) {
+
+        }
+
+        List<Fila> filas = new ArrayList<>(pageSize);
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement pstmt = conn.prepareStatement("""
+                    SELECT idVenta, fecha, total, usuario
+                    FROM Ventas
+                    WHERE idVenta > ?
+                    ORDER BY idVenta
+                    FETCH FIRST ? ROWS ONLY""");
+            pstmt.setFetchSize(pageSize);
+            pstmt.setInt(1, afterId);
+            pstmt.setInt(2, pageSize);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    filas.add(new Fila(rs.getInt(1), rs.getDate(2), rs.getDouble(3), rs.getInt(4)));
+                }
+            }
+        }
+
+        Map<Integer, String> nombres = users.findUserNamesByIds(filas.stream().map(Fila::usuario).toList());
+        List<Venta> ventas = new ArrayList<>(filas.size());
+        for (Fila fila : filas) {
+            ventas.add(new Venta(fila.id(), fila.fecha() == null ? null : fila.fecha().toLocalDate(),
+                    fila.total(), fila.usuario(), nombres.get(fila.usuario()), List.of()));
+        }
+        return ventas;
+    }
+
+    /**
+     * Obtiene las ventas de un cliente con una consulta sobre el índice
+     * {@code ventas_usuario_idx}.
+     *
+     * @param idCliente clave del cliente
+     * @return sus ventas, en orden ascendente de ID
+     * @throws SQLException si falla la consulta
+     */
+    @Override
+    public List<Venta> listVentasByCliente(int idCliente) throws SQLException {
+        List<Venta> ventas = new ArrayList<>();
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement pstmt = conn.prepareStatement(IndexRegistry.VENTAS_CLIENTE_SQL);
+            pstmt.setInt(1, idCliente);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    java.sql.Date fecha = rs.getDate(2);
+                    ventas.add(new Venta(rs.getInt(1), fecha == null ? null : fecha.toLocalDate(),
+                            rs.getDouble(3), idCliente, null, List.of()));
+                }
+            }
+        }
+        return ventas;
+    }
+
+    /**
+     * Verifica si existe una venta con el ID especificado.
+     *
+     * @param idVenta el ID de la venta a verificar
+     * @return true si la venta existe
+     * @throws SQLException si falla la consulta
+     */
+    @Override
+    public boolean ventaExists(int idVenta) throws SQLException {
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement pstmt = conn.prepareStatement("SELECT COUNT(*) FROM Ventas WHERE idVenta = ?");
+            pstmt.setInt(1, idVenta);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    /**
+     * Elimina una venta por su ID.
+     *
+     * <p>
+     * La lectura y el borrado de la venta y de sus filas de DetallesVenta
+     * van en una transacción que bloquea la venta.
+     * Si hay oyentes registrados, antes de borrar se leen la fecha y las
+     * líneas de la venta para poder avisarles qué se eliminó.</p>
+     *
+     * @param idVenta ID de la venta
+     * @return true si la venta existía
+     * @throws SQLException si falla el borrado
+     */
+    @Override
+    public boolean deleteVenta(int idVenta) throws SQLException {
+        try (PooledConnection conn = pool.borrow()) {
+            Connection tx = conn.getConnection();
+            tx.setAutoCommit(false);
+            try {
+                // La venta queda bloqueada entre la lectura y el DELETE: lo
+                // que se resta a los oyentes es exactamente lo que se borra
+                VentaRegistrada eliminada = readVentaRegistrada(conn, idVenta, !listeners.isEmpty());
+                if (eliminada == null) {
+                    tx.rollback();
+                    return false;
+                }
+
+                // Oracle no borra en cascada las filas que apuntan a la venta
+                // con un REF: los detalles se quitan antes, en la misma
+                // transacción
+                PreparedStatement detalles = conn.prepareStatement("""
+                        DELETE FROM DetallesVenta dv
+                        WHERE dv.venta = (SELECT REF(v) FROM Ventas v WHERE v.idVenta = ?)""");
+                detalles.setInt(1, idVenta);
+                detalles.executeUpdate();
+
+                PreparedStatement pstmt = conn.prepareStatement("DELETE FROM Ventas v WHERE v.idVenta = ?");
+                pstmt.setInt(1, idVenta);
+                boolean deleted = pstmt.executeUpdate() > 0;
+                tx.commit();
+                if (deleted) {
+                    notify(eliminada, false);
+                }
+                return deleted;
+            } catch (SQLException | RuntimeException e) {
+                tx.rollback();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public long countVentas() throws SQLException {
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement pstmt = conn.prepareStatement("SELECT COUNT(*) FROM Ventas");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Recorre las ventas con una sola consulta que Oracle entrega en viajes
+     * de {@link DatabaseConfig#JOIN_FETCH_SIZE} filas.
+     *
+     * @param action acción por venta; se ejecuta en el hilo que llama
+     * @return ventas entregadas
+     * @throws SQLException si falla la consulta
+     */
+    @Override
+    public long scanVentaHeaders(Consumer<Venta> action) throws SQLException {
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT idVenta, fecha, total, usuario FROM Ventas ORDER BY idVenta");
+            pstmt.setFetchSize(DatabaseConfig.JOIN_FETCH_SIZE);
+            long count = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    java.sql.Date fecha = rs.getDate(2);
+                    action.accept(new Venta(rs.getInt(1), fecha == null ? null : fecha.toLocalDate(),
+                            rs.getDouble(3), rs.getInt(4), null, List.of()));
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * @see SalesReportService#scanVentas(Consumer)
+     */
+    @Override
+    public long scanVentas(Consumer<VentaRegistrada> action) throws SQLException {
+        return reports.scanVentas(action);
+    }
+
+    /**
+     * @see SalesReportService#salesReport(LocalDate, LocalDate, Consumer)
+     */
+    @Override
+    public long salesReport(LocalDate desde, LocalDate hasta, Consumer<FilaReporteVentas> action)
+            throws SQLException {
+        return reports.salesReport(desde, hasta, action);
+    }
+
+    /**
+     * Lee y bloquea ({@code FOR UPDATE}) una venta con sus líneas tal como la
+     * reciben los oyentes. Las líneas salen del producto y la categoría
+     * guardados en cada detalle, igual que en
+     * {@link SalesReportService#scanVentas}, así que restan lo mismo que se
+     * sumó aunque el producto haya cambiado o ya no exista.
+     *
+     * @param withLines false para leer solo el encabezado
+     * @return la venta, o null si no existe
+     */
+    private VentaRegistrada readVentaRegistrada(PooledConnection conn, int idVenta, boolean withLines)
+            throws SQLException {
+        PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT fecha, usuario FROM Ventas WHERE idVenta = ? FOR UPDATE");
+        pstmt.setInt(1, idVenta);
+        LocalDateTime fecha;
+        int idUsuario;
+        try (ResultSet rs = pstmt.executeQuery()) {
+            if (!rs.next()) {
+                return null;
+            }
+            Timestamp ts = rs.getTimestamp(1);
+            fecha = ts == null ? null : ts.toLocalDateTime();
+            idUsuario = rs.getInt(2);
+        }
+
+        List<VentaRegistrada.Linea> lineas = new ArrayList<>();
+        if (withLines) {
+            PreparedStatement pstmtLineas = conn.prepareStatement("""
+                    SELECT dv.idProducto, dv.categoria, dv.cantidad, dv.subtotal
+                    FROM DetallesVenta dv
+                    WHERE dv.venta = (SELECT REF(v) FROM Ventas v WHERE v.idVenta = ?)
+                      AND dv.idProducto IS NOT NULL""");
+            pstmtLineas.setInt(1, idVenta);
+            try (ResultSet rs = pstmtLineas.executeQuery()) {
+                while (rs.next()) {
+                    lineas.add(new VentaRegistrada.Linea(rs.getInt(1), rs.getString(2), rs.getInt(3),
+                            rs.getDouble(4)));
+                }
+            }
+        }
+        return new VentaRegistrada(idVenta, idUsuario, fecha, lineas);
+    }
+
+    private void notify(VentaRegistrada venta, boolean registrada) {
+        for (SaleListener listener : listeners) {
+            try {
+                if (registrada) {
+                    listener.ventaRegistrada(venta);
+                } else {
+                    listener.ventaEliminada(venta);
+                }
+            } catch (RuntimeException e) {
+                // La operación ya se confirmó en Oracle; un oyente no la revierte
+                System.err.println("Error al avisar la venta " + venta.idVenta() + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.services;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.config.DatabaseConfig;
+import com.mycompany.bases.models.Usuario;
+import com.mycompany.bases.models.Venta;
+import com.mycompany.bases.models.VentaCliente;
+import com.mycompany.bases.repository.SaleRepository;
+import com.mycompany.bases.repository.UserRepository;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Une las ventas con sus clientes sin consultar el almacén de usuarios por
+ * cada venta. Solo usa {@link SaleRepository} y {@link UserRepository}, así
+ * que une igual las ventas de Oracle con los clientes de MongoDB que las de
+ * los almacenes en memoria.
+ *
+ * <p>
+ * Hay dos estrategias, y se elige la más barata antes de empezar:</p>
+ * <ul>
+ * <li>{@link Strategy#HASH}: se recorren los usuarios una vez, pidiendo solo
+ * clave, nombre y correo, y se arma una {@link CustomerTable} en memoria.
+ * Luego se recorren todas las ventas (en Oracle, en viajes grandes) y cada
+ * fila se completa con una búsqueda en la tabla. Se usa cuando hay menos usuarios que ventas y la
+ * tabla cabe en {@link DatabaseConfig#JOIN_MEMORY_BUDGET_BYTES}.</li>
+ * <li>{@link Strategy#BATCHED_LOOKUP}: las ventas se recorren igual, pero las
+ * filas se agrupan en lotes y los clientes de cada lote se resuelven con una
+ * sola consulta ({@code $in} en MongoDB). Se usa cuando hay más usuarios que ventas, cuando
+ * la tabla no cabría en el presupuesto, o cuando se pasa de él mientras se
+ * construye (entonces se descarta lo construido).</li>
+ * </ul>
+ *
+ * <p>
+ * En ambos casos las filas se entregan en orden de ID de venta y en ningún
+ * momento se tiene en memoria más que la tabla de clientes o un lote.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class SalesCustomerJoin {
+
+    /**
+     * Cómo se resolvieron los clientes.
+     */
+    public enum Strategy {
+        /** Tabla hash construida con todos los clientes */
+        HASH,
+        /** Una consulta {@code $in} por lote de ventas */
+        BATCHED_LOOKUP
+    }
+
+    /**
+     * Resultado de una unión.
+     *
+     * @param strategy estrategia usada
+     * @param rows ventas entregadas
+     * @param unmatched ventas cuyo cliente no existe
+     * @param buildSize clientes en la tabla hash; 0 con búsquedas por lote
+     */
+    public record JoinReport(Strategy strategy, long rows, long unmatched, int buildSize) {
+
+    }
+
+    private static final String CSV_HEADER = "idVenta,fecha,total,idCliente,nombre,email";
+
+    private final SaleRepository sales;
+    private final UserRepository users;
+    private final long memoryBudget;
+
+    /**
+     * @param sales ventas
+     * @param users usuarios
+     * @param memoryBudget bytes que puede ocupar la tabla de clientes
+     */
+    public SalesCustomerJoin(SaleRepository sales, UserRepository users, long memoryBudget) {
+        this.sales = sales;
+        this.users = users;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Entrega todas las ventas con los datos de su cliente, en orden de ID.
+     *
+     * @param sink acción por venta; se ejecuta en el hilo que llama,
+     * conforme se leen las filas
+     * @return estrategia y conteos
+     * @throws SQLException si falla la lectura de las ventas
+     */
+    public JoinReport join(Consumer<VentaCliente> sink) throws SQLException {
+        CustomerTable table = null;
+        long estimatedUsers = users.estimatedUserCount();
+        if (estimatedUsers * CustomerTable.ENTRY_OVERHEAD_BYTES <= memoryBudget && estimatedUsers <= sales.countVentas()) {
+            table = build();
+        }
+        return table != null ? probe(table, sink) : lookupInBatches(sink);
+    }
+
+    /**
+     * Escribe la unión en un archivo CSV (UTF-8, separado por comas), primero
+     * en un temporal que luego se renombra.
+     *
+     * @param file archivo de destino; se reemplaza si existe
+     * @return estrategia y conteos
+     * @throws IOException si no se puede escribir el archivo
+     * @throws SQLException si falla la lectura de las ventas
+     */
+    public JoinReport export(Path file) throws IOException, SQLException {
+        Path target = file.toAbsolutePath();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        JoinReport report;
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            out.write(CSV_HEADER);
+            out.newLine();
+            report = join(venta -> {
+                try {
+                    out.write(csvLine(venta));
+                    out.newLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(tmp);
+            throw e.getCause();
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return report;
+    }
+
+    /**
+     * Construye la tabla de clientes, o devuelve null si pasa del
+     * presupuesto.
+     */
+    private CustomerTable build() {
+        CustomerTable table = new CustomerTable();
+        boolean complete = users.scanCustomers(usuario -> {
+            if (usuario.idCliente() >= 0) {
+                table.put((int) usuario.idCliente(), usuario.nombre(), usuario.email());
+            }
+            return table.bytes() <= memoryBudget;
+        });
+        return complete ? table : null;
+    }
+
+    private JoinReport probe(CustomerTable table, Consumer<VentaCliente> sink) throws SQLException {
+        long[] counts = new long[2];
+        sales.scanVentaHeaders(venta -> {
+            int index = table.find(venta.idCliente());
+            if (index < 0) {
+                counts[1]++;
+            }
+            sink.accept(toVentaCliente(venta, index < 0 ? null : table.name(index),
+                    index < 0 ? null : table.email(index)));
+            counts[0]++;
+        });
+        return new JoinReport(Strategy.HASH, counts[0], counts[1], table.size());
+    }
+
+    private JoinReport lookupInBatches(Consumer<VentaCliente> sink) throws SQLException {
+        long[] counts = new long[2];
+        List<Venta> batch = new ArrayList<>(DatabaseConfig.JOIN_LOOKUP_BATCH_SIZE);
+        Consumer<List<Venta>> lookup = rows -> {
+            Set<Integer> ids = new HashSet<>();
+            for (Venta venta : rows) {
+                ids.add(venta.idCliente());
+            }
+            Map<Integer, Usuario> customers = users.findCustomersByIds(ids);
+            for (Venta venta : rows) {
+                Usuario usuario = customers.get(venta.idCliente());
+                if (usuario == null) {
+                    counts[1]++;
+                }
+                sink.accept(toVentaCliente(venta, usuario == null ? null : usuario.nombre(),
+                        usuario == null ? null : usuario.email()));
+                counts[0]++;
+            }
+            rows.clear();
+        };
+        sales.scanVentaHeaders(venta -> {
+            batch.add(venta);
+            if (batch.size() == DatabaseConfig.JOIN_LOOKUP_BATCH_SIZE) {
+                lookup.accept(batch);
+            }
+        });
+        if (!batch.isEmpty()) {
+            lookup.accept(batch);
+        }
+        return new JoinReport(Strategy.BATCHED_LOOKUP, counts[0], counts[1], 0);
+    }
+
+    private static VentaCliente toVentaCliente(Venta venta, String nombre, String email) {
+        return new VentaCliente(venta.idVenta(), venta.fecha(), venta.total(), venta.idCliente(), nombre, email);
+    }
+
+    private static String csvLine(VentaCliente venta) {
+        return String.format(Locale.ROOT, "%d,%s,%.2f,%d,%s,%s",
+                venta.idVenta(), venta.fecha() == null ? "" : venta.fecha(), venta.total(), venta.idCliente(),
+                venta.nombre() == null ? "" : SalesReportService.csvField(venta.nombre()),
+                venta.email() == null ? "" : SalesReportService.csvField(venta.email()));
+    }
+}
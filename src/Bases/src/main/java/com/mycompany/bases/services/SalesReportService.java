@@ -0,0 +1,283 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.services;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.config.DatabaseConfig;
+import com.mycompany.bases.db.ConnectionPool;
+import com.mycompany.bases.db.PooledConnection;
+import com.mycompany.bases.models.FilaReporteVentas;
+import com.mycompany.bases.models.FilaReporteVentas.Nivel;
+import com.mycompany.bases.models.VentaRegistrada;
+import com.mycompany.bases.repository.SaleRepository;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Reporte de ventas por día, por categoría y por producto.
+ *
+ * <p>
+ * Todo el reporte sale de una sola consulta: DetallesVenta se une con
+ * Ventas y Productos por sus REF y se agrega con {@code GROUPING SETS}, de
+ * modo que Oracle recorre los detalles del periodo una vez y devuelve los
+ * cuatro niveles juntos. La participación y la posición dentro de cada
+ * nivel se calculan en el servidor con funciones analíticas
+ * ({@code RATIO_TO_REPORT} y {@code RANK}) sobre el resultado agrupado. El
+ * cliente no suma nada: cada fila se entrega en cuanto llega del cursor.</p>
+ *
+ * <p>
+ * Solo se cuentan los detalles cuyos productos siguen en la tabla
+ * Productos, que es de donde {@link SaleService} toma las REF al vender.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class SalesReportService {
+
+    /**
+     * Valor de {@code GROUPING_ID(dia, categoria, producto)} de cada nivel:
+     * un bit en 1 por columna que el nivel no agrupa.
+     */
+    private static final int GROUPING_DIA = 0b011;
+    private static final int GROUPING_CATEGORIA = 0b101;
+    private static final int GROUPING_PRODUCTO = 0b110;
+
+    private static final String REPORT_SQL = """
+            SELECT nivel, dia, categoria, idProducto, nombre, ingresos, unidades, tickets,
+                   ingresos / NULLIF(tickets, 0) AS ticketPromedio, participacion, posicion
+            FROM (
+                SELECT GROUPING_ID(TRUNC(v.fecha), p.categorias, p.idProducto) AS nivel,
+                       TRUNC(v.fecha) AS dia,
+                       p.categorias AS categoria,
+                       p.idProducto,
+                       p.nombre,
+                       SUM(dv.subtotal) AS ingresos,
+                       SUM(dv.cantidad) AS unidades,
+                       COUNT(DISTINCT v.idVenta) AS tickets,
+                       RATIO_TO_REPORT(SUM(dv.subtotal)) OVER (
+                           PARTITION BY GROUPING_ID(TRUNC(v.fecha), p.categorias, p.idProducto)) AS participacion,
+                       RANK() OVER (
+                           PARTITION BY GROUPING_ID(TRUNC(v.fecha), p.categorias, p.idProducto)
+                           ORDER BY SUM(dv.subtotal) DESC) AS posicion
+                FROM DetallesVenta dv
+                JOIN Ventas v ON dv.venta = REF(v)
+                JOIN Productos p ON dv.producto = REF(p)
+                WHERE v.fecha >= ? AND v.fecha < ?
+                GROUP BY GROUPING SETS ((TRUNC(v.fecha)), (p.categorias), (p.idProducto, p.nombre), ())
+            )
+            ORDER BY nivel, dia, posicion, idProducto""";
+
+    private static final String SCAN_SQL = """
+            SELECT v.idVenta, v.fecha, v.usuario, dv.idProducto, dv.categoria, dv.cantidad, dv.subtotal
+            FROM Ventas v
+            LEFT JOIN DetallesVenta dv ON dv.venta = REF(v) AND dv.idProducto IS NOT NULL
+            ORDER BY v.idVenta""";
+
+    private static final String CSV_HEADER
+            = "nivel,clave,ingresos,unidades,tickets,ticket_promedio,participacion,posicion";
+
+    private final ConnectionPool pool;
+
+    public SalesReportService(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Calcula el reporte de un periodo y entrega sus filas en orden: los días
+     * en orden cronológico, luego las categorías y los productos de mayor a
+     * menor ingreso, y al final el total. Si no hubo ventas no se entrega
+     * ninguna fila.
+     *
+     * @param desde primer día, incluido
+     * @param hasta último día, incluido
+     * @param action acción por fila; se ejecuta conforme llegan del cursor
+     * @return filas entregadas
+     * @throws SQLException si falla la consulta
+     */
+    public long salesReport(LocalDate desde, LocalDate hasta, Consumer<FilaReporteVentas> action)
+            throws SQLException {
+        if (hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("El periodo termina antes de empezar: " + desde + " a " + hasta);
+        }
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement pstmt = conn.prepareStatement(REPORT_SQL);
+            pstmt.setFetchSize(DatabaseConfig.SALES_REPORT_FETCH_SIZE);
+            pstmt.setDate(1, Date.valueOf(desde));
+            pstmt.setDate(2, Date.valueOf(hasta.plusDays(1)));
+
+            long count = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(toFila(rs));
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Escribe el reporte de un periodo en un archivo CSV (UTF-8, separado
+     * por comas). Se escribe primero un archivo temporal y luego se
+     * renombra, para no dejar un reporte a medias si algo falla.
+     *
+     * <p>
+     * Las filas las calcula el repositorio de ventas, así que sirve igual
+     * con Oracle que con el almacén en memoria.</p>
+     *
+     * @param sales repositorio de ventas
+     * @param desde primer día, incluido
+     * @param hasta último día, incluido
+     * @param file archivo de destino; se reemplaza si existe
+     * @return filas escritas, sin contar el encabezado
+     * @throws IOException si no se puede escribir el archivo
+     * @throws SQLException si falla la consulta
+     */
+    public static long exportSalesReport(SaleRepository sales, LocalDate desde, LocalDate hasta, Path file)
+            throws IOException, SQLException {
+        Path target = file.toAbsolutePath();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        long count;
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            out.write(CSV_HEADER);
+            out.newLine();
+            count = sales.salesReport(desde, hasta, fila -> {
+                try {
+                    out.write(csvLine(fila));
+                    out.newLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(tmp);
+            throw e.getCause();
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /**
+     * Recorre todas las ventas con sus líneas, en orden de ID, con una sola
+     * consulta que Oracle entrega en viajes grandes. Las líneas de cada venta
+     * llegan juntas y se agrupan conforme se leen, sin cargar el resto en
+     * memoria.
+     *
+     * <p>
+     * Las líneas llevan el producto y la categoría guardados en cada detalle
+     * al vender, no los actuales del catálogo, así que cuentan lo mismo que
+     * se restará si la venta se elimina. Una venta sin detalles se entrega
+     * sin líneas.</p>
+     *
+     * @param action acción por venta; se ejecuta en el hilo que llama
+     * @return ventas entregadas
+     * @throws SQLException si falla la consulta
+     */
+    public long scanVentas(Consumer<VentaRegistrada> action) throws SQLException {
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement pstmt = conn.prepareStatement(SCAN_SQL);
+            pstmt.setFetchSize(DatabaseConfig.ROLLUP_REBUILD_FETCH_SIZE);
+
+            long count = 0;
+            boolean pending = false;
+            int idVenta = 0;
+            int idUsuario = 0;
+            LocalDateTime fecha = null;
+            List<VentaRegistrada.Linea> lineas = new ArrayList<>();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt(1);
+                    if (pending && id != idVenta) {
+                        action.accept(new VentaRegistrada(idVenta, idUsuario, fecha, List.copyOf(lineas)));
+                        lineas.clear();
+                        count++;
+                        pending = false;
+                    }
+                    if (!pending) {
+                        idVenta = id;
+                        Timestamp ts = rs.getTimestamp(2);
+                        fecha = ts == null ? null : ts.toLocalDateTime();
+                        idUsuario = rs.getInt(3);
+                        pending = true;
+                    }
+                    int idProducto = rs.getInt(4);
+                    // Sin detalles, la unión externa deja la fila de la venta sola
+                    if (!rs.wasNull()) {
+                        lineas.add(new VentaRegistrada.Linea(idProducto, rs.getString(5), rs.getInt(6),
+                                rs.getDouble(7)));
+                    }
+                }
+            }
+            if (pending) {
+                action.accept(new VentaRegistrada(idVenta, idUsuario, fecha, List.copyOf(lineas)));
+                count++;
+            }
+            return count;
+        }
+    }
+
+    private static FilaReporteVentas toFila(ResultSet rs) throws SQLException {
+        int grouping = rs.getInt(1);
+        Nivel nivel = switch (grouping) {
+            case GROUPING_DIA ->
+                Nivel.DIA;
+            case GROUPING_CATEGORIA ->
+                Nivel.CATEGORIA;
+            case GROUPING_PRODUCTO ->
+                Nivel.PRODUCTO;
+            default ->
+                Nivel.TOTAL;
+        };
+        Date dia = rs.getDate(2);
+        int idProducto = rs.getInt(4);
+        Integer producto = rs.wasNull() ? null : idProducto;
+        return new FilaReporteVentas(nivel,
+                dia == null ? null : dia.toLocalDate(),
+                rs.getString(3),
+                producto,
+                rs.getString(5),
+                rs.getDouble(6),
+                rs.getLong(7),
+                rs.getLong(8),
+                rs.getDouble(9),
+                rs.getDouble(10),
+                rs.getInt(11));
+    }
+
+    private static String csvLine(FilaReporteVentas fila) {
+        return String.format(Locale.ROOT, "%s,%s,%.2f,%d,%d,%.2f,%.4f,%d",
+                fila.nivel(), csvField(fila.clave()), fila.ingresos(), fila.unidades(), fila.tickets(),
+                fila.ticketPromedio(), fila.participacion(), fila.posicion());
+    }
+
+    static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
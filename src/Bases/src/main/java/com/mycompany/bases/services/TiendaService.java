@@ -0,0 +1,694 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.services;
+
+/**
+ *
+ * @author dard
+ */
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mycompany.bases.cache.ProductCache;
+import com.mycompany.bases.config.DatabaseConfig;
+import com.mycompany.bases.db.ConnectionPool;
+import com.mycompany.bases.db.IndexBootstrapper;
+import com.mycompany.bases.db.SlowQueryLog;
+import com.mycompany.bases.importer.ProductBulkLoader;
+import com.mycompany.bases.importer.UserImporter;
+import com.mycompany.bases.journal.JournalDrainer;
+import com.mycompany.bases.journal.SaleJournal;
+import com.mycompany.bases.memory.MemoryProductRepository;
+import com.mycompany.bases.memory.MemorySaleRepository;
+import com.mycompany.bases.memory.MemoryUserRepository;
+import com.mycompany.bases.metrics.Metrics;
+import com.mycompany.bases.metrics.MongoCommandEvents;
+import com.mycompany.bases.models.FilaReporteVentas;
+import com.mycompany.bases.models.LineaVenta;
+import com.mycompany.bases.models.ProductPage;
+import com.mycompany.bases.models.Producto;
+import com.mycompany.bases.models.ResultadoVenta;
+import com.mycompany.bases.models.Usuario;
+import com.mycompany.bases.models.Venta;
+import com.mycompany.bases.models.VentaEnDiario;
+import com.mycompany.bases.models.VentaCliente;
+import com.mycompany.bases.repository.ProductRepository;
+import com.mycompany.bases.repository.SaleRepository;
+import com.mycompany.bases.repository.UserRepository;
+import com.mycompany.bases.rollup.SalesRollups;
+import com.mycompany.bases.rollup.TopSellers;
+import com.mycompany.bases.search.ProductQuery;
+import com.mycompany.bases.search.ProductSearchResult;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Punto de entrada único a las operaciones de la tienda: usuarios en
+ * MongoDB, y productos y ventas en Oracle.
+ *
+ * <p>
+ * El servicio solo conoce los repositorios ({@link UserRepository},
+ * {@link ProductRepository} y {@link SaleRepository}); los de MongoDB y
+ * Oracle son una implementación. {@link #inMemory()} usa en cambio los
+ * almacenes en memoria, sin ninguna base de datos: sirve para trabajar sin
+ * conexión y para medir la aplicación sin servicios externos. En ese modo no
+ * hay pool, caché de productos ni revisión de índices.</p>
+ *
+ * <p>
+ * Cada operación se ejecuta en un hilo virtual propio y devuelve un
+ * {@link CompletableFuture} con un resultado tipado, de modo que muchos
+ * clientes (la consola, un servidor HTTP) pueden compartir la misma
+ * instancia sin bloquearse entre sí. Los hilos virtuales solo ocupan un
+ * hilo del sistema mientras ejecutan; al esperar a Oracle o a MongoDB lo
+ * liberan. La concurrencia real hacia Oracle la acota el pool de
+ * conexiones.</p>
+ *
+ * <p>
+ * Los errores de las bases de datos llegan como la causa de una
+ * {@link CompletionException} al llamar a {@code join()}.</p>
+ *
+ * <p>
+ * Con Oracle, la caja puede registrar ventas en el {@link SaleJournal}
+ * ({@link #journalVenta}): quedan en un archivo local al instante y un hilo
+ * las envía a Oracle por lotes, aunque Oracle esté lento o caído por un
+ * rato.</p>
+ *
+ * <p>
+ * Cada operación se mide con {@link Metrics} bajo el nombre de su método:
+ * latencia, llamadas, errores, filas devueltas y viajes a Oracle y
+ * MongoDB. Las métricas se publican por JMX.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class TiendaService implements AutoCloseable {
+
+    private final MongoClient mongoClient;
+    private final ConnectionPool pool;
+    private final UserRepository users;
+    private final ProductRepository products;
+    private final SaleRepository sales;
+    private final SalesCustomerJoin customerJoin;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Metrics metrics;
+    private final SalesRollups rollups = new SalesRollups();
+    private final TopSellers topSellers = new TopSellers(DatabaseConfig.TOP_SELLERS_CAPACITY);
+    private final long migratedCustomers;
+    private final IndexBootstrapper.Report indexReport;
+    private final long rebuiltSales;
+    private final SaleJournal journal;
+    private final JournalDrainer drainer;
+
+    /**
+     * Crea el servicio a partir de clientes ya conectados, ejecuta la
+     * migración de claves de cliente, revisa los índices de ambas bases y
+     * reconstruye los acumulados y los más
+     * vendidos recorriendo una vez las ventas de Oracle. Al final abre el
+     * diario de ventas de {@link DatabaseConfig#SALE_JOURNAL_FILE}, si está
+     * configurado, y empieza a enviar a Oracle lo que haya quedado
+     * pendiente.
+     *
+     * @param mongoClient cliente de MongoDB; el servicio lo cierra
+     * @param pool pool de conexiones a Oracle; el servicio lo cierra
+     * @throws SQLException si falla la lectura de las ventas
+     * @throws IOException si no se puede abrir el diario de ventas
+     */
+    public TiendaService(MongoClient mongoClient, ConnectionPool pool) throws SQLException, IOException {
+        this(mongoClient, pool, new UserService(mongoClient.getDatabase(DatabaseConfig.MONGO_DB)),
+                new ProductService(pool));
+    }
+
+    private TiendaService(MongoClient mongoClient, ConnectionPool pool, UserService users,
+            ProductService products) throws SQLException, IOException {
+        // Los argumentos se evalúan en orden: la migración, que crea el
+        // índice de idCliente, termina antes de revisar los índices
+        this(mongoClient, pool, users, products, new SaleService(pool, products, users),
+                users.migrateCustomerIds(),
+                new IndexBootstrapper(mongoClient.getDatabase(DatabaseConfig.MONGO_DB), pool).run(),
+                openJournal());
+    }
+
+    /**
+     * @return el diario de ventas configurado, o null si está desactivado
+     */
+    private static SaleJournal openJournal() throws IOException {
+        return DatabaseConfig.SALE_JOURNAL_FILE == null ? null
+                : SaleJournal.open(Path.of(DatabaseConfig.SALE_JOURNAL_FILE), DatabaseConfig.SALE_JOURNAL_BYTES,
+                        DatabaseConfig.SALE_JOURNAL_FORCE);
+    }
+
+    /**
+     * Crea el servicio sobre repositorios cualesquiera y reconstruye los
+     * acumulados y los más vendidos recorriendo una vez sus ventas. No hay
+     * migración, revisión de índices ni diario de ventas, y {@link #close()}
+     * no cierra los repositorios.
+     *
+     * @param users usuarios
+     * @param products productos
+     * @param sales ventas; deben valorizarse con {@code products} y
+     * nombrar a sus clientes con {@code users}
+     * @throws SQLException si falla la lectura de las ventas
+     */
+    public TiendaService(UserRepository users, ProductRepository products, SaleRepository sales)
+            throws SQLException {
+        this(null, null, users, products, sales, 0, new IndexBootstrapper.Report(List.of()));
+    }
+
+    private TiendaService(MongoClient mongoClient, ConnectionPool pool, UserRepository users,
+            ProductRepository products, SaleRepository sales, long migratedCustomers,
+            IndexBootstrapper.Report indexReport) throws SQLException {
+        this(mongoClient, pool, users, products, sales, migratedCustomers, indexReport, null);
+    }
+
+    private TiendaService(MongoClient mongoClient, ConnectionPool pool, UserRepository users,
+            ProductRepository products, SaleRepository sales, long migratedCustomers,
+            IndexBootstrapper.Report indexReport, SaleJournal journal) throws SQLException {
+        this.mongoClient = mongoClient;
+        this.pool = pool;
+        this.users = users;
+        this.products = products;
+        this.sales = sales;
+        this.customerJoin = new SalesCustomerJoin(sales, users, DatabaseConfig.JOIN_MEMORY_BUDGET_BYTES);
+        this.migratedCustomers = migratedCustomers;
+        this.indexReport = indexReport;
+        this.journal = journal;
+        // Los MBeans se publican al crearlas: si el resto del arranque falla, se retiran
+        Metrics created = new Metrics(true);
+        this.metrics = created;
+        try {
+            // Nadie puede vender antes de que el constructor termine, así que
+            // el recorrido y el registro del oyente no se solapan con ventas nuevas
+            this.rebuiltSales = sales.scanVentas(venta -> {
+                rollups.ventaRegistrada(venta);
+                topSellers.ventaRegistrada(venta);
+            });
+            sales.addListener(rollups);
+            sales.addListener(topSellers);
+
+            // Lo que el diario envíe desde aquí llega a los acumulados por los oyentes
+            if (journal == null) {
+                this.drainer = null;
+            } else {
+                this.drainer = new JournalDrainer(journal, (SaleService) sales, pool,
+                        DatabaseConfig.SALE_JOURNAL_BATCH_SIZE, DatabaseConfig.SALE_JOURNAL_IDLE_MS,
+                        DatabaseConfig.SALE_JOURNAL_RETRY_MS, DatabaseConfig.SALE_JOURNAL_CLOSE_WAIT_MS);
+                drainer.start();
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (journal != null) {
+                journal.close();
+            }
+            created.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Crea el servicio sobre almacenes en memoria vacíos, sin conectar a
+     * ninguna base de datos. Lo registrado se pierde al cerrar el proceso.
+     * La carga masiva de productos y la importación de usuarios no están
+     * disponibles.
+     *
+     * @return el servicio listo para usar
+     */
+    public static TiendaService inMemory() {
+        MemoryUserRepository users = new MemoryUserRepository();
+        MemoryProductRepository products = new MemoryProductRepository();
+        try {
+            return new TiendaService(users, products, new MemorySaleRepository(products, users));
+        } catch (SQLException e) {
+            // Los almacenes en memoria no lanzan SQLException
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Crea el servicio conectando a MongoDB y a Oracle con la configuración
+     * de {@link DatabaseConfig}.
+     *
+     * @return el servicio listo para usar
+     * @throws SQLException si no se puede abrir el pool de Oracle
+     * @throws IOException si no se puede abrir el diario de ventas
+     */
+    public static TiendaService fromConfig() throws SQLException, IOException {
+        // El listener cuenta los comandos de MongoDB como viajes de la operación en curso
+        MongoClient client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(DatabaseConfig.MONGO_URI))
+                .addCommandListener(Metrics.commandListener())
+                .addCommandListener(new MongoCommandEvents())
+                .build());
+        ConnectionPool pool = null;
+        try {
+            pool = ConnectionPool.fromConfig();
+            return new TiendaService(client, pool);
+        } catch (SQLException | IOException | RuntimeException e) {
+            if (pool != null) {
+                pool.close();
+            }
+            client.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Ejecuta una operación en un hilo virtual y la mide.
+     *
+     * @param operation nombre de la operación en las métricas
+     * @param task trabajo a ejecutar
+     */
+    private <T> CompletableFuture<T> submit(String operation, Callable<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return metrics.time(operation, task, TiendaService::rowsOf);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Filas o documentos que devuelve una operación, según su resultado.
+     */
+    private static long rowsOf(Object result) {
+        return switch (result) {
+            case null ->
+                0;
+            case Collection<?> c ->
+                c.size();
+            case Map<?, ?> m ->
+                m.size();
+            case Optional<?> o ->
+                o.isPresent() ? 1 : 0;
+            case Boolean b ->
+                b ? 1 : 0;
+            case Long n ->
+                n;
+            case ProductPage page ->
+                page.productos().size();
+            case ProductSearchResult search ->
+                search.productos().size();
+            case UserRepository.UserScan scan ->
+                scan.count();
+            case ResultadoVenta venta ->
+                venta.detalles().size();
+            case VentaEnDiario venta ->
+                venta.guardada() ? venta.pendiente().lineas().size() : 0;
+            case UserImporter.ImportReport report ->
+                report.inserted();
+            case ProductBulkLoader.LoadReport report ->
+                report.inserted();
+            case SalesCustomerJoin.JoinReport report ->
+                report.rows();
+            default ->
+                1;
+        };
+    }
+
+    // ===== Usuarios =====
+
+    public CompletableFuture<Usuario> addUser(String nombre, String email, int edad) {
+        return submit("addUser", () -> users.addUser(nombre, email, edad));
+    }
+
+    public CompletableFuture<Optional<Usuario>> findUserByName(String nombre) {
+        return submit("findUserByName", () -> users.findUserByName(nombre));
+    }
+
+    public CompletableFuture<Optional<Usuario>> deleteUserByName(String nombre) {
+        return submit("deleteUserByName", () -> users.deleteUserByName(nombre));
+    }
+
+    /**
+     * Recorre usuarios en orden de {@code _id}; la acción se ejecuta en el
+     * hilo virtual de la operación, conforme llegan del cursor.
+     *
+     * @param after último usuario entregado ({@code last()} del tramo
+     * anterior), o null para empezar
+     * @param limit máximo de usuarios; 0 para todos los restantes
+     * @param action acción por cada usuario
+     * @return cantidad entregada y último usuario
+     * @see UserRepository#scanUsers(Usuario, int, Consumer)
+     */
+    public CompletableFuture<UserRepository.UserScan> scanUsers(Usuario after, int limit, Consumer<Usuario> action) {
+        return submit("scanUsers", () -> users.scanUsers(after, limit, action));
+    }
+
+    public CompletableFuture<Map<Integer, String>> findUserNamesByIds(Collection<Integer> ids) {
+        return submit("findUserNamesByIds", () -> users.findUserNamesByIds(ids));
+    }
+
+    /**
+     * Importa usuarios desde un archivo CSV o NDJSON.
+     *
+     * @param file archivo a importar
+     * @return conteos de la importación
+     * @throws IllegalStateException (como causa) si los usuarios no están en
+     * MongoDB
+     * @see #hasUserImport()
+     */
+    public CompletableFuture<UserImporter.ImportReport> importUsers(Path file) {
+        return submit("importUsers", () -> {
+            if (!(users instanceof UserService userService)) {
+                throw new IllegalStateException("La importación de usuarios requiere MongoDB");
+            }
+            return userService.importUsers(file);
+        });
+    }
+
+    // ===== Productos =====
+
+    public CompletableFuture<Producto> addProduct(String nombre, String categoria, String color,
+            String talla, double precio) {
+        return submit("addProduct", () -> products.addProduct(nombre, categoria, color, talla, precio));
+    }
+
+    public CompletableFuture<Optional<Producto>> findProduct(int idProducto) {
+        return submit("findProduct", () -> products.findProduct(idProducto));
+    }
+
+    public CompletableFuture<Boolean> updateProduct(Producto producto) {
+        return submit("updateProduct", () -> products.updateProduct(producto));
+    }
+
+    public CompletableFuture<Boolean> deleteProduct(int idProducto) {
+        return submit("deleteProduct", () -> products.deleteProduct(idProducto));
+    }
+
+    public CompletableFuture<ProductPage> listProductsAfter(int afterId, int pageSize) {
+        return submit("listProductsAfter", () -> products.listProductsAfter(afterId, pageSize));
+    }
+
+    public CompletableFuture<ProductPage> listProductsBefore(int beforeId, int pageSize) {
+        return submit("listProductsBefore", () -> products.listProductsBefore(beforeId, pageSize));
+    }
+
+    public CompletableFuture<ProductSearchResult> searchProducts(ProductQuery query) {
+        return submit("searchProducts", () -> products.searchProducts(query));
+    }
+
+    /**
+     * Carga productos de forma masiva desde un archivo.
+     *
+     * @param file archivo de productos
+     * @return conteos y rendimiento de la carga
+     * @throws IllegalStateException (como causa) si los productos no están en
+     * Oracle
+     * @see #hasProductBulkLoad()
+     */
+    public CompletableFuture<ProductBulkLoader.LoadReport> loadProducts(Path file) {
+        return submit("loadProducts", () -> {
+            if (!(products instanceof ProductService productService)) {
+                throw new IllegalStateException("La carga masiva de productos requiere Oracle");
+            }
+            return productService.loadProducts(file);
+        });
+    }
+
+    // ===== Ventas =====
+
+    public CompletableFuture<ResultadoVenta> createVenta(int idUsuario, List<LineaVenta> lineas) {
+        return submit("createVenta", () -> sales.createVenta(idUsuario, lineas));
+    }
+
+    /**
+     * Guarda una venta en el diario de ventas y termina en cuanto queda
+     * escrita en el archivo local, sin esperar a que se registre en Oracle.
+     *
+     * <p>
+     * Antes de guardarla se valoriza con {@link SaleService#cotizarVenta},
+     * casi siempre desde la caché de productos: las líneas con productos
+     * inexistentes se omiten e informan como en {@link #createVenta}, y si
+     * no queda ninguna la venta no se guarda. Si Oracle no responde, se
+     * guarda el carrito completo sin validar, para no perder la venta; sus
+     * productos se revisan al enviarla. El ID de la venta y el total
+     * definitivo se asignan al enviarla a Oracle.</p>
+     *
+     * @param idUsuario clave del cliente
+     * @param lineas productos y cantidades del carrito
+     * @return la venta con su número en el diario y su valorización
+     * @throws IllegalStateException (como causa) si el diario no está activo
+     * @see #hasSaleJournal()
+     */
+    public CompletableFuture<VentaEnDiario> journalVenta(int idUsuario, List<LineaVenta> lineas) {
+        return submit("journalVenta", () -> {
+            if (journal == null) {
+                throw new IllegalStateException("El diario de ventas no está activo");
+            }
+            ResultadoVenta cotizacion;
+            try {
+                cotizacion = ((SaleService) sales).cotizarVenta(lineas);
+            } catch (SQLException e) {
+                return new VentaEnDiario(journal.append(idUsuario, LocalDateTime.now(), lineas),
+                        0, List.of(), List.of(), false);
+            }
+            if (cotizacion.detalles().isEmpty()) {
+                return new VentaEnDiario(null, 0, List.of(), cotizacion.productosNoEncontrados(), true);
+            }
+            List<LineaVenta> validas = lineas;
+            if (!cotizacion.productosNoEncontrados().isEmpty()) {
+                Set<Integer> noEncontrados = Set.copyOf(cotizacion.productosNoEncontrados());
+                validas = lineas.stream().filter(l -> !noEncontrados.contains(l.idProducto())).toList();
+            }
+            return new VentaEnDiario(journal.append(idUsuario, LocalDateTime.now(), validas),
+                    cotizacion.total(), cotizacion.detalles(), cotizacion.productosNoEncontrados(), true);
+        });
+    }
+
+    public CompletableFuture<Optional<Venta>> findVenta(int idVenta) {
+        return submit("findVenta", () -> sales.findVenta(idVenta));
+    }
+
+    public CompletableFuture<List<Venta>> listVentas(int afterId, int pageSize) {
+        return submit("listVentas", () -> sales.listVentas(afterId, pageSize));
+    }
+
+    public CompletableFuture<List<Venta>> listVentasByCliente(int idCliente) {
+        return submit("listVentasByCliente", () -> sales.listVentasByCliente(idCliente));
+    }
+
+    public CompletableFuture<Boolean> ventaExists(int idVenta) {
+        return submit("ventaExists", () -> sales.ventaExists(idVenta));
+    }
+
+    public CompletableFuture<Boolean> deleteVenta(int idVenta) {
+        return submit("deleteVenta", () -> sales.deleteVenta(idVenta));
+    }
+
+    /**
+     * Reporte de ventas por día, categoría y producto; la acción se ejecuta
+     * en el hilo virtual de la operación, conforme llegan las filas.
+     *
+     * @param desde primer día, incluido
+     * @param hasta último día, incluido
+     * @param action acción por fila
+     * @return filas entregadas
+     * @see SaleRepository#salesReport(LocalDate, LocalDate, Consumer)
+     */
+    public CompletableFuture<Long> salesReport(LocalDate desde, LocalDate hasta,
+            Consumer<FilaReporteVentas> action) {
+        return submit("salesReport", () -> sales.salesReport(desde, hasta, action));
+    }
+
+    public CompletableFuture<Long> exportSalesReport(LocalDate desde, LocalDate hasta, Path file) {
+        return submit("exportSalesReport", () -> SalesReportService.exportSalesReport(sales, desde, hasta, file));
+    }
+
+    /**
+     * Todas las ventas con el nombre y el correo de su cliente; la acción se
+     * ejecuta en el hilo virtual de la operación, conforme se leen las
+     * ventas.
+     *
+     * @param action acción por venta
+     * @return estrategia usada y conteos
+     * @see SalesCustomerJoin#join(Consumer)
+     */
+    public CompletableFuture<SalesCustomerJoin.JoinReport> joinVentasClientes(Consumer<VentaCliente> action) {
+        return submit("joinVentasClientes", () -> customerJoin.join(action));
+    }
+
+    public CompletableFuture<SalesCustomerJoin.JoinReport> exportVentasClientes(Path file) {
+        return submit("exportVentasClientes", () -> customerJoin.export(file));
+    }
+
+    /**
+     * Acumulados de ventas en memoria. Se leen directamente, sin pasar por
+     * el ejecutor: cada lectura es una búsqueda en una tabla.
+     *
+     * @return los acumulados, al día con las ventas de este proceso
+     */
+    public SalesRollups getSalesRollups() {
+        return rollups;
+    }
+
+    /**
+     * Productos y clientes más vendidos, estimados en memoria fija. Se leen
+     * directamente, sin pasar por el ejecutor.
+     *
+     * @return los rankings, al día con las ventas de este proceso
+     */
+    public TopSellers getTopSellers() {
+        return topSellers;
+    }
+
+    // ===== Métricas =====
+
+    /**
+     * Usuarios a los que se asignó {@code idCliente} al crear el servicio.
+     *
+     * @return cantidad migrada al arrancar
+     */
+    public long getMigratedCustomers() {
+        return migratedCustomers;
+    }
+
+    /**
+     * Revisión de índices hecha al crear el servicio.
+     *
+     * @return índices creados o faltantes y consultas que recorren todo
+     */
+    public IndexBootstrapper.Report getIndexReport() {
+        return indexReport;
+    }
+
+    /**
+     * Ventas leídas al reconstruir los acumulados al arrancar.
+     *
+     * @return cantidad de ventas
+     */
+    public long getRebuiltSales() {
+        return rebuiltSales;
+    }
+
+    /**
+     * @return estado del pool de Oracle, o null si el servicio no usa Oracle
+     */
+    public ConnectionPool.Stats getPoolStats() {
+        return pool == null ? null : pool.stats();
+    }
+
+    /**
+     * @return métricas de la caché de productos, o null si los productos no
+     * están en Oracle
+     */
+    public ProductCache.Stats getProductCacheStats() {
+        return products instanceof ProductService oracle ? oracle.getProductCacheStats() : null;
+    }
+
+    /**
+     * @return el registro de consultas lentas del pool, o null si está
+     * desactivado o el servicio no usa Oracle
+     */
+    public SlowQueryLog getSlowQueryLog() {
+        return pool == null ? null : pool.getSlowQueryLog();
+    }
+
+    /**
+     * @return true si el servicio abrió conexiones a Oracle o MongoDB; false
+     * con los almacenes en memoria
+     */
+    public boolean hasConnections() {
+        return pool != null || mongoClient != null;
+    }
+
+    /**
+     * @return true si se pueden importar usuarios desde archivo; solo con
+     * MongoDB, porque la importación escribe directo en la colección y
+     * reserva las claves en su contador
+     */
+    public boolean hasUserImport() {
+        return users instanceof UserService;
+    }
+
+    /**
+     * @return true si se pueden cargar productos desde archivo; solo con
+     * Oracle, porque la carga escribe directo en las tablas y guarda allí su
+     * punto de reanudación
+     */
+    public boolean hasProductBulkLoad() {
+        return products instanceof ProductService;
+    }
+
+    /**
+     * @return true si las ventas de la caja pueden ir al diario de ventas
+     */
+    public boolean hasSaleJournal() {
+        return journal != null;
+    }
+
+    /**
+     * @return estado del diario de ventas, o null si no está activo
+     */
+    public SaleJournal.Stats getSaleJournalStats() {
+        return journal == null ? null : journal.stats();
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Guarda una fotografía de las métricas de todas las operaciones.
+     *
+     * @param file archivo JSON de destino
+     * @throws IOException si no se puede escribir
+     * @see Metrics#writeSnapshot(Path)
+     */
+    public void writeMetricsSnapshot(Path file) throws IOException {
+        metrics.writeSnapshot(file);
+    }
+
+    /**
+     * Espera a que terminen las operaciones en curso, envía a Oracle lo
+     * pendiente del diario de ventas (con un tiempo límite; lo que quede se
+     * envía al volver a abrir) y cierra las conexiones a Oracle y MongoDB, si
+     * las hay.
+     */
+    @Override
+    public void close() {
+        // close() del ejecutor espera a que terminen las tareas enviadas
+        executor.close();
+        try {
+            // El diario envía lo pendiente antes de que se cierre el pool
+            if (drainer != null) {
+                drainer.close();
+            }
+            if (journal != null) {
+                journal.close();
+            }
+        } finally {
+            closeConnections();
+        }
+    }
+
+    private void closeConnections() {
+        try {
+            if (pool != null) {
+                pool.close();
+            }
+        } finally {
+            if (mongoClient != null) {
+                mongoClient.close();
+            }
+            metrics.close();
+        }
+    }
+}
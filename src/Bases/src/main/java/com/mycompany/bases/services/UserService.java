@@ -0,0 +1,311 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.services;
+
+/**
+ *
+ * @author dard
+ */
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.FindOneAndDeleteOptions;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.exists;
+import static com.mongodb.client.model.Filters.gt;
+import static com.mongodb.client.model.Filters.in;
+import static com.mongodb.client.model.Projections.include;
+import static com.mongodb.client.model.Sorts.ascending;
+import com.mycompany.bases.config.DatabaseConfig;
+import com.mycompany.bases.db.CustomerIdAllocator;
+import com.mycompany.bases.db.CustomerIdMigration;
+import com.mycompany.bases.db.IndexRegistry;
+import com.mycompany.bases.importer.UserImporter;
+import com.mycompany.bases.models.Usuario;
+import com.mycompany.bases.repository.UserRepository;
+import com.mycompany.bases.utils.LruCache;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+/**
+ * Operaciones sobre los usuarios (clientes) guardados en MongoDB: la
+ * implementación de {@link UserRepository} que usa la aplicación conectada.
+ *
+ * <p>
+ * No lee de consola ni imprime: recibe datos y devuelve resultados tipados.
+ * Es segura entre hilos, por lo que una sola instancia atiende a todos los
+ * clientes del servicio.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class UserService implements UserRepository {
+
+    /** Campos que se piden al servidor al recorrer la colección */
+    private static final String[] SCAN_FIELDS = {CustomerIdAllocator.FIELD, "nombre", "email", "edad"};
+    /** Campos que se piden al unir ventas con sus clientes */
+    private static final String[] CUSTOMER_FIELDS = {CustomerIdAllocator.FIELD, "nombre", "email"};
+
+    private final MongoDatabase db;
+    private final MongoCollection<Document> usuarios;
+    private final CustomerIdAllocator customerIds;
+
+    /**
+     * Caché compartida de nombres de cliente por clave de usuario, usada al
+     * listar ventas para no consultar MongoDB por cada fila
+     */
+    private final LruCache<Integer, String> customerNames
+            = new LruCache<>(DatabaseConfig.CUSTOMER_NAME_CACHE_SIZE);
+
+    public UserService(MongoDatabase db) {
+        this.db = db;
+        this.usuarios = db.getCollection("usuarios");
+        this.customerIds = new CustomerIdAllocator(db);
+    }
+
+    /**
+     * Asigna {@code idCliente} a los usuarios que no lo tengan y asegura su
+     * índice único. Debe ejecutarse una vez al arrancar.
+     *
+     * @return cantidad de usuarios a los que se asignó clave
+     */
+    public long migrateCustomerIds() {
+        return new CustomerIdMigration(db, customerIds).run();
+    }
+
+    /**
+     * Da de alta un usuario con una clave de cliente nueva.
+     *
+     * @param nombre nombre del usuario
+     * @param email correo electrónico
+     * @param edad edad
+     * @return el usuario creado
+     */
+    @Override
+    public Usuario addUser(String nombre, String email, int edad) {
+        // Reserva la clave de cliente de forma atómica en el contador
+        long idCliente = customerIds.next();
+
+        Document user = new Document(CustomerIdAllocator.FIELD, idCliente)
+                .append("nombre", nombre)
+                .append("email", email)
+                .append("edad", edad)
+                .append("fechaRegistro", new Date());
+        try {
+            usuarios.insertOne(user);
+        } catch (MongoWriteException e) {
+            if (e.getError().getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                throw new IllegalArgumentException("Ya existe un usuario con el email " + email, e);
+            }
+            throw e;
+        }
+        return Usuario.fromDocument(user);
+    }
+
+    /**
+     * Busca el primer usuario con el nombre indicado, sin distinguir
+     * mayúsculas, con la colación del índice {@code nombre_ci}.
+     *
+     * @param nombre nombre a buscar
+     * @return el usuario, si existe
+     */
+    @Override
+    public Optional<Usuario> findUserByName(String nombre) {
+        return Optional.ofNullable(usuarios.find(eq("nombre", nombre))
+                .collation(IndexRegistry.NOMBRE_COLLATION)
+                .first())
+                .map(Usuario::fromDocument);
+    }
+
+    /**
+     * Elimina el primer usuario con el nombre indicado, sin distinguir
+     * mayúsculas.
+     *
+     * @param nombre nombre del usuario
+     * @return el usuario eliminado, si existía
+     */
+    @Override
+    public Optional<Usuario> deleteUserByName(String nombre) {
+        Document deleted = usuarios.findOneAndDelete(eq("nombre", nombre),
+                new FindOneAndDeleteOptions().collation(IndexRegistry.NOMBRE_COLLATION));
+        if (deleted == null) {
+            return Optional.empty();
+        }
+        Usuario usuario = Usuario.fromDocument(deleted);
+        if (usuario.idCliente() >= 0) {
+            customerNames.remove((int) usuario.idCliente());
+        }
+        return Optional.of(usuario);
+    }
+
+    /**
+     * Entrega los usuarios con {@code _id} mayor al de {@code after}, en
+     * orden de {@code _id}, conforme llegan del cursor. Solo se piden al
+     * servidor los campos que se muestran y nada se acumula en memoria.
+     *
+     * @param after último usuario entregado, o null para empezar
+     * @param limit máximo de usuarios; 0 para todos los restantes
+     * @param action acción por cada usuario
+     * @return cantidad entregada y último usuario
+     */
+    @Override
+    public UserScan scanUsers(Usuario after, int limit, Consumer<Usuario> action) {
+        Bson filter = after == null ? new Document() : gt("_id", after.id());
+        int batchSize = limit > 0
+                ? Math.min(limit, DatabaseConfig.USERS_CURSOR_BATCH_SIZE)
+                : DatabaseConfig.USERS_CURSOR_BATCH_SIZE;
+
+        int count = 0;
+        Usuario last = after;
+        try (MongoCursor<Document> cursor = usuarios.find(filter)
+                .projection(include(SCAN_FIELDS))
+                .sort(ascending("_id"))
+                .limit(limit)
+                .batchSize(batchSize)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                Usuario usuario = Usuario.fromDocument(cursor.next());
+                action.accept(usuario);
+                last = usuario;
+                count++;
+            }
+        }
+        return new UserScan(count, last);
+    }
+
+    /**
+     * Recorre los usuarios que tienen {@code idCliente}, pidiendo solo la
+     * clave, el nombre y el correo, hasta terminar o hasta que la acción
+     * pida detenerse.
+     *
+     * @param action acción por usuario; devuelve false para detener el
+     * recorrido
+     * @return true si se recorrió toda la colección
+     */
+    @Override
+    public boolean scanCustomers(Predicate<Usuario> action) {
+        try (MongoCursor<Document> cursor = usuarios.find(exists(CustomerIdAllocator.FIELD))
+                .projection(include(CUSTOMER_FIELDS))
+                .batchSize(DatabaseConfig.USERS_CURSOR_BATCH_SIZE)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                if (!action.test(Usuario.fromDocument(cursor.next()))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cantidad aproximada de usuarios, tomada de los metadatos de la
+     * colección sin recorrerla.
+     *
+     * @return usuarios estimados
+     */
+    @Override
+    public long estimatedUserCount() {
+        return usuarios.estimatedDocumentCount();
+    }
+
+    /**
+     * Resuelve en lote clave, nombre y correo de varios clientes con una sola
+     * consulta {@code $in} sobre el índice de {@code idCliente}. A diferencia
+     * de {@link #findUserNamesByIds(Collection)} no usa la caché de nombres,
+     * que no guarda el correo.
+     *
+     * @param ids claves de cliente, sin repetidos
+     * @return mapa clave → usuario; las claves inexistentes no aparecen
+     */
+    @Override
+    public Map<Integer, Usuario> findCustomersByIds(Collection<Integer> ids) {
+        Map<Integer, Usuario> customers = new HashMap<>();
+        if (ids.isEmpty()) {
+            return customers;
+        }
+        for (Document doc : usuarios
+                .find(in(CustomerIdAllocator.FIELD, ids))
+                .projection(include(CUSTOMER_FIELDS))
+                .batchSize(ids.size())) {
+            Usuario usuario = Usuario.fromDocument(doc);
+            customers.putIfAbsent((int) usuario.idCliente(), usuario);
+        }
+        return customers;
+    }
+
+    /**
+     * Importa usuarios desde un archivo CSV o NDJSON.
+     *
+     * @param file archivo a importar
+     * @return conteos de la importación
+     * @throws IOException si el archivo no se puede leer
+     * @see UserImporter
+     */
+    public UserImporter.ImportReport importUsers(Path file) throws IOException {
+        return new UserImporter(db, customerIds,
+                DatabaseConfig.USER_IMPORT_CHUNK_SIZE, DatabaseConfig.USER_IMPORT_WRITERS)
+                .importFile(file);
+    }
+
+    /**
+     * Resuelve en lote los nombres de varios clientes.
+     *
+     * Las claves presentes en la caché se responden sin ir a MongoDB; las
+     * restantes se resuelven con una sola consulta {@code $in} sobre el índice
+     * de {@code idCliente}, proyectando solo la clave y el nombre.
+     *
+     * @param ids claves de cliente a resolver (puede tener repetidos)
+     * @return mapa clave → nombre; las claves inexistentes no aparecen
+     */
+    @Override
+    public Map<Integer, String> findUserNamesByIds(Collection<Integer> ids) {
+        Map<Integer, String> names = new HashMap<>();
+        Set<Integer> pending = new HashSet<>();
+
+        // Primero se atiende todo lo posible desde la caché
+        for (Integer id : ids) {
+            if (id == null || names.containsKey(id) || pending.contains(id)) {
+                continue;
+            }
+            String cached = customerNames.get(id);
+            if (cached != null) {
+                names.put(id, cached);
+            } else {
+                pending.add(id);
+            }
+        }
+
+        if (pending.isEmpty()) {
+            return names;
+        }
+
+        // Una sola consulta indexada para todas las claves pendientes
+        for (Document user : usuarios
+                .find(in(CustomerIdAllocator.FIELD, pending))
+                .projection(include(CustomerIdAllocator.FIELD, "nombre"))
+                .batchSize(pending.size())) {
+            Number id = user.get(CustomerIdAllocator.FIELD, Number.class);
+            String nombre = user.getString("nombre");
+            if (id != null && nombre != null) {
+                names.put(id.intValue(), nombre);
+                customerNames.put(id.intValue(), nombre);
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.utils;
+
+/**
+ *
+ * @author dard
+ */
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import org.bson.Document;
+
+/**
+ * Escribe documentos de MongoDB en formato compacto: una línea por documento
+ * con columnas de ancho fijo.
+ *
+ * <p>
+ * Pensado para listados largos que se recorren con un cursor: no guarda los
+ * documentos, la línea de encabezado y los rellenos se calculan una sola vez
+ * y cada documento se copia directamente al writer, que debe tener
+ * buffer.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class DocumentLineRenderer {
+
+    private static final String SEPARATOR = " │ ";
+
+    private final Writer out;
+    private final String[] fields;
+    private final int[] widths;
+    private final String header;
+    private final String padding;
+
+    /**
+     * @param out destino, idealmente con buffer
+     * @param fields campos del documento a mostrar, en orden
+     * @param widths ancho de cada campo
+     */
+    public DocumentLineRenderer(Writer out, String[] fields, int[] widths) {
+        this.out = out;
+        this.fields = fields.clone();
+        this.widths = new int[widths.length];
+        int widest = 0;
+        for (int i = 0; i < widths.length; i++) {
+            this.widths[i] = Math.max(1, widths[i]);
+            widest = Math.max(widest, this.widths[i]);
+        }
+        this.padding = " ".repeat(widest);
+
+        StringBuilder titles = new StringBuilder();
+        StringBuilder rule = new StringBuilder();
+        for (int i = 0; i < this.fields.length; i++) {
+            if (i > 0) {
+                titles.append(SEPARATOR);
+                rule.append("─┼─");
+            }
+            String title = this.fields[i];
+            titles.append(title, 0, Math.min(title.length(), this.widths[i]));
+            titles.append(padding, 0, Math.max(0, this.widths[i] - title.length()));
+            rule.append("─".repeat(this.widths[i]));
+        }
+        this.header = titles.append('\n').append(rule).append('\n').toString();
+    }
+
+    /**
+     * Escribe los títulos de las columnas y una línea divisoria.
+     */
+    public void writeHeader() {
+        try {
+            out.write(header);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Escribe un documento en una línea. Los campos ausentes quedan en blanco
+     * y los valores más largos que su columna se recortan con "…".
+     *
+     * @param doc el documento a mostrar
+     */
+    public void writeLine(Document doc) {
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    out.write(SEPARATOR);
+                }
+                Object value = doc.get(fields[i]);
+                String text = value == null ? "" : value.toString();
+                int width = widths[i];
+                if (text.length() <= width) {
+                    out.write(text);
+                    // La última columna no se rellena para no dejar espacios al final
+                    if (i < fields.length - 1) {
+                        out.write(padding, 0, width - text.length());
+                    }
+                } else {
+                    out.write(text, 0, width - 1);
+                    out.write('…');
+                }
+            }
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Vacía el buffer del writer para que las líneas aparezcan en pantalla.
+     */
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
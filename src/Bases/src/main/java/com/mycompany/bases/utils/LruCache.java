@@ -0,0 +1,120 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.utils;
+
+/**
+ *
+ * @author dard
+ */
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché acotada con política de expulsión LRU (menos recientemente usado).
+ *
+ * <p>
+ * Es segura entre hilos: todas las operaciones se sincronizan sobre la propia
+ * caché, que es suficiente para las tasas de acceso de una consola o de un
+ * puñado de sesiones concurrentes. Lleva contadores de aciertos y fallos para
+ * poder medir su efectividad.</p>
+ *
+ * @param <K> tipo de la clave
+ * @param <V> tipo del valor
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class LruCache<K, V> {
+
+    private final int capacity;
+    private final LinkedHashMap<K, V> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Crea una caché vacía.
+     *
+     * @param capacity número máximo de entradas
+     */
+    public LruCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacidad inválida: " + capacity);
+        }
+        this.capacity = capacity;
+        // accessOrder = true para que get() mueva la entrada al final
+        this.entries = new LinkedHashMap<>(Math.min(capacity, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Busca un valor y cuenta el acierto o fallo.
+     *
+     * @param key la clave
+     * @return el valor en caché, o null si no está
+     */
+    public synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Guarda un valor, expulsando el menos usado si se supera la capacidad.
+     *
+     * @param key la clave
+     * @param value el valor (no nulo)
+     */
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    /**
+     * Elimina una entrada.
+     *
+     * @param key la clave a invalidar
+     */
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Elimina todas las entradas. Los contadores se conservan.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Proporción de búsquedas resueltas desde la caché.
+     *
+     * @return valor entre 0 y 1
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+}
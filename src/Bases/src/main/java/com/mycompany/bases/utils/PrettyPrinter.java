@@ -9,203 +9,262 @@ package com.mycompany.bases.utils;
  * @author dard
  */
 import org.bson.Document;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * Clase utilitaria para imprimir datos de manera visualmente atractiva en consola.
- * 
+ *
  * Proporciona métodos estáticos para formatear e imprimir:
  * - Documentos de MongoDB con bordes decorativos
  * - ResultSets de base de datos en formato tabular
- * 
+ *
  * Utiliza caracteres Unicode para crear bordes y separadores visuales.
- * 
+ *
+ * Toda la salida pasa por un único writer con buffer grande sobre la salida
+ * estándar, que se vacía explícitamente al terminar cada tabla. Las tablas se
+ * dibujan con {@link TableRenderer}, que precalcula bordes y rellenos.
+ *
  * @author DarThunder
  * @version 1.0
  */
 public class PrettyPrinter {
-    
+
+    /** Tamaño del buffer de consola, en caracteres */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Filas que se leen antes de dibujar para calcular los anchos */
+    private static final int SAMPLE_ROWS = 200;
+
+    /** Ancho máximo de una columna; lo que exceda se recorta */
+    private static final int MAX_COLUMN_WIDTH = 60;
+
+    private static final String DOC_TOP = "╔══════════════════════════════╗\n";
+    private static final String DOC_BOTTOM = "╚══════════════════════════════╝\n";
+    private static final int DOC_KEY_WIDTH = 15;
+    private static final int DOC_VALUE_WIDTH = 10;
+    private static final String DOC_PADDING = " ".repeat(DOC_KEY_WIDTH);
+
+    /**
+     * Writer compartido sobre el descriptor de la salida estándar. No se
+     * cierra nunca: cerrarlo cerraría también la consola.
+     */
+    private static final Writer OUT = new BufferedWriter(
+            new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), System.out.charset()),
+            BUFFER_SIZE);
+
+    /**
+     * Fuente de filas ya convertidas a texto; devuelve null al terminar.
+     */
+    @FunctionalInterface
+    private interface RowSource<E extends Exception> {
+
+        String[] next() throws E;
+    }
+
     /**
      * Imprime un documento de MongoDB en formato de caja con bordes decorativos.
-     * 
+     *
      * Crea una tabla visual con caracteres Unicode donde cada par clave-valor
      * del documento se muestra en una fila separada con formato fijo.
-     * 
+     *
      * @param doc El documento de MongoDB a imprimir
-     * 
+     *
      * Ejemplo de salida:
      * ╔══════════════════════════════╗
      * ║ nombre         : Juan       ║
      * ║ edad           : 25         ║
      * ╚══════════════════════════════╝
      */
-    public static void printDocument(Document doc) {
-        // Imprime la línea superior de la caja
-        System.out.println("╔══════════════════════════════╗");
-        
-        // Itera sobre cada par clave-valor del documento
-        // Formatea: 15 caracteres para clave, 10 para valor, alineado a la izquierda
-        doc.forEach((key, value) -> 
-            System.out.printf("║ %-15s: %-10s ║%n", key, value)
-        );
-        
-        // Imprime la línea inferior de la caja
-        System.out.println("╚══════════════════════════════╝");
+    public static synchronized void printDocument(Document doc) {
+        // Lo pendiente en System.out (menús, avisos) debe salir antes que la caja
+        System.out.flush();
+        printDocument(doc, OUT);
+    }
+
+    /**
+     * Imprime un documento en formato de caja sobre otro destino, con el
+     * mismo formato que {@link #printDocument(Document)}. El writer se vacía
+     * al terminar pero no se cierra.
+     *
+     * @param doc El documento de MongoDB a imprimir
+     * @param out Destino de la salida
+     */
+    public static void printDocument(Document doc, Writer out) {
+        try {
+            out.write(DOC_TOP);
+            for (var entry : doc.entrySet()) {
+                out.write("║ ");
+                writePadded(out, entry.getKey(), DOC_KEY_WIDTH);
+                out.write(": ");
+                writePadded(out, String.valueOf(entry.getValue()), DOC_VALUE_WIDTH);
+                out.write(" ║\n");
+            }
+            out.write(DOC_BOTTOM);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Escribe el texto completo y lo rellena con espacios hasta {@code width},
+     * igual que {@code %-Ns} pero sin formatear.
+     */
+    private static void writePadded(Writer out, String text, int width) throws IOException {
+        out.write(text);
+        if (text.length() < width) {
+            out.write(DOC_PADDING, 0, width - text.length());
+        }
+    }
+
+    /**
+     * Crea un renderizador de una línea por documento que escribe sobre la
+     * consola compartida, para listados largos que se recorren con un cursor.
+     * Lo pendiente en System.out se vacía antes de devolverlo.
+     *
+     * @param fields Campos a mostrar, en orden
+     * @param widths Ancho de cada campo
+     * @return el renderizador; hay que llamar a flush() tras cada bloque
+     */
+    public static DocumentLineRenderer documentLines(String[] fields, int[] widths) {
+        System.out.flush();
+        return new DocumentLineRenderer(OUT, fields, widths);
+    }
+
+    /**
+     * Crea una tabla de anchos fijos que escribe sobre la consola compartida,
+     * para resultados que se entregan fila por fila y no se pueden muestrear
+     * antes de dibujar. Lo pendiente en System.out se vacía antes de
+     * devolverla.
+     *
+     * @param widths Ancho del contenido de cada columna
+     * @return la tabla; hay que llamar a flush() al terminar
+     */
+    public static TableRenderer table(int[] widths) {
+        System.out.flush();
+        return new TableRenderer(OUT, widths);
     }
-    
+
     /**
      * Imprime un ResultSet de base de datos en formato de tabla con bordes.
-     * 
+     *
      * Características:
-     * - Calcula automáticamente el ancho óptimo para cada columna
+     * - Calcula el ancho de cada columna a partir de una muestra de filas
      * - Imprime encabezados de columna con separadores
      * - Maneja valores nulos mostrando "NULL"
      * - Muestra "NO DATA" si el ResultSet está vacío
      * - Utiliza separadores entre filas para mayor claridad
-     * 
+     *
+     * Solo se guardan en memoria las primeras filas (la muestra); el resto se
+     * escribe conforme se lee, por lo que el consumo no depende del tamaño
+     * del resultado.
+     *
+     * @param rs El ResultSet de una consulta SQL a imprimir
+     * @throws SQLException Si ocurre un error al acceder a los metadatos o datos
+     */
+    public static synchronized void printResultSet(ResultSet rs) throws SQLException {
+        printResultSet(rs, OUT);
+    }
+
+    /**
+     * Imprime un ResultSet en formato de tabla sobre otro destino, con el
+     * mismo formato que {@link #printResultSet(ResultSet)}. El writer se
+     * vacía al terminar pero no se cierra.
+     *
      * @param rs El ResultSet de una consulta SQL a imprimir
+     * @param out Destino de la salida
      * @throws SQLException Si ocurre un error al acceder a los metadatos o datos
      */
-    public static void printResultSet(ResultSet rs) throws SQLException {
-        // Obtiene los metadatos para información sobre las columnas
+    public static void printResultSet(ResultSet rs, Writer out) throws SQLException {
         ResultSetMetaData meta = rs.getMetaData();
         int colCount = meta.getColumnCount();
-        
-        // Calcular anchos óptimos de columnas
-        // Toma el máximo entre el tamaño de visualización y la longitud del nombre
-        int[] colWidths = new int[colCount];
+
+        String[] headers = new String[colCount];
         for (int i = 1; i <= colCount; i++) {
-            colWidths[i-1] = Math.max(
-                meta.getColumnDisplaySize(i), 
-                meta.getColumnLabel(i).length()
-            );
+            headers[i - 1] = meta.getColumnLabel(i);
         }
-        
-        // Construye la tabla paso a paso
-        printLine(colWidths, "╔", "╦", "╗");  // Línea superior
-        printHeader(rs, meta, colWidths);     // Encabezados
-        printLine(colWidths, "╠", "╬", "╣");  // Separador después de encabezados
-        
-        // Procesa todas las filas de datos
-        boolean hasRows = false;
-        while (rs.next()) {
-            hasRows = true;
-            printRow(rs, meta, colWidths);    // Imprime la fila actual
-            
-            // Agrega separador entre filas (excepto después de la última)
-            if (!rs.isAfterLast()) {
-                printLine(colWidths, "╠", "╬", "╣");
+
+        printTable(out, headers, () -> {
+            if (!rs.next()) {
+                return null;
             }
-        }
-        
-        // Si no hay datos, muestra una fila indicativa
-        if (!hasRows) {
-            printEmptyRow(colWidths);
-        }
-        
-        // Línea inferior de la tabla
-        printLine(colWidths, "╚", "╩", "╝");
-    }
-    
-    /**
-     * Imprime una línea horizontal de separación en la tabla.
-     * 
-     * Construye dinámicamente la línea basándose en los anchos de columna
-     * y utiliza diferentes caracteres para bordes e intersecciones.
-     * 
-     * @param widths Array con los anchos calculados para cada columna
-     * @param left Carácter para el borde izquierdo (ej: ╔, ╠, ╚)
-     * @param middle Carácter para las intersecciones (ej: ╦, ╬, ╩)
-     * @param right Carácter para el borde derecho (ej: ╗, ╣, ╝)
-     */
-    private static void printLine(int[] widths, String left, String middle, String right) {
-        System.out.print(left);
-        
-        // Para cada columna, imprime el ancho correspondiente de caracteres ═
-        for (int i = 0; i < widths.length; i++) {
-            // +2 para los espacios de padding alrededor del contenido
-            System.out.print("═".repeat(widths[i] + 2));
-            
-            // Agrega intersección entre columnas (excepto después de la última)
-            if (i < widths.length - 1) {
-                System.out.print(middle);
+            String[] row = new String[colCount];
+            for (int i = 1; i <= colCount; i++) {
+                Object value = rs.getObject(i);
+                row[i - 1] = value != null ? value.toString() : "NULL";
             }
-        }
-        
-        System.out.println(right);
+            return row;
+        });
     }
-    
+
     /**
-     * Imprime la fila de encabezados de la tabla.
-     * 
-     * Extrae los nombres de las columnas de los metadatos del ResultSet
-     * y los formatea con el ancho calculado para cada columna.
-     * 
-     * @param rs El ResultSet (usado para consistencia, aunque no se lee aquí)
-     * @param meta Los metadatos del ResultSet que contienen información de columnas
-     * @param widths Array con los anchos calculados para cada columna
-     * @throws SQLException Si hay error al acceder a los metadatos
+     * Imprime filas ya convertidas a texto en formato de tabla con bordes.
+     *
+     * @param headers Títulos de las columnas
+     * @param rows Filas a imprimir, con una celda por columna
      */
-    private static void printHeader(ResultSet rs, ResultSetMetaData meta, int[] widths) throws SQLException {
-        System.out.print("║");
-        
-        // Imprime cada nombre de columna con formato y padding
-        for (int i = 1; i <= widths.length; i++) {
-            // Formato: espacio + texto alineado a la izquierda + espacio + separador
-            System.out.printf(" %-" + widths[i-1] + "s ║", meta.getColumnLabel(i));
-        }
-        
-        System.out.println();
+    public static synchronized void printTable(String[] headers, Iterator<String[]> rows) {
+        printTable(OUT, headers, () -> rows.hasNext() ? rows.next() : null);
     }
-    
-    /**
-     * Imprime una fila de datos de la tabla.
-     * 
-     * Extrae los valores de cada columna del ResultSet actual,
-     * maneja valores nulos convirtiéndolos a "NULL" y aplica
-     * el formateo consistente con el resto de la tabla.
-     * 
-     * @param rs El ResultSet posicionado en la fila a imprimir
-     * @param meta Los metadatos del ResultSet
-     * @param widths Array con los anchos calculados para cada columna
-     * @throws SQLException Si hay error al acceder a los datos
-     */
-    private static void printRow(ResultSet rs, ResultSetMetaData meta, int[] widths) throws SQLException {
-        System.out.print("║");
-        
-        // Procesa cada columna de la fila actual
-        for (int i = 1; i <= widths.length; i++) {
-            // Obtiene el valor como Object para manejar cualquier tipo de dato
-            Object value = rs.getObject(i);
-            
-            // Convierte a String, manejando valores nulos
-            String strValue = (value != null) ? value.toString() : "NULL";
-            
-            // Aplica el mismo formato que los encabezados
-            System.out.printf(" %-" + widths[i-1] + "s ║", strValue);
+
+    private static <E extends Exception> void printTable(Writer out, String[] headers,
+            RowSource<E> source) throws E {
+        // Muestra acotada para calcular anchos sin leer todo el resultado
+        List<String[]> sample = new ArrayList<>(SAMPLE_ROWS);
+        String[] row;
+        while (sample.size() < SAMPLE_ROWS && (row = source.next()) != null) {
+            sample.add(row);
         }
-        
-        System.out.println();
-    }
-    
-    /**
-     * Imprime una fila especial indicando que no hay datos disponibles.
-     * 
-     * Se utiliza cuando el ResultSet está vacío para informar al usuario
-     * de manera clara que la consulta no devolvió resultados.
-     * 
-     * @param widths Array con los anchos calculados para cada columna
-     */
-    private static void printEmptyRow(int[] widths) {
-        System.out.print("║");
-        
-        // Imprime "NO DATA" en cada columna manteniendo el formato
-        for (int i = 0; i < widths.length; i++) {
-            System.out.printf(" %-" + widths[i] + "s ║", "NO DATA");
+
+        boolean empty = sample.isEmpty();
+        if (empty) {
+            // Fila indicativa; entra en la muestra para que quepa en su columna
+            String[] noData = new String[headers.length];
+            Arrays.fill(noData, "NO DATA");
+            sample.add(noData);
         }
-        
-        System.out.println();
+
+        TableRenderer table = new TableRenderer(out,
+                TableRenderer.widthsFromSample(headers, sample, MAX_COLUMN_WIDTH));
+
+        if (out == OUT) {
+            System.out.flush();
+        }
+        table.writeTop();
+        table.writeRow(headers);
+        table.writeSeparator();
+
+        boolean first = true;
+        for (String[] sampled : sample) {
+            if (!first) {
+                table.writeSeparator();
+            }
+            table.writeRow(sampled);
+            first = false;
+        }
+        // La muestra se descarta antes de seguir con el resto del resultado
+        sample.clear();
+        if (!empty) {
+            while ((row = source.next()) != null) {
+                table.writeSeparator();
+                table.writeRow(row);
+            }
+        }
+
+        table.writeBottom();
+        table.flush();
     }
-}
\ No newline at end of file
+}
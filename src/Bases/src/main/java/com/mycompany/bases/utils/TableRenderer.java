@@ -0,0 +1,156 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.utils;
+
+/**
+ *
+ * @author dard
+ */
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Dibuja una tabla con bordes Unicode sobre un {@link Writer}.
+ *
+ * <p>
+ * Todo lo que no depende de los datos se calcula una sola vez al construirla:
+ * las tres líneas de borde completas y una cadena de espacios del ancho de la
+ * columna más ancha, de la que se copian los rellenos. Escribir una fila no
+ * crea cadenas de formato ni objetos intermedios; solo copia caracteres al
+ * writer, que debe tener buffer.</p>
+ *
+ * <p>
+ * Los valores más largos que su columna se recortan terminando en "…" para no
+ * romper la alineación.</p>
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+public class TableRenderer {
+
+    private static final String NULL_TEXT = "NULL";
+
+    private final Writer out;
+    private final int[] widths;
+    private final String top;
+    private final String separator;
+    private final String bottom;
+    private final String padding;
+
+    /**
+     * @param out destino, idealmente con buffer
+     * @param widths ancho del contenido de cada columna
+     */
+    public TableRenderer(Writer out, int[] widths) {
+        this.out = out;
+        this.widths = new int[widths.length];
+        for (int i = 0; i < widths.length; i++) {
+            // Al menos un carácter, para poder mostrar el "…" de recorte
+            this.widths[i] = Math.max(1, widths[i]);
+        }
+        this.top = border("╔", "╦", "╗");
+        this.separator = border("╠", "╬", "╣");
+        this.bottom = border("╚", "╩", "╝");
+
+        int widest = 0;
+        for (int w : this.widths) {
+            widest = Math.max(widest, w);
+        }
+        this.padding = " ".repeat(widest);
+    }
+
+    /**
+     * Calcula el ancho de cada columna a partir de los encabezados y de una
+     * muestra de filas, limitado a {@code maxWidth}.
+     *
+     * @param headers títulos de las columnas
+     * @param sample filas de muestra
+     * @param maxWidth ancho máximo de una columna
+     * @return ancho por columna
+     */
+    public static int[] widthsFromSample(String[] headers, List<String[]> sample, int maxWidth) {
+        int[] widths = new int[headers.length];
+        for (int i = 0; i < headers.length; i++) {
+            widths[i] = Math.min(maxWidth, headers[i].length());
+        }
+        for (String[] row : sample) {
+            for (int i = 0; i < widths.length; i++) {
+                int length = row[i] == null ? NULL_TEXT.length() : row[i].length();
+                widths[i] = Math.min(maxWidth, Math.max(widths[i], length));
+            }
+        }
+        return widths;
+    }
+
+    private String border(String left, String middle, String right) {
+        StringBuilder line = new StringBuilder(left);
+        for (int i = 0; i < widths.length; i++) {
+            // +2 por los espacios de relleno alrededor del contenido
+            line.append("═".repeat(widths[i] + 2));
+            line.append(i < widths.length - 1 ? middle : right);
+        }
+        return line.append('\n').toString();
+    }
+
+    public void writeTop() {
+        write(top);
+    }
+
+    public void writeSeparator() {
+        write(separator);
+    }
+
+    public void writeBottom() {
+        write(bottom);
+    }
+
+    /**
+     * Escribe una fila de celdas ya convertidas a texto.
+     *
+     * @param cells una celda por columna; null se muestra como "NULL"
+     */
+    public void writeRow(String[] cells) {
+        try {
+            out.write('║');
+            for (int i = 0; i < widths.length; i++) {
+                String cell = cells[i] == null ? NULL_TEXT : cells[i];
+                int width = widths[i];
+                out.write(' ');
+                if (cell.length() <= width) {
+                    out.write(cell);
+                    out.write(padding, 0, width - cell.length());
+                } else {
+                    out.write(cell, 0, width - 1);
+                    out.write('…');
+                }
+                out.write(" ║");
+            }
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Vacía el buffer del writer para que la tabla aparezca en pantalla.
+     */
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(String text) {
+        try {
+            out.write(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
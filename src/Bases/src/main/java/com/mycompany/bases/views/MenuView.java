@@ -9,7 +9,12 @@ package com.mycompany.bases.views;
  * @author dard
  */
 import com.mycompany.bases.controllers.*;
-import java.sql.SQLException;
+import com.mycompany.bases.config.DatabaseConfig;
+import com.mycompany.bases.db.SlowQueryLog;
+import com.mycompany.bases.journal.SaleJournal;
+import com.mycompany.bases.services.TiendaService;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Scanner;
 
 /**
@@ -40,6 +45,9 @@ public class MenuView {
     /** Scanner para capturar entrada del usuario desde consola */
     private final Scanner scanner;
     
+    /** Servicio compartido que ejecuta las operaciones sobre ambas bases */
+    private final TiendaService service;
+    
     /** Controlador para operaciones con MongoDB (gestión de usuarios) */
     private final MongoController mongoController;
     
@@ -49,9 +57,9 @@ public class MenuView {
     /**
      * Constructor que inicializa todos los componentes necesarios para la vista.
      * 
-     * Crea las instancias de los controladores de base de datos y configura
-     * el scanner para la entrada del usuario. La inicialización de los
-     * controladores establece automáticamente las conexiones a las bases de datos.
+     * Crea el servicio de la tienda, que establece las conexiones a las bases
+     * de datos, y los controladores de consola que lo usan. Ambos
+     * controladores comparten el servicio y el scanner.
      * 
      * @throws Exception Si ocurre algún error durante la inicialización de
      *                   los controladores o las conexiones a base de datos.
@@ -59,16 +67,35 @@ public class MenuView {
      *                   incorrecta o problemas de autenticación.
      */
     public MenuView() throws Exception {
+        // Conecta a MongoDB y Oracle según configuración
+        this(TiendaService.fromConfig());
+    }
+    
+    /**
+     * Constructor que usa un servicio ya creado, por ejemplo el de
+     * {@link TiendaService#inMemory()} para trabajar sin bases de datos.
+     * La vista cierra el servicio al salir.
+     * 
+     * @param service servicio de la tienda
+     */
+    public MenuView(TiendaService service) {
         // Inicializa el scanner para entrada de datos del usuario
         this.scanner = new Scanner(System.in);
         
-        // Inicializa el controlador de MongoDB
-        // Establece conexión automática según configuración
-        this.mongoController = new MongoController();
+        this.service = service;
+        if (service.getMigratedCustomers() > 0) {
+            System.out.println("Se asignó idCliente a " + service.getMigratedCustomers()
+                    + " usuarios existentes.");
+        }
+        if (service.getIndexReport().hasProblems()) {
+            System.out.println("Revisión de índices:");
+            System.out.print(service.getIndexReport().format());
+        }
+        System.out.println("Acumulados de ventas reconstruidos con " + service.getRebuiltSales() + " ventas.");
         
-        // Inicializa el controlador de Oracle
-        // Establece conexión automática según configuración
-        this.oracleController = new OracleController(mongoController);
+        // Los controladores solo manejan la consola; el trabajo lo hace el servicio
+        this.mongoController = new MongoController(service, scanner);
+        this.oracleController = new OracleController(service, scanner);
     }
     
     /**
@@ -141,39 +168,46 @@ public class MenuView {
      * Cierra adecuadamente todas las conexiones de base de datos.
      * 
      * Este método es crucial para la limpieza de recursos y debe ser llamado
-     * antes de terminar la aplicación. Asegura que todas las conexiones
-     * activas se cierren correctamente para evitar:
-     * - Memory leaks
-     * - Conexiones huérfanas en las bases de datos
-     * - Posibles bloqueos de recursos
+     * antes de terminar la aplicación. El servicio espera a que terminen las
+     * operaciones en curso y después cierra el pool de Oracle y el cliente
+     * de MongoDB, aunque falle alguno de los cierres.
      * 
-     * El método maneja cada conexión de forma independiente para asegurar
-     * que un error en una no impida el cierre de las otras. Los errores
-     * se capturan y reportan sin detener el proceso de limpieza.
-     * 
-     * Orden de cierre:
-     * 1. Oracle Database (maneja SQLException específicamente)
-     * 2. MongoDB (manejo de errores genérico)
-     * 
-     * Cada cierre se confirma con un mensaje informativo al usuario.
+     * Antes de cerrar guarda las métricas de la sesión en
+     * {@link DatabaseConfig#METRICS_SNAPSHOT_FILE} y muestra el resumen del
+     * registro de consultas lentas, que también queda al final de
+     * {@link DatabaseConfig#SLOW_QUERY_LOG_FILE}. Si al cerrar quedaron
+     * ventas del diario sin enviar a Oracle, lo avisa.
      */
     private void closeConnections() {
-        // Cierre de conexión Oracle con manejo específico de SQLException
         try {
-            if (oracleController != null) {
-                oracleController.close();
-                System.out.println("\nConexión a OracleDB cerrada.");
+            service.writeMetricsSnapshot(Path.of(DatabaseConfig.METRICS_SNAPSHOT_FILE));
+            System.out.println("\nMétricas guardadas en " + DatabaseConfig.METRICS_SNAPSHOT_FILE);
+        } catch (IOException e) {
+            System.err.println("No se pudieron guardar las métricas: " + e.getMessage());
+        }
+        
+        SlowQueryLog slowQueries = service.getSlowQueryLog();
+        if (slowQueries != null) {
+            String report = slowQueries.report();
+            if (!report.isEmpty()) {
+                System.out.println("\nSentencias de Oracle en la sesión:");
+                System.out.print(report);
             }
-        } catch (SQLException e) {
-            // Manejo específico de errores SQL sin interrumpir el proceso
-            System.err.println("Error al cerrar Oracle: " + e.getMessage());
         }
         
-        // Cierre de conexión MongoDB
-        // MongoDB no lanza SQLException, manejo más simple
-        if (mongoController != null) {
-            mongoController.close();
-            System.out.println("Conexión a MongoDB cerrada.");
+        try {
+            service.close();
+            if (service.hasConnections()) {
+                System.out.println("\nConexiones a OracleDB y MongoDB cerradas.");
+            }
+            SaleJournal.Stats journal = service.getSaleJournalStats();
+            if (journal != null && journal.pending() > 0) {
+                System.out.println("Quedan " + journal.pending() + " ventas en el diario; se enviarán a Oracle"
+                        + " la próxima vez que se abra la aplicación.");
+            }
+        } catch (RuntimeException e) {
+            // Un error al cerrar no debe impedir la salida
+            System.err.println("Error al cerrar conexiones: " + e.getMessage());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,214 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.journal;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.models.LineaVenta;
+import com.mycompany.bases.models.VentaPendiente;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Recuperación de {@link SaleJournal} al reabrir: registros rotos o fuera de
+ * secuencia, vueltas al inicio del archivo y Oracle adelantado al diario.
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+class SaleJournalTest {
+
+    private static final int CAPACITY = 1 << 20;
+    /** Encabezado del archivo */
+    private static final int HEADER = 64;
+    /** Longitud y CRC de cada registro */
+    private static final int RECORD_HEADER = 8;
+    private static final LocalDateTime FECHA = LocalDateTime.of(2024, 5, 17, 10, 30, 15);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reabrirRecuperaLasVentasPendientes() throws IOException {
+        Path file = dir.resolve("ventas.diario");
+        try (SaleJournal journal = SaleJournal.open(file, CAPACITY, false)) {
+            journal.append(7, FECHA, List.of(new LineaVenta(1, 2), new LineaVenta(3, 4)));
+            journal.append(8, FECHA, List.of(new LineaVenta(5, 1)));
+        }
+        try (SaleJournal journal = SaleJournal.open(file, CAPACITY, false)) {
+            List<VentaPendiente> pendientes = journal.pending(10);
+            assertEquals(List.of(
+                    new VentaPendiente(1, 7, FECHA, List.of(new LineaVenta(1, 2), new LineaVenta(3, 4))),
+                    new VentaPendiente(2, 8, FECHA, List.of(new LineaVenta(5, 1)))), pendientes);
+            assertEquals(3, journal.append(9, FECHA, List.of(new LineaVenta(1, 1))).secuencia());
+        }
+    }
+
+    @Test
+    void registroRotoAlFinalSeDescarta() throws IOException {
+        Path file = dir.resolve("ventas.diario");
+        try (SaleJournal journal = SaleJournal.open(file, CAPACITY, false)) {
+            journal.append(1, FECHA, List.of(new LineaVenta(1, 1)));
+            journal.append(2, FECHA, List.of(new LineaVenta(2, 2)));
+        }
+        // Cambia la cantidad de la segunda venta sin rehacer su CRC, como
+        // si el proceso hubiera muerto a mitad del registro
+        int segundo = HEADER + recordSize(1);
+        int cantidad = segundo + RECORD_HEADER + 24 + 4;
+        write(file, cantidad, ByteBuffer.allocate(4).putInt(0, 99));
+
+        try (SaleJournal journal = SaleJournal.open(file, CAPACITY, false)) {
+            assertEquals(List.of(1L), secuencias(journal.pending(10)));
+            // La venta 2 se vuelve a numerar y sobrescribe el registro roto
+            assertEquals(2, journal.append(3, FECHA, List.of(new LineaVenta(3, 3))).secuencia());
+        }
+        try (SaleJournal journal = SaleJournal.open(file, CAPACITY, false)) {
+            List<VentaPendiente> pendientes = journal.pending(10);
+            assertEquals(List.of(1L, 2L), secuencias(pendientes));
+            assertEquals(3, pendientes.get(1).idUsuario());
+        }
+    }
+
+    @Test
+    void longitudSinCuerpoSeDescarta() throws IOException {
+        Path file = dir.resolve("ventas.diario");
+        try (SaleJournal journal = SaleJournal.open(file, CAPACITY, false)) {
+            journal.append(1, FECHA, List.of(new LineaVenta(1, 1)));
+        }
+        // Longitud escrita, pero ni el CRC ni el cuerpo llegaron al disco
+        write(file, HEADER + recordSize(1), ByteBuffer.allocate(4).putInt(0, 24 + 8));
+
+        try (SaleJournal journal = SaleJournal.open(file, CAPACITY, false)) {
+            assertEquals(List.of(1L), secuencias(journal.pending(10)));
+        }
+    }
+
+    @Test
+    void registroFueraDeSecuenciaSeDescarta() throws IOException {
+        Path file = dir.resolve("ventas.diario");
+        try (SaleJournal journal = SaleJournal.open(file, CAPACITY, false)) {
+            journal.append(1, FECHA, List.of(new LineaVenta(1, 1)));
+            journal.append(2, FECHA, List.of(new LineaVenta(2, 2)));
+        }
+        // Copia la venta 1, con su CRC válido, detrás de la 2: la secuencia
+        // no sigue, así que es un resto y no una venta nueva
+        int size = recordSize(1);
+        ByteBuffer primera = ByteBuffer.allocate(size);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.read(primera, HEADER);
+        }
+        write(file, HEADER + 2 * size, primera.flip());
+
+        try (SaleJournal journal = SaleJournal.open(file, CAPACITY, false)) {
+            assertEquals(List.of(1L, 2L), secuencias(journal.pending(10)));
+            assertEquals(3, journal.append(3, FECHA, List.of(new LineaVenta(3, 3))).secuencia());
+        }
+    }
+
+    @Test
+    void vueltaAlInicioIgnoraLosRestosDeLaAnterior() throws IOException {
+        Path file = dir.resolve("ventas.diario");
+        List<LineaVenta> grande = lineas(1000);
+        long ultima;
+        try (SaleJournal journal = SaleJournal.open(file, CAPACITY, false)) {
+            long seq = 0;
+            while (journal.stats().used() <= CAPACITY / 2) {
+                seq = journal.append(1, FECHA, grande).secuencia();
+            }
+            ultima = seq;
+            // Todo está en Oracle y se pasó de la mitad: vuelve al inicio
+            journal.drained(ultima);
+            assertEquals(HEADER, journal.stats().used());
+            assertEquals(ultima + 1, journal.append(2, FECHA, List.of(new LineaVenta(1, 1))).secuencia());
+        }
+        try (SaleJournal journal = SaleJournal.open(file, CAPACITY, false)) {
+            List<VentaPendiente> pendientes = journal.pending(100);
+            assertEquals(List.of(ultima + 1), secuencias(pendientes));
+            assertEquals(ultima, journal.stats().lastApplied());
+        }
+    }
+
+    @Test
+    void llenoConVentasSinEnviar() throws IOException {
+        Path file = dir.resolve("ventas.diario");
+        List<LineaVenta> maxima = lineas(SaleJournal.MAX_LINES);
+        try (SaleJournal journal = SaleJournal.open(file, CAPACITY, false)) {
+            int caben = (CAPACITY - HEADER) / recordSize(SaleJournal.MAX_LINES);
+            for (int i = 0; i < caben; i++) {
+                journal.append(1, FECHA, maxima);
+            }
+            assertThrows(IOException.class, () -> journal.append(1, FECHA, maxima));
+            // Una vez enviadas, se vuelve al inicio y hay lugar otra vez
+            journal.drained(caben);
+            assertEquals(caben + 1, journal.append(1, FECHA, maxima).secuencia());
+        }
+    }
+
+    @Test
+    void drainedConOracleAdelantadoSigueNumerandoDespues() throws IOException {
+        Path file = dir.resolve("ventas.diario");
+        try (SaleJournal journal = SaleJournal.open(file, CAPACITY, false)) {
+            journal.append(1, FECHA, List.of(new LineaVenta(1, 1)));
+            journal.append(2, FECHA, List.of(new LineaVenta(2, 2)));
+
+            // Oracle ya tiene hasta la 5: el final del diario se perdió
+            journal.drained(5);
+            assertTrue(journal.pending(10).isEmpty());
+            assertEquals(5, journal.stats().lastApplied());
+            assertEquals(6, journal.append(3, FECHA, List.of(new LineaVenta(3, 3))).secuencia());
+        }
+        try (SaleJournal journal = SaleJournal.open(file, CAPACITY, false)) {
+            assertEquals(List.of(6L), secuencias(journal.pending(10)));
+        }
+    }
+
+    @Test
+    void drainedParcialDejaElResto() throws IOException {
+        Path file = dir.resolve("ventas.diario");
+        try (SaleJournal journal = SaleJournal.open(file, CAPACITY, false)) {
+            for (int i = 1; i <= 4; i++) {
+                journal.append(i, FECHA, List.of(new LineaVenta(i, i)));
+            }
+            journal.drained(2);
+            assertEquals(List.of(3L, 4L), secuencias(journal.pending(10)));
+            assertEquals(2, journal.stats().pending());
+        }
+    }
+
+    private static int recordSize(int lineas) {
+        return RECORD_HEADER + 24 + 8 * lineas;
+    }
+
+    private static List<LineaVenta> lineas(int n) {
+        List<LineaVenta> lineas = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            lineas.add(new LineaVenta(i + 1, 1));
+        }
+        return lineas;
+    }
+
+    private static List<Long> secuencias(List<VentaPendiente> ventas) {
+        return ventas.stream().map(VentaPendiente::secuencia).toList();
+    }
+
+    private static void write(Path file, long position, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(bytes, position);
+        }
+    }
+}
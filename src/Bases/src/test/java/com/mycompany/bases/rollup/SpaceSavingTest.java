@@ -0,0 +1,103 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.rollup;
+
+/**
+ *
+ * @author dard
+ */
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Cotas de {@link SpaceSaving} con sumas y restas mezcladas, comparadas con
+ * las cuentas exactas.
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+class SpaceSavingTest {
+
+    @Test
+    void pisoNoBajaDeLaClaveReemplazadaAlRestar() {
+        SpaceSaving sketch = new SpaceSaving(2);
+        sketch.add(1, 10);
+        sketch.add(2, 10);
+        sketch.add(3, 1);
+        sketch.subtract(2, 10);
+        sketch.subtract(1, 10);
+
+        // La clave reemplazada (1 o 2) tuvo 10 y ya no está en el resumen
+        assertTrue(sketch.floor() >= 10, "piso " + sketch.floor());
+        List<SpaceSaving.Estimate> top = new ArrayList<>();
+        SpaceSaving.top(List.of(sketch), 2, top);
+        for (SpaceSaving.Estimate e : top) {
+            assertTrue(e.error() <= sketch.floor(), e.toString());
+        }
+    }
+
+    @Test
+    void cotasConSumasYRestas() {
+        Random random = new Random(42);
+        for (int capacity : new int[]{1, 2, 5, 16}) {
+            SpaceSaving sketch = new SpaceSaving(capacity);
+            Map<Long, Long> real = new HashMap<>();
+            for (int i = 0; i < 20_000; i++) {
+                long key = random.nextInt(40);
+                long current = real.getOrDefault(key, 0L);
+                if (current > 0 && random.nextInt(3) == 0) {
+                    long weight = 1 + random.nextInt((int) Math.min(current, 20));
+                    sketch.subtract(key, weight);
+                    real.put(key, current - weight);
+                } else {
+                    long weight = 1 + random.nextInt(20);
+                    sketch.add(key, weight);
+                    real.put(key, current + weight);
+                }
+                if (i % 97 == 0) {
+                    verificar(sketch, real, capacity);
+                }
+            }
+            verificar(sketch, real, capacity);
+        }
+    }
+
+    @Test
+    void totalDescuentaLasRestas() {
+        SpaceSaving sketch = new SpaceSaving(2);
+        sketch.add(1, 5);
+        sketch.add(2, 7);
+        sketch.add(3, 4);
+        sketch.subtract(1, 5);
+        assertEquals(11, sketch.total());
+    }
+
+    private static void verificar(SpaceSaving sketch, Map<Long, Long> real, int capacity) {
+        List<SpaceSaving.Estimate> top = new ArrayList<>();
+        SpaceSaving.top(List.of(sketch), capacity, top);
+        long floor = sketch.floor();
+        Set<Long> presentes = new HashSet<>();
+        for (SpaceSaving.Estimate e : top) {
+            long exacto = real.getOrDefault(e.key(), 0L);
+            presentes.add(e.key());
+            assertTrue(e.count() >= exacto, e + " real " + exacto);
+            assertTrue(e.count() - e.error() <= exacto, e + " real " + exacto);
+            assertTrue(e.error() <= floor, e + " piso " + floor);
+        }
+        real.forEach((key, exacto) -> {
+            if (!presentes.contains(key)) {
+                assertTrue(exacto <= floor, "clave " + key + " real " + exacto + " piso " + floor);
+            }
+        });
+    }
+}
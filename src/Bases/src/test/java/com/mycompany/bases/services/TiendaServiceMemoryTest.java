@@ -0,0 +1,101 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.mycompany.bases.services;
+
+/**
+ *
+ * @author dard
+ */
+import com.mycompany.bases.models.LineaVenta;
+import com.mycompany.bases.models.Producto;
+import com.mycompany.bases.models.ResultadoVenta;
+import com.mycompany.bases.models.Usuario;
+import com.mycompany.bases.models.Venta;
+import com.mycompany.bases.repository.UserRepository;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Contratos de ventas y usuarios sobre {@link TiendaService#inMemory()}.
+ *
+ * @author DarThunder
+ * @version 1.0
+ */
+class TiendaServiceMemoryTest {
+
+    private TiendaService service;
+
+    @BeforeEach
+    void abrir() {
+        service = TiendaService.inMemory();
+    }
+
+    @AfterEach
+    void cerrar() {
+        service.close();
+    }
+
+    @Test
+    void deleteVentaQuitaLaVentaYSusDetalles() {
+        Usuario cliente = service.addUser("Ana", "ana@example.com", 30).join();
+        Producto camisa = service.addProduct("Camisa", "Ropa", "Azul", "M", 250).join();
+        Producto gorra = service.addProduct("Gorra", "Accesorios", "Negro", "U", 120).join();
+        int idCliente = (int) cliente.idCliente();
+
+        ResultadoVenta venta = service.createVenta(idCliente, List.of(
+                new LineaVenta(camisa.idProducto(), 2), new LineaVenta(gorra.idProducto(), 1))).join();
+        ResultadoVenta otra = service.createVenta(idCliente, List.of(
+                new LineaVenta(gorra.idProducto(), 3))).join();
+        assertTrue(venta.creada());
+        assertEquals(2, service.findVenta(venta.idVenta()).join().orElseThrow().detalles().size());
+
+        assertTrue(service.deleteVenta(venta.idVenta()).join());
+
+        assertTrue(service.findVenta(venta.idVenta()).join().isEmpty());
+        assertFalse(service.ventaExists(venta.idVenta()).join());
+        List<Venta> delCliente = service.listVentasByCliente(idCliente).join();
+        assertEquals(List.of(otra.idVenta()), delCliente.stream().map(Venta::idVenta).toList());
+        assertEquals(1, service.findVenta(otra.idVenta()).join().orElseThrow().detalles().size());
+        assertFalse(service.deleteVenta(venta.idVenta()).join());
+    }
+
+    @Test
+    void scanUsersRecorrePorTramosDesdeElUltimoEntregado() {
+        for (int i = 1; i <= 5; i++) {
+            service.addUser("Usuario " + i, "u" + i + "@example.com", 20 + i).join();
+        }
+        service.deleteUserByName("Usuario 3").join();
+
+        List<String> nombres = new ArrayList<>();
+        UserRepository.UserScan tramo = service.scanUsers(null, 2, u -> nombres.add(u.nombre())).join();
+        assertEquals(2, tramo.count());
+        assertEquals("Usuario 2", tramo.last().nombre());
+
+        tramo = service.scanUsers(tramo.last(), 2, u -> nombres.add(u.nombre())).join();
+        assertEquals(2, tramo.count());
+        assertEquals(List.of("Usuario 1", "Usuario 2", "Usuario 4", "Usuario 5"), nombres);
+
+        Usuario ultimo = tramo.last();
+        tramo = service.scanUsers(ultimo, 0, u -> nombres.add(u.nombre())).join();
+        assertEquals(0, tramo.count());
+        assertSame(ultimo, tramo.last());
+    }
+
+    @Test
+    void scanUsersSinUsuarios() {
+        UserRepository.UserScan tramo = service.scanUsers(null, 10, u -> {
+        }).join();
+        assertEquals(0, tramo.count());
+        assertNull(tramo.last());
+    }
+}